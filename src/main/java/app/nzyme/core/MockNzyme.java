@@ -35,6 +35,7 @@ import app.nzyme.core.gnss.GNSS;
 import app.nzyme.core.integrations.geoip.GeoIpService;
 import app.nzyme.core.integrations.tenant.cot.CotService;
 import app.nzyme.core.monitoring.health.HealthMonitor;
+import app.nzyme.core.monitoring.timeseries.MetricsStore;
 import app.nzyme.core.ouis.OuiService;
 import app.nzyme.core.quota.QuotaService;
 import app.nzyme.core.registry.RegistryChangeMonitorImpl;
@@ -90,7 +91,10 @@ public class MockNzyme implements NzymeNode {
 
     private final NodeConfiguration configuration;
     private final OuiService ouiService;
+    private final CotService cotService;
+    private final AssetManager assetManager;
     private final MetricRegistry metricRegistry;
+    private final MetricsStore metricsStore;
     private final ObjectMapper objectMapper;
     private final Version version;
     private final Database database;
@@ -140,7 +144,6 @@ public class MockNzyme implements NzymeNode {
         }
 
         this.registry = new RegistryImpl(this, "core");
-        this.registryChangeMonitor = new RegistryChangeMonitorImpl(this);
 
         // Metrics.
         this.metricRegistry = new MetricRegistry();
@@ -151,11 +154,16 @@ public class MockNzyme implements NzymeNode {
         this.metricRegistry.register("mem", new MemoryUsageGaugeSet());
         this.metricRegistry.register("threadstates", new ThreadStatesGaugeSet());
 
+        // Not initialized. It would hold a database connection for every mock instance.
+        this.registryChangeMonitor = new RegistryChangeMonitorImpl(this);
+
         this.geoIp = new GeoIpService(this);
         this.geoIp.initialize();
 
         this.eventEngine = new EventEngineImpl(this);
 
+        this.metricsStore = new MetricsStore(this);
+
         this.nodeManager = new NodeManager(this);
         try {
             this.nodeManager.initialize();
@@ -181,6 +189,8 @@ public class MockNzyme implements NzymeNode {
         this.crypto = new Crypto(this);
 
         this.ouiService = new OuiService(this);
+        this.cotService = new CotService(this);
+        this.assetManager = new AssetManager(this);
         this.objectMapper = new ObjectMapper();
 
     }
@@ -237,6 +247,11 @@ public class MockNzyme implements NzymeNode {
         return null;
     }
 
+    @Override
+    public MetricsStore getMetricsStore() {
+        return metricsStore;
+    }
+
     @Override
     public Ethernet getEthernet() {
         return null;
@@ -264,7 +279,7 @@ public class MockNzyme implements NzymeNode {
 
     @Override
     public AssetManager getAssetsManager() {
-        return null;
+        return assetManager;
     }
 
     @Override
@@ -379,7 +394,7 @@ public class MockNzyme implements NzymeNode {
 
     @Override
     public CotService getCotService() {
-        return null;
+        return cotService;
     }
 
 
@@ -45,7 +45,11 @@ import app.nzyme.core.gnss.GNSS;
 import app.nzyme.core.integrations.ScheduledIntegrationsManager;
 import app.nzyme.core.integrations.geoip.GeoIpService;
 import app.nzyme.core.integrations.tenant.cot.CotService;
+import app.nzyme.core.monitoring.health.HealthChecks;
 import app.nzyme.core.monitoring.health.HealthMonitor;
+import app.nzyme.core.monitoring.timeseries.MetricsRetentionCleaner;
+import app.nzyme.core.monitoring.timeseries.MetricsRollupUpdater;
+import app.nzyme.core.monitoring.timeseries.MetricsStore;
 import app.nzyme.core.ouis.OuiService;
 import app.nzyme.core.periodicals.connect.ConnectStatusReporter;
 import app.nzyme.core.context.ContextCleaner;
@@ -108,7 +112,7 @@ public class NzymeNodeImpl implements NzymeNode {
     private final AuthenticationService authenticationService;
 
     private final RegistryImpl registry;
-    private final RegistryChangeMonitor registryChangeMonitor;
+    private final RegistryChangeMonitorImpl registryChangeMonitor;
 
     private final Subsystems subsystems;
     private final QuotaService quotaService;
@@ -118,6 +122,7 @@ public class NzymeNodeImpl implements NzymeNode {
     private final NzymeHttpServer httpServer;
 
     private final MetricRegistry metrics;
+    private final MetricsStore metricsStore;
     private final TapManager tapManager;
     private final MessageBus messageBus;
     private final TasksQueue tasksQueue;
@@ -174,6 +179,8 @@ public class NzymeNodeImpl implements NzymeNode {
         this.subsystems = new Subsystems(this);
         this.quotaService = new QuotaService(this);
 
+        this.metricsStore = new MetricsStore(this);
+
         this.nodeManager = new NodeManager(this);
         try {
             this.nodeManager.initialize();
@@ -244,6 +251,10 @@ public class NzymeNodeImpl implements NzymeNode {
         this.messageBus.initialize();
         LOG.info("Done.");
 
+        LOG.info("Initializing registry change monitor...");
+        this.registryChangeMonitor.initialize();
+        LOG.info("Done.");
+
         LOG.info("Initializing tasks queue [{}] ...", this.tasksQueue.getClass().getCanonicalName());
         this.tasksQueue.initialize();
         LOG.info("Done.");
@@ -300,8 +311,8 @@ public class NzymeNodeImpl implements NzymeNode {
         // Database metrics.
         metrics.register(MetricNames.DATABASE_SIZE, (Gauge<Long>) database::getTotalSize);
 
-        // Periodicals. (TODO: Replace with scheduler service)
-        PeriodicalManager periodicalManager = new PeriodicalManager();
+        // Periodicals.
+        PeriodicalManager periodicalManager = new PeriodicalManager(this);
         periodicalManager.scheduleAtFixedRate(new NodeUpdater(this), 0, 5, TimeUnit.SECONDS);
         periodicalManager.scheduleAtFixedRate(new ConnectStatusReporter(this), 0, 1, TimeUnit.MINUTES);
         periodicalManager.scheduleAtFixedRate(new L4ConnectionCleaner(this), 0, 1, TimeUnit.MINUTES);
@@ -313,6 +324,8 @@ public class NzymeNodeImpl implements NzymeNode {
         periodicalManager.scheduleAtFixedRate(new DatabaseRetentionCleaner(this), 1, 60, TimeUnit.MINUTES);
         periodicalManager.scheduleAtFixedRate(new AssetMonitor(this), 1, 1, TimeUnit.MINUTES);
         periodicalManager.scheduleAtFixedRate(new AssetStatisticsCleaner(this), 1, 10, TimeUnit.MINUTES);
+        periodicalManager.scheduleAtFixedRate(new MetricsRollupUpdater(this), 1, 5, TimeUnit.MINUTES);
+        periodicalManager.scheduleAtFixedRate(new MetricsRetentionCleaner(this), 1, 10, TimeUnit.MINUTES);
         if (configuration.versionchecksEnabled()) {
             periodicalManager.scheduleAtFixedRate(new VersioncheckThread(version, this), 0, 60, TimeUnit.MINUTES);
         } else {
@@ -320,6 +333,7 @@ public class NzymeNodeImpl implements NzymeNode {
         }
 
         healthMonitor.initialize();
+        periodicalManager.scheduleAtFixedRate(new HealthChecks(healthMonitor), 0, 1, TimeUnit.MINUTES);
 
         // Load plugins.
         PluginLoader pl = new PluginLoader(new File(configuration.pluginDirectory())); // TODO make path configurable
@@ -359,6 +373,8 @@ public class NzymeNodeImpl implements NzymeNode {
             httpServer.shutdownNow();
         }
 
+        registryChangeMonitor.stop();
+
         LOG.info("Shutdown complete.");
     }
 
@@ -397,6 +413,11 @@ public class NzymeNodeImpl implements NzymeNode {
         return healthMonitor;
     }
 
+    @Override
+    public MetricsStore getMetricsStore() {
+        return metricsStore;
+    }
+
     @Override
     public Ethernet getEthernet() {
         return ethernet;
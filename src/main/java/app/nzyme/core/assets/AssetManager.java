@@ -4,6 +4,14 @@ import app.nzyme.core.NzymeNode;
 import app.nzyme.core.assets.db.AssetEntry;
 import app.nzyme.core.assets.db.AssetHostnameEntry;
 import app.nzyme.core.assets.db.AssetIpAddressEntry;
+import app.nzyme.core.context.ContextService;
+import app.nzyme.core.context.TransparentContextValue;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.DatabaseTools;
+import app.nzyme.core.database.Keyset;
+import app.nzyme.core.database.KeysetColumn;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.detection.alerts.DetectionType;
 import app.nzyme.core.shared.db.GenericIntegerHistogramEntry;
@@ -14,14 +22,19 @@ import app.nzyme.core.util.filters.FilterSqlFragment;
 import app.nzyme.core.util.filters.Filters;
 import app.nzyme.plugin.Subsystem;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.Query;
 import org.joda.time.DateTime;
 
-import java.net.InetAddress;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public class AssetManager {
@@ -30,16 +43,21 @@ public class AssetManager {
 
     private static final int ACTIVE_ASSET_TIMEOUT_MINUTES = 30;
 
+    private static final KeysetColumn ASSET_KEYSET_KEY = KeysetColumn.plain("id", "bigint");
+
     public enum OrderColumn {
 
-        FIRST_SEEN("first_seen"),
-        LAST_SEEN("last_seen"),
-        MAC("mac");
+        FIRST_SEEN("first_seen", KeysetColumn.plain("first_seen", "timestamptz")),
+        LAST_SEEN("last_seen", KeysetColumn.plain("last_seen", "timestamptz")),
+        MAC("mac", KeysetColumn.plain("mac", "text"));
 
         private final String columnName;
 
-        OrderColumn(String columnName) {
+        private final KeysetColumn keysetColumn;
+
+        OrderColumn(String columnName, KeysetColumn keysetColumn) {
             this.columnName = columnName;
+            this.keysetColumn = keysetColumn;
         }
 
         public String getColumnName() {
@@ -108,20 +126,34 @@ public class AssetManager {
     }
 
     public long countAssets(TimeRange timeRange, Filters filters, UUID organizationId, UUID tenantId) {
+        return countAssets(timeRange, filters, organizationId, tenantId, CountMode.EXACT);
+    }
+
+    public long countAssets(TimeRange timeRange,
+                            Filters filters,
+                            UUID organizationId,
+                            UUID tenantId,
+                            CountMode countMode) {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new AssetFilters());
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT COUNT(*) FROM assets WHERE organization_id = :organization_id " +
-                                "AND tenant_id = :tenant_id AND last_seen >= :tr_from " +
-                                "AND last_seen <= :tr_to" + filterFragment.whereSql())
-                        .bind("organization_id", organizationId)
-                        .bind("tenant_id", tenantId)
-                        .bind("tr_from", timeRange.from())
-                        .bind("tr_to", timeRange.to())
-                        .bindMap(filterFragment.bindings())
-                        .mapTo(Long.class)
-                        .one()
-        );
+        String conditionsSql = "FROM assets WHERE organization_id = :organization_id " +
+                "AND tenant_id = :tenant_id AND last_seen >= :tr_from " +
+                "AND last_seen <= :tr_to" + filterFragment.whereSql();
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            Query query = handle.createQuery(countMode == CountMode.ESTIMATED
+                            ? DatabaseTools.EXPLAIN + "SELECT 1 " + conditionsSql
+                            : "SELECT COUNT(*) " + conditionsSql)
+                    .bind("organization_id", organizationId)
+                    .bind("tenant_id", tenantId)
+                    .bind("tr_from", timeRange.from())
+                    .bind("tr_to", timeRange.to())
+                    .bindMap(filterFragment.bindings());
+
+            return countMode == CountMode.ESTIMATED
+                    ? DatabaseTools.estimateRows(query)
+                    : query.mapTo(Long.class).one();
+        });
     }
 
     public List<AssetEntry> findAllAssets(UUID organizationId,
@@ -135,11 +167,7 @@ public class AssetManager {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new AssetFilters());
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT *, " +
-                                "(last_seen >= (NOW() - interval '" + ACTIVE_ASSET_TIMEOUT_MINUTES + " minute')) " +
-                                "AS is_active FROM assets WHERE organization_id = :organization_id " +
-                                "AND tenant_id = :tenant_id AND last_seen >= :tr_from " +
-                                "AND last_seen <= :tr_to " + filterFragment.whereSql() + " " +
+                handle.createQuery(buildAssetsSql(filterFragment) + " " +
                                 "ORDER BY <order_column> <order_direction> " +
                                 "LIMIT :limit OFFSET :offset")
                         .bind("organization_id", organizationId)
@@ -156,6 +184,47 @@ public class AssetManager {
         );
     }
 
+    public KeysetPage<AssetEntry> findAssetsPage(UUID organizationId,
+                                                 UUID tenantId,
+                                                 TimeRange timeRange,
+                                                 Filters filters,
+                                                 int limit,
+                                                 @Nullable KeysetCursor cursor,
+                                                 OrderColumn orderColumn,
+                                                 OrderDirection orderDirection) {
+        FilterSqlFragment filterFragment = FilterSql.generate(filters, new AssetFilters());
+
+        String condition = Keyset.condition(orderColumn.keysetColumn, ASSET_KEYSET_KEY, orderDirection, cursor);
+        String sql = Keyset.pageSql(
+                buildAssetsSql(filterFragment) + condition,
+                orderColumn.keysetColumn,
+                ASSET_KEYSET_KEY,
+                orderDirection
+        );
+
+        return nzyme.getDatabase().withHandle(handle ->
+                Keyset.fetch(
+                        handle.createQuery(sql)
+                                .bind("organization_id", organizationId)
+                                .bind("tenant_id", tenantId)
+                                .bind("tr_from", timeRange.from())
+                                .bind("tr_to", timeRange.to())
+                                .bindMap(filterFragment.bindings()),
+                        AssetEntry.class,
+                        cursor,
+                        limit
+                )
+        );
+    }
+
+    private static String buildAssetsSql(FilterSqlFragment filterFragment) {
+        return "SELECT *, " +
+                "(last_seen >= (NOW() - interval '" + ACTIVE_ASSET_TIMEOUT_MINUTES + " minute')) " +
+                "AS is_active FROM assets WHERE organization_id = :organization_id " +
+                "AND tenant_id = :tenant_id AND last_seen >= :tr_from " +
+                "AND last_seen <= :tr_to " + filterFragment.whereSql();
+    }
+
     public long countAllInactiveAssets(TimeRange timeRange,
                                        Filters filters,
                                        UUID organizationId,
@@ -264,60 +333,76 @@ public class AssetManager {
     }
 
 
-    public void attachTransparentContextHostname(String macAddress,
-                                                 UUID organizationId,
-                                                 UUID tenantId,
-                                                 String hostname,
-                                                 String source,
-                                                 DateTime lastSeen) {
-        Optional<AssetEntry> asset = findAssetByMac(macAddress, organizationId, tenantId);
-
-        if (asset.isEmpty()) {
-            LOG.debug("MAC address [{}] of transparent context not found in assets. Skipping.", macAddress);
+    /**
+     * Attaches the transparent context hostnames and IP addresses of MAC addresses to their assets, in batches.
+     * Values of MAC addresses that are not known as assets are skipped.
+     */
+    public void attachTransparentContext(Handle handle,
+                                         UUID organizationId,
+                                         UUID tenantId,
+                                         List<TransparentContextValue> values) {
+        if (values.isEmpty()) {
             return;
         }
 
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("INSERT INTO assets_hostnames(asset_id, uuid, hostname, source, first_seen, " +
-                                "last_seen) VALUES(:asset_id, :uuid, :hostname, :source, :first_seen, :last_seen) " +
-                                "ON CONFLICT (asset_id, hostname, source) DO UPDATE " +
-                                "SET last_seen = GREATEST(assets_hostnames.last_seen, EXCLUDED.last_seen)")
-                        .bind("asset_id", asset.get().id())
-                        .bind("uuid", UUID.randomUUID())
-                        .bind("hostname", hostname)
-                        .bind("source", source)
-                        .bind("first_seen", lastSeen) // Same for INSERT, ignored in UPDATE.
-                        .bind("last_seen", lastSeen)
-                        .execute()
-        );
-    }
+        Set<String> macs = Sets.newHashSet();
+        for (TransparentContextValue value : values) {
+            macs.add(value.macAddress());
+        }
 
-    public void attachTransparentContextIpAddress(String macAddress,
-                                                  UUID organizationId,
-                                                  UUID tenantId,
-                                                  InetAddress address,
-                                                  String source,
-                                                  DateTime lastSeen) {
-        Optional<AssetEntry> asset = findAssetByMac(macAddress, organizationId, tenantId);
+        // MAC address -> Asset ID.
+        Map<String, Long> assets = Maps.newHashMap();
+        handle.createQuery("SELECT id, mac FROM assets WHERE mac IN (<macs>) " +
+                        "AND organization_id = :organization_id AND tenant_id = :tenant_id")
+                .bindList("macs", List.copyOf(macs))
+                .bind("organization_id", organizationId)
+                .bind("tenant_id", tenantId)
+                .map((rs, ctx) -> Map.entry(rs.getString("mac"), rs.getLong("id")))
+                .forEach(e -> assets.put(e.getKey(), e.getValue()));
+
+        PreparedBatch hostnames = handle.prepareBatch("INSERT INTO assets_hostnames(asset_id, uuid, hostname, " +
+                "source, first_seen, last_seen) VALUES(:asset_id, :uuid, :hostname, :source, :first_seen, " +
+                ":last_seen) ON CONFLICT (asset_id, hostname, source) DO UPDATE " +
+                "SET last_seen = GREATEST(assets_hostnames.last_seen, EXCLUDED.last_seen)");
+        PreparedBatch addresses = handle.prepareBatch("INSERT INTO assets_ip_addresses(asset_id, uuid, address, " +
+                "source, first_seen, last_seen) VALUES(:asset_id, :uuid, :address, :source, :first_seen, " +
+                ":last_seen) ON CONFLICT (asset_id, address, source) DO UPDATE " +
+                "SET last_seen = GREATEST(assets_ip_addresses.last_seen, EXCLUDED.last_seen)");
+
+        for (TransparentContextValue value : values) {
+            Long assetId = assets.get(value.macAddress());
+            if (assetId == null) {
+                LOG.debug("MAC address [{}] of transparent context not found in assets. Skipping.",
+                        value.macAddress());
+                continue;
+            }
+
+            if (value.type() == ContextService.TransparentDataType.HOSTNAME) {
+                hostnames.bind("asset_id", assetId)
+                        .bind("uuid", UUID.randomUUID())
+                        .bind("hostname", value.hostname())
+                        .bind("source", value.source())
+                        .bind("first_seen", value.lastSeen()) // Same for INSERT, ignored in UPDATE.
+                        .bind("last_seen", value.lastSeen())
+                        .add();
+            } else {
+                addresses.bind("asset_id", assetId)
+                        .bind("uuid", UUID.randomUUID())
+                        .bind("address", value.ipAddress())
+                        .bind("source", value.source())
+                        .bind("first_seen", value.lastSeen()) // Same for INSERT, ignored in UPDATE.
+                        .bind("last_seen", value.lastSeen())
+                        .add();
+            }
+        }
 
-        if (asset.isEmpty()) {
-            LOG.debug("MAC address [{}] of transparent context not found in assets. Skipping.", macAddress);
-            return;
+        if (hostnames.size() > 0) {
+            hostnames.execute();
         }
 
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("INSERT INTO assets_ip_addresses(asset_id, uuid, address, source, first_seen, " +
-                                "last_seen) VALUES(:asset_id, :uuid, :address, :source, :first_seen, :last_seen) " +
-                                "ON CONFLICT (asset_id, address, source) DO UPDATE " +
-                                "SET last_seen = GREATEST(assets_ip_addresses.last_seen, EXCLUDED.last_seen)")
-                        .bind("asset_id", asset.get().id())
-                        .bind("uuid", UUID.randomUUID())
-                        .bind("address", address)
-                        .bind("source", source)
-                        .bind("first_seen", lastSeen) // Same for INSERT, ignored in UPDATE.
-                        .bind("last_seen", lastSeen)
-                        .execute()
-        );
+        if (addresses.size() > 0) {
+            addresses.execute();
+        }
     }
 
     public long countHostnamesOfAsset(long assetId, TimeRange timeRange) {
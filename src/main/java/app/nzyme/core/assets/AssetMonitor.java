@@ -20,6 +20,10 @@ public class AssetMonitor extends Periodical {
     @Override
     protected void execute() {
         for (TenantEntry tenant : nzyme.getAuthenticationService().findAllTenantsOfAllOrganizations()) {
+            if (!ownsShard(tenant.uuid())) {
+                continue;
+            }
+
             try {
                 LOG.debug("Processing asset statistics for tenant [{}/{}]", tenant.organizationUuid(), tenant.uuid());
                 DateTime now = DateTime.now();
@@ -44,4 +48,9 @@ public class AssetMonitor extends Periodical {
     public String getName() {
         return "AssetMonitor";
     }
+
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SHARDED;
+    }
 }
@@ -46,4 +46,9 @@ public class AssetStatisticsCleaner extends Periodical {
         return "AssetStatisticsCleaner";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
 }
@@ -8,6 +8,9 @@ import app.nzyme.plugin.distributed.messaging.ReceivedMessage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+import java.util.UUID;
+
 public class CacheManager {
 
     private static final Logger LOG = LogManager.getLogger(CacheManager.class);
@@ -32,9 +35,35 @@ public class CacheManager {
 
                     switch (cacheType) {
                         case "context_macs":
-                            LOG.info("Invalidating MAC address context cache on request of node [{}].",
+                            String macs = (String) message.parametersMap().get("mac_addresses");
+                            if (macs != null) {
+                                LOG.debug("Invalidating MAC address context cache of <{}> MAC addresses on " +
+                                        "request of node [{}].", macs.split(",").length, message.sender());
+                                nzyme.getContextService().invalidateMacAddressCache(
+                                        List.of(macs.split(",")),
+                                        UUID.fromString((String) message.parametersMap().get("organization_id")),
+                                        UUID.fromString((String) message.parametersMap().get("tenant_id"))
+                                );
+                            } else {
+                                LOG.info("Invalidating MAC address context cache on request of node [{}].",
+                                        message.sender());
+                                nzyme.getContextService().invalidateMacAddressCache();
+                            }
+                            break;
+                        case "authentication":
+                            LOG.debug("Invalidating authentication caches on request of node [{}].",
+                                    message.sender());
+                            nzyme.getAuthenticationService().invalidateAuthenticationCaches();
+                            break;
+                        case "tap_accessibility":
+                            LOG.debug("Invalidating tap accessibility on request of node [{}].",
+                                    message.sender());
+                            nzyme.getTapManager().invalidateTapAccessibility();
+                            break;
+                        case "gnss_monitoring_rules":
+                            LOG.debug("Invalidating GNSS monitoring rules on request of node [{}].",
                                     message.sender());
-                            nzyme.getContextService().invalidateMacAddressCache();
+                            nzyme.getGnss().getMonitoringRuleEngine().invalidateRules();
                             break;
                         default:
                             LOG.error("Could not handle [{}] message: Unknown cache type.",
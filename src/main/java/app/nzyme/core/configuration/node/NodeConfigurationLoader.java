@@ -178,7 +178,21 @@ public class NodeConfigurationLoader {
     }
 
     private PerformanceConfiguration parsePerformance() {
-        return PerformanceConfiguration.create(performance.getInt(ConfigurationKeys.REPORT_PROCESSOR_POOL_SIZE));
+        boolean dnsLogAggregation = performance.hasPath(ConfigurationKeys.DNS_LOG_AGGREGATION)
+                && performance.getBoolean(ConfigurationKeys.DNS_LOG_AGGREGATION);
+
+        int periodicalsPoolSize = performance.hasPath(ConfigurationKeys.PERIODICALS_POOL_SIZE)
+                ? performance.getInt(ConfigurationKeys.PERIODICALS_POOL_SIZE) : 5;
+
+        int dot11IngestParallelism = performance.hasPath(ConfigurationKeys.DOT11_INGEST_PARALLELISM)
+                ? performance.getInt(ConfigurationKeys.DOT11_INGEST_PARALLELISM) : 4;
+
+        return PerformanceConfiguration.create(
+                performance.getInt(ConfigurationKeys.REPORT_PROCESSOR_POOL_SIZE),
+                dnsLogAggregation,
+                periodicalsPoolSize,
+                dot11IngestParallelism
+        );
     }
 
     private MiscConfiguration parseMisc() {
@@ -257,6 +271,11 @@ public class NodeConfigurationLoader {
             LOG.error(e);
             throw new InvalidConfigurationException("Parameter [interfaces." + ConfigurationKeys.HTTP_EXTERNAL_URI + "] cannot be parsed into a URI. Make sure it is correct.");
         }
+
+        // 802.11 ingest parallelism is positive.
+        if (parsePerformance().dot11IngestParallelism() < 1) {
+            throw new InvalidConfigurationException("Parameter [performance." + ConfigurationKeys.DOT11_INGEST_PARALLELISM + "] must be at least 1.");
+        }
     }
 
 }
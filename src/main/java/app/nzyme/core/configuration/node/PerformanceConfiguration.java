@@ -6,10 +6,16 @@ import com.google.auto.value.AutoValue;
 public abstract class PerformanceConfiguration {
 
     public abstract int reportProcessorPoolSize();
+    public abstract boolean dnsLogAggregation();
+    public abstract int periodicalsPoolSize();
+    public abstract int dot11IngestParallelism();
 
-    public static PerformanceConfiguration create(int reportProcessorPoolSize) {
+    public static PerformanceConfiguration create(int reportProcessorPoolSize, boolean dnsLogAggregation, int periodicalsPoolSize, int dot11IngestParallelism) {
         return builder()
                 .reportProcessorPoolSize(reportProcessorPoolSize)
+                .dnsLogAggregation(dnsLogAggregation)
+                .periodicalsPoolSize(periodicalsPoolSize)
+                .dot11IngestParallelism(dot11IngestParallelism)
                 .build();
     }
 
@@ -21,6 +27,12 @@ public abstract class PerformanceConfiguration {
     public abstract static class Builder {
         public abstract Builder reportProcessorPoolSize(int reportProcessorPoolSize);
 
+        public abstract Builder dnsLogAggregation(boolean dnsLogAggregation);
+
+        public abstract Builder periodicalsPoolSize(int periodicalsPoolSize);
+
+        public abstract Builder dot11IngestParallelism(int dot11IngestParallelism);
+
         public abstract PerformanceConfiguration build();
     }
 }
@@ -21,4 +21,9 @@ public class ContextCleaner extends Periodical {
         return "ContextCleaner";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
 }
@@ -4,19 +4,29 @@ import app.nzyme.core.NzymeNode;
 import app.nzyme.core.context.db.MacAddressContextEntry;
 import app.nzyme.core.context.db.MacAddressTransparentContextEntry;
 import app.nzyme.core.util.MetricNames;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Timer;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.net.InetAddresses;
 import jakarta.annotation.Nullable;
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.jetbrains.annotations.NotNull;
 import org.joda.time.DateTime;
 
-import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +72,20 @@ public class ContextService {
         macAddressContextCache.invalidateAll();
     }
 
+    /**
+     * Invalidates the cached lookups of the given MAC addresses, including the organization and any data lookups.
+     */
+    public void invalidateMacAddressCache(Collection<String> macs, UUID organizationId, UUID tenantId) {
+        List<MacAddressContextCacheKey> keys = Lists.newArrayList();
+        for (String mac : macs) {
+            keys.add(MacAddressContextCacheKey.create(mac, organizationId, tenantId));
+            keys.add(MacAddressContextCacheKey.create(mac, organizationId, null));
+            keys.add(MacAddressContextCacheKey.create(mac, null, null));
+        }
+
+        macAddressContextCache.invalidateAll(keys);
+    }
+
     public long createMacAddressContext(String macAddress,
                                         String name,
                                         @Nullable String description,
@@ -250,76 +274,156 @@ public class ContextService {
                 .list();
     }
 
-    public void registerTransparentMacAddressHostname(Handle handle,
-                                                      long contextId,
-                                                      UUID tapId,
-                                                      String source,
-                                                      String hostname,
-                                                      DateTime lastSeen) {
-        handle.createUpdate("INSERT INTO context_mac_addresses_transparent(context_id, tap_uuid, " +
-                        "type, hostname, source, last_seen, created_at) VALUES(:context_id, :tap_uuid, :type, " +
-                        ":hostname, :source, :last_seen, :last_seen)")
-                .bind("context_id", contextId)
-                .bind("tap_uuid", tapId)
-                .bind("type", TransparentDataType.HOSTNAME)
-                .bind("hostname", hostname)
-                .bind("source", source)
-                .bind("last_seen", lastSeen)
-                .execute();
-    }
+    /**
+     * Writes the transparent context (hostnames and IP addresses) a tap reported for a set of MAC addresses.
+     * Contexts are resolved with one query, missing contexts are created and all transparent values and asset
+     * attachments are written in batches, in one transaction. Only the cache keys of created contexts are
+     * invalidated, on this and all other nodes.
+     */
+    public void writeTransparentContext(UUID tapUuid,
+                                        UUID organizationId,
+                                        UUID tenantId,
+                                        List<TransparentContextValue> values) {
+        if (values.isEmpty()) {
+            return;
+        }
 
-    public void registerTransparentMacAddressIpAddress(Handle handle,
-                                                       long contextId,
-                                                       UUID tapId,
-                                                       String source,
-                                                       InetAddress ipAddress,
-                                                       DateTime lastSeen) {
-        handle.createUpdate("INSERT INTO context_mac_addresses_transparent(context_id, tap_uuid, " +
-                        "type, ip_address, source, last_seen, created_at) VALUES(:context_id, :tap_uuid, :type, " +
-                        ":ip_address::inet, :source, :last_seen, :last_seen)")
-                .bind("context_id", contextId)
-                .bind("tap_uuid", tapId)
-                .bind("type", TransparentDataType.IP_ADDRESS)
-                .bind("ip_address", ipAddress)
-                .bind("source", source)
-                .bind("last_seen", lastSeen)
-                .execute();
-    }
+        // Sorted, so concurrent reports insert missing contexts in the same order.
+        Set<String> macs = Sets.newTreeSet();
+        for (TransparentContextValue value : values) {
+            macs.add(value.macAddress());
+        }
 
-    public void touchTransparentMacAddressIpAddress(Handle handle,
-                                                    long contextId,
-                                                    UUID tapId,
-                                                    String source,
-                                                    InetAddress ipAddress,
-                                                    DateTime lastSeen) {
-        handle.createUpdate("UPDATE context_mac_addresses_transparent SET last_seen = :last_seen " +
-                        "WHERE context_id = :context_id AND tap_uuid = :tap_uuid AND type = :type " +
-                        "AND ip_address = :ip_address AND source = :source")
-                .bind("context_id", contextId)
-                .bind("tap_uuid", tapId)
-                .bind("type", TransparentDataType.IP_ADDRESS)
-                .bind("ip_address", ipAddress)
-                .bind("source", source)
-                .bind("last_seen", lastSeen)
-                .execute();
+        List<String> created = nzyme.getDatabase().withHandle(h -> h.inTransaction(handle -> {
+            /*
+             * MAC address -> Context ID. Existing contexts are locked in ID order, so concurrent reports of the same
+             * MAC addresses can't deadlock. An UPDATE ... WHERE id IN (...) would lock them in no particular order.
+             */
+            Map<String, Long> contexts = Maps.newHashMap();
+            handle.createQuery("SELECT id, mac_address FROM context_mac_addresses " +
+                            "WHERE organization_id = :organization_id AND tenant_id = :tenant_id " +
+                            "AND mac_address IN (<macs>) ORDER BY id FOR UPDATE")
+                    .bind("organization_id", organizationId)
+                    .bind("tenant_id", tenantId)
+                    .bindList("macs", List.copyOf(macs))
+                    .map((rs, ctx) -> Map.entry(rs.getString("mac_address"), rs.getLong("id")))
+                    .forEach(e -> contexts.put(e.getKey(), e.getValue()));
+
+            List<Long> existingIds = List.copyOf(contexts.values());
+            if (!existingIds.isEmpty()) {
+                handle.createUpdate("UPDATE context_mac_addresses SET updated_at = NOW() WHERE id IN (<ids>)")
+                        .bindList("ids", existingIds)
+                        .execute();
+            }
+
+            List<String> missing = Lists.newArrayList();
+            List<UUID> missingUuids = Lists.newArrayList();
+            for (String mac : macs) {
+                if (!contexts.containsKey(mac)) {
+                    missing.add(mac);
+                    missingUuids.add(UUID.randomUUID());
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                // Another node may create the same context concurrently.
+                handle.createQuery("INSERT INTO context_mac_addresses(mac_address, uuid, name, description, " +
+                                "notes, organization_id, tenant_id, created_at, updated_at) " +
+                                "SELECT m.mac, m.uuid, NULL, 'Created via transparent context.', NULL, " +
+                                ":organization_id, :tenant_id, NOW(), NOW() " +
+                                "FROM unnest(:macs, :uuids) AS m(mac, uuid) " +
+                                "ON CONFLICT (mac_address, organization_id, tenant_id) " +
+                                "DO UPDATE SET updated_at = NOW() " +
+                                "RETURNING id, mac_address")
+                        .bind("organization_id", organizationId)
+                        .bind("tenant_id", tenantId)
+                        .bindArray("macs", String.class, missing)
+                        .bindArray("uuids", UUID.class, missingUuids)
+                        .map((rs, ctx) -> Map.entry(rs.getString("mac_address"), rs.getLong("id")))
+                        .forEach(e -> contexts.put(e.getKey(), e.getValue()));
+            }
+
+            // Transparent values this tap already reported. Loaded after the upsert and for all contexts, because a
+            // context that another node created concurrently already has the values that node wrote for this tap.
+            List<Long> contextIds = List.copyOf(contexts.values());
+            Set<List<Object>> known = Sets.newHashSet();
+            if (!contextIds.isEmpty()) {
+                handle.createQuery("SELECT context_id, type, source, hostname, host(ip_address) AS ip_address " +
+                                "FROM context_mac_addresses_transparent " +
+                                "WHERE tap_uuid = :tap_uuid AND context_id IN (<ids>)")
+                        .bind("tap_uuid", tapUuid)
+                        .bindList("ids", contextIds)
+                        .map((rs, ctx) -> {
+                            TransparentDataType type = TransparentDataType.valueOf(rs.getString("type"));
+                            Object value = type == TransparentDataType.HOSTNAME
+                                    ? rs.getString("hostname")
+                                    : InetAddresses.forString(rs.getString("ip_address"));
+                            return transparentValueKey(rs.getLong("context_id"), type, rs.getString("source"), value);
+                        })
+                        .forEach(known::add);
+            }
+
+            PreparedBatch inserts = handle.prepareBatch("INSERT INTO context_mac_addresses_transparent(" +
+                    "context_id, tap_uuid, type, hostname, ip_address, source, last_seen, created_at) " +
+                    "VALUES(:context_id, :tap_uuid, :type, :hostname, :ip_address::inet, :source, :last_seen, " +
+                    ":last_seen)");
+            PreparedBatch touches = handle.prepareBatch("UPDATE context_mac_addresses_transparent " +
+                    "SET last_seen = :last_seen WHERE context_id = :context_id AND tap_uuid = :tap_uuid " +
+                    "AND type = :type AND source = :source " +
+                    "AND (hostname = :hostname OR ip_address = :ip_address::inet)");
+
+            for (TransparentContextValue value : values) {
+                long contextId = contexts.get(value.macAddress());
+                Object v = value.type() == TransparentDataType.HOSTNAME ? value.hostname() : value.ipAddress();
+
+                PreparedBatch batch = known.add(transparentValueKey(contextId, value.type(), value.source(), v))
+                        ? inserts : touches;
+
+                batch.bind("context_id", contextId)
+                        .bind("tap_uuid", tapUuid)
+                        .bind("type", value.type())
+                        .bind("hostname", value.hostname())
+                        .bind("ip_address", value.ipAddress())
+                        .bind("source", value.source())
+                        .bind("last_seen", value.lastSeen())
+                        .add();
+            }
+
+            if (inserts.size() > 0) {
+                inserts.execute();
+            }
+
+            if (touches.size() > 0) {
+                touches.execute();
+            }
+
+            nzyme.getAssetsManager().attachTransparentContext(handle, organizationId, tenantId, values);
+
+            return missing;
+        }));
+
+        if (!created.isEmpty()) {
+            // Lookups of the created contexts may have cached that there is no context.
+            invalidateMacAddressCache(created, organizationId, tenantId);
+
+            nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                    MessageType.INVALIDATE_CACHE,
+                    Map.of(
+                            "cache_type", "context_macs",
+                            "mac_addresses", String.join(",", created),
+                            "organization_id", organizationId.toString(),
+                            "tenant_id", tenantId.toString()
+                    ),
+                    false
+            ));
+        }
     }
 
-    public void touchTransparentMacAddressHostname(Handle handle,
-                                                   long contextId,
-                                                   UUID tapId,
-                                                   String source,
-                                                   String hostname,
-                                                   DateTime lastSeen) {
-        handle.createUpdate("UPDATE context_mac_addresses_transparent SET last_seen = :last_seen " +
-                        "WHERE context_id = :context_id AND tap_uuid = :tap_uuid AND type = :type " +
-                        "AND hostname = :hostname AND source = :source")
-                .bind("context_id", contextId)
-                .bind("tap_uuid", tapId)
-                .bind("type", TransparentDataType.HOSTNAME)
-                .bind("hostname", hostname)
-                .bind("source", source)
-                .bind("last_seen", lastSeen)
-                .execute();
+    private static List<Object> transparentValueKey(long contextId,
+                                                    TransparentDataType type,
+                                                    String source,
+                                                    Object value) {
+        return Arrays.asList(contextId, type, source, value);
     }
 
     public void retentionCleanTransparentMacContext(DateTime cutoff) {
@@ -0,0 +1,67 @@
+package app.nzyme.core.context;
+
+import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
+import org.joda.time.DateTime;
+
+import java.net.InetAddress;
+
+/**
+ * A hostname or IP address of a MAC address, as reported by a tap. Exactly one of hostname and IP address is set.
+ */
+@AutoValue
+public abstract class TransparentContextValue {
+
+    public abstract String macAddress();
+    public abstract ContextService.TransparentDataType type();
+
+    @Nullable
+    public abstract String hostname();
+
+    @Nullable
+    public abstract InetAddress ipAddress();
+
+    public abstract String source();
+    public abstract DateTime lastSeen();
+
+    public static TransparentContextValue hostname(String macAddress, String hostname, String source, DateTime lastSeen) {
+        return create(macAddress, ContextService.TransparentDataType.HOSTNAME, hostname, null, source, lastSeen);
+    }
+
+    public static TransparentContextValue ipAddress(String macAddress, InetAddress ipAddress, String source, DateTime lastSeen) {
+        return create(macAddress, ContextService.TransparentDataType.IP_ADDRESS, null, ipAddress, source, lastSeen);
+    }
+
+    public static TransparentContextValue create(String macAddress, ContextService.TransparentDataType type, String hostname, InetAddress ipAddress, String source, DateTime lastSeen) {
+        return builder()
+                .macAddress(macAddress)
+                .type(type)
+                .hostname(hostname)
+                .ipAddress(ipAddress)
+                .source(source)
+                .lastSeen(lastSeen)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_TransparentContextValue.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder macAddress(String macAddress);
+
+        public abstract Builder type(ContextService.TransparentDataType type);
+
+        public abstract Builder hostname(String hostname);
+
+        public abstract Builder ipAddress(InetAddress ipAddress);
+
+        public abstract Builder source(String source);
+
+        public abstract Builder lastSeen(DateTime lastSeen);
+
+        public abstract TransparentContextValue build();
+    }
+
+}
@@ -49,6 +49,8 @@ import java.security.spec.InvalidKeySpecException;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 
 /*
@@ -100,6 +102,8 @@ public class Crypto {
 
     private final Timer encryptionTimer;
     private final Timer decryptionTimer;
+    private final Timer envelopeEncryptionTimer;
+    private final Timer envelopeDecryptionTimer;
 
     private final NzymeNode nzyme;
 
@@ -107,6 +111,12 @@ public class Crypto {
 
     private PGPKeys nodeLocalPGPKeys = null;
 
+    // Parsed cluster PGP keys and unwrapped envelope data keys. Reloaded on initialization and key sync.
+    private volatile ClusterKeys clusterKeys = null;
+    private volatile DataKeys dataKeys = null;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
     public Crypto(NzymeNode nzyme) {
         this.nzyme = nzyme;
 
@@ -117,6 +127,8 @@ public class Crypto {
 
         this.encryptionTimer = nzyme.getMetrics().timer(MetricNames.PGP_ENCRYPTION_TIMING);
         this.decryptionTimer = nzyme.getMetrics().timer(MetricNames.PGP_DECRYPTION_TIMING);
+        this.envelopeEncryptionTimer = nzyme.getMetrics().timer(MetricNames.ENVELOPE_ENCRYPTION_TIMING);
+        this.envelopeDecryptionTimer = nzyme.getMetrics().timer(MetricNames.ENVELOPE_DECRYPTION_TIMING);
 
         this.bcProvider = new BouncyCastleProvider();
         Security.addProvider(this.bcProvider);
@@ -249,6 +261,12 @@ public class Crypto {
             throw new CryptoInitializationException("Unexpected number of PGP keys for this node in database. Cannot continue.");
         }
 
+        try {
+            reloadClusterKeys();
+        } catch (CryptoOperationException e) {
+            throw new CryptoInitializationException("Could not load cluster keys.", e);
+        }
+
         // Register taks handler to send PGP keys to other nodes.
         nzyme.getTasksQueue().onMessageReceived(TaskType.PROVIDE_PGP_KEYS,
                 new PGPKeyProviderTaskHandler(
@@ -383,15 +401,28 @@ public class Crypto {
         }
     }
 
+    /**
+     * Encrypts a value with the cluster-wide AES-GCM data key. The data key itself is stored PGP-encrypted with
+     * the cluster key, so all nodes that have the cluster key can read the value.
+     */
     public byte[] encryptWithClusterKey(byte[] value) throws CryptoOperationException {
-        File publicKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PUBLIC_KEY_FILE_NAME).toFile();
-        try {
-            return encrypt(value, readPublicKey(publicKeyLocation));
-        } catch (IOException | PGPException e) {
+        DataKeys keys = getDataKeys();
+
+        try(Timer.Context ignored = envelopeEncryptionTimer.time()) {
+            return Envelope.seal(keys.activeKeyId, keys.keys.get(keys.activeKeyId), value, secureRandom);
+        } catch (GeneralSecurityException e) {
             throw new CryptoOperationException("Cannot encrypt value.", e);
         }
     }
 
+    /**
+     * True if the value was encrypted with the cluster data key. Values that are still PGP-encrypted with the
+     * cluster key can be read, but should be re-encrypted with encryptWithClusterKey() when convenient.
+     */
+    public boolean isEnvelopeEncrypted(byte[] value) {
+        return Envelope.detect(value) != null;
+    }
+
     public byte[] encrypt(byte[] value, PGPPublicKey publicKey) throws CryptoOperationException {
         try(ByteArrayOutputStream out = new ByteArrayOutputStream(); ByteArrayOutputStream literalData = new ByteArrayOutputStream();){
             Timer.Context timer = encryptionTimer.time();
@@ -424,16 +455,30 @@ public class Crypto {
     }
 
     public byte[] decryptWithClusterKey(byte[] value) throws CryptoOperationException {
-        File privateKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PRIVATE_KEY_FILE_NAME).toFile();
+        byte[] envelope = Envelope.detect(value);
+        if (envelope != null) {
+            return decryptEnvelope(envelope);
+        }
 
-        try(InputStream keyIn = new FileInputStream(privateKeyLocation)) {
-            return decrypt(value, keyIn);
-        } catch (CryptoOperationException | IOException e) {
+        // Legacy value, directly encrypted with the cluster PGP key.
+        ClusterKeys keys = getClusterKeys();
+        return decrypt(value, keys.privateKeys::get);
+    }
+
+    public byte[] decrypt(byte[] value, InputStream keyInput) throws CryptoOperationException {
+        PGPSecretKeyRingCollection pgpSec;
+        try {
+            pgpSec = new PGPSecretKeyRingCollection(
+                    PGPUtil.getDecoderStream(keyInput), new JcaKeyFingerprintCalculator()
+            );
+        } catch(IOException | PGPException e) {
             throw new CryptoOperationException("Cannot decrypt value.", e);
         }
+
+        return decrypt(value, keyId -> findSecretKey(pgpSec, keyId));
     }
 
-    public byte[] decrypt(byte[] value, InputStream keyInput) throws CryptoOperationException {
+    private byte[] decrypt(byte[] value, PrivateKeyLookup privateKeys) throws CryptoOperationException {
         try(InputStream dataIn = PGPUtil.getDecoderStream(new ByteArrayInputStream(value))) {
             Timer.Context timer = decryptionTimer.time();
 
@@ -452,13 +497,10 @@ public class Crypto {
             Iterator<PGPEncryptedData> it = enc.getEncryptedDataObjects();
             PGPPrivateKey sKey = null;
             PGPPublicKeyEncryptedData pbe = null;
-            PGPSecretKeyRingCollection pgpSec = new PGPSecretKeyRingCollection(
-                    PGPUtil.getDecoderStream(keyInput), new JcaKeyFingerprintCalculator()
-            );
 
             while (sKey == null && it.hasNext()) {
                 pbe = (PGPPublicKeyEncryptedData) it.next();
-                sKey = findSecretKey(pgpSec, pbe.getKeyID());
+                sKey = privateKeys.find(pbe.getKeyID());
             }
 
             if (sKey == null) {
@@ -503,6 +545,128 @@ public class Crypto {
         }
     }
 
+    private byte[] decryptEnvelope(byte[] envelope) throws CryptoOperationException {
+        try(Timer.Context ignored = envelopeDecryptionTimer.time()) {
+            int keyId = Envelope.keyId(envelope);
+
+            SecretKey key = getDataKeys().keys.get(keyId);
+            if (key == null) {
+                // Possibly created by another node after we loaded our keys.
+                LOG.info("Unknown envelope data key <{}>. Reloading data keys.", keyId);
+                loadDataKeys();
+                key = getDataKeys().keys.get(keyId);
+            }
+
+            if (key == null) {
+                throw new CryptoOperationException("Cannot decrypt value.",
+                        new IllegalStateException("No readable data key with ID <" + keyId + ">."));
+            }
+
+            return Envelope.open(envelope, key);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new CryptoOperationException("Cannot decrypt value.", e);
+        }
+    }
+
+    /**
+     * Parses the cluster PGP keys from disk, extracts the private keys and unwraps the envelope data keys. Call
+     * after the key files were replaced.
+     */
+    public synchronized void reloadClusterKeys() throws CryptoOperationException {
+        File privateKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PRIVATE_KEY_FILE_NAME).toFile();
+        File publicKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PUBLIC_KEY_FILE_NAME).toFile();
+
+        try(InputStream keyIn = new FileInputStream(privateKeyLocation)) {
+            PGPSecretKeyRingCollection pgpSec = new PGPSecretKeyRingCollection(
+                    PGPUtil.getDecoderStream(keyIn), new JcaKeyFingerprintCalculator()
+            );
+
+            Map<Long, PGPPrivateKey> privateKeys = new HashMap<>();
+            Iterator<PGPSecretKeyRing> rings = pgpSec.getKeyRings();
+            while (rings.hasNext()) {
+                Iterator<PGPSecretKey> keys = rings.next().getSecretKeys();
+                while (keys.hasNext()) {
+                    PGPSecretKey key = keys.next();
+                    privateKeys.put(key.getKeyID(), findSecretKey(pgpSec, key.getKeyID()));
+                }
+            }
+
+            this.clusterKeys = new ClusterKeys(readPublicKey(publicKeyLocation), privateKeys);
+        } catch (IOException | PGPException e) {
+            throw new CryptoOperationException("Could not load cluster PGP keys.", e);
+        }
+
+        loadDataKeys();
+    }
+
+    /**
+     * Unwraps all data keys that can be read with the current cluster key. If there is none, for example in a new
+     * cluster or after the cluster key was re-generated, a new data key is created.
+     */
+    private synchronized void loadDataKeys() throws CryptoOperationException {
+        ClusterKeys keys = getClusterKeys();
+
+        List<Map.Entry<Integer, String>> entries = database.withHandle(handle ->
+                handle.createQuery("SELECT id, encrypted_key FROM crypto_data_keys ORDER BY id")
+                        .map((rs, ctx) -> Map.entry(rs.getInt("id"), rs.getString("encrypted_key")))
+                        .list()
+        );
+
+        Map<Integer, SecretKey> dataKeys = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : entries) {
+            try {
+                byte[] raw = decrypt(BaseEncoding.base64().decode(entry.getValue()), keys.privateKeys::get);
+                dataKeys.put(entry.getKey(), new SecretKeySpec(raw, "AES"));
+            } catch (CryptoOperationException e) {
+                LOG.debug("Data key <{}> was encrypted with another cluster key. Skipping.", entry.getKey());
+            }
+        }
+
+        if (dataKeys.isEmpty()) {
+            LOG.info("No readable envelope data key found. Generating new data key.");
+
+            byte[] raw = new byte[32];
+            secureRandom.nextBytes(raw);
+            String encrypted = BaseEncoding.base64().encode(encrypt(raw, keys.publicKey));
+
+            int id = database.withHandle(handle ->
+                    handle.createQuery("INSERT INTO crypto_data_keys(encrypted_key, key_signature, created_at) " +
+                                    "VALUES(:encrypted_key, :key_signature, NOW()) RETURNING id")
+                            .bind("encrypted_key", encrypted)
+                            .bind("key_signature", String.format("%016X", keys.publicKey.getKeyID()))
+                            .mapTo(Integer.class)
+                            .one()
+            );
+
+            dataKeys.put(id, new SecretKeySpec(raw, "AES"));
+        }
+
+        this.dataKeys = new DataKeys(Collections.max(dataKeys.keySet()), Map.copyOf(dataKeys));
+    }
+
+    private ClusterKeys getClusterKeys() throws CryptoOperationException {
+        ClusterKeys keys = this.clusterKeys;
+        if (keys == null) {
+            reloadClusterKeys();
+            keys = this.clusterKeys;
+        }
+
+        return keys;
+    }
+
+    private DataKeys getDataKeys() throws CryptoOperationException {
+        DataKeys keys = this.dataKeys;
+        if (keys == null) {
+            getClusterKeys();
+            if (this.dataKeys == null) {
+                loadDataKeys();
+            }
+            keys = this.dataKeys;
+        }
+
+        return keys;
+    }
+
     public List<PGPKeyFingerprint> getPGPKeysByNode() {
         return database.withHandle(handle ->
                 handle.createQuery("SELECT node_name, node_id, key_signature, created_at " +
@@ -1047,6 +1211,35 @@ public class Crypto {
         }
     }
 
+    @FunctionalInterface
+    private interface PrivateKeyLookup {
+        PGPPrivateKey find(long keyId) throws PGPException;
+    }
+
+    private static final class ClusterKeys {
+
+        private final PGPPublicKey publicKey;
+        private final Map<Long, PGPPrivateKey> privateKeys;
+
+        ClusterKeys(PGPPublicKey publicKey, Map<Long, PGPPrivateKey> privateKeys) {
+            this.publicKey = publicKey;
+            this.privateKeys = privateKeys;
+        }
+
+    }
+
+    private static final class DataKeys {
+
+        private final int activeKeyId;
+        private final Map<Integer, SecretKey> keys;
+
+        DataKeys(int activeKeyId, Map<Integer, SecretKey> keys) {
+            this.activeKeyId = activeKeyId;
+            this.keys = keys;
+        }
+
+    }
+
     public static final class CryptoInitializationException extends Throwable {
         public CryptoInitializationException(String msg) {
             super(msg);
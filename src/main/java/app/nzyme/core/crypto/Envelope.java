@@ -0,0 +1,108 @@
+package app.nzyme.core.crypto;
+
+import com.google.common.io.BaseEncoding;
+import jakarta.annotation.Nullable;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Symmetric envelope for values encrypted with the cluster-wide AES-GCM data key. Layout:
+ *
+ *   magic (4 bytes) | data key ID (4 bytes) | IV (12 bytes) | ciphertext and GCM tag
+ *
+ * The magic never starts a binary or Base64-encoded PGP message, so both formats can be told apart.
+ */
+public class Envelope {
+
+    private static final byte[] MAGIC = {'N', 'Z', 'E', '1'};
+
+    // Base64 of the magic. The fifth character only depends on the magic, the sixth does not.
+    private static final String BASE64_MAGIC_PREFIX = "TlpFM";
+
+    private static final int HEADER_LENGTH = MAGIC.length + 4;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    /**
+     * Returns the raw envelope if the value is an envelope, either raw or Base64-encoded, and NULL otherwise.
+     */
+    @Nullable
+    public static byte[] detect(byte[] value) {
+        if (startsWithMagic(value)) {
+            return value;
+        }
+
+        if (value.length > BASE64_MAGIC_PREFIX.length()
+                && new String(value, 0, BASE64_MAGIC_PREFIX.length(), StandardCharsets.US_ASCII).equals(BASE64_MAGIC_PREFIX)) {
+            try {
+                byte[] decoded = BaseEncoding.base64().decode(new String(value, StandardCharsets.US_ASCII).trim());
+                if (startsWithMagic(decoded)) {
+                    return decoded;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // Not Base64.
+            }
+        }
+
+        return null;
+    }
+
+    public static byte[] seal(int keyId, SecretKey key, byte[] plaintext, SecureRandom random)
+            throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).putInt(keyId);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(header.array());
+        byte[] ciphertext = cipher.doFinal(plaintext);
+
+        return ByteBuffer.allocate(HEADER_LENGTH + IV_LENGTH + ciphertext.length)
+                .put(header.array())
+                .put(iv)
+                .put(ciphertext)
+                .array();
+    }
+
+    public static int keyId(byte[] envelope) {
+        if (envelope.length < HEADER_LENGTH + IV_LENGTH + TAG_BITS / 8) {
+            throw new IllegalArgumentException("Envelope too short.");
+        }
+
+        return ByteBuffer.wrap(envelope, MAGIC.length, 4).getInt();
+    }
+
+    public static byte[] open(byte[] envelope, SecretKey key) throws GeneralSecurityException {
+        // Validates the length.
+        keyId(envelope);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, envelope, HEADER_LENGTH, IV_LENGTH));
+        cipher.updateAAD(envelope, 0, HEADER_LENGTH);
+
+        return cipher.doFinal(envelope, HEADER_LENGTH + IV_LENGTH, envelope.length - HEADER_LENGTH - IV_LENGTH);
+    }
+
+    private static boolean startsWithMagic(byte[] value) {
+        if (value.length < MAGIC.length) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -64,6 +64,8 @@ public class PGPKeyMessageBusReceiver implements MessageHandler {
 
             LOG.info("Decrypted keys written to disk.");
 
+            crypto.reloadClusterKeys();
+
             return MessageProcessingResult.SUCCESS;
         } catch(Exception e) {
             LOG.info("Could not process received PGP key.", e);
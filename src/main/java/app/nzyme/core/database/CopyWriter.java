@@ -0,0 +1,96 @@
+package app.nzyme.core.database;
+
+import org.jdbi.v3.core.Handle;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+
+/**
+ * Collects rows in memory and writes them with a single {@code COPY ... FROM STDIN} instead of one bound
+ * statement per row. Values are transferred in CSV format and cast by Postgres into the column types, so
+ * {@code inet} or {@code uuid} columns can be written directly from their string representations.
+ */
+public class CopyWriter {
+
+    private final String table;
+    private final String[] columns;
+
+    private final StringBuilder csv;
+    private int currentColumn;
+    private long rows;
+
+    public CopyWriter(String table, String... columns) {
+        this.table = table;
+        this.columns = columns;
+        this.csv = new StringBuilder();
+        this.currentColumn = 0;
+        this.rows = 0;
+    }
+
+    public CopyWriter value(Object value) {
+        if (currentColumn >= columns.length) {
+            throw new IllegalStateException("Row in COPY to [" + table + "] has more values than columns.");
+        }
+
+        if (currentColumn > 0) {
+            csv.append(',');
+        }
+
+        // An unquoted empty value is NULL. Everything else is written quoted to keep empty strings intact.
+        if (value != null) {
+            // Joda DateTime renders as ISO8601 including the offset, which Postgres parses for timestamptz.
+            String s = value instanceof Boolean ? ((Boolean) value ? "t" : "f") : value.toString();
+
+            csv.append('"').append(s.replace("\"", "\"\"")).append('"');
+        }
+
+        currentColumn++;
+        return this;
+    }
+
+    public CopyWriter endRow() {
+        if (currentColumn != columns.length) {
+            throw new IllegalStateException("Row in COPY to [" + table + "] has " + currentColumn
+                    + " values but " + columns.length + " columns.");
+        }
+
+        csv.append('\n');
+        currentColumn = 0;
+        rows++;
+        return this;
+    }
+
+    public long size() {
+        return rows;
+    }
+
+    public long execute(Handle handle) {
+        if (rows == 0) {
+            return 0;
+        }
+
+        if (currentColumn != 0) {
+            throw new IllegalStateException("Unfinished row in COPY to [" + table + "].");
+        }
+
+        try {
+            return handle.getConnection()
+                    .unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn(buildStatement(), new StringReader(csv.toString()));
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Could not COPY [" + rows + "] rows into [" + table + "].", e);
+        }
+    }
+
+    String buildStatement() {
+        return "COPY " + table + "(" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    String getCsv() {
+        return csv.toString();
+    }
+
+}
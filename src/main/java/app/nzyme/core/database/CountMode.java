@@ -0,0 +1,11 @@
+package app.nzyme.core.database;
+
+public enum CountMode {
+
+    /*
+     * EXACT runs the full aggregation. ESTIMATED uses the row estimate of the query planner, which is instant
+     * but can be off considerably, especially with selective filters.
+     */
+    EXACT, ESTIMATED
+
+}
@@ -22,6 +22,7 @@ import app.nzyme.core.distributed.tasksqueue.postgres.PostgresTasksQueueEntryMap
 import app.nzyme.core.dot11.db.*;
 import app.nzyme.core.dot11.db.monitoring.*;
 import app.nzyme.core.dot11.db.monitoring.probereq.MonitoredProbeRequestEntryMapper;
+import app.nzyme.core.dot11.tracks.db.CustomTrackDetectorConfigMapper;
 import app.nzyme.core.dot11.tracks.db.TrackDetectorConfigMapper;
 import app.nzyme.core.ethernet.arp.db.ARPStatisticsBucketMapper;
 import app.nzyme.core.ethernet.arp.db.ArpPacketEntryMapper;
@@ -75,6 +76,7 @@ import org.jdbi.v3.core.ConnectionException;
 import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.HandleConsumer;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.spi.JdbiPlugin;
 import org.jdbi.v3.core.statement.SqlLogger;
 import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.jodatime2.JodaTimePlugin;
@@ -94,8 +96,16 @@ public class DatabaseImpl implements Database {
 
     private Jdbi jdbi;
 
+    // Additional plugins, installed after the built-in ones. Used by tests and benchmarks to instrument JDBI.
+    private final List<JdbiPlugin> plugins;
+
     public DatabaseImpl(NodeConfiguration configuration) {
+        this(configuration, List.of());
+    }
+
+    public DatabaseImpl(NodeConfiguration configuration, List<JdbiPlugin> plugins) {
         this.configuration = configuration;
+        this.plugins = plugins;
     }
 
     public void initialize() throws LiquibaseException {
@@ -137,6 +147,7 @@ public class DatabaseImpl implements Database {
                 .registerRowMapper(new SSIDDetailsMapper())
                 .registerRowMapper(new Dot11AdvertisementHistogramEntryMapper())
                 .registerRowMapper(new SignalTrackHistogramEntryMapper())
+                .registerRowMapper(new SignalTrackWaterfallEntryMapper())
                 .registerRowMapper(new ActiveChannelMapper())
                 .registerRowMapper(new ConnectedClientDetailsMapper())
                 .registerRowMapper(new DisconnectedClientDetailsMapper())
@@ -153,6 +164,7 @@ public class DatabaseImpl implements Database {
                 .registerRowMapper(new DetectionAlertAttributeEntryMapper())
                 .registerRowMapper(new DetectionAlertTimelineEntryMapper())
                 .registerRowMapper(new TrackDetectorConfigMapper())
+                .registerRowMapper(new CustomTrackDetectorConfigMapper())
                 .registerRowMapper(new CustomBanditDescriptionMapper())
                 .registerRowMapper(new DiscoHistogramEntryMapper())
                 .registerRowMapper(new CustomBanditDescriptionMapper())
@@ -203,6 +215,7 @@ public class DatabaseImpl implements Database {
                 .registerRowMapper(new GNSSSatelliteInViewMapper())
                 .registerRowMapper(new GNSSConstellationDistancesMapper())
                 .registerRowMapper(new GNSSMonitoringRuleEntryMapper())
+                .registerRowMapper(new GNSSPositionDensityBinMapper())
                 .registerRowMapper(new TimerEntryAverageMapper())
                 .registerRowMapper(new GaugeEntryAverageMapper())
                 .registerRowMapper(new TapMetricsGaugeAggregationMapper())
@@ -217,6 +230,10 @@ public class DatabaseImpl implements Database {
                 .registerRowMapper(new L4AddressDataAddressNumberNumberAggregationResultMapper())
                 .registerRowMapper(new DHCPStatisticsBucketMapper());
 
+        for (JdbiPlugin plugin : plugins) {
+            this.jdbi.installPlugin(plugin);
+        }
+
         if (configuration.slowQueryLogThreshold().isPresent()) {
             LOG.info("Slow query log enabled with threshold <{}ms>.", configuration.slowQueryLogThreshold().get());
 
@@ -410,6 +427,12 @@ public class DatabaseImpl implements Database {
                         "SELECT COUNT(*) FROM dot11_client_probereq_ssids WHERE tap_uuid IN (<taps>)",
                         null
                 ));
+
+                tables.add(new DataTableInformation(
+                        "dot11_mac_roles",
+                        "SELECT COUNT(*) FROM dot11_mac_roles WHERE tap_uuid IN (<taps>)",
+                        "DELETE FROM dot11_mac_roles WHERE last_seen < :since AND tap_uuid IN (<taps>)"
+                ));
             }
             case BLUETOOTH -> {
                 tables.add(new DataTableInformation(
@@ -462,6 +485,12 @@ public class DatabaseImpl implements Database {
                         "DELETE FROM dns_log WHERE timestamp < :since AND tap_uuid IN (<taps>)"
                 ));
 
+                tables.add(new DataTableInformation(
+                        "dns_log_buckets",
+                        "SELECT COUNT(*) FROM dns_log_buckets WHERE tap_uuid IN (<taps>)",
+                        "DELETE FROM dns_log_buckets WHERE timestamp < :since AND tap_uuid IN (<taps>)"
+                ));
+
                 tables.add(new DataTableInformation(
                         "dns_entropy_log",
                         "SELECT COUNT(*) FROM dns_entropy_log WHERE tap_uuid IN (<taps>)",
@@ -493,6 +522,12 @@ public class DatabaseImpl implements Database {
                         "SELECT COUNT(*) FROM gnss_constellations WHERE tap_uuid IN (<taps>)",
                         "DELETE FROM gnss_constellations WHERE timestamp < :since AND tap_uuid IN (<taps>)"
                 ));
+
+                tables.add(new DataTableInformation(
+                        "gnss_position_cells",
+                        "SELECT COUNT(*) FROM gnss_position_cells WHERE tap_uuid IN (<taps>)",
+                        "DELETE FROM gnss_position_cells WHERE bucket < :since AND tap_uuid IN (<taps>)"
+                ));
             }
         }
 
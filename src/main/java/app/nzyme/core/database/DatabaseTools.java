@@ -6,12 +6,40 @@ import app.nzyme.core.ethernet.EthernetRegistryKeys;
 import app.nzyme.core.gnss.GNSSRegistryKeys;
 import app.nzyme.core.rest.responses.bluetooth.BluetoothRegistryKeys;
 import app.nzyme.core.uav.UavRegistryKeys;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.constraints.NotNull;
+import org.jdbi.v3.core.statement.Query;
 
 import java.util.UUID;
 
 public class DatabaseTools {
 
+    // Prefix for queries passed to estimateRows().
+    public static final String EXPLAIN = "EXPLAIN (FORMAT JSON) ";
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    /**
+     * Returns the number of rows the query planner expects from a query prefixed with {@link #EXPLAIN}. The query
+     * itself is not executed.
+     */
+    public static long estimateRows(Query explainQuery) {
+        String plan = explainQuery.mapTo(String.class).one();
+
+        try {
+            JsonNode rows = om.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            if (rows.isMissingNode()) {
+                throw new IllegalStateException("Query plan has no row estimate: " + plan);
+            }
+
+            return rows.asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not parse query plan.", e);
+        }
+    }
+
     public static int getDataCategoryRetentionTimeDays(NzymeNode nzyme,
                                                        DataCategory category,
                                                        @NotNull UUID organizationId,
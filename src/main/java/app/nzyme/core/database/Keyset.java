@@ -0,0 +1,164 @@
+package app.nzyme.core.database;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.net.InetAddresses;
+import jakarta.annotation.Nullable;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.Query;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (cursor) pagination. Pages continue after the last row of the previous page instead of skipping rows with
+ * OFFSET, which gets slower the deeper a page is.
+ *
+ * The page condition from condition() must be placed into the query itself: Into its WHERE clause or, if the order
+ * column is aggregated, into its HAVING clause. pageSql() then orders and limits the query. Plain queries can be
+ * served from an index on the order and key columns. Aggregated queries still compute all groups that match the
+ * WHERE clause, but only the groups after the cursor are sorted and returned.
+ *
+ * The order column must not be NULL. The key column must be unique within the result and breaks ties.
+ *
+ * Cursors are passed in by clients. They are validated against the column types before they are used in a query,
+ * so tampered cursors are rejected instead of failing in the database.
+ */
+public class Keyset {
+
+    // Postgres text representation of timestamptz values, for example "2025-01-01 12:00:00.123456+00".
+    private static final DateTimeFormatter TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendLiteral(' ')
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .appendOffset("+HH:mm:ss", "+00")
+            .toFormatter();
+
+    /**
+     * @return The condition that selects the rows after the cursor, starting with AND. Empty for the first page.
+     * @throws IllegalArgumentException If the cursor does not match the column types.
+     */
+    public static String condition(KeysetColumn order,
+                                   KeysetColumn key,
+                                   OrderDirection direction,
+                                   @Nullable KeysetCursor cursor) {
+        if (cursor == null) {
+            return "";
+        }
+
+        validateCursor(cursor, order.type(), key.type());
+
+        return " AND (" + order.expression() + ", " + key.expression() + ") " +
+                (direction == OrderDirection.DESC ? "<" : ">") +
+                " (CAST(:keyset_value AS " + order.type() + "), CAST(:keyset_key AS " + key.type() + ")) ";
+    }
+
+    /**
+     * Orders and limits a query that already contains the condition(). The text representations of the order and key
+     * columns are selected to build the next cursor from.
+     */
+    public static String pageSql(String sql, KeysetColumn order, KeysetColumn key, OrderDirection direction) {
+        return "SELECT page.*, page." + order.name() + "::text AS keyset_value, " +
+                "page." + key.name() + "::text AS keyset_key " +
+                "FROM (" + sql + " ORDER BY " + order.name() + " " + direction + ", " +
+                key.name() + " " + direction + " LIMIT :keyset_limit) AS page " +
+                "ORDER BY page." + order.name() + " " + direction + ", page." + key.name() + " " + direction;
+    }
+
+    /**
+     * Checks that the values of a cursor can be cast to the types of the order and key columns.
+     *
+     * @throws IllegalArgumentException If the cursor does not match the column types.
+     */
+    public static void validateCursor(KeysetCursor cursor, String orderType, String keyType) {
+        if (!isValidValue(cursor.value(), orderType) || !isValidValue(cursor.key(), keyType)) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    private static boolean isValidValue(String value, String type) {
+        try {
+            return switch (type) {
+                case "text" -> true;
+                case "integer" -> {
+                    Integer.parseInt(value);
+                    yield true;
+                }
+                case "bigint" -> {
+                    Long.parseLong(value);
+                    yield true;
+                }
+                case "double precision" -> {
+                    Double.parseDouble(value);
+                    yield true;
+                }
+                case "numeric" -> {
+                    if (!value.equals("NaN")) {
+                        new BigDecimal(value);
+                    }
+                    yield true;
+                }
+                case "timestamptz" -> {
+                    OffsetDateTime.parse(value, TIMESTAMPTZ);
+                    yield true;
+                }
+                case "inet" -> {
+                    // Text representation of inet values includes the netmask.
+                    int mask = value.indexOf('/');
+                    if (mask < 0) {
+                        yield InetAddresses.isInetAddress(value);
+                    }
+
+                    int bits = Integer.parseInt(value.substring(mask + 1));
+                    yield InetAddresses.isInetAddress(value.substring(0, mask)) && bits >= 0 && bits <= 128;
+                }
+                default -> throw new IllegalStateException("Unsupported keyset column type [" + type + "].");
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If the limit is smaller than 1.
+     */
+    public static <T> KeysetPage<T> fetch(Query query, Class<T> type, @Nullable KeysetCursor cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1.");
+        }
+
+        if (cursor != null) {
+            query.bind("keyset_value", cursor.value())
+                    .bind("keyset_key", cursor.key());
+        }
+
+        // Fetch one more row than requested to find out if there is another page.
+        List<Map.Entry<T, KeysetCursor>> rows = query
+                .bind("keyset_limit", limit + 1)
+                .map((rs, ctx) -> {
+                    RowMapper<T> mapper = ctx.findRowMapperFor(type)
+                            .orElseThrow(() -> new IllegalStateException("No row mapper for [" + type + "]."));
+
+                    return Maps.immutableEntry(
+                            mapper.map(rs, ctx),
+                            KeysetCursor.create(rs.getString("keyset_value"), rs.getString("keyset_key"))
+                    );
+                })
+                .list();
+
+        List<T> items = Lists.newArrayList();
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            items.add(rows.get(i).getKey());
+        }
+
+        KeysetCursor next = rows.size() > limit ? rows.get(limit - 1).getValue() : null;
+
+        return KeysetPage.create(items, next);
+    }
+
+}
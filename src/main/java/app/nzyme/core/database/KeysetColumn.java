@@ -0,0 +1,52 @@
+package app.nzyme.core.database;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A column of a keyset-paginated query.
+ */
+@AutoValue
+public abstract class KeysetColumn {
+
+    // Name of the column in the query result.
+    public abstract String name();
+
+    // Expression the column is computed from, for use in WHERE or HAVING clauses.
+    public abstract String expression();
+
+    // SQL type cursor values are cast to.
+    public abstract String type();
+
+    // If the expression is an aggregate and the page condition must be placed into the HAVING clause.
+    public abstract boolean aggregated();
+
+    public static KeysetColumn create(String name, String expression, String type, boolean aggregated) {
+        return builder()
+                .name(name)
+                .expression(expression)
+                .type(type)
+                .aggregated(aggregated)
+                .build();
+    }
+
+    public static KeysetColumn plain(String name, String type) {
+        return create(name, name, type, false);
+    }
+
+    public static Builder builder() {
+        return new AutoValue_KeysetColumn.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder name(String name);
+
+        public abstract Builder expression(String expression);
+
+        public abstract Builder type(String type);
+
+        public abstract Builder aggregated(boolean aggregated);
+
+        public abstract KeysetColumn build();
+    }
+}
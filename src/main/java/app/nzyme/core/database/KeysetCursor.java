@@ -0,0 +1,60 @@
+package app.nzyme.core.database;
+
+import com.google.auto.value.AutoValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated list: The value of the order column and the unique key of the last row of a page.
+ * Both are carried as their Postgres text representation and cast back to the column types when queried.
+ */
+@AutoValue
+public abstract class KeysetCursor {
+
+    private static final char SEPARATOR = '\u001f';
+
+    public abstract String value();
+    public abstract String key();
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((value() + SEPARATOR + key()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+
+        int separator = decoded.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        return create(decoded.substring(0, separator), decoded.substring(separator + 1));
+    }
+
+    public static KeysetCursor create(String value, String key) {
+        return builder()
+                .value(value)
+                .key(key)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_KeysetCursor.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder value(String value);
+
+        public abstract Builder key(String key);
+
+        public abstract KeysetCursor build();
+    }
+}
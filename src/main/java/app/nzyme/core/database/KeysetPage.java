@@ -0,0 +1,36 @@
+package app.nzyme.core.database;
+
+import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+@AutoValue
+public abstract class KeysetPage<T> {
+
+    public abstract List<T> items();
+
+    // Null if this is the last page.
+    @Nullable
+    public abstract KeysetCursor nextCursor();
+
+    public static <T> KeysetPage<T> create(List<T> items, KeysetCursor nextCursor) {
+        return KeysetPage.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public static <T> Builder<T> builder() {
+        return new AutoValue_KeysetPage.Builder<>();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder<T> {
+        public abstract Builder<T> items(List<T> items);
+
+        public abstract Builder<T> nextCursor(KeysetCursor nextCursor);
+
+        public abstract KeysetPage<T> build();
+    }
+}
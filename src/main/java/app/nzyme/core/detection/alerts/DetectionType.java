@@ -24,6 +24,9 @@ public enum DetectionType {
     DOT11_UNAPPROVED_SSID("Unapproved SSID detected", Subsystem.DOT11),
     DOT11_UNAPPROVED_CLIENT("Unapproved WiFi Client detected", Subsystem.DOT11),
 
+    // GNSS alerts.
+    GNSS_MONITORING_RULE("GNSS Monitoring Rule: Conditions matched", Subsystem.GNSS),
+
     // UAV alerts.
     UAV_DETECTED_CLASSIFICATION_UNKNOWN("UAV with unknown classification detected", Subsystem.UAV),
     UAV_DETECTED_CLASSIFICATION_FRIENDLY("UAV with friendly classification detected", Subsystem.UAV),
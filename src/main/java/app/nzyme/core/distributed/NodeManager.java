@@ -6,8 +6,14 @@ import app.nzyme.core.distributed.database.NodeEntry;
 import app.nzyme.core.distributed.database.metrics.GaugeHistogramBucket;
 import app.nzyme.core.logging.CountingAppender;
 import app.nzyme.core.monitoring.GaugeEntryAverage;
+import app.nzyme.core.monitoring.GaugeEntryAverageMapper;
 import app.nzyme.core.monitoring.TimerEntry;
 import app.nzyme.core.monitoring.TimerEntryAverage;
+import app.nzyme.core.monitoring.TimerEntryAverageMapper;
+import app.nzyme.core.monitoring.timeseries.MetricPoint;
+import app.nzyme.core.monitoring.timeseries.MetricsBatch;
+import app.nzyme.core.monitoring.timeseries.MetricsSeries;
+import app.nzyme.core.monitoring.timeseries.TimerValues;
 import app.nzyme.core.taps.db.metrics.BucketSize;
 import app.nzyme.core.util.MetricNames;
 import com.codahale.metrics.Gauge;
@@ -300,58 +306,52 @@ public class NodeManager {
             NodeInformation.Info ni = new NodeInformation().collect();
             Map<String, Long> logCounts = CountingAppender.getCounts();
 
-            writeGauge(MetricExternalName.MEMORY_BYTES_TOTAL.database_label, ni.memoryTotal());
-            writeGauge(MetricExternalName.MEMORY_BYTES_AVAILABLE.database_label, ni.memoryAvailable());
-            writeGauge(MetricExternalName.MEMORY_BYTES_USED.database_label, ni.memoryUsed());
-            writeGauge(MetricExternalName.HEAP_BYTES_TOTAL.database_label, ni.heapTotal());
-            writeGauge(MetricExternalName.HEAP_BYTES_AVAILABLE.database_label, ni.heapAvailable());
-            writeGauge(MetricExternalName.HEAP_BYTES_USED.database_label, ni.heapUsed());
-            writeGauge(MetricExternalName.CPU_SYSTEM_LOAD.database_label, ni.cpuSystemLoad());
-            writeGauge(MetricExternalName.PROCESS_VIRTUAL_SIZE.database_label, ni.processVirtualSize());
-            writeGauge(MetricExternalName.TAP_REPORT_SIZE.database_label, tapReportSize);
-            writeGauge(MetricExternalName.LOG_COUNTS_TRACE.database_label, logCounts.getOrDefault("TRACE", 0L));
-            writeGauge(MetricExternalName.LOG_COUNTS_DEBUG.database_label, logCounts.getOrDefault("DEBUG", 0L));
-            writeGauge(MetricExternalName.LOG_COUNTS_INFO.database_label, logCounts.getOrDefault("INFO", 0L));
-            writeGauge(MetricExternalName.LOG_COUNTS_WARN.database_label, logCounts.getOrDefault("WARN", 0L));
-            writeGauge(MetricExternalName.LOG_COUNTS_ERROR.database_label, logCounts.getOrDefault("ERROR", 0L));
-            writeGauge(MetricExternalName.LOG_COUNTS_FATAL.database_label, logCounts.getOrDefault("FATAL", 0L));
-            writeGauge(MetricExternalName.GEOIP_CACHE_SIZE.database_label, getLocalMetricsGaugeValue(metrics, MetricNames.GEOIP_CACHE_SIZE));
-            writeGauge(MetricExternalName.CONTEXT_MAC_CACHE_SIZE.database_label, getLocalMetricsGaugeValue(metrics, MetricNames.CONTEXT_MAC_CACHE_SIZE));
-
-            writeTimer(MetricExternalName.PGP_ENCRYPTION_TIMER.database_label,
+            MetricsBatch batch = new MetricsBatch(DateTime.now())
+                    .gauge(MetricExternalName.MEMORY_BYTES_TOTAL.database_label, ni.memoryTotal())
+                    .gauge(MetricExternalName.MEMORY_BYTES_AVAILABLE.database_label, ni.memoryAvailable())
+                    .gauge(MetricExternalName.MEMORY_BYTES_USED.database_label, ni.memoryUsed())
+                    .gauge(MetricExternalName.HEAP_BYTES_TOTAL.database_label, ni.heapTotal())
+                    .gauge(MetricExternalName.HEAP_BYTES_AVAILABLE.database_label, ni.heapAvailable())
+                    .gauge(MetricExternalName.HEAP_BYTES_USED.database_label, ni.heapUsed())
+                    .gauge(MetricExternalName.CPU_SYSTEM_LOAD.database_label, ni.cpuSystemLoad())
+                    .gauge(MetricExternalName.PROCESS_VIRTUAL_SIZE.database_label, ni.processVirtualSize())
+                    .gauge(MetricExternalName.TAP_REPORT_SIZE.database_label, tapReportSize)
+                    .gauge(MetricExternalName.LOG_COUNTS_TRACE.database_label, logCounts.getOrDefault("TRACE", 0L))
+                    .gauge(MetricExternalName.LOG_COUNTS_DEBUG.database_label, logCounts.getOrDefault("DEBUG", 0L))
+                    .gauge(MetricExternalName.LOG_COUNTS_INFO.database_label, logCounts.getOrDefault("INFO", 0L))
+                    .gauge(MetricExternalName.LOG_COUNTS_WARN.database_label, logCounts.getOrDefault("WARN", 0L))
+                    .gauge(MetricExternalName.LOG_COUNTS_ERROR.database_label, logCounts.getOrDefault("ERROR", 0L))
+                    .gauge(MetricExternalName.LOG_COUNTS_FATAL.database_label, logCounts.getOrDefault("FATAL", 0L))
+                    .gauge(MetricExternalName.GEOIP_CACHE_SIZE.database_label, getLocalMetricsGaugeValue(metrics, MetricNames.GEOIP_CACHE_SIZE))
+                    .gauge(MetricExternalName.CONTEXT_MAC_CACHE_SIZE.database_label, getLocalMetricsGaugeValue(metrics, MetricNames.CONTEXT_MAC_CACHE_SIZE));
+
+            addTimer(batch, MetricExternalName.PGP_ENCRYPTION_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.PGP_ENCRYPTION_TIMING));
-            writeTimer(MetricExternalName.PGP_DECRYPTION_TIMER.database_label,
+            addTimer(batch, MetricExternalName.PGP_DECRYPTION_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.PGP_DECRYPTION_TIMING));
-            writeTimer(MetricExternalName.PASSWORD_HASHING_TIMER.database_label,
+            addTimer(batch, MetricExternalName.PASSWORD_HASHING_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.PASSWORD_HASHING_TIMER));
-            writeTimer(MetricExternalName.CONTEXT_MAC_LOOKUP_TIMER.database_label,
+            addTimer(batch, MetricExternalName.CONTEXT_MAC_LOOKUP_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.CONTEXT_MAC_LOOKUP_TIMING));
 
-            writeTimer(MetricExternalName.REPORT_PROCESSING_DOT11_TIMER.database_label,
+            addTimer(batch, MetricExternalName.REPORT_PROCESSING_DOT11_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.DOT11_TOTAL_REPORT_PROCESSING_TIMER));
-            writeTimer(MetricExternalName.REPORT_PROCESSING_TCP_TIMER.database_label,
+            addTimer(batch, MetricExternalName.REPORT_PROCESSING_TCP_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.TCP_TOTAL_REPORT_PROCESSING_TIMER));
-            writeTimer(MetricExternalName.REPORT_PROCESSING_DNS_TIMER.database_label,
+            addTimer(batch, MetricExternalName.REPORT_PROCESSING_DNS_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.DNS_TOTAL_REPORT_PROCESSING_TIMER));
-            writeTimer(MetricExternalName.REPORT_PROCESSING_SSH_TIMER.database_label,
+            addTimer(batch, MetricExternalName.REPORT_PROCESSING_SSH_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.SSH_TOTAL_REPORT_PROCESSING_TIMER));
-            writeTimer(MetricExternalName.REPORT_PROCESSING_SOCKS_TIMER.database_label,
+            addTimer(batch, MetricExternalName.REPORT_PROCESSING_SOCKS_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.SOCKS_TOTAL_REPORT_PROCESSING_TIMER));
+
+            // One batch per collection cycle. Retention and downsampling is handled by the metrics store.
+            nzyme.getMetricsStore().writeNodeMetrics(nzyme.getNodeInformation().id(), batch);
         } catch(Exception e) {
             LOG.error("Could not write node metrics.", e);
         } finally {
             CountingAppender.resetCounts();
         }
-
-        // Retention clean old metrics.
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("DELETE FROM node_metrics_gauges WHERE created_at < :created_at")
-                        .bind("created_at", DateTime.now().minusHours(24))
-                        .execute());
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("DELETE FROM node_metrics_timers WHERE created_at < :created_at")
-                        .bind("created_at", DateTime.now().minusHours(24))
-                        .execute());
     }
 
     private double getLocalMetricsGaugeValue(MetricRegistry metrics, String metricName) {
@@ -382,68 +382,27 @@ public class NodeManager {
         }
     }
 
-    private void writeGauge(String metricName, double metricValue) {
-        nzyme.getDatabase().withHandle(handle -> handle.createUpdate("INSERT INTO node_metrics_gauges(node_id, " +
-                        "metric_name, metric_value, created_at) VALUES(:node_id, :metric_name, :metric_value, " +
-                        ":created_at)")
-                .bind("node_id", nzyme.getNodeInformation().id())
-                .bind("metric_name", metricName)
-                .bind("metric_value", metricValue)
-                .bind("created_at", DateTime.now())
-                .execute()
-        );
-    }
-
-    private void writeTimer(String metricName, @Nullable Timer timer) {
+    private void addTimer(MetricsBatch batch, String metricName, @Nullable Timer timer) {
         if (timer == null) {
             return;
         }
 
         Snapshot s = timer.getSnapshot();
-        writeTimer(
-                metricName,
+        batch.timer(metricName, TimerValues.create(
                 TimeUnit.MICROSECONDS.convert(s.getMax(), TimeUnit.NANOSECONDS),
                 TimeUnit.MICROSECONDS.convert(s.getMin(), TimeUnit.NANOSECONDS),
                 TimeUnit.MICROSECONDS.convert((long) s.getMean(), TimeUnit.NANOSECONDS),
                 TimeUnit.MICROSECONDS.convert((long) s.get99thPercentile(), TimeUnit.NANOSECONDS),
                 TimeUnit.MICROSECONDS.convert((long) s.getStdDev(), TimeUnit.NANOSECONDS),
                 timer.getCount()
-        );
-    }
-
-    private void writeTimer(String metricName, long max, long min, long mean, long p99, long stddev, long counter) {
-        nzyme.getDatabase().withHandle(handle -> handle.createUpdate("INSERT INTO node_metrics_timers(node_id, " +
-                        "metric_name, metric_max, metric_min, metric_mean, metric_p99, metric_stddev, metric_counter, " +
-                        "created_at) VALUES(:node_id, :metric_name, :metric_max, :metric_min, :metric_mean, " +
-                        ":metric_p99, :metric_stddev, :metric_counter, :created_at)")
-                .bind("node_id", nzyme.getNodeInformation().id())
-                .bind("metric_name", metricName)
-                .bind("metric_max", max)
-                .bind("metric_min", min)
-                .bind("metric_mean", mean)
-                .bind("metric_p99", p99)
-                .bind("metric_stddev", stddev)
-                .bind("metric_counter", counter)
-                .bind("created_at", DateTime.now())
-                .execute()
-        );
+        ));
     }
 
     public Optional<Map<DateTime, GaugeHistogramBucket>> findMetricsHistogram(UUID nodeId, String metricName, int hours, BucketSize bucketSize) {
         Map<DateTime, GaugeHistogramBucket> result = Maps.newHashMap();
 
-        List<GaugeHistogramBucket> agg = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT AVG(metric_value) AS average, MAX(metric_value) AS maximum, " +
-                                "MIN(metric_value) AS minimum, SUM(metric_value) AS sum, " +
-                                "date_trunc(:bucket_size, created_at) AS bucket " +
-                                "FROM node_metrics_gauges WHERE node_id = :node_id AND metric_name = :metric_name " +
-                                "AND created_at > :created_at GROUP BY bucket ORDER BY bucket DESC")
-                        .bind("bucket_size", bucketSize.toString().toLowerCase())
-                        .bind("node_id", nodeId)
-                        .bind("metric_name", metricName)
-                        .bind("created_at", DateTime.now().minusHours(hours))
-                        .mapTo(GaugeHistogramBucket.class)
-                        .list()
+        List<GaugeHistogramBucket> agg = nzyme.getMetricsStore().findHistogram(
+                MetricsSeries.NODE_GAUGES, nodeId, metricName, hours, bucketSize
         );
 
         if (agg == null || agg.isEmpty()) {
@@ -460,6 +419,18 @@ public class NodeManager {
     public Optional<TimerEntry> findLatestActiveMetricsTimerValue(UUID nodeId,
                                                                   String metricName,
                                                                   Handle handle) {
+        Optional<MetricPoint> recent = nzyme.getMetricsStore().findRecentPoint(
+                MetricsSeries.NODE_TIMERS, nodeId, metricName, DateTime.now().minusMinutes(2)
+        );
+
+        if (recent.isPresent()) {
+            TimerValues t = TimerValues.fromPoint(recent.get());
+            return Optional.of(TimerEntry.create(
+                    0, nodeId, metricName, (long) t.max(), (long) t.min(), (long) t.mean(), (long) t.p99(),
+                    (long) t.stddev(), (long) t.counter(), recent.get().timestamp()
+            ));
+        }
+
         return handle.createQuery("SELECT * FROM node_metrics_timers " +
                         "WHERE node_id = :node_id AND metric_name = :metric_name AND created_at > :created_at " +
                         "ORDER BY created_at DESC " +
@@ -474,6 +445,14 @@ public class NodeManager {
     public Optional<Double> findLatestActiveMetricsGaugeValue(UUID nodeId,
                                                               String metricName,
                                                               Handle handle) {
+        Optional<MetricPoint> recent = nzyme.getMetricsStore().findRecentPoint(
+                MetricsSeries.NODE_GAUGES, nodeId, metricName, DateTime.now().minusMinutes(2)
+        );
+
+        if (recent.isPresent()) {
+            return Optional.of(recent.get().value());
+        }
+
         return handle.createQuery("SELECT metric_value FROM node_metrics_gauges " +
                         "WHERE node_id = :node_id AND metric_name = :metric_name " +
                         "AND created_at > :created_at " +
@@ -513,6 +492,55 @@ public class NodeManager {
         );
     }
 
+    /**
+     * Average timer values of all nodes, in one query instead of one per node. Node ID -> Averages.
+     */
+    public Map<UUID, List<TimerEntryAverage>> findAverageTimerValuesOfAllNodes(DateTime since) {
+        List<Map.Entry<UUID, TimerEntryAverage>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT node_id, metric_name AS name, AVG(metric_max) AS max, " +
+                                "AVG(metric_min) AS min, AVG(metric_mean) AS mean, AVG(metric_p99) AS p99, " +
+                                "AVG(metric_stddev) AS stddev, AVG(metric_counter) AS counter " +
+                                "FROM node_metrics_timers WHERE created_at >= :since AND created_at <= NOW() " +
+                                "GROUP BY node_id, metric_name")
+                        .bind("since", since)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("node_id")),
+                                new TimerEntryAverageMapper().map(rs, ctx)
+                        ))
+                        .list()
+        );
+
+        return groupByNode(rows);
+    }
+
+    /**
+     * Average gauge values of all nodes, in one query instead of one per node. Node ID -> Averages.
+     */
+    public Map<UUID, List<GaugeEntryAverage>> findAverageGaugeValuesOfAllNodes(DateTime since) {
+        List<Map.Entry<UUID, GaugeEntryAverage>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT node_id, metric_name AS name, AVG(metric_value) AS value " +
+                                "FROM node_metrics_gauges WHERE created_at >= :since AND created_at <= NOW() " +
+                                "GROUP BY node_id, metric_name")
+                        .bind("since", since)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("node_id")),
+                                new GaugeEntryAverageMapper().map(rs, ctx)
+                        ))
+                        .list()
+        );
+
+        return groupByNode(rows);
+    }
+
+    private static <T> Map<UUID, List<T>> groupByNode(List<Map.Entry<UUID, T>> rows) {
+        Map<UUID, List<T>> result = Maps.newHashMap();
+        for (Map.Entry<UUID, T> row : rows) {
+            result.computeIfAbsent(row.getKey(), k -> Lists.newArrayList()).add(row.getValue());
+        }
+
+        return result;
+    }
+
     private boolean isNodeEphemeral(NodeEntry node) {
         return nzyme.getDatabaseCoreRegistry()
                 .getValue(NodeRegistryKeys.EPHEMERAL_NODES_REGEX.key())
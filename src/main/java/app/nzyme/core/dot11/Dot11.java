@@ -2,6 +2,12 @@ package app.nzyme.core.dot11;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.context.db.MacAddressContextEntry;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.DatabaseTools;
+import app.nzyme.core.database.Keyset;
+import app.nzyme.core.database.KeysetColumn;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.dot11.db.*;
 import app.nzyme.core.dot11.db.filters.Dot11BSSIDFilters;
@@ -10,6 +16,8 @@ import app.nzyme.core.dot11.db.filters.Dot11DisconnectedClientFilters;
 import app.nzyme.core.dot11.db.monitoring.*;
 import app.nzyme.core.dot11.db.monitoring.probereq.MonitoredProbeRequestEntry;
 import app.nzyme.core.dot11.monitoring.disco.db.Dot11DiscoMonitorMethodConfiguration;
+import app.nzyme.core.dot11.monitoring.disco.Dot11DiscoEngine;
+import app.nzyme.core.dot11.tracks.db.CustomTrackDetectorConfig;
 import app.nzyme.core.dot11.tracks.db.TrackDetectorConfig;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.resources.taps.reports.tables.dot11.Dot11SecurityInformationReport;
@@ -19,7 +27,6 @@ import app.nzyme.core.rest.responses.dot11.clients.ConnectedBSSID;
 import app.nzyme.core.shared.db.TapBasedSignalStrengthResult;
 import app.nzyme.core.util.Bucketing;
 import app.nzyme.core.util.TimeRange;
-import app.nzyme.core.util.TimeRangeFactory;
 import app.nzyme.core.util.Tools;
 import app.nzyme.core.util.filters.FilterSql;
 import app.nzyme.core.util.filters.FilterSqlFragment;
@@ -41,6 +48,7 @@ import org.joda.time.DateTime;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class Dot11 {
 
@@ -53,19 +61,28 @@ public class Dot11 {
         add("GYGzDTnSDLgJs9rMY8ZXj0EVwDBw2lZl");
     }};
 
+    private static final KeysetColumn BSSID_KEYSET_KEY = KeysetColumn.create("bssid", "b.bssid", "text", false);
+
     private final NzymeNode nzyme;
+    private final Dot11DiscoEngine discoEngine;
+    private final Dot11MacRoleIndex macRoleIndex;
 
     public enum BssidOrderColumn {
 
-        BSSID("bssid"),
-        SIGNAL_STRENGTH_AVERAGE("signal_strength_average"),
-        CLIENT_COUNT("client_count"),
-        LAST_SEEN("last_seen");
+        BSSID("bssid", KeysetColumn.create("bssid", "b.bssid", "text", false)),
+        SIGNAL_STRENGTH_AVERAGE("signal_strength_average", KeysetColumn.create(
+                "signal_strength_average", "AVG(b.signal_strength_average)", "double precision", true)),
+        CLIENT_COUNT("client_count", KeysetColumn.create(
+                "client_count", "COUNT(DISTINCT(c.client_mac))", "bigint", true)),
+        LAST_SEEN("last_seen", KeysetColumn.create("last_seen", "MAX(b.created_at)", "timestamptz", true));
 
         private final String columnName;
 
-        BssidOrderColumn(String columnName) {
+        private final KeysetColumn keysetColumn;
+
+        BssidOrderColumn(String columnName, KeysetColumn keysetColumn) {
             this.columnName = columnName;
+            this.keysetColumn = keysetColumn;
         }
 
         public String getColumnName() {
@@ -134,50 +151,38 @@ public class Dot11 {
         }
     }
 
-    LoadingCache<Dot11MacAddressLookupCompositeKey, Dot11MacAddressMetadata> macAddressMetadata = CacheBuilder.newBuilder()
-            .maximumSize(5000)
-            .expireAfterWrite(10, TimeUnit.MINUTES)
+    /*
+     * Monitored probe request SSIDs of every tenant, checked for every probe request of every client report. Other
+     * nodes pick up changes when the entry expires.
+     */
+    private final LoadingCache<Dot11TenantCompositeKey, Set<String>> monitoredProbeRequestSSIDs = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
             .build(new CacheLoader<>() {
-                // TODO MOVE TO PRIVATE FETCH()
                 @Override
-                public Dot11MacAddressMetadata load(Dot11MacAddressLookupCompositeKey lookup){
-                    return fetchMacAddressMetadataNoCache(lookup);
+                public Set<String> load(Dot11TenantCompositeKey tenant) {
+                    return findAllMonitoredProbeRequests(tenant.organizationId(), tenant.tenantId(), Integer.MAX_VALUE, 0)
+                            .stream()
+                            .map(MonitoredProbeRequestEntry::ssid)
+                            .collect(Collectors.toUnmodifiableSet());
                 }
             });
 
     public Dot11(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.discoEngine = new Dot11DiscoEngine(nzyme);
+        this.macRoleIndex = new Dot11MacRoleIndex(nzyme);
     }
 
-    public Dot11MacAddressMetadata getMacAddressMetadata(String macAddress, List<UUID> taps) {
-        try {
-            return macAddressMetadata.get(Dot11MacAddressLookupCompositeKey.create(macAddress, taps));
-        } catch(Exception e) {
-            throw new RuntimeException("Could not fetch 802.11 MAC address metadata.", e);
-        }
+    public Dot11DiscoEngine getDiscoEngine() {
+        return discoEngine;
     }
 
-    private Dot11MacAddressMetadata fetchMacAddressMetadataNoCache(Dot11MacAddressLookupCompositeKey lookup) {
-        // Is this a access point?
-        boolean isAccessPoint = bssidExist(lookup.mac(), TimeRangeFactory.allTime(), lookup.taps());
-
-        // Is this a client?
-        boolean isClient = clientExist(lookup.mac(), Integer.MAX_VALUE, lookup.taps());
+    public Dot11MacRoleIndex getMacRoleIndex() {
+        return macRoleIndex;
+    }
 
-        // Is it both?
-        if (isAccessPoint && isClient) {
-            return Dot11MacAddressMetadata.create(Dot11MacAddressType.MULTIPLE);
-        } else {
-            // Not both. Good.
-            if (isAccessPoint) {
-                return Dot11MacAddressMetadata.create(Dot11MacAddressType.ACCESS_POINT);
-            } else if (isClient) {
-                return Dot11MacAddressMetadata.create(Dot11MacAddressType.CLIENT);
-            } else {
-                // None. Shouldn't happen.
-                return Dot11MacAddressMetadata.create(Dot11MacAddressType.UNKNOWN);
-            }
-        }
+    public Dot11MacAddressMetadata getMacAddressMetadata(String macAddress, List<UUID> taps) {
+        return Dot11MacAddressMetadata.create(macRoleIndex.lookup(macAddress, taps));
     }
 
     public List<String> findAllSSIDNames(List<UUID> taps) {
@@ -304,6 +309,10 @@ public class Dot11 {
     }
 
     public long countBSSIDs(TimeRange timeRange, Filters filters, List<UUID> taps) {
+        return countBSSIDs(timeRange, filters, taps, CountMode.EXACT);
+    }
+
+    public long countBSSIDs(TimeRange timeRange, Filters filters, List<UUID> taps, CountMode countMode) {
         if (taps.isEmpty()) {
             return 0;
         }
@@ -311,34 +320,21 @@ public class Dot11 {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new Dot11BSSIDFilters());
 
         // We need the entire query, including SELECTs here to make the HAVING filters work.
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT COUNT(*) FROM (" +
-                                "SELECT b.bssid, AVG(b.signal_strength_average) AS signal_strength_average, " +
-                                "MIN(b.created_at) AS first_seen, MAX(b.created_at) AS last_seen, " +
-                                "SUM(b.hidden_ssid_frames) as hidden_ssid_frames, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
-                                "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
-                                "ARRAY_AGG(DISTINCT(s.ssid)) AS ssids, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
-                                "COUNT(DISTINCT(c.client_mac)) AS client_count, " +
-                                "ARRAY[]::integer[] AS frequencies " +
-                                "FROM dot11_bssids AS b " +
-                                "LEFT JOIN dot11_ssids AS s ON b.id = s.bssid_id " +
-                                "LEFT JOIN dot11_fingerprints AS f ON b.id = f.bssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
-                                "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
-                                "WHERE b.created_at >= :tr_from AND b.created_at <= :tr_to " +
-                                "AND b.tap_uuid IN (<taps>)" + filterFragment.whereSql() +
-                                "GROUP BY b.bssid HAVING 1=1 " + filterFragment.havingSql() + ") AS ignored")
-                        .bind("tr_from", timeRange.from())
-                        .bind("tr_to", timeRange.to())
-                        .bindMap(filterFragment.bindings())
-                        .bindList("taps", taps)
-                        .mapTo(Long.class)
-                        .first()
-        );
+        String bssidsSql = buildBSSIDsSql(filterFragment);
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            Query query = handle.createQuery(countMode == CountMode.ESTIMATED
+                            ? DatabaseTools.EXPLAIN + bssidsSql
+                            : "SELECT COUNT(*) FROM (" + bssidsSql + ") AS ignored")
+                    .bind("tr_from", timeRange.from())
+                    .bind("tr_to", timeRange.to())
+                    .bindMap(filterFragment.bindings())
+                    .bindList("taps", taps);
+
+            return countMode == CountMode.ESTIMATED
+                    ? DatabaseTools.estimateRows(query)
+                    : query.mapTo(Long.class).first();
+        });
     }
 
     public List<BSSIDSummary> findBSSIDs(TimeRange timeRange,
@@ -355,25 +351,7 @@ public class Dot11 {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new Dot11BSSIDFilters());
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT b.bssid, AVG(b.signal_strength_average) AS signal_strength_average, " +
-                                "MIN(b.created_at) AS first_seen, MAX(b.created_at) AS last_seen, " +
-                                "SUM(b.hidden_ssid_frames) as hidden_ssid_frames, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
-                                "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
-                                "ARRAY_AGG(DISTINCT(s.ssid)) AS ssids, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
-                                "COUNT(DISTINCT(c.client_mac)) AS client_count, " +
-                                "ARRAY[]::integer[] AS frequencies " + // Part of BSSIDSummary but not needed.
-                                "FROM dot11_bssids AS b " +
-                                "LEFT JOIN dot11_ssids AS s ON b.id = s.bssid_id " +
-                                "LEFT JOIN dot11_fingerprints AS f ON b.id = f.bssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
-                                "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
-                                "WHERE b.created_at >= :tr_from AND b.created_at <= :tr_to " +
-                                "AND b.tap_uuid IN (<taps>)" + filterFragment.whereSql() +
-                                "GROUP BY b.bssid HAVING 1=1 " + filterFragment.havingSql() +
+                handle.createQuery(buildBSSIDsSql(filterFragment) +
                                 "ORDER BY <order_column> <order_direction> LIMIT :limit OFFSET :offset")
                         .bind("tr_from", timeRange.from())
                         .bind("tr_to", timeRange.to())
@@ -388,6 +366,72 @@ public class Dot11 {
         );
     }
 
+    public KeysetPage<BSSIDSummary> findBSSIDsPage(TimeRange timeRange,
+                                                   Filters filters,
+                                                   BssidOrderColumn orderColumn,
+                                                   OrderDirection orderDirection,
+                                                   int limit,
+                                                   @Nullable KeysetCursor cursor,
+                                                   List<UUID> taps) {
+        if (taps.isEmpty()) {
+            return KeysetPage.create(Collections.emptyList(), null);
+        }
+
+        FilterSqlFragment filterFragment = FilterSql.generate(filters, new Dot11BSSIDFilters());
+
+        KeysetColumn order = orderColumn.keysetColumn;
+        String condition = Keyset.condition(order, BSSID_KEYSET_KEY, orderDirection, cursor);
+        String sql = Keyset.pageSql(
+                order.aggregated()
+                        ? buildBSSIDsSql(filterFragment, "", condition)
+                        : buildBSSIDsSql(filterFragment, condition, ""),
+                order,
+                BSSID_KEYSET_KEY,
+                orderDirection
+        );
+
+        return nzyme.getDatabase().withHandle(handle ->
+                Keyset.fetch(
+                        handle.createQuery(sql)
+                                .bind("tr_from", timeRange.from())
+                                .bind("tr_to", timeRange.to())
+                                .bindMap(filterFragment.bindings())
+                                .bindList("taps", taps),
+                        BSSIDSummary.class,
+                        cursor,
+                        limit
+                )
+        );
+    }
+
+    private static String buildBSSIDsSql(FilterSqlFragment filterFragment) {
+        return buildBSSIDsSql(filterFragment, "", "");
+    }
+
+    private static String buildBSSIDsSql(FilterSqlFragment filterFragment,
+                                         String whereCondition,
+                                         String havingCondition) {
+        return "SELECT b.bssid, AVG(b.signal_strength_average) AS signal_strength_average, " +
+                "MIN(b.created_at) AS first_seen, MAX(b.created_at) AS last_seen, " +
+                "SUM(b.hidden_ssid_frames) as hidden_ssid_frames, " +
+                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
+                "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
+                "ARRAY_AGG(DISTINCT(s.ssid)) AS ssids, " +
+                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
+                "COUNT(DISTINCT(c.client_mac)) AS client_count, " +
+                "ARRAY[]::integer[] AS frequencies " + // Part of BSSIDSummary but not needed.
+                "FROM dot11_bssids AS b " +
+                "LEFT JOIN dot11_ssids AS s ON b.id = s.bssid_id " +
+                "LEFT JOIN dot11_fingerprints AS f ON b.id = f.bssid_id " +
+                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
+                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
+                "AND ssp.attribute = 'security_protocol' " +
+                "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
+                "WHERE b.created_at >= :tr_from AND b.created_at <= :tr_to " +
+                "AND b.tap_uuid IN (<taps>)" + filterFragment.whereSql() + whereCondition +
+                "GROUP BY b.bssid HAVING 1=1 " + filterFragment.havingSql() + havingCondition + " ";
+    }
+
     public boolean bssidExist(String bssid, TimeRange timeRange, List<UUID> taps) {
         if (taps.isEmpty()) {
             return false;
@@ -623,6 +667,39 @@ public class Dot11 {
         );
     }
 
+    /**
+     * Signal strength waterfalls of one SSID for all given BSSIDs, frequencies and taps in one query.
+     */
+    public List<SignalTrackWaterfallEntry> getSSIDSignalStrengthWaterfalls(String ssid,
+                                                                           List<String> bssids,
+                                                                           List<Integer> frequencies,
+                                                                           TimeRange timeRange,
+                                                                           List<UUID> tapIds) {
+        if (bssids.isEmpty() || frequencies.isEmpty() || tapIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT s.tap_uuid, s.bssid, h.frequency, " +
+                                "DATE_TRUNC('minute', s.created_at) AS bucket, h.signal_strength, " +
+                                "SUM(h.frame_count) AS frame_count FROM dot11_ssids AS s " +
+                                "JOIN dot11_channel_histograms h on s.id = h.ssid_id " +
+                                "WHERE s.created_at >= :tr_from AND s.created_at <= :tr_to " +
+                                "AND s.tap_uuid IN (<taps>) AND s.bssid IN (<bssids>) " +
+                                "AND s.ssid = :ssid AND h.frequency IN (<frequencies>) " +
+                                "GROUP BY s.tap_uuid, s.bssid, h.frequency, bucket, h.signal_strength " +
+                                "ORDER BY bucket DESC")
+                        .bind("tr_from", timeRange.from())
+                        .bind("tr_to", timeRange.to())
+                        .bind("ssid", ssid)
+                        .bindList("taps", tapIds)
+                        .bindList("bssids", bssids)
+                        .bindList("frequencies", frequencies)
+                        .mapTo(SignalTrackWaterfallEntry.class)
+                        .list()
+        );
+    }
+
     public List<SignalTrackHistogramEntry> getBSSIDSignalStrengthWaterfall(String bssid,
                                                                            int frequency,
                                                                            TimeRange timeRange,
@@ -666,6 +743,18 @@ public class Dot11 {
         );
     }
 
+    public List<CustomTrackDetectorConfig> findCustomTrackDetectorConfigurations(UUID organizationId, String ssid) {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT tap_id, bssid, channel, frame_threshold, gap_threshold, " +
+                                "signal_centerline_jitter FROM dot11_track_detector_configuration " +
+                                "WHERE organization_id = :organization_id AND ssid = :ssid")
+                        .bind("organization_id", organizationId)
+                        .bind("ssid", ssid)
+                        .mapTo(CustomTrackDetectorConfig.class)
+                        .list()
+        );
+    }
+
     public void updateCustomTrackDetectorConfiguration(UUID organizationId,
                                                        UUID tapId,
                                                        String bssid,
@@ -902,6 +991,21 @@ public class Dot11 {
                 .list();
     }
 
+    public List<String> findClientMacsOfBSSIDs(Handle handle, List<String> bssids, int minutes, List<UUID> taps) {
+        if (bssids.isEmpty() || taps.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return handle.createQuery("SELECT DISTINCT c.client_mac FROM dot11_bssids AS b " +
+                        "JOIN dot11_bssid_clients c on b.id = c.bssid_id " +
+                        "WHERE b.bssid IN (<bssids>) AND b.created_at > :cutoff AND b.tap_uuid IN (<taps>)")
+                .bindList("bssids", bssids)
+                .bind("cutoff", DateTime.now().minusMinutes(minutes))
+                .bindList("taps", taps)
+                .mapTo(String.class)
+                .list();
+    }
+
     public List<ConnectedClientDetails> findClientsOfBSSID(String bssid, int minutes, List<UUID> taps) {
         return nzyme.getDatabase().withHandle(handle -> findClientsOfBSSID(handle, bssid, minutes, taps));
     }
@@ -1867,19 +1971,15 @@ public class Dot11 {
                 return receivers;
             }
 
-            // Merge sender and receiver histograms.
-            List<DiscoHistogramEntry> result = Lists.newArrayList(senders);
+            // Merge sender and receiver histograms. Buckets present in both are summed into the sender entry.
             for (DiscoHistogramEntry h : receivers) {
-                DiscoHistogramEntry senderEntry = sendersMap.get(h.bucket());
-                if (senderEntry == null) {
-                    // No sender entry.
-                    result.add(h);
-                } else {
-                    // Sender entry exists. Add receiver.
-                    result.add(DiscoHistogramEntry.create(h.bucket(), h.frameCount() + senderEntry.frameCount()));
-                }
+                sendersMap.merge(h.bucket(), h, (sender, receiver) ->
+                        DiscoHistogramEntry.create(sender.bucket(), sender.frameCount() + receiver.frameCount()));
             }
 
+            List<DiscoHistogramEntry> result = Lists.newArrayList(sendersMap.values());
+            result.sort((a, b) -> b.bucket().compareTo(a.bucket()));
+
             return result;
         } else {
             // We only have senders.
@@ -2353,6 +2453,14 @@ public class Dot11 {
         );
     }
 
+    public Set<String> getMonitoredProbeRequestSSIDs(UUID organizationId, UUID tenantId) {
+        try {
+            return monitoredProbeRequestSSIDs.get(Dot11TenantCompositeKey.create(organizationId, tenantId));
+        } catch(Exception e) {
+            throw new RuntimeException("Could not fetch monitored probe request SSIDs.", e);
+        }
+    }
+
     public Optional<MonitoredProbeRequestEntry> findMonitoredProbeRequest(UUID uuid,
                                                                           UUID organizationId,
                                                                           UUID tenantId) {
@@ -2398,6 +2506,8 @@ public class Dot11 {
                         .bind("tenant_id", tenantId)
                         .execute()
         );
+
+        monitoredProbeRequestSSIDs.invalidate(Dot11TenantCompositeKey.create(organizationId, tenantId));
     }
 
     public void updateMonitoredProbeRequest(UUID uuid,
@@ -2423,6 +2533,8 @@ public class Dot11 {
                         .bind("tenant_id", tenantId)
                         .execute()
         );
+
+        monitoredProbeRequestSSIDs.invalidate(Dot11TenantCompositeKey.create(organizationId, tenantId));
     }
 
     public void deleteMonitoredProbeRequest(UUID uuid,
@@ -2436,6 +2548,8 @@ public class Dot11 {
                         .bind("tenant_id", tenantId)
                         .execute()
         );
+
+        monitoredProbeRequestSSIDs.invalidate(Dot11TenantCompositeKey.create(organizationId, tenantId));
     }
 
     public long countAllKnownNetworks(UUID organizationId, UUID tenantId) {
@@ -2516,23 +2630,32 @@ public class Dot11 {
         );
     }
 
-    public void createKnownNetwork(Handle handle, String ssid, UUID organizationId, UUID tenantId) {
-        handle.createUpdate("INSERT INTO dot11_known_networks(uuid, ssid, is_approved, is_ignored, " +
-                        "organization_id, tenant_id, first_seen, last_seen) VALUES(:uuid, :ssid, :is_approved, " +
-                        ":is_ignored, :organization_id, :tenant_id, NOW(), NOW())")
-                .bind("uuid", UUID.randomUUID())
-                .bind("ssid", ssid)
-                .bind("is_approved", false)
-                .bind("is_ignored", false)
+    /**
+     * Creates all SSIDs that are not known yet and updates `last_seen` of all others in a single statement.
+     * Returns the SSIDs that should be alerted on: Those that were created and those that are neither approved
+     * nor ignored.
+     */
+    public List<String> upsertKnownNetworks(Handle handle, List<String> ssids, UUID organizationId, UUID tenantId) {
+        if (ssids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<UUID> uuids = ssids.stream().map(s -> UUID.randomUUID()).toList();
+
+        return handle.createQuery("WITH upserted AS (" +
+                        "INSERT INTO dot11_known_networks(uuid, ssid, is_approved, is_ignored, " +
+                        "organization_id, tenant_id, first_seen, last_seen) " +
+                        "SELECT n.uuid, n.ssid, false, false, :organization_id, :tenant_id, NOW(), NOW() " +
+                        "FROM unnest(:uuids, :ssids) AS n(uuid, ssid) " +
+                        "ON CONFLICT (organization_id, tenant_id, ssid) DO UPDATE SET last_seen = NOW() " +
+                        "RETURNING ssid, (xmax = 0) AS inserted, is_approved, is_ignored) " +
+                        "SELECT ssid FROM upserted WHERE inserted OR (NOT is_approved AND NOT is_ignored)")
+                .bindArray("uuids", UUID.class, uuids)
+                .bindArray("ssids", String.class, ssids)
                 .bind("organization_id", organizationId)
                 .bind("tenant_id", tenantId)
-                .execute();
-    }
-
-    public void touchKnownNetwork(Handle handle, long id) {
-        handle.createUpdate("UPDATE dot11_known_networks SET last_seen = NOW() WHERE id = :id")
-                .bind("id", id)
-                .execute();
+                .mapTo(String.class)
+                .list();
     }
 
     public void retentionCleanKnownNetworks(DateTime since) {
@@ -2566,15 +2689,6 @@ public class Dot11 {
         );
     }
 
-    public Optional<Dot11KnownClient> findKnownClient(Handle handle, String mac, long monitoredNetworkId) {
-        return handle.createQuery("SELECT * FROM dot11_known_clients " +
-                        "WHERE mac = :mac AND monitored_network_id = :monitored_network_id")
-                .bind("mac", mac)
-                .bind("monitored_network_id", monitoredNetworkId)
-                .mapTo(Dot11KnownClient.class)
-                .findOne();
-    }
-
     public Optional<Dot11KnownClient> findKnownClientByUuid(UUID uuid, long monitoredNetworkId) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM dot11_known_clients " +
@@ -2622,22 +2736,31 @@ public class Dot11 {
         );
     }
 
-    public void createKnownClient(Handle handle, String mac, long monitoredNetworkId) {
-        handle.createUpdate("INSERT INTO dot11_known_clients(uuid, mac, is_approved, is_ignored, " +
-                        "monitored_network_id, first_seen, last_seen) VALUES(:uuid, :mac, :is_approved, " +
-                        ":is_ignored, :monitored_network_id, NOW(), NOW())")
-                .bind("uuid", UUID.randomUUID())
-                .bind("mac", mac)
-                .bind("is_approved", false)
-                .bind("is_ignored", false)
-                .bind("monitored_network_id", monitoredNetworkId)
-                .execute();
-    }
+    /**
+     * Creates all clients that are not known yet and updates `last_seen` of all others in a single statement.
+     * Returns the MAC addresses that should be alerted on: Those that were created and those that are neither
+     * approved nor ignored.
+     */
+    public List<String> upsertKnownClients(Handle handle, List<String> macs, long monitoredNetworkId) {
+        if (macs.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-    public void touchKnownClient(Handle handle, long id) {
-        handle.createUpdate("UPDATE dot11_known_clients SET last_seen = NOW() WHERE id = :id")
-                .bind("id", id)
-                .execute();
+        List<UUID> uuids = macs.stream().map(m -> UUID.randomUUID()).toList();
+
+        return handle.createQuery("WITH upserted AS (" +
+                        "INSERT INTO dot11_known_clients(uuid, mac, is_approved, is_ignored, " +
+                        "monitored_network_id, first_seen, last_seen) " +
+                        "SELECT n.uuid, n.mac, false, false, :monitored_network_id, NOW(), NOW() " +
+                        "FROM unnest(:uuids, :macs) AS n(uuid, mac) " +
+                        "ON CONFLICT (monitored_network_id, mac) DO UPDATE SET last_seen = NOW() " +
+                        "RETURNING mac, (xmax = 0) AS inserted, is_approved, is_ignored) " +
+                        "SELECT mac FROM upserted WHERE inserted OR (NOT is_approved AND NOT is_ignored)")
+                .bindArray("uuids", UUID.class, uuids)
+                .bindArray("macs", String.class, macs)
+                .bind("monitored_network_id", monitoredNetworkId)
+                .mapTo(String.class)
+                .list();
     }
 
     public void retentionCleanKnownClients(DateTime since) {
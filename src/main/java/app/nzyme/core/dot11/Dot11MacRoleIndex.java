@@ -0,0 +1,102 @@
+package app.nzyme.core.dot11;
+
+import app.nzyme.core.NzymeNode;
+import com.google.common.collect.Lists;
+import org.jdbi.v3.core.Handle;
+import org.joda.time.DateTime;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Index of the roles (access point, client or both) every MAC address was seen in by each tap. Upserted with every
+ * 802.11 report, so looking up the role of a MAC address is a single primary key probe instead of scans over the
+ * BSSID and client tables.
+ */
+public class Dot11MacRoleIndex {
+
+    private final NzymeNode nzyme;
+
+    public Dot11MacRoleIndex(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    /**
+     * Records the MAC addresses of a report as part of its transaction. Existing rows are only touched if a MAC
+     * address takes a new role or if its last seen timestamp is more than an hour old.
+     */
+    public void record(Handle handle, UUID tapUuid, DateTime timestamp, Set<String> bssids, Set<String> clients) {
+        if (bssids.isEmpty() && clients.isEmpty()) {
+            return;
+        }
+
+        List<String> macs = Lists.newArrayListWithCapacity(bssids.size() + clients.size());
+        List<Boolean> isBssid = Lists.newArrayListWithCapacity(bssids.size() + clients.size());
+        List<Boolean> isClient = Lists.newArrayListWithCapacity(bssids.size() + clients.size());
+
+        for (String bssid : bssids) {
+            macs.add(bssid);
+            isBssid.add(true);
+            isClient.add(clients.contains(bssid));
+        }
+
+        for (String client : clients) {
+            if (bssids.contains(client)) {
+                continue;
+            }
+
+            macs.add(client);
+            isBssid.add(false);
+            isClient.add(true);
+        }
+
+        handle.createUpdate("INSERT INTO dot11_mac_roles(tap_uuid, mac, is_bssid, is_client, first_seen, " +
+                        "last_seen) SELECT :tap_uuid, m.mac, m.is_bssid, m.is_client, :timestamp, :timestamp " +
+                        "FROM unnest(:macs, :is_bssid, :is_client) AS m(mac, is_bssid, is_client) " +
+                        "ON CONFLICT (mac, tap_uuid) DO UPDATE SET " +
+                        "is_bssid = dot11_mac_roles.is_bssid OR EXCLUDED.is_bssid, " +
+                        "is_client = dot11_mac_roles.is_client OR EXCLUDED.is_client, " +
+                        "last_seen = GREATEST(dot11_mac_roles.last_seen, EXCLUDED.last_seen) " +
+                        "WHERE (EXCLUDED.is_bssid AND NOT dot11_mac_roles.is_bssid) " +
+                        "OR (EXCLUDED.is_client AND NOT dot11_mac_roles.is_client) " +
+                        "OR dot11_mac_roles.last_seen < EXCLUDED.last_seen - INTERVAL '1 hour'")
+                .bind("tap_uuid", tapUuid)
+                .bind("timestamp", timestamp)
+                .bindArray("macs", String.class, macs)
+                .bindArray("is_bssid", Boolean.class, isBssid)
+                .bindArray("is_client", Boolean.class, isClient)
+                .execute();
+    }
+
+    public Dot11MacAddressType lookup(String mac, Collection<UUID> taps) {
+        if (taps.isEmpty()) {
+            return Dot11MacAddressType.UNKNOWN;
+        }
+
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COALESCE(BOOL_OR(is_bssid), false) AS is_bssid, " +
+                                "COALESCE(BOOL_OR(is_client), false) AS is_client " +
+                                "FROM dot11_mac_roles WHERE mac = :mac AND tap_uuid IN (<taps>)")
+                        .bind("mac", mac)
+                        .bindList("taps", taps)
+                        .map((rs, ctx) -> {
+                            boolean isBssid = rs.getBoolean("is_bssid");
+                            boolean isClient = rs.getBoolean("is_client");
+
+                            if (isBssid && isClient) {
+                                return Dot11MacAddressType.MULTIPLE;
+                            } else if (isBssid) {
+                                return Dot11MacAddressType.ACCESS_POINT;
+                            } else if (isClient) {
+                                return Dot11MacAddressType.CLIENT;
+                            } else {
+                                return Dot11MacAddressType.UNKNOWN;
+                            }
+                        })
+                        .one()
+        );
+    }
+
+}
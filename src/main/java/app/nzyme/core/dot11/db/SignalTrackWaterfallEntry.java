@@ -0,0 +1,54 @@
+package app.nzyme.core.dot11.db;
+
+import com.google.auto.value.AutoValue;
+import org.joda.time.DateTime;
+
+import java.util.UUID;
+
+@AutoValue
+public abstract class SignalTrackWaterfallEntry {
+
+    public abstract UUID tapUuid();
+    public abstract String bssid();
+    public abstract int frequency();
+    public abstract DateTime bucket();
+    public abstract int signalStrength();
+    public abstract long frameCount();
+
+    public static SignalTrackWaterfallEntry create(UUID tapUuid,
+                                                   String bssid,
+                                                   int frequency,
+                                                   DateTime bucket,
+                                                   int signalStrength,
+                                                   long frameCount) {
+        return builder()
+                .tapUuid(tapUuid)
+                .bssid(bssid)
+                .frequency(frequency)
+                .bucket(bucket)
+                .signalStrength(signalStrength)
+                .frameCount(frameCount)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_SignalTrackWaterfallEntry.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder tapUuid(UUID tapUuid);
+
+        public abstract Builder bssid(String bssid);
+
+        public abstract Builder frequency(int frequency);
+
+        public abstract Builder bucket(DateTime bucket);
+
+        public abstract Builder signalStrength(int signalStrength);
+
+        public abstract Builder frameCount(long frameCount);
+
+        public abstract SignalTrackWaterfallEntry build();
+    }
+}
@@ -2,97 +2,210 @@ package app.nzyme.core.dot11.monitoring;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.detection.alerts.DetectionType;
-import app.nzyme.core.dot11.db.SignalTrackHistogramEntry;
+import app.nzyme.core.dot11.db.SignalTrackWaterfallEntry;
 import app.nzyme.core.dot11.db.monitoring.MonitoredBSSID;
 import app.nzyme.core.dot11.db.monitoring.MonitoredChannel;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
-import app.nzyme.core.dot11.tracks.Track;
+import app.nzyme.core.dot11.tracks.StreamingTrackDetector;
 import app.nzyme.core.dot11.tracks.TrackDetector;
+import app.nzyme.core.dot11.tracks.db.CustomTrackDetectorConfig;
 import app.nzyme.core.dot11.tracks.db.TrackDetectorConfig;
 import app.nzyme.core.periodicals.Periodical;
 import app.nzyme.core.taps.Tap;
+import app.nzyme.core.util.TimeRange;
 import app.nzyme.core.util.TimeRangeFactory;
 import app.nzyme.plugin.Subsystem;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Detects multiple signal tracks of monitored networks. Sharded by monitored network, so every network is evaluated
+ * and alerted on by exactly one node.
+ *
+ * Every combination of tap, BSSID, SSID and frequency has its own StreamingTrackDetector. It is loaded with the full
+ * window from the database when first evaluated. After that, only the most recent minutes are re-read from the
+ * database on every run, so reports written by any node of the cluster are picked up. Taps are loaded once per run
+ * and custom detector configurations and signal data once per monitored network.
+ */
 public class Dot11SignalTrackMonitor extends Periodical {
 
     private static final Logger LOG = LogManager.getLogger(Dot11SignalTrackMonitor.class);
 
+    private static final long WINDOW_MILLIS = 8 * 60 * 60 * 1000L;
+
+    // Minutes that are re-read on every run, to include reports of taps that arrived after the last one.
+    private static final int REFRESH_MINUTES = 5;
+
     private final NzymeNode nzyme;
 
+    // Only accessed by the periodical thread.
+    private final Map<TrackKey, MonitoredTrack> tracks;
+
     public Dot11SignalTrackMonitor(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.tracks = Maps.newHashMap();
     }
 
     @Override
     protected void execute() {
         LOG.debug("Starting 802.11 signal track monitor run.");
 
+        DateTime now = DateTime.now();
+        Set<TrackKey> evaluated = Sets.newHashSet();
+
+        Map<UUID, Tap> taps = Maps.newHashMap();
+        for (Tap tap : nzyme.getTapManager().findAllTapsOfAllUsers()) {
+            taps.put(tap.uuid(), tap);
+        }
+
         for (MonitoredSSID monitoredSSID : nzyme.getDot11().findAllMonitoredSSIDs(null, null)) {
             if (!monitoredSSID.isEnabled() || !monitoredSSID.enabledUnexpectedSignalTracks()) {
                 continue;
             }
-            
-            List<UUID> tapUUIDs = nzyme.getTapManager()
-                    .allTapUUIDsAccessibleByScope(monitoredSSID.organizationId(), monitoredSSID.tenantId());
-
-            for (MonitoredBSSID monitoredBSSID : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(monitoredSSID.id())) {
-                for (MonitoredChannel frequency : nzyme.getDot11().findMonitoredChannelsOfMonitoredNetwork(monitoredSSID.id())) {
-                    for (UUID tapId : tapUUIDs) {
-                        Optional<Tap> tap = nzyme.getTapManager().findTap(tapId);
-
-                        List<SignalTrackHistogramEntry> signals = nzyme.getDot11().getSSIDSignalStrengthWaterfall(
-                                monitoredBSSID.bssid(), monitoredSSID.ssid(), (int) frequency.frequency(), TimeRangeFactory.eightHours(), tap.get().uuid());
-
-                        TrackDetectorConfig config = nzyme.getDot11()
-                                .findCustomTrackDetectorConfiguration(
-                                        tap.get().organizationId(),
-                                        tap.get().uuid(),
-                                        monitoredBSSID.bssid(),
-                                        monitoredSSID.ssid(),
-                                        (int)frequency.frequency()
-                                )
-                                .orElse(TrackDetector.DEFAULT_CONFIG);
-
-                        TrackDetector.TrackDetectorHeatmapData heatmap = TrackDetector.toChartAxisMaps(signals);
-                        TrackDetector td = new TrackDetector();
-                        List<Track> tracks = td.detect(heatmap.z(), heatmap.y(), config);
-
-                        if (tracks.size() > 1) {
-                            // Multiple tracks detected.
-                            Map<String, String> attributes = Maps.newHashMap();
-                            attributes.put("bssid", monitoredBSSID.bssid());
-                            attributes.put("channel", String.valueOf(frequency.frequency()));
-                            attributes.put("tap_id", tap.get().uuid().toString());
-                            attributes.put("tap_name", tap.get().name());
-
-                            nzyme.getDetectionAlertService().raiseAlert(
-                                    monitoredSSID.organizationId(),
-                                    monitoredSSID.tenantId(),
-                                    monitoredSSID.uuid(),
-                                    null,
-                                    DetectionType.DOT11_MONITOR_SIGNAL_TRACK,
-                                    Subsystem.DOT11,
-                                    "Monitored network \"" + monitoredSSID.ssid() + "\" advertised " +
-                                            "with multiple signal tracks on channel \"" + frequency.frequency() + "\". " +
-                                            "(Tap: \"" + tap.get().name() + "\")",
-                                    attributes,
-                                    new String[]{"bssid", "channel", "tap_id"},
-                                    null
-                            );
-                        }
+
+            if (!ownsShard(monitoredSSID.uuid())) {
+                // Another node of the cluster is processing this network.
+                continue;
+            }
+
+            try {
+                evaluateNetwork(monitoredSSID, taps, now, evaluated);
+            } catch (Exception e) {
+                LOG.error("Could not evaluate signal tracks of monitored network [{}].", monitoredSSID.ssid(), e);
+            }
+        }
+
+        // Forget detectors of networks that are no longer monitored or processed by this node.
+        tracks.keySet().removeIf(key -> !evaluated.contains(key));
+    }
+
+    private void evaluateNetwork(MonitoredSSID monitoredSSID,
+                                 Map<UUID, Tap> taps,
+                                 DateTime now,
+                                 Set<TrackKey> evaluated) {
+        List<UUID> tapUUIDs = Lists.newArrayList();
+        for (UUID tapId : nzyme.getTapManager()
+                .allTapUUIDsAccessibleByScope(monitoredSSID.organizationId(), monitoredSSID.tenantId())) {
+            if (taps.containsKey(tapId)) {
+                tapUUIDs.add(tapId);
+            }
+        }
+
+        List<String> bssids = Lists.newArrayList();
+        for (MonitoredBSSID monitoredBSSID : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(monitoredSSID.id())) {
+            bssids.add(monitoredBSSID.bssid());
+        }
+
+        List<Integer> frequencies = Lists.newArrayList();
+        for (MonitoredChannel channel : nzyme.getDot11().findMonitoredChannelsOfMonitoredNetwork(monitoredSSID.id())) {
+            frequencies.add((int) channel.frequency());
+        }
+
+        if (tapUUIDs.isEmpty() || bssids.isEmpty() || frequencies.isEmpty()) {
+            return;
+        }
+
+        Map<TrackKey, TrackDetectorConfig> customConfigs = Maps.newHashMap();
+        for (CustomTrackDetectorConfig custom : nzyme.getDot11()
+                .findCustomTrackDetectorConfigurations(monitoredSSID.organizationId(), monitoredSSID.ssid())) {
+            customConfigs.put(
+                    TrackKey.create(custom.tapId(), custom.bssid(), monitoredSSID.ssid(), custom.channel()),
+                    custom.config()
+            );
+        }
+
+        // Re-read the most recent minutes in full. Earlier reads of them may have been incomplete.
+        DateTime refreshFrom = now.withSecondOfMinute(0).withMillisOfSecond(0).minusMinutes(REFRESH_MINUTES - 1);
+
+        Map<TrackKey, MonitoredTrack> networkTracks = Maps.newHashMap();
+        boolean hydrate = false;
+        boolean refresh = false;
+        for (UUID tapId : tapUUIDs) {
+            for (String bssid : bssids) {
+                for (int frequency : frequencies) {
+                    TrackKey key = TrackKey.create(tapId, bssid, monitoredSSID.ssid(), frequency);
+                    evaluated.add(key);
+
+                    MonitoredTrack track = tracks.computeIfAbsent(key, k -> new MonitoredTrack());
+                    track.detector.setConfig(customConfigs.getOrDefault(key, TrackDetector.DEFAULT_CONFIG));
+
+                    if (track.hydrated) {
+                        track.detector.clearFrom(refreshFrom);
+                        refresh = true;
+                    } else {
+                        hydrate = true;
                     }
+
+                    networkTracks.put(key, track);
                 }
             }
         }
+
+        // New detectors are loaded with the full window, all others only with the most recent minutes.
+        if (hydrate) {
+            record(monitoredSSID.ssid(), networkTracks, false, nzyme.getDot11().getSSIDSignalStrengthWaterfalls(
+                    monitoredSSID.ssid(), bssids, frequencies, TimeRangeFactory.eightHours(), tapUUIDs));
+        }
+
+        if (refresh) {
+            record(monitoredSSID.ssid(), networkTracks, true, nzyme.getDot11().getSSIDSignalStrengthWaterfalls(
+                    monitoredSSID.ssid(), bssids, frequencies, TimeRange.create(refreshFrom, now, false), tapUUIDs));
+        }
+
+        for (Map.Entry<TrackKey, MonitoredTrack> track : networkTracks.entrySet()) {
+            TrackKey key = track.getKey();
+            track.getValue().hydrated = true;
+
+            if (track.getValue().detector.evaluate(now) > 1) {
+                raiseAlert(monitoredSSID, taps.get(key.tapId()), key.bssid(), key.frequency());
+            }
+        }
+    }
+
+    private static void record(String ssid,
+                               Map<TrackKey, MonitoredTrack> tracks,
+                               boolean hydrated,
+                               List<SignalTrackWaterfallEntry> entries) {
+        for (SignalTrackWaterfallEntry entry : entries) {
+            MonitoredTrack track = tracks.get(TrackKey.create(entry.tapUuid(), entry.bssid(), ssid, entry.frequency()));
+
+            if (track != null && track.hydrated == hydrated) {
+                track.detector.record(entry.bucket(), entry.signalStrength(), entry.frameCount());
+            }
+        }
+    }
+
+    private void raiseAlert(MonitoredSSID monitoredSSID, Tap tap, String bssid, int frequency) {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put("bssid", bssid);
+        attributes.put("channel", String.valueOf(frequency));
+        attributes.put("tap_id", tap.uuid().toString());
+        attributes.put("tap_name", tap.name());
+
+        nzyme.getDetectionAlertService().raiseAlert(
+                monitoredSSID.organizationId(),
+                monitoredSSID.tenantId(),
+                monitoredSSID.uuid(),
+                null,
+                DetectionType.DOT11_MONITOR_SIGNAL_TRACK,
+                Subsystem.DOT11,
+                "Monitored network \"" + monitoredSSID.ssid() + "\" advertised " +
+                        "with multiple signal tracks on channel \"" + frequency + "\". " +
+                        "(Tap: \"" + tap.name() + "\")",
+                attributes,
+                new String[]{"bssid", "channel", "tap_id"},
+                null
+        );
     }
 
     @Override
@@ -100,4 +213,56 @@ public class Dot11SignalTrackMonitor extends Periodical {
         return "802.11 Signal Track Monitor";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SHARDED;
+    }
+
+    private static final class MonitoredTrack {
+
+        private final StreamingTrackDetector detector;
+
+        private boolean hydrated = false;
+
+        MonitoredTrack() {
+            this.detector = new StreamingTrackDetector(WINDOW_MILLIS, TrackDetector.DEFAULT_CONFIG);
+        }
+
+    }
+
+    @AutoValue
+    public static abstract class TrackKey {
+
+        public abstract UUID tapId();
+        public abstract String bssid();
+        public abstract String ssid();
+        public abstract int frequency();
+
+        public static TrackKey create(UUID tapId, String bssid, String ssid, int frequency) {
+            return builder()
+                    .tapId(tapId)
+                    .bssid(bssid)
+                    .ssid(ssid)
+                    .frequency(frequency)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_Dot11SignalTrackMonitor_TrackKey.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder tapId(UUID tapId);
+
+            public abstract Builder bssid(String bssid);
+
+            public abstract Builder ssid(String ssid);
+
+            public abstract Builder frequency(int frequency);
+
+            public abstract TrackKey build();
+        }
+    }
+
 }
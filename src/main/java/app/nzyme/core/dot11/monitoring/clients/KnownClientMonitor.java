@@ -2,8 +2,6 @@ package app.nzyme.core.dot11.monitoring.clients;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.detection.alerts.DetectionType;
-import app.nzyme.core.dot11.db.ConnectedClientDetails;
-import app.nzyme.core.dot11.db.Dot11KnownClient;
 import app.nzyme.core.dot11.db.monitoring.MonitoredBSSID;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
 import app.nzyme.core.periodicals.Periodical;
@@ -16,7 +14,6 @@ import org.joda.time.DateTime;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
 public class KnownClientMonitor extends Periodical {
@@ -42,6 +39,11 @@ public class KnownClientMonitor extends Periodical {
                         continue;
                     }
 
+                    if (!ownsShard(monitoredNetwork.uuid())) {
+                        // Another node of the cluster is processing this network.
+                        continue;
+                    }
+
                     // Build list of taps of this tenant.
                     List<UUID> taps = nzyme.getTapManager()
                             .findAllTapsOfTenant(monitoredNetwork.organizationId(), monitoredNetwork.tenantId())
@@ -49,36 +51,21 @@ public class KnownClientMonitor extends Periodical {
                             .map(Tap::uuid)
                             .toList();
 
-                    List<MonitoredBSSID> bssids = nzyme.getDot11()
-                            .findMonitoredBSSIDsOfMonitoredNetwork(handle, monitoredNetwork.id());
-
-                    for (MonitoredBSSID bssid : bssids) {
-                        // Find all clients of BSSID.
-                        List<ConnectedClientDetails> clients = nzyme.getDot11()
-                                .findClientsOfBSSID(handle, bssid.bssid(), 1, taps);
-
-                        // Process all clients.
-                        for (ConnectedClientDetails client : clients) {
-                            // Do we already know this client?
-                            Optional<Dot11KnownClient> knownClient = nzyme.getDot11()
-                                    .findKnownClient(handle, client.clientMac(), monitoredNetwork.id());
-
-                            if (knownClient.isPresent()) {
-                                // We know this client. Only update `last_seen`.
-                                nzyme.getDot11().touchKnownClient(handle, knownClient.get().id());
-
-                                // Raise alarm for new client if not approved or ignored.
-                                if (!knownClient.get().isApproved() && !knownClient.get().isIgnored()) {
-                                    raiseAlertIfEventingEnabled(client, monitoredNetwork);
-                                }
-                            } else {
-                                // New client.
-                                nzyme.getDot11().createKnownClient(handle, client.clientMac(), monitoredNetwork.id());
-
-                                // Raise alarm for new client.
-                                raiseAlertIfEventingEnabled(client, monitoredNetwork);
-                            }
-                        }
+                    List<String> bssids = nzyme.getDot11()
+                            .findMonitoredBSSIDsOfMonitoredNetwork(handle, monitoredNetwork.id())
+                            .stream()
+                            .map(MonitoredBSSID::bssid)
+                            .toList();
+
+                    // All clients of all BSSIDs of this network.
+                    List<String> clients = nzyme.getDot11().findClientMacsOfBSSIDs(handle, bssids, 1, taps);
+
+                    /*
+                     * Create new clients and update `last_seen` of known clients in one go. Only returns new
+                     * clients and clients that are neither approved nor ignored.
+                     */
+                    for (String clientMac : nzyme.getDot11().upsertKnownClients(handle, clients, monitoredNetwork.id())) {
+                        raiseAlertIfEventingEnabled(clientMac, monitoredNetwork);
                     }
                 }
             });
@@ -90,16 +77,16 @@ public class KnownClientMonitor extends Periodical {
         }
     }
 
-    private void raiseAlertIfEventingEnabled(ConnectedClientDetails client, MonitoredSSID ssid) {
+    private void raiseAlertIfEventingEnabled(String clientMac, MonitoredSSID ssid) {
         if  (!ssid.enabledClientEventing()) {
             LOG.debug("Not raising alert for unapproved client [{}] because eventing is enabled for " +
-                    "monitored network [{}].", client.clientMac(), ssid.ssid());
+                    "monitored network [{}].", clientMac, ssid.ssid());
             return;
         }
 
         Map<String, String> parameters = Maps.newHashMap();
         parameters.put("monitored_network", ssid.ssid());
-        parameters.put("client_mac", client.clientMac());
+        parameters.put("client_mac", clientMac);
 
         nzyme.getDetectionAlertService().raiseAlert(
                 ssid.organizationId(),
@@ -108,7 +95,7 @@ public class KnownClientMonitor extends Periodical {
                 null,
                 DetectionType.DOT11_UNAPPROVED_CLIENT,
                 Subsystem.DOT11,
-                "Unapproved client \"" + client.clientMac() + "\" connected to monitored network \""  +ssid.ssid() + "\" detected.",
+                "Unapproved client \"" + clientMac + "\" connected to monitored network \""  +ssid.ssid() + "\" detected.",
                 parameters,
                 new String[]{"monitored_network", "client_mac"},
                 null
@@ -120,4 +107,9 @@ public class KnownClientMonitor extends Periodical {
         return "KnownClientMonitor";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SHARDED;
+    }
+
 }
@@ -0,0 +1,83 @@
+package app.nzyme.core.dot11.monitoring.disco;
+
+/**
+ * Fixed size ring of per-minute frame counts. Writing a newer minute clears the slots of all minutes that were
+ * skipped, so the buffer always holds exactly the most recent window. Not thread-safe.
+ */
+public class DiscoRingBuffer {
+
+    private final int[] counts;
+    private long newestMinute;
+
+    public DiscoRingBuffer(int capacityMinutes) {
+        this.counts = new int[capacityMinutes];
+        this.newestMinute = Long.MIN_VALUE;
+    }
+
+    public void add(long minute, long frames) {
+        if (!advanceTo(minute)) {
+            return;
+        }
+
+        int slot = slot(minute);
+        counts[slot] = (int) Math.min(Integer.MAX_VALUE, counts[slot] + frames);
+    }
+
+    /**
+     * Overwrites the count of a minute, for example with a newer total loaded from the database.
+     */
+    public void set(long minute, long frames) {
+        if (!advanceTo(minute)) {
+            return;
+        }
+
+        counts[slot(minute)] = (int) Math.min(Integer.MAX_VALUE, frames);
+    }
+
+    /**
+     * Moves the window forward if the minute is newer than all minutes written so far.
+     *
+     * @return False if the minute is older than the window.
+     */
+    private boolean advanceTo(long minute) {
+        if (newestMinute == Long.MIN_VALUE) {
+            newestMinute = minute;
+        }
+
+        if (minute > newestMinute) {
+            long clear = Math.min(minute - newestMinute, counts.length);
+            for (long m = minute - clear + 1; m <= minute; m++) {
+                counts[slot(m)] = 0;
+            }
+            newestMinute = minute;
+        }
+
+        return minute > newestMinute - counts.length;
+    }
+
+    public long get(long minute) {
+        if (minute > newestMinute || minute <= newestMinute - counts.length) {
+            return 0;
+        }
+
+        return counts[slot(minute)];
+    }
+
+    /**
+     * Adds the counts of all minutes starting at fromMinute into the target array.
+     */
+    public void addTo(long[] target, long fromMinute) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += get(fromMinute + i);
+        }
+    }
+
+    public long getNewestMinute() {
+        return newestMinute;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) counts.length);
+    }
+
+}
@@ -0,0 +1,65 @@
+package app.nzyme.core.dot11.monitoring.disco;
+
+import app.nzyme.core.dot11.db.DiscoHistogramEntry;
+import org.joda.time.DateTime;
+
+import java.util.List;
+
+/**
+ * Dense series of disconnection frame counts in one minute buckets. Buckets without frames are 0, so monitor
+ * methods can run over a plain array without looking up timestamps.
+ */
+public class DiscoSeries {
+
+    public static final long BUCKET_MILLIS = 60_000;
+
+    private final long startMinute;
+    private final long[] counts;
+
+    public DiscoSeries(long startMinute, long[] counts) {
+        this.startMinute = startMinute;
+        this.counts = counts;
+    }
+
+    /**
+     * Builds a series from a histogram with minute bucketing. Buckets outside the given range are ignored.
+     */
+    public static DiscoSeries fromHistogram(List<DiscoHistogramEntry> histogram, DateTime from, DateTime to) {
+        long startMinute = minuteOf(from);
+        long[] counts = new long[(int) (minuteOf(to) - startMinute + 1)];
+
+        for (DiscoHistogramEntry entry : histogram) {
+            long index = minuteOf(entry.bucket()) - startMinute;
+            if (index >= 0 && index < counts.length) {
+                counts[(int) index] += entry.frameCount();
+            }
+        }
+
+        return new DiscoSeries(startMinute, counts);
+    }
+
+    public static long minuteOf(DateTime timestamp) {
+        return Math.floorDiv(timestamp.getMillis(), BUCKET_MILLIS);
+    }
+
+    public static DateTime dateTimeOf(long minute) {
+        return new DateTime(minute * BUCKET_MILLIS);
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    public long get(int index) {
+        return counts[index];
+    }
+
+    public long[] counts() {
+        return counts;
+    }
+
+    public DateTime timestamp(int index) {
+        return dateTimeOf(startMinute + index);
+    }
+
+}
@@ -0,0 +1,131 @@
+package app.nzyme.core.dot11.monitoring.disco;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.dot11.Dot11;
+import app.nzyme.core.dot11.db.DiscoHistogramEntry;
+import app.nzyme.core.util.Bucketing;
+import app.nzyme.core.util.TimeRange;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps per-minute disconnection frame counts of monitored networks in memory, so the disco monitor methods can run
+ * over primitive arrays instead of querying a full day of histogram of every monitored network and tap every minute.
+ *
+ * The database is the only source of counts. Every combination of tap and monitored network is loaded in full the
+ * first time it is evaluated. After that, only the most recent minutes are re-read on every evaluation, so counts
+ * written by any node of the cluster are picked up. Counts of older minutes that arrive late are not seen.
+ */
+public class Dot11DiscoEngine {
+
+    // Enough for a full day of evaluation with the maximum of seven seasons of history.
+    public static final int WINDOW_MINUTES = 8 * 24 * 60;
+
+    // Minutes that are re-read on every evaluation, to include reports of taps that arrived after the last one.
+    private static final int REFRESH_MINUTES = 5;
+
+    private final NzymeNode nzyme;
+
+    private final ConcurrentMap<BufferKey, NetworkBuffer> buffers;
+
+    public Dot11DiscoEngine(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+        this.buffers = Maps.newConcurrentMap();
+    }
+
+    /**
+     * Returns the summed series of all BSSIDs of a monitored network as seen by a tap, starting at fromMinute.
+     */
+    public DiscoSeries series(UUID tapId, UUID monitoredNetworkId, List<String> bssids, long fromMinute, int minutes) {
+        long nowMinute = DiscoSeries.minuteOf(DateTime.now());
+        long[] counts = new long[minutes];
+
+        NetworkBuffer buffer = buffers.computeIfAbsent(
+                BufferKey.create(tapId, monitoredNetworkId),
+                k -> new NetworkBuffer()
+        );
+
+        synchronized (buffer) {
+            if (buffer.bssids == null || !buffer.bssids.equals(bssids)) {
+                // First evaluation or the BSSIDs of the network changed. Load the full window.
+                buffer.counts = new DiscoRingBuffer(WINDOW_MINUTES);
+                buffer.bssids = List.copyOf(bssids);
+                load(tapId, bssids, buffer.counts, nowMinute - WINDOW_MINUTES + 1, nowMinute);
+            } else {
+                load(tapId, bssids, buffer.counts, nowMinute - REFRESH_MINUTES + 1, nowMinute);
+            }
+
+            buffer.counts.addTo(counts, fromMinute);
+        }
+
+        return new DiscoSeries(fromMinute, counts);
+    }
+
+    /**
+     * Drops all buffers that were not evaluated in the last run, for example of networks that are no longer
+     * monitored or are now evaluated by another node of the cluster.
+     */
+    public void retain(Set<BufferKey> keys) {
+        buffers.keySet().removeIf(key -> !keys.contains(key));
+    }
+
+    private void load(UUID tapId, List<String> bssids, DiscoRingBuffer counts, long fromMinute, long toMinute) {
+        List<DiscoHistogramEntry> histogram = nzyme.getDot11().getDiscoHistogram(
+                Dot11.DiscoType.DISCONNECTION,
+                TimeRange.create(DiscoSeries.dateTimeOf(fromMinute), DateTime.now(), false),
+                Bucketing.BucketingConfiguration.create(Bucketing.Type.MINUTE),
+                tapId,
+                bssids
+        );
+
+        // Minutes without frames are not returned and must be reset in case they had counts before.
+        for (long minute = fromMinute; minute <= toMinute; minute++) {
+            counts.set(minute, 0);
+        }
+
+        for (DiscoHistogramEntry entry : histogram) {
+            counts.set(DiscoSeries.minuteOf(entry.bucket()), entry.frameCount());
+        }
+    }
+
+    private static final class NetworkBuffer {
+
+        private DiscoRingBuffer counts;
+        private List<String> bssids;
+
+    }
+
+    @AutoValue
+    public static abstract class BufferKey {
+
+        public abstract UUID tapId();
+        public abstract UUID monitoredNetworkId();
+
+        public static BufferKey create(UUID tapId, UUID monitoredNetworkId) {
+            return builder()
+                    .tapId(tapId)
+                    .monitoredNetworkId(monitoredNetworkId)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_Dot11DiscoEngine_BufferKey.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder tapId(UUID tapId);
+
+            public abstract Builder monitoredNetworkId(UUID monitoredNetworkId);
+
+            public abstract BufferKey build();
+        }
+    }
+
+}
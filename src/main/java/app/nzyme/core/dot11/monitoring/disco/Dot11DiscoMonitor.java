@@ -2,95 +2,177 @@ package app.nzyme.core.dot11.monitoring.disco;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.detection.alerts.DetectionType;
+import app.nzyme.core.dot11.db.monitoring.MonitoredBSSID;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
 import app.nzyme.core.dot11.monitoring.disco.monitormethods.DiscoMonitorFactory;
 import app.nzyme.core.dot11.monitoring.disco.monitormethods.DiscoMonitorMethodType;
+import app.nzyme.core.dot11.monitoring.disco.monitormethods.Dot11DiscoMonitorMethod;
 import app.nzyme.core.periodicals.Periodical;
-import app.nzyme.core.security.authentication.db.OrganizationEntry;
-import app.nzyme.core.security.authentication.db.TenantEntry;
 import app.nzyme.core.taps.Tap;
 import app.nzyme.plugin.Subsystem;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Evaluates the disco monitor method of every monitored network over the last day of disconnection counts of the
+ * Dot11DiscoEngine. Sharded by monitored network, so every network is evaluated and alerted on by exactly one node.
+ */
 public class Dot11DiscoMonitor extends Periodical {
 
     private static final Logger LOG = LogManager.getLogger(Dot11DiscoMonitor.class);
 
+    private static final int EVALUATION_MINUTES = 24 * 60;
+
     private final NzymeNode nzyme;
     private final ObjectMapper om;
 
+    // Monitored network UUID -> Method instance. Only rebuilt if the method type or configuration changes.
+    private final Map<UUID, CachedMethod> methods;
+
     public Dot11DiscoMonitor(NzymeNode nzyme) {
         this.nzyme = nzyme;
         this.om = new ObjectMapper()
                 .registerModule(new JodaModule());
+        this.methods = Maps.newHashMap();
     }
 
     @Override
     protected void execute() {
-        for (OrganizationEntry org : nzyme.getAuthenticationService().findAllOrganizations()) {
-            for (TenantEntry tenant : nzyme.getAuthenticationService().findAllTenantsOfOrganization(org.uuid())) {
-                for (MonitoredSSID monitoredNetwork : nzyme.getDot11().findAllMonitoredSSIDs(org.uuid(), tenant.uuid())) {
-                    if (!monitoredNetwork.enabledDiscoMonitor() || monitoredNetwork.discoMonitorType() == null) {
-                        continue;
-                    }
-
-                    DiscoMonitorMethodType method;
-                    try {
-                        method = DiscoMonitorMethodType.valueOf(monitoredNetwork.discoMonitorType());
-                    } catch(IllegalArgumentException e) {
-                        LOG.error("Unknown 802.11 disconnection monitor method [{}] for monitored network " +
-                                        "[{}]. Skipping.", monitoredNetwork.discoMonitorType(), monitoredNetwork.uuid());
-                        continue;
-                    }
-
-                    List<Tap> tenantTaps = nzyme.getTapManager()
-                            .findAllTapsOfTenant(monitoredNetwork.organizationId(), monitoredNetwork.tenantId());
-
-                    Map<Tap, List<DiscoMonitorAnomaly>> anomalies = DiscoMonitorFactory
-                            .build(nzyme, method, monitoredNetwork)
-                            .execute(tenantTaps);
-
-                    // Trigger alerts.
-                    for (Map.Entry<Tap, List<DiscoMonitorAnomaly>> anomaly : anomalies.entrySet()) {
-                        Tap tap = anomaly.getKey();
-
-                        String anomaliesAttribute;
-                        try {
-                            anomaliesAttribute = this.om.writeValueAsString(anomaly.getValue());
-                        } catch(Exception e) {
-                            throw new RuntimeException("Could not build anomalies alert parameter.", e);
-                        }
-
-                        Map<String, String> attributes = Maps.newHashMap();
-                        attributes.put("anomalies", anomaliesAttribute);
-                        attributes.put("tap_id", tap.uuid().toString());
-                        attributes.put("tap_name", tap.name());
-
-                        nzyme.getDetectionAlertService().raiseAlert(
-                                org.uuid(),
-                                tenant.uuid(),
+        List<MonitoredSSID> monitoredNetworks = Lists.newArrayList();
+        Map<UUID, List<String>> networkBSSIDs = Maps.newHashMap();
+
+        for (MonitoredSSID monitoredNetwork : nzyme.getDot11().findAllMonitoredSSIDs(null, null)) {
+            if (!monitoredNetwork.enabledDiscoMonitor() || monitoredNetwork.discoMonitorType() == null) {
+                continue;
+            }
+
+            if (!ownsShard(monitoredNetwork.uuid())) {
+                // Another node of the cluster is processing this network.
+                continue;
+            }
+
+            List<String> bssids = Lists.newArrayList();
+            for (MonitoredBSSID bssid : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(monitoredNetwork.id())) {
+                bssids.add(bssid.bssid());
+            }
+            Collections.sort(bssids);
+
+            monitoredNetworks.add(monitoredNetwork);
+            networkBSSIDs.put(monitoredNetwork.uuid(), bssids);
+        }
+
+        Dot11DiscoEngine engine = nzyme.getDot11().getDiscoEngine();
+
+        // Forget methods of networks that are no longer monitored or processed by this node.
+        Set<UUID> networkIds = networkBSSIDs.keySet();
+        methods.keySet().removeIf(uuid -> !networkIds.contains(uuid));
+
+        Set<Dot11DiscoEngine.BufferKey> evaluated = Sets.newHashSet();
+        long nowMinute = DiscoSeries.minuteOf(DateTime.now());
+
+        for (MonitoredSSID monitoredNetwork : monitoredNetworks) {
+            Dot11DiscoMonitorMethod method;
+            try {
+                method = getMethod(monitoredNetwork);
+            } catch (IllegalArgumentException e) {
+                LOG.error("Invalid 802.11 disconnection monitor method [{}] or configuration for monitored " +
+                        "network [{}]. Skipping.", monitoredNetwork.discoMonitorType(), monitoredNetwork.uuid(), e);
+                continue;
+            }
+
+            List<String> bssids = networkBSSIDs.get(monitoredNetwork.uuid());
+            if (bssids.isEmpty()) {
+                continue;
+            }
+
+            int history = method.historyMinutes();
+            long fromMinute = nowMinute - EVALUATION_MINUTES - history + 1;
+
+            for (Tap tap : nzyme.getTapManager()
+                    .findAllTapsOfTenant(monitoredNetwork.organizationId(), monitoredNetwork.tenantId())) {
+                evaluated.add(Dot11DiscoEngine.BufferKey.create(tap.uuid(), monitoredNetwork.uuid()));
+
+                List<DiscoMonitorAnomaly> anomalies = method.calculate(
+                        engine.series(
+                                tap.uuid(),
                                 monitoredNetwork.uuid(),
-                                anomaly.getKey().uuid(),
-                                DetectionType.DOT11_MONITOR_DISCO_ANOMALIES,
-                                Subsystem.DOT11,
-                                "Detected disconnection activity anomalies for monitored " +
-                                        "network \"" + monitoredNetwork.ssid() + "\" (Tap: \"" + tap.name() + "\")",
-                                attributes,
-                                new String[]{"tap_id"},
-                                null
-                        );
-                    }
+                                bssids,
+                                fromMinute,
+                                EVALUATION_MINUTES + history
+                        ),
+                        history
+                );
+
+                if (!anomalies.isEmpty()) {
+                    raiseAlert(monitoredNetwork, tap, anomalies);
                 }
             }
         }
+
+        engine.retain(evaluated);
+    }
+
+    private Dot11DiscoMonitorMethod getMethod(MonitoredSSID monitoredNetwork) {
+        CachedMethod cached = methods.get(monitoredNetwork.uuid());
+        if (cached != null
+                && cached.type.equals(monitoredNetwork.discoMonitorType())
+                && Objects.equals(cached.configuration, monitoredNetwork.discoMonitorConfiguration())) {
+            return cached.method;
+        }
+
+        Dot11DiscoMonitorMethod method = DiscoMonitorFactory.build(
+                DiscoMonitorMethodType.valueOf(monitoredNetwork.discoMonitorType()),
+                monitoredNetwork
+        );
+
+        methods.put(monitoredNetwork.uuid(), new CachedMethod(
+                monitoredNetwork.discoMonitorType(),
+                monitoredNetwork.discoMonitorConfiguration(),
+                method
+        ));
+
+        return method;
+    }
+
+    private void raiseAlert(MonitoredSSID monitoredNetwork, Tap tap, List<DiscoMonitorAnomaly> anomalies) {
+        String anomaliesAttribute;
+        try {
+            anomaliesAttribute = this.om.writeValueAsString(anomalies);
+        } catch(Exception e) {
+            throw new RuntimeException("Could not build anomalies alert parameter.", e);
+        }
+
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put("anomalies", anomaliesAttribute);
+        attributes.put("tap_id", tap.uuid().toString());
+        attributes.put("tap_name", tap.name());
+
+        nzyme.getDetectionAlertService().raiseAlert(
+                monitoredNetwork.organizationId(),
+                monitoredNetwork.tenantId(),
+                monitoredNetwork.uuid(),
+                tap.uuid(),
+                DetectionType.DOT11_MONITOR_DISCO_ANOMALIES,
+                Subsystem.DOT11,
+                "Detected disconnection activity anomalies for monitored " +
+                        "network \"" + monitoredNetwork.ssid() + "\" (Tap: \"" + tap.name() + "\")",
+                attributes,
+                new String[]{"tap_id"},
+                null
+        );
     }
 
     @Override
@@ -98,4 +180,23 @@ public class Dot11DiscoMonitor extends Periodical {
         return "802.11 Disco Monitor";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SHARDED;
+    }
+
+    private static final class CachedMethod {
+
+        private final String type;
+        private final String configuration;
+        private final Dot11DiscoMonitorMethod method;
+
+        CachedMethod(String type, String configuration, Dot11DiscoMonitorMethod method) {
+            this.type = type;
+            this.configuration = configuration;
+            this.method = method;
+        }
+
+    }
+
 }
@@ -2,6 +2,8 @@ package app.nzyme.core.dot11.monitoring.disco.monitormethods;
 
 public enum DiscoMonitorMethodType {
 
-    STATIC_THRESHOLD
+    STATIC_THRESHOLD,
+    EWMA_ZSCORE,
+    SEASONAL_BASELINE
 
 }
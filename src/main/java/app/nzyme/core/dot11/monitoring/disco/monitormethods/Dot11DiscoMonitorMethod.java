@@ -1,16 +1,10 @@
 package app.nzyme.core.dot11.monitoring.disco.monitormethods;
 
-import app.nzyme.core.NzymeNode;
-import app.nzyme.core.dot11.Dot11;
-import app.nzyme.core.dot11.db.DiscoHistogramEntry;
-import app.nzyme.core.dot11.db.monitoring.MonitoredBSSID;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
 import app.nzyme.core.dot11.monitoring.disco.DiscoMonitorAnomaly;
-import app.nzyme.core.taps.Tap;
-import app.nzyme.core.util.Bucketing;
-import app.nzyme.core.util.TimeRangeFactory;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -18,52 +12,34 @@ import java.util.Map;
 
 public abstract class Dot11DiscoMonitorMethod {
 
-    protected final NzymeNode nzyme;
-    protected final MonitoredSSID monitoredNetwork;
+    private static final ObjectMapper om = new ObjectMapper();
 
-    @Nullable
-    protected final Map<String, Object> customConfig;
-
-    public Dot11DiscoMonitorMethod(NzymeNode nzyme,
-                                   MonitoredSSID monitoredNetwork,
-                                   @Nullable Map<String, Object> customConfig) {
-        this.nzyme = nzyme;
-        this.monitoredNetwork = monitoredNetwork;
-        this.customConfig = customConfig;
+    /**
+     * Minutes of history before the evaluated range the method needs to build its baseline.
+     */
+    public int historyMinutes() {
+        return 0;
     }
 
-    public Map<Tap, List<DiscoMonitorAnomaly>> execute(List<Tap> taps) {
-        Map<Tap, List<DiscoMonitorAnomaly>> anomalies = Maps.newHashMap();
-
-        for (Tap tap : taps) {
-            List<DiscoMonitorAnomaly> tapAnomalies = execute(tap);
-
-            if (!tapAnomalies.isEmpty()) {
-                anomalies.put(tap, tapAnomalies);
+    /**
+     * Runs the method over a series and returns anomalies of all buckets starting at evaluateFrom. Buckets before
+     * that are only used as history.
+     */
+    public abstract List<DiscoMonitorAnomaly> calculate(DiscoSeries series, int evaluateFrom);
+
+    protected static <T> T parseConfiguration(MonitoredSSID monitoredNetwork,
+                                              @Nullable Map<String, Object> customConfig,
+                                              Class<T> type) {
+        try {
+            if (customConfig == null) {
+                return om.readValue(monitoredNetwork.discoMonitorConfiguration(), type);
+            } else {
+                return om.convertValue(customConfig, type);
             }
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Could not parse configuration for monitored network " +
+                    "[" + monitoredNetwork.uuid() + "].", e);
         }
-
-        return anomalies;
-    }
-
-    public List<DiscoMonitorAnomaly> execute(Tap tap) {
-        List<String> bssidList = Lists.newArrayList();
-
-        for (MonitoredBSSID monitoredBSSID : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(monitoredNetwork.id())) {
-            bssidList.add(monitoredBSSID.bssid());
-        }
-
-        return calculate(
-                nzyme.getDot11().getDiscoHistogram(
-                        Dot11.DiscoType.DISCONNECTION,
-                        TimeRangeFactory.oneDay(),
-                        Bucketing.getConfig(TimeRangeFactory.oneDay()),
-                        tap.uuid(),
-                        bssidList
-                )
-        );
     }
 
-    protected abstract List<DiscoMonitorAnomaly> calculate(List<DiscoHistogramEntry> histogram);
-
 }
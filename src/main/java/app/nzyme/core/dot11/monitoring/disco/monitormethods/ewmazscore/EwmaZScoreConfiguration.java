@@ -0,0 +1,45 @@
+package app.nzyme.core.dot11.monitoring.disco.monitormethods.ewmazscore;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class EwmaZScoreConfiguration {
+
+    @JsonProperty("alpha")
+    public abstract double alpha();
+
+    @JsonProperty("z_threshold")
+    public abstract double zThreshold();
+
+    @JsonProperty("min_frames")
+    public abstract int minFrames();
+
+    @JsonCreator
+    public static EwmaZScoreConfiguration create(@JsonProperty("alpha") double alpha,
+                                                 @JsonProperty("z_threshold") double zThreshold,
+                                                 @JsonProperty("min_frames") int minFrames) {
+        return builder()
+                .alpha(alpha)
+                .zThreshold(zThreshold)
+                .minFrames(minFrames)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_EwmaZScoreConfiguration.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder alpha(double alpha);
+
+        public abstract Builder zThreshold(double zThreshold);
+
+        public abstract Builder minFrames(int minFrames);
+
+        public abstract EwmaZScoreConfiguration build();
+    }
+
+}
@@ -0,0 +1,75 @@
+package app.nzyme.core.dot11.monitoring.disco.monitormethods.ewmazscore;
+
+import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
+import app.nzyme.core.dot11.monitoring.disco.DiscoMonitorAnomaly;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
+import app.nzyme.core.dot11.monitoring.disco.monitormethods.Dot11DiscoMonitorMethod;
+import com.google.common.collect.Lists;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares every bucket to an exponentially weighted moving average and variance of the buckets before it and
+ * reports buckets that are more than z_threshold standard deviations above the average.
+ */
+public class EwmaZScoreDiscoMonitor extends Dot11DiscoMonitorMethod {
+
+    private static final int WARMUP_MINUTES = 6 * 60;
+
+    private final double alpha;
+    private final double zThreshold;
+    private final int minFrames;
+
+    public EwmaZScoreDiscoMonitor(MonitoredSSID monitoredNetwork, @Nullable Map<String, Object> customConfig) {
+        EwmaZScoreConfiguration config = parseConfiguration(
+                monitoredNetwork, customConfig, EwmaZScoreConfiguration.class
+        );
+
+        if (config.alpha() <= 0 || config.alpha() > 1) {
+            throw new IllegalArgumentException("EWMA alpha must be in (0, 1].");
+        }
+
+        this.alpha = config.alpha();
+        this.zThreshold = config.zThreshold();
+        this.minFrames = config.minFrames();
+    }
+
+    @Override
+    public int historyMinutes() {
+        return WARMUP_MINUTES;
+    }
+
+    @Override
+    public List<DiscoMonitorAnomaly> calculate(DiscoSeries series, int evaluateFrom) {
+        List<DiscoMonitorAnomaly> anomalies = Lists.newArrayList();
+
+        long[] counts = series.counts();
+        if (counts.length == 0) {
+            return anomalies;
+        }
+
+        double mean = counts[0];
+        double variance = 0;
+
+        for (int i = 1; i < counts.length; i++) {
+            long x = counts[i];
+
+            if (i >= evaluateFrom && x >= minFrames && x > mean) {
+                double sd = Math.sqrt(variance);
+                if (sd == 0 || (x - mean) / sd > zThreshold) {
+                    anomalies.add(DiscoMonitorAnomaly.create(series.timestamp(i), x));
+                }
+            }
+
+            double diff = x - mean;
+            double increment = alpha * diff;
+            mean += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+
+        return anomalies;
+    }
+
+}
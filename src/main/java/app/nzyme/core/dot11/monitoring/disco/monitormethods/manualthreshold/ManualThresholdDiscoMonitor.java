@@ -1,12 +1,9 @@
 package app.nzyme.core.dot11.monitoring.disco.monitormethods.manualthreshold;
 
-import app.nzyme.core.NzymeNode;
-import app.nzyme.core.dot11.db.DiscoHistogramEntry;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
 import app.nzyme.core.dot11.monitoring.disco.DiscoMonitorAnomaly;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
 import app.nzyme.core.dot11.monitoring.disco.monitormethods.Dot11DiscoMonitorMethod;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 
 import javax.annotation.Nullable;
@@ -17,37 +14,19 @@ public class ManualThresholdDiscoMonitor extends Dot11DiscoMonitorMethod {
 
     private final int threshold;
 
-    public ManualThresholdDiscoMonitor(NzymeNode nzyme,
-                                       MonitoredSSID monitoredNetwork,
-                                       @Nullable Map<String, Object> customConfig) {
-        super(nzyme, monitoredNetwork, customConfig);
-
-
-        try {
-            ManualThresholdConfiguration config;
-            if (customConfig == null) {
-                config = new ObjectMapper().readValue(
-                        monitoredNetwork.discoMonitorConfiguration(),
-                        ManualThresholdConfiguration.class
-                );
-            } else {
-                config = new ObjectMapper().convertValue(customConfig, ManualThresholdConfiguration.class);
-            }
-
-            this.threshold = config.threshold();
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Could not parse configuration for monitored network " +
-                    "[" + monitoredNetwork.uuid() + "].");
-        }
+    public ManualThresholdDiscoMonitor(MonitoredSSID monitoredNetwork, @Nullable Map<String, Object> customConfig) {
+        this.threshold = parseConfiguration(monitoredNetwork, customConfig, ManualThresholdConfiguration.class)
+                .threshold();
     }
 
     @Override
-    protected List<DiscoMonitorAnomaly> calculate(List<DiscoHistogramEntry> histogram) {
+    public List<DiscoMonitorAnomaly> calculate(DiscoSeries series, int evaluateFrom) {
         List<DiscoMonitorAnomaly> anomalies = Lists.newArrayList();
 
-        for (DiscoHistogramEntry reading : histogram) {
-            if (reading.frameCount() > threshold) {
-                anomalies.add(DiscoMonitorAnomaly.create(reading.bucket(), reading.frameCount()));
+        long[] counts = series.counts();
+        for (int i = evaluateFrom; i < counts.length; i++) {
+            if (counts[i] > threshold) {
+                anomalies.add(DiscoMonitorAnomaly.create(series.timestamp(i), counts[i]));
             }
         }
 
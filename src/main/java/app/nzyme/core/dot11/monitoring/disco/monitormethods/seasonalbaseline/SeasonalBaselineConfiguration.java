@@ -0,0 +1,45 @@
+package app.nzyme.core.dot11.monitoring.disco.monitormethods.seasonalbaseline;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class SeasonalBaselineConfiguration {
+
+    @JsonProperty("seasons")
+    public abstract int seasons();
+
+    @JsonProperty("z_threshold")
+    public abstract double zThreshold();
+
+    @JsonProperty("min_frames")
+    public abstract int minFrames();
+
+    @JsonCreator
+    public static SeasonalBaselineConfiguration create(@JsonProperty("seasons") int seasons,
+                                                       @JsonProperty("z_threshold") double zThreshold,
+                                                       @JsonProperty("min_frames") int minFrames) {
+        return builder()
+                .seasons(seasons)
+                .zThreshold(zThreshold)
+                .minFrames(minFrames)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_SeasonalBaselineConfiguration.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder seasons(int seasons);
+
+        public abstract Builder zThreshold(double zThreshold);
+
+        public abstract Builder minFrames(int minFrames);
+
+        public abstract SeasonalBaselineConfiguration build();
+    }
+
+}
@@ -0,0 +1,86 @@
+package app.nzyme.core.dot11.monitoring.disco.monitormethods.seasonalbaseline;
+
+import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
+import app.nzyme.core.dot11.monitoring.disco.DiscoMonitorAnomaly;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
+import app.nzyme.core.dot11.monitoring.disco.monitormethods.Dot11DiscoMonitorMethod;
+import com.google.common.collect.Lists;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares every bucket to the same minute of the day on the previous days. This tolerates networks with regular
+ * daily disconnection activity, like office hours or scheduled reboots.
+ */
+public class SeasonalBaselineDiscoMonitor extends Dot11DiscoMonitorMethod {
+
+    private static final int SEASON_MINUTES = 24 * 60;
+    public static final int MAX_SEASONS = 7;
+
+    private final int seasons;
+    private final double zThreshold;
+    private final int minFrames;
+
+    public SeasonalBaselineDiscoMonitor(MonitoredSSID monitoredNetwork, @Nullable Map<String, Object> customConfig) {
+        SeasonalBaselineConfiguration config = parseConfiguration(
+                monitoredNetwork, customConfig, SeasonalBaselineConfiguration.class
+        );
+
+        if (config.seasons() < 1 || config.seasons() > MAX_SEASONS) {
+            throw new IllegalArgumentException("Seasons must be between 1 and " + MAX_SEASONS + ".");
+        }
+
+        this.seasons = config.seasons();
+        this.zThreshold = config.zThreshold();
+        this.minFrames = config.minFrames();
+    }
+
+    @Override
+    public int historyMinutes() {
+        return seasons * SEASON_MINUTES;
+    }
+
+    @Override
+    public List<DiscoMonitorAnomaly> calculate(DiscoSeries series, int evaluateFrom) {
+        List<DiscoMonitorAnomaly> anomalies = Lists.newArrayList();
+
+        long[] counts = series.counts();
+        for (int i = evaluateFrom; i < counts.length; i++) {
+            long x = counts[i];
+            if (x < minFrames) {
+                continue;
+            }
+
+            int n = 0;
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int season = 1; season <= seasons; season++) {
+                int previous = i - season * SEASON_MINUTES;
+                if (previous < 0) {
+                    break;
+                }
+
+                sum += counts[previous];
+                sumOfSquares += (double) counts[previous] * counts[previous];
+                n++;
+            }
+
+            if (n == 0) {
+                continue;
+            }
+
+            double mean = sum / n;
+            double sd = Math.sqrt(Math.max(0, sumOfSquares / n - mean * mean));
+
+            // A standard deviation of at least one frame keeps flat baselines from alerting on single frames.
+            if (x > mean + zThreshold * Math.max(sd, 1.0)) {
+                anomalies.add(DiscoMonitorAnomaly.create(series.timestamp(i), x));
+            }
+        }
+
+        return anomalies;
+    }
+
+}
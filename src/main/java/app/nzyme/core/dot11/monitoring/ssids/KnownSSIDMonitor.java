@@ -2,10 +2,10 @@ package app.nzyme.core.dot11.monitoring.ssids;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.detection.alerts.DetectionType;
-import app.nzyme.core.dot11.db.Dot11KnownNetwork;
 import app.nzyme.core.dot11.db.SSIDWithOrganizationAndTenant;
 import app.nzyme.core.periodicals.Periodical;
 import app.nzyme.plugin.Subsystem;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -14,6 +14,7 @@ import org.joda.time.DateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 public class KnownSSIDMonitor extends Periodical {
 
@@ -31,54 +32,52 @@ public class KnownSSIDMonitor extends Periodical {
             // Fetch all SSIDs we saw in previous minute.
             List<SSIDWithOrganizationAndTenant> ssids = nzyme.getDot11().findAllCurrentlyActiveSSIDsAndOwner(5);
 
-            Map<String, List<Dot11KnownNetwork>> knownNetworksCache = Maps.newHashMap();
+            // Group by tenant.
+            Map<String, List<SSIDWithOrganizationAndTenant>> tenants = Maps.newHashMap();
+            for (SSIDWithOrganizationAndTenant ssid : ssids) {
+                String key = ssid.organizationId().toString() + ssid.tenantId().toString();
+                tenants.computeIfAbsent(key, k -> Lists.newArrayList()).add(ssid);
+            }
+
             nzyme.getDatabase().useHandle(handle -> {
-                for (SSIDWithOrganizationAndTenant ssid : ssids) {
+                for (List<SSIDWithOrganizationAndTenant> tenantSSIDs : tenants.values()) {
+                    UUID organizationId = tenantSSIDs.get(0).organizationId();
+                    UUID tenantId = tenantSSIDs.get(0).tenantId();
+
                     // Don't run if SSID monitoring is disabled for this tenant.
                     Optional<String> isEnabled = nzyme.getDatabaseCoreRegistry().getValue(
-                            KnownSSIDsRegistryKeys.IS_ENABLED.key(), ssid.organizationId(), ssid.tenantId()
+                            KnownSSIDsRegistryKeys.IS_ENABLED.key(), organizationId, tenantId
                     );
 
                     if (isEnabled.isEmpty() || !isEnabled.get().equals("true")) {
-                        LOG.debug("Skipping SSID [{}] of org/tenant ({}/{}) that has monitoring disabled.",
-                                ssid.ssid(), ssid.organizationId(), ssid.tenantId());
+                        LOG.debug("Skipping <{}> SSIDs of org/tenant ({}/{}) that has monitoring disabled.",
+                                tenantSSIDs.size(), organizationId, tenantId);
                         continue;
                     }
 
-                    LOG.debug("Processing SSID [{}] of org/tenant ({}/{}) for monitoring.",
-                            ssid, ssid.organizationId(), ssid.tenantId());
+                    /*
+                     * Create new networks and update `last_seen` of known networks in one go. Only returns new
+                     * networks and networks that are neither approved nor ignored.
+                     */
+                    List<String> unapproved = nzyme.getDot11().upsertKnownNetworks(
+                            handle,
+                            tenantSSIDs.stream().map(SSIDWithOrganizationAndTenant::ssid).distinct().toList(),
+                            organizationId,
+                            tenantId
+                    );
 
-                    String key = ssid.organizationId().toString() + ssid.tenantId().toString();
-                    List<Dot11KnownNetwork> knownNetworks = knownNetworksCache.get(key);
-                    if (knownNetworks == null) {
-                        knownNetworks = nzyme.getDot11()
-                                .findAllKnownNetworks(handle, ssid.organizationId(), ssid.tenantId(), Integer.MAX_VALUE, 0);
-                        knownNetworksCache.put(key, knownNetworks);
+                    if (unapproved.isEmpty()) {
+                        continue;
                     }
 
-                    boolean known = false;
-                    for (Dot11KnownNetwork knownNetwork : knownNetworks) {
-                        if (knownNetwork.ssid().equals(ssid.ssid())) {
-                            // We already have this known network. Update `last_seen`.
-                            LOG.debug("Updating existing known network [{}]", knownNetwork);
-                            nzyme.getDot11().touchKnownNetwork(handle, knownNetwork.id());
-                            known = true;
-
-                            // Raise alarm if network is not approved.
-                            if (!knownNetwork.isApproved() && !knownNetwork.isIgnored()) {
-                                raiseAlertIfEventingEnabled(ssid);
-                            }
-                        }
+                    if (!isEventingEnabled(organizationId, tenantId)) {
+                        LOG.debug("Not raising alert for <{}> unapproved SSIDs because eventing is disabled.",
+                                unapproved.size());
+                        continue;
                     }
 
-                    if (!known) {
-                        LOG.debug("Inserting new known network [{}]", ssid);
-                        nzyme.getDot11().createKnownNetwork(
-                                handle, ssid.ssid(), ssid.organizationId(), ssid.tenantId()
-                        );
-
-                        // Raise alarm for unapproved network.
-                        raiseAlertIfEventingEnabled(ssid);
+                    for (String ssid : unapproved) {
+                        raiseAlert(ssid, organizationId, tenantId);
                     }
                 }
             });
@@ -90,27 +89,26 @@ public class KnownSSIDMonitor extends Periodical {
         }
     }
 
-    private void raiseAlertIfEventingEnabled(SSIDWithOrganizationAndTenant ssid) {
+    private boolean isEventingEnabled(UUID organizationId, UUID tenantId) {
         Optional<String> enabled = nzyme.getDatabaseCoreRegistry().getValue(
-                KnownSSIDsRegistryKeys.EVENTING_IS_ENABLED.key(), ssid.organizationId(), ssid.tenantId()
+                KnownSSIDsRegistryKeys.EVENTING_IS_ENABLED.key(), organizationId, tenantId
         );
 
-        if (enabled.isEmpty() || enabled.get().equals("false")) {
-            LOG.debug("Not raising alert for unapproved SSID [{}] because eventing is enabled.", ssid.ssid());
-            return;
-        }
+        return enabled.isPresent() && !enabled.get().equals("false");
+    }
 
+    private void raiseAlert(String ssid, UUID organizationId, UUID tenantId) {
         Map<String, String> parameters = Maps.newHashMap();
-        parameters.put("ssid", ssid.ssid());
+        parameters.put("ssid", ssid);
 
         nzyme.getDetectionAlertService().raiseAlert(
-                ssid.organizationId(),
-                ssid.tenantId(),
+                organizationId,
+                tenantId,
                 null,
                 null,
                 DetectionType.DOT11_UNAPPROVED_SSID,
                 Subsystem.DOT11,
-                "Unapproved SSID \"" + ssid.ssid() + "\" detected.",
+                "Unapproved SSID \"" + ssid + "\" detected.",
                 parameters,
                 new String[]{"ssid"},
                 null
@@ -122,4 +120,9 @@ public class KnownSSIDMonitor extends Periodical {
         return "KnownSSIDMonitor";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
 }
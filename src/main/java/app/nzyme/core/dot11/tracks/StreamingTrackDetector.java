@@ -0,0 +1,133 @@
+package app.nzyme.core.dot11.tracks;
+
+import app.nzyme.core.dot11.tracks.db.TrackDetectorConfig;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Incremental version of TrackDetector for a single tap, BSSID, SSID and frequency. Keeps a rolling signal strength
+ * histogram in one minute buckets, like the waterfall query, and caches the partial tracks of every bucket. New
+ * data only causes the partial tracks of the buckets it touched to be re-calculated. Not thread-safe.
+ */
+public class StreamingTrackDetector {
+
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private static final int MIN_SIGNAL = -100;
+    private static final int MAX_SIGNAL = -1;
+
+    private final long windowMillis;
+    private TrackDetectorConfig config;
+
+    // Minute -> Frame counts of signal strengths -100 to -1 dBm.
+    private final NavigableMap<Long, long[]> buckets;
+
+    // Minute -> Centerlines of partial tracks in that bucket.
+    private final Map<Long, List<Integer>> bucketCenterlines;
+
+    // Centerline -> Number of partial tracks with that centerline in the window.
+    private final NavigableMap<Integer, Integer> centerlines;
+
+    private final Set<Long> dirtyBuckets;
+
+    public StreamingTrackDetector(long windowMillis, TrackDetectorConfig config) {
+        this.windowMillis = windowMillis;
+        this.config = config;
+
+        this.buckets = new TreeMap<>();
+        this.bucketCenterlines = Maps.newHashMap();
+        this.centerlines = new TreeMap<>();
+        this.dirtyBuckets = Sets.newHashSet();
+    }
+
+    public void record(DateTime timestamp, int signalStrength, long frameCount) {
+        if (signalStrength < MIN_SIGNAL || signalStrength > MAX_SIGNAL) {
+            return;
+        }
+
+        long bucket = timestamp.getMillis() / BUCKET_MILLIS;
+        buckets.computeIfAbsent(bucket, b -> new long[MAX_SIGNAL - MIN_SIGNAL + 1])[signalStrength - MIN_SIGNAL]
+                += frameCount;
+        dirtyBuckets.add(bucket);
+    }
+
+    /**
+     * Drops all buckets starting at the bucket of the given timestamp, so they can be recorded again in full.
+     */
+    public void clearFrom(DateTime from) {
+        NavigableMap<Long, long[]> cleared = buckets.tailMap(from.getMillis() / BUCKET_MILLIS, true);
+        for (Long bucket : cleared.keySet()) {
+            removeCenterlines(bucket);
+            dirtyBuckets.remove(bucket);
+        }
+        cleared.clear();
+    }
+
+    public void setConfig(TrackDetectorConfig config) {
+        if (config.equals(this.config)) {
+            return;
+        }
+
+        this.config = config;
+        dirtyBuckets.addAll(buckets.keySet());
+    }
+
+    /**
+     * Drops buckets that left the window, updates the partial tracks of all changed buckets and returns the
+     * number of tracks in the window.
+     */
+    public int evaluate(DateTime now) {
+        NavigableMap<Long, long[]> expired = buckets.headMap((now.getMillis() - windowMillis) / BUCKET_MILLIS, false);
+        for (Long bucket : expired.keySet()) {
+            removeCenterlines(bucket);
+            dirtyBuckets.remove(bucket);
+        }
+        expired.clear();
+
+        for (Long bucket : dirtyBuckets) {
+            long[] counts = buckets.get(bucket);
+            if (counts == null) {
+                continue;
+            }
+
+            removeCenterlines(bucket);
+
+            List<Integer> partialCenterlines = Lists.newArrayList();
+            DateTime y = new DateTime(bucket * BUCKET_MILLIS);
+            for (PartialTrack partialTrack : TrackDetector.detectPartialTracks(Longs.asList(counts), y, config)) {
+                partialCenterlines.add(partialTrack.averageSignal());
+                centerlines.merge(partialTrack.averageSignal(), 1, Integer::sum);
+            }
+
+            bucketCenterlines.put(bucket, partialCenterlines);
+        }
+        dirtyBuckets.clear();
+
+        return TrackDetector.groupCenterlines(centerlines.keySet(), config.signalCenterlineJitter()).size();
+    }
+
+    public boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    private void removeCenterlines(long bucket) {
+        List<Integer> previous = bucketCenterlines.remove(bucket);
+        if (previous == null) {
+            return;
+        }
+
+        for (Integer centerline : previous) {
+            centerlines.computeIfPresent(centerline, (c, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+}
@@ -18,58 +18,16 @@ public class TrackDetector {
             20, 9, 8);
 
     public List<Track> detect(List<List<Long>> zValues, List<DateTime> yValues, TrackDetectorConfig config) {
-        /*
-         * For each Y measurement (time), look at each X measurement and start a track if Y for the
-         * coordinates are > FRAME_THRESHOLD. Keep the track active until coordinates Y is < FRAME_THRESHOLD
-         * for more than GAP_THRESHOLD times.
-         */
-
-        int yIdx = 0;
-
-        Map<Integer, List<PartialTrack>> partialTracks = Maps.newHashMap();
-        for (List<Long> line : zValues) {
-            DateTime y = yValues.get(yIdx);
-            int x = -100;
-            int trackLength = 0;
-            int gapLength = 0;
-            int trackStart = -1;
-
-            for (Long z : line) {
-                if (z > config.frameThreshold() && x != -100) {
-                    // Signal.
-                    if (trackLength == 0) {
-                        // New track identified.
-                        trackStart = x;
-                    }
-
-                    // Existing track continued.
-                    trackLength++;
-                } else {
-                    // We are in a signal gap or at end of signal strength spectrum.
-                    if (trackLength > 0) {
-                        // We are on a track.
-                        gapLength++;
-
-                        if (gapLength >= config.gapThreshold() || x == 0) {
-                            PartialTrack partialTrack = PartialTrack.create(y, trackStart, x-config.gapThreshold()+2);
-
-                            if (!partialTracks.containsKey(partialTrack.averageSignal())) {
-                                partialTracks.put(partialTrack.averageSignal(), Lists.newArrayList());
-                            }
-                            partialTracks.get(partialTrack.averageSignal()).add(partialTrack);
-
-                            // Friendship with track ended.
-                            trackLength = 0;
-                            gapLength = 0;
-                        }
-                    }
+        // Find partial tracks of each Y measurement (time).
+        // Sorted, so centerlines are grouped in the same order as by the StreamingTrackDetector.
+        Map<Integer, List<PartialTrack>> partialTracks = Maps.newTreeMap();
+        for (int yIdx = 0; yIdx < zValues.size(); yIdx++) {
+            for (PartialTrack partialTrack : detectPartialTracks(zValues.get(yIdx), yValues.get(yIdx), config)) {
+                if (!partialTracks.containsKey(partialTrack.averageSignal())) {
+                    partialTracks.put(partialTrack.averageSignal(), Lists.newArrayList());
                 }
-
-                // Line has been processed.
-                x++;
+                partialTracks.get(partialTrack.averageSignal()).add(partialTrack);
             }
-
-            yIdx++;
         }
 
         /*
@@ -79,23 +37,14 @@ public class TrackDetector {
          * track.
          */
         Map<Integer, List<PartialTrack>> centerlineAveragedTracks = Maps.newHashMap();
-        for (Map.Entry<Integer, List<PartialTrack>> partialTrack : partialTracks.entrySet()) {
-            int partialCenterline = partialTrack.getKey();
-
-            // Find a possibly existing centerline track that we can add this partial track to.
-            Optional<Integer> matchingCenterline = Optional.empty();
-            for (Integer existingCenterline : centerlineAveragedTracks.keySet()) {
-                if (partialCenterline >= existingCenterline-config.signalCenterlineJitter() && partialCenterline <= existingCenterline+ config.signalCenterlineJitter()) {
-                    matchingCenterline = Optional.of(existingCenterline);
-                }
-            }
-
-            if (matchingCenterline.isPresent()) {
-                centerlineAveragedTracks.get(matchingCenterline.get()).addAll(partialTrack.getValue());
-            } else {
-                centerlineAveragedTracks.put(partialCenterline, partialTrack.getValue());
+        for (Map.Entry<Integer, List<Integer>> group
+                : groupCenterlines(partialTracks.keySet(), config.signalCenterlineJitter()).entrySet()) {
+            List<PartialTrack> grouped = Lists.newArrayList();
+            for (Integer centerline : group.getValue()) {
+                grouped.addAll(partialTracks.get(centerline));
             }
 
+            centerlineAveragedTracks.put(group.getKey(), grouped);
         }
 
         /*
@@ -138,6 +87,80 @@ public class TrackDetector {
         return tracks.build();
     }
 
+    /**
+     * Finds the partial tracks of a single time bucket. The line holds the frame counts of signal strengths
+     * -100 to -1 dBm.
+     */
+    public static List<PartialTrack> detectPartialTracks(List<Long> line, DateTime y, TrackDetectorConfig config) {
+        /*
+         * Look at each X measurement and start a track if Y for the coordinates are > FRAME_THRESHOLD. Keep the
+         * track active until coordinates Y is < FRAME_THRESHOLD for more than GAP_THRESHOLD times.
+         */
+        List<PartialTrack> result = Lists.newArrayList();
+
+        int x = -100;
+        int trackLength = 0;
+        int gapLength = 0;
+        int trackStart = -1;
+
+        for (Long z : line) {
+            if (z > config.frameThreshold() && x != -100) {
+                // Signal.
+                if (trackLength == 0) {
+                    // New track identified.
+                    trackStart = x;
+                }
+
+                // Existing track continued.
+                trackLength++;
+            } else {
+                // We are in a signal gap or at end of signal strength spectrum.
+                if (trackLength > 0) {
+                    // We are on a track.
+                    gapLength++;
+
+                    if (gapLength >= config.gapThreshold() || x == 0) {
+                        result.add(PartialTrack.create(y, trackStart, x-config.gapThreshold()+2));
+
+                        // Friendship with track ended.
+                        trackLength = 0;
+                        gapLength = 0;
+                    }
+                }
+            }
+
+            // Line has been processed.
+            x++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Groups partial track centerlines that are within the jitter of each other. Returns the centerline of each
+     * group and the centerlines that were merged into it. Every group is one track.
+     */
+    public static Map<Integer, List<Integer>> groupCenterlines(Iterable<Integer> centerlines, int jitter) {
+        Map<Integer, List<Integer>> groups = Maps.newHashMap();
+        for (Integer partialCenterline : centerlines) {
+            // Find a possibly existing centerline track that we can add this partial track to.
+            Optional<Integer> matchingCenterline = Optional.empty();
+            for (Integer existingCenterline : groups.keySet()) {
+                if (partialCenterline >= existingCenterline-jitter && partialCenterline <= existingCenterline+jitter) {
+                    matchingCenterline = Optional.of(existingCenterline);
+                }
+            }
+
+            if (matchingCenterline.isPresent()) {
+                groups.get(matchingCenterline.get()).add(partialCenterline);
+            } else {
+                groups.put(partialCenterline, Lists.newArrayList(partialCenterline));
+            }
+        }
+
+        return groups;
+    }
+
     public static TrackDetectorHeatmapData toChartAxisMaps(List<SignalTrackHistogramEntry> signals) {
         Map<DateTime, Map<Integer, Long>> aggregated = Maps.newTreeMap();
         for (SignalTrackHistogramEntry signal : signals) {
@@ -0,0 +1,40 @@
+package app.nzyme.core.dot11.tracks.db;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.UUID;
+
+@AutoValue
+public abstract class CustomTrackDetectorConfig {
+
+    public abstract UUID tapId();
+    public abstract String bssid();
+    public abstract int channel();
+    public abstract TrackDetectorConfig config();
+
+    public static CustomTrackDetectorConfig create(UUID tapId, String bssid, int channel, TrackDetectorConfig config) {
+        return builder()
+                .tapId(tapId)
+                .bssid(bssid)
+                .channel(channel)
+                .config(config)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_CustomTrackDetectorConfig.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder tapId(UUID tapId);
+
+        public abstract Builder bssid(String bssid);
+
+        public abstract Builder channel(int channel);
+
+        public abstract Builder config(TrackDetectorConfig config);
+
+        public abstract CustomTrackDetectorConfig build();
+    }
+}
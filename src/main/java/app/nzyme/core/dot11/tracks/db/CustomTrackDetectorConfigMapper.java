@@ -0,0 +1,26 @@
+package app.nzyme.core.dot11.tracks.db;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+public class CustomTrackDetectorConfigMapper implements RowMapper<CustomTrackDetectorConfig> {
+
+    @Override
+    public CustomTrackDetectorConfig map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return CustomTrackDetectorConfig.create(
+                UUID.fromString(rs.getString("tap_id")),
+                rs.getString("bssid"),
+                rs.getInt("channel"),
+                TrackDetectorConfig.create(
+                        rs.getInt("frame_threshold"),
+                        rs.getInt("gap_threshold"),
+                        rs.getInt("signal_centerline_jitter")
+                )
+        );
+    }
+
+}
@@ -1,70 +1,110 @@
 package app.nzyme.core.ethernet;
 
 import app.nzyme.core.NzymeNodeImpl;
+import app.nzyme.core.ethernet.l4.L4;
+import app.nzyme.core.ethernet.l4.L4SessionTimeoutTracker;
 import app.nzyme.core.ethernet.l4.tcp.TcpSessionState;
 import app.nzyme.core.ethernet.l4.udp.UdpConversationState;
 import app.nzyme.core.periodicals.Periodical;
+import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
 
+import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class L4ConnectionCleaner extends Periodical {
 
     /*
      * This functionality takes care of situations where a tap shuts down with connections still open. Such a tap
      * would never see the FIN/RST in TCP or timeout in UDP, and we'd end up with a connection that exists for forever.
+     *
+     * Open sessions are tracked in memory by the TCP and UDP ingest paths. Only sessions that timed out according to
+     * that tracker are closed, by ID and in small batches. The tracker is rebuilt from the partial index on open
+     * sessions after startup and refreshed periodically, to also pick up sessions that were ingested by other nodes.
      */
 
     private static final Logger LOG = LogManager.getLogger(L4ConnectionCleaner.class);
 
+    private static final int CLOSE_BATCH_SIZE = 500;
+    private static final int RECOVERY_INTERVAL_MINUTES = 60;
+
     private final NzymeNodeImpl nzyme;
 
+    private DateTime lastRecovery;
+
     public L4ConnectionCleaner(NzymeNodeImpl nzyme) {
         this.nzyme = nzyme;
     }
 
     @Override
     protected void execute() {
-        LOG.debug("Cleaning stale L4 connections.");
-
-        int tcpSessionTimeoutSeconds;
-        if (nzyme.getConfiguration().protocols().isPresent()
-                && nzyme.getConfiguration().protocols().get().tcp().isPresent()
-                && nzyme.getConfiguration().protocols().get().tcp().get().sessionTimeoutSeconds().isPresent()) {
-            tcpSessionTimeoutSeconds = nzyme.getConfiguration().protocols().get().tcp().get()
-                    .sessionTimeoutSeconds().get();
-        } else {
-            tcpSessionTimeoutSeconds = 43200;
+        L4 l4 = nzyme.getEthernet().l4();
+        L4SessionTimeoutTracker tracker = l4.getSessionTimeoutTracker();
+
+        if (lastRecovery == null || lastRecovery.isBefore(DateTime.now().minusMinutes(RECOVERY_INTERVAL_MINUTES))) {
+            recover(tracker);
+            lastRecovery = DateTime.now();
         }
 
+        Map<L4Type, List<Long>> expired = tracker.expire(DateTime.now());
+
+        List<Long> tcp = expired.getOrDefault(L4Type.TCP, Collections.emptyList());
+        List<Long> udp = expired.getOrDefault(L4Type.UDP, Collections.emptyList());
+
+        LOG.debug("Closing [{}] timed out TCP sessions and [{}] timed out UDP conversations. [{}] remain open.",
+                tcp.size(), udp.size(), tracker.size());
+
         // TCP.
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE l4_sessions SET state = :new_state " +
-                                "WHERE l4_type = 'TCP' AND most_recent_segment_time < :cutoff " +
-                                "AND state NOT IN (<states>)")
-                        .bind("new_state", TcpSessionState.CLOSEDTIMEOUTNODE)
-                        .bind("cutoff", DateTime.now().minusSeconds(tcpSessionTimeoutSeconds))
-                        .bindList("states", List.of(
-                                TcpSessionState.CLOSEDFIN,
-                                TcpSessionState.CLOSEDRST,
-                                TcpSessionState.CLOSEDTIMEOUT,
-                                TcpSessionState.CLOSEDTIMEOUTNODE,
-                                TcpSessionState.REFUSED)
-                        )
-                        .execute()
-        );
+        DateTime tcpCutoff = DateTime.now().minusSeconds(l4.getTcpSessionTimeoutSeconds());
+        for (List<Long> ids : Lists.partition(tcp, CLOSE_BATCH_SIZE)) {
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("UPDATE l4_sessions SET state = :new_state " +
+                                    "WHERE id IN (<ids>) AND state IN (<states>) " +
+                                    "AND most_recent_segment_time < :cutoff")
+                            .bind("new_state", TcpSessionState.CLOSEDTIMEOUTNODE)
+                            .bind("cutoff", tcpCutoff)
+                            .bindList("ids", ids)
+                            .bindList("states", L4SessionTimeoutTracker.OPEN_TCP_STATES)
+                            .execute()
+            );
+        }
 
         // UDP.
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE l4_sessions SET state = :new_state " +
-                                "WHERE l4_type = 'UDP' AND most_recent_segment_time < :cutoff " +
-                                "AND state <> 'CLOSED'")
-                        .bind("new_state", UdpConversationState.CLOSEDNODE)
-                        .bind("cutoff", DateTime.now().minusSeconds(120))
-                        .execute()
+        DateTime udpCutoff = DateTime.now().minusSeconds(l4.getUdpConversationTimeoutSeconds());
+        for (List<Long> ids : Lists.partition(udp, CLOSE_BATCH_SIZE)) {
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("UPDATE l4_sessions SET state = :new_state " +
+                                    "WHERE id IN (<ids>) AND state IN (<states>) " +
+                                    "AND most_recent_segment_time < :cutoff")
+                            .bind("new_state", UdpConversationState.CLOSEDNODE)
+                            .bind("cutoff", udpCutoff)
+                            .bindList("ids", ids)
+                            .bindList("states", L4SessionTimeoutTracker.OPEN_UDP_STATES)
+                            .execute()
+            );
+        }
+    }
+
+    private void recover(L4SessionTimeoutTracker tracker) {
+        // Served by the partial index l4_sessions_open. The states are inlined so the planner can match its predicate.
+        int recovered = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT id, l4_type, most_recent_segment_time FROM l4_sessions " +
+                                "WHERE state IN (" + L4SessionTimeoutTracker.OPEN_STATES_SQL + ")")
+                        .reduceRows(0, (count, row) -> {
+                            tracker.track(
+                                    row.getColumn("id", Long.class),
+                                    L4Type.valueOf(row.getColumn("l4_type", String.class)),
+                                    new DateTime(row.getColumn("most_recent_segment_time", Timestamp.class))
+                            );
+                            return count + 1;
+                        })
         );
+
+        LOG.debug("Recovered [{}] open L4 sessions into session timeout tracker.", recovered);
     }
 
     @Override
@@ -1,6 +1,13 @@
 package app.nzyme.core.ethernet.dns;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.DatabaseTools;
+import app.nzyme.core.database.Keyset;
+import app.nzyme.core.database.KeysetColumn;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
+import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.database.generic.DateTimeNumberAggregationResult;
 import app.nzyme.core.ethernet.Ethernet;
 import app.nzyme.core.ethernet.dns.db.*;
@@ -13,13 +20,18 @@ import app.nzyme.core.util.filters.Filters;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.Query;
 import org.joda.time.DateTime;
 
 import java.util.*;
 
 public class DNS {
 
+    private static final KeysetColumn QUERY_KEYSET_ORDER = KeysetColumn.plain("timestamp", "timestamptz");
+    private static final KeysetColumn QUERY_KEYSET_KEY = KeysetColumn.plain("id", "bigint");
+
     private final NzymeNode nzyme;
 
     public DNS(Ethernet ethernet) {
@@ -173,8 +185,8 @@ public class DNS {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new DnsFilters());
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT date_trunc(:date_trunc, timestamp) AS bucket, COUNT(*) AS value " +
-                                "FROM dns_log " +
+                handle.createQuery("SELECT date_trunc(:date_trunc, timestamp) AS bucket, SUM(count) AS value " +
+                                "FROM dns_log_unified " +
                                 "WHERE dns_type = :dns_type AND timestamp >= :tr_from AND timestamp <= :tr_to " +
                                 "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() +
                                 "GROUP BY bucket " + "HAVING 1=1 " + filterFragment.havingSql() +
@@ -202,7 +214,7 @@ public class DNS {
                                                     DateTime transactionTimestamp,
                                                     List<UUID> taps,
                                                     Handle handle) {
-        List<DNSLogEntry> logs = handle.createQuery("SELECT * FROM dns_log " +
+        List<DNSLogEntry> logs = handle.createQuery("SELECT * FROM dns_log_unified " +
                         "WHERE transaction_id = :transaction_id AND timestamp >= :tr_from " +
                         "AND timestamp <= :tr_to AND tap_uuid IN (<taps>) " +
                         "ORDER BY data_type, data_value")
@@ -224,24 +236,34 @@ public class DNS {
     }
 
     public long countAllQueries(TimeRange timeRange, Filters filters, List<UUID> taps) {
+        return countAllQueries(timeRange, filters, taps, CountMode.EXACT);
+    }
+
+    public long countAllQueries(TimeRange timeRange, Filters filters, List<UUID> taps, CountMode countMode) {
         if (taps.isEmpty()) {
             return 0;
         }
 
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new DnsFilters());
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT COUNT(*) FROM dns_log " +
-                                "WHERE dns_type = 'query' " +
-                                "AND timestamp >= :tr_from AND timestamp <= :tr_to AND " +
-                                "tap_uuid IN (<taps>) " + filterFragment.whereSql() + "HAVING 1=1 " + filterFragment.havingSql())
-                        .bindList("taps", taps)
-                        .bindMap(filterFragment.bindings())
-                        .bind("tr_from", timeRange.from())
-                        .bind("tr_to", timeRange.to())
-                        .mapTo(Long.class)
-                        .one()
-        );
+        String conditionsSql = "WHERE dns_type = 'query' " +
+                "AND timestamp >= :tr_from AND timestamp <= :tr_to AND " +
+                "tap_uuid IN (<taps>) " + filterFragment.whereSql();
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            Query query = handle.createQuery(countMode == CountMode.ESTIMATED
+                            ? DatabaseTools.EXPLAIN + "SELECT 1 FROM dns_log_unified " + conditionsSql
+                            : "SELECT COUNT(*) FROM dns_log_unified " + conditionsSql
+                                    + "HAVING 1=1 " + filterFragment.havingSql())
+                    .bindList("taps", taps)
+                    .bindMap(filterFragment.bindings())
+                    .bind("tr_from", timeRange.from())
+                    .bind("tr_to", timeRange.to());
+
+            return countMode == CountMode.ESTIMATED
+                    ? DatabaseTools.estimateRows(query)
+                    : query.mapTo(Long.class).one();
+        });
     }
 
     public List<DNSLogEntry> findAllQueries(TimeRange timeRange, Filters filters, int limit, int offset, List<UUID> taps) {
@@ -252,10 +274,9 @@ public class DNS {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new DnsFilters());
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM dns_log " +
+                handle.createQuery("SELECT * FROM dns_log_unified " +
                                 "WHERE dns_type = 'query' AND timestamp >= :tr_from AND timestamp <= :tr_to " +
                                 "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() +
-                                "GROUP BY id HAVING 1=1 " + filterFragment.havingSql() +
                                 "ORDER BY timestamp DESC " +
                                 "LIMIT :limit OFFSET :offset")
                         .bindList("taps", taps)
@@ -269,6 +290,41 @@ public class DNS {
         );
     }
 
+    public KeysetPage<DNSLogEntry> findQueriesPage(TimeRange timeRange,
+                                                   Filters filters,
+                                                   int limit,
+                                                   @Nullable KeysetCursor cursor,
+                                                   List<UUID> taps) {
+        if (taps.isEmpty()) {
+            return KeysetPage.create(Collections.emptyList(), null);
+        }
+
+        FilterSqlFragment filterFragment = FilterSql.generate(filters, new DnsFilters());
+
+        String sql = Keyset.pageSql(
+                "SELECT * FROM dns_log_unified " +
+                        "WHERE dns_type = 'query' AND timestamp >= :tr_from AND timestamp <= :tr_to " +
+                        "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() +
+                        Keyset.condition(QUERY_KEYSET_ORDER, QUERY_KEYSET_KEY, OrderDirection.DESC, cursor),
+                QUERY_KEYSET_ORDER,
+                QUERY_KEYSET_KEY,
+                OrderDirection.DESC
+        );
+
+        return nzyme.getDatabase().withHandle(handle ->
+                Keyset.fetch(
+                        handle.createQuery(sql)
+                                .bindList("taps", taps)
+                                .bindMap(filterFragment.bindings())
+                                .bind("tr_from", timeRange.from())
+                                .bind("tr_to", timeRange.to()),
+                        DNSLogEntry.class,
+                        cursor,
+                        limit
+                )
+        );
+    }
+
     private DNSTransactionProcessingResult buildTransactionFromSingleTransactionLogs(List<DNSLogEntry> logs)
             throws TransactionNotFoundException {
 
@@ -23,8 +23,9 @@ public abstract class DNSLogEntry {
     public abstract String dnsType();
     public abstract DateTime timestamp();
     public abstract DateTime createdAt();
+    public abstract long count();
 
-    public static DNSLogEntry create(long id, UUID uuid, UUID tapUUID, int transactionId, L4AddressData client, L4AddressData server, String dataValue, String dataValueEtld, String dataType, String dnsType, DateTime timestamp, DateTime createdAt) {
+    public static DNSLogEntry create(long id, UUID uuid, UUID tapUUID, int transactionId, L4AddressData client, L4AddressData server, String dataValue, String dataValueEtld, String dataType, String dnsType, DateTime timestamp, DateTime createdAt, long count) {
         return builder()
                 .id(id)
                 .uuid(uuid)
@@ -38,6 +39,7 @@ public abstract class DNSLogEntry {
                 .dnsType(dnsType)
                 .timestamp(timestamp)
                 .createdAt(createdAt)
+                .count(count)
                 .build();
     }
 
@@ -71,6 +73,8 @@ public abstract class DNSLogEntry {
 
         public abstract Builder createdAt(DateTime createdAt);
 
+        public abstract Builder count(long count);
+
         public abstract DNSLogEntry build();
     }
 }
@@ -25,7 +25,8 @@ public class DNSLogEntryMapper implements RowMapper<DNSLogEntry> {
                 rs.getString("data_type"),
                 rs.getString("dns_type"),
                 new DateTime(rs.getTimestamp("timestamp")),
-                new DateTime(rs.getTimestamp("created_at"))
+                new DateTime(rs.getTimestamp("created_at")),
+                rs.getLong("count")
         );
     }
 
@@ -1,6 +1,12 @@
 package app.nzyme.core.ethernet.l4;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.DatabaseTools;
+import app.nzyme.core.database.Keyset;
+import app.nzyme.core.database.KeysetColumn;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.database.generic.L4AddressDataAddressNumberNumberAggregationResult;
 import app.nzyme.core.database.generic.NumberNumberNumberAggregationResult;
@@ -16,6 +22,8 @@ import app.nzyme.core.util.TimeRange;
 import app.nzyme.core.util.filters.FilterSql;
 import app.nzyme.core.util.filters.FilterSqlFragment;
 import app.nzyme.core.util.filters.Filters;
+import jakarta.annotation.Nullable;
+import org.jdbi.v3.core.statement.Query;
 import org.joda.time.DateTime;
 
 import java.util.Collections;
@@ -25,63 +33,124 @@ import java.util.UUID;
 
 public class L4 {
 
+    private static final int DEFAULT_TCP_SESSION_TIMEOUT_SECONDS = 43200;
+    private static final int UDP_CONVERSATION_TIMEOUT_SECONDS = 120;
+
+    private static final String DURATION_MS_SQL =
+            "(EXTRACT(EPOCH FROM (MAX(most_recent_segment_time) - MIN(start_time))) * 1000)";
+
+    // Sessions are grouped by key, type and state.
+    private static final KeysetColumn SESSION_KEYSET_KEY = KeysetColumn.create(
+            "group_key", "(session_key || '/' || l4_type || '/' || state)", "text", false
+    );
+
     private final NzymeNode nzyme;
 
+    private final L4SessionTimeoutTracker sessionTimeoutTracker;
+
     public enum OrderColumn {
 
-        SESSION_KEY("session_key"),
-        STATE("state"),
-        L4_TYPE("l4_type"),
-        SOURCE_MAC("source_mac"),
-        SOURCE_ADDRESS("source_address"),
-        SOURCE_PORT("source_port"),
-        DESTINATION_MAC("destination_mac"),
-        DESTINATION_ADDRESS("destination_address"),
-        DESTINATION_PORT("destination_port"),
-        BYTES_RX_COUNT("bytes_rx_count"),
-        BYTES_TX_COUNT("bytes_tx_count"),
-        FINGERPRINT("fingerprint"),
-        START_TIME("start_time"),
-        END_TIME("end_time"),
-        MOST_RECENT_SEGMENT_TIME("most_recent_segment_time"),
-        DURATION("duration_ms");
+        SESSION_KEY("session_key", KeysetColumn.plain("session_key", "text")),
+        STATE("state", KeysetColumn.plain("state", "text")),
+        L4_TYPE("l4_type", KeysetColumn.plain("l4_type", "text")),
+        SOURCE_MAC("source_mac", null),
+        SOURCE_ADDRESS("source_address", aggregated("source_address", "ANY_VALUE(source_address)", "inet")),
+        SOURCE_PORT("source_port", aggregated("source_port", "ANY_VALUE(source_port)", "integer")),
+        DESTINATION_MAC("destination_mac", null),
+        DESTINATION_ADDRESS("destination_address",
+                aggregated("destination_address", "ANY_VALUE(destination_address)", "inet")),
+        DESTINATION_PORT("destination_port", aggregated("destination_port", "ANY_VALUE(destination_port)", "integer")),
+        BYTES_RX_COUNT("bytes_rx_count", aggregated("bytes_rx_count", "MAX(bytes_rx_count)", "bigint")),
+        BYTES_TX_COUNT("bytes_tx_count", aggregated("bytes_tx_count", "MAX(bytes_tx_count)", "bigint")),
+        FINGERPRINT("fingerprint", null),
+        START_TIME("start_time", aggregated("start_time", "MIN(start_time)", "timestamptz")),
+        END_TIME("end_time", null),
+        MOST_RECENT_SEGMENT_TIME("most_recent_segment_time",
+                aggregated("most_recent_segment_time", "MAX(most_recent_segment_time)", "timestamptz")),
+        DURATION("duration_ms", aggregated("duration_ms", DURATION_MS_SQL, "numeric"));
 
         private final String columnName;
 
-        OrderColumn(String columnName) {
+        // Column for keyset pagination. NULL for columns that can be NULL and don't support it.
+        @Nullable
+        private final KeysetColumn keysetColumn;
+
+        OrderColumn(String columnName, @Nullable KeysetColumn keysetColumn) {
             this.columnName = columnName;
+            this.keysetColumn = keysetColumn;
+        }
+
+        private static KeysetColumn aggregated(String name, String expression, String type) {
+            return KeysetColumn.create(name, expression, type, true);
         }
 
         public String getColumnName() {
             return columnName;
         }
 
+        public boolean supportsKeyset() {
+            return keysetColumn != null;
+        }
+
     }
 
     public L4(Ethernet ethernet) {
         this.nzyme = ethernet.getNzyme();
+
+        this.sessionTimeoutTracker = new L4SessionTimeoutTracker(
+                getTcpSessionTimeoutSeconds(),
+                UDP_CONVERSATION_TIMEOUT_SECONDS
+        );
+    }
+
+    public int getTcpSessionTimeoutSeconds() {
+        if (nzyme.getConfiguration().protocols().isPresent()
+                && nzyme.getConfiguration().protocols().get().tcp().isPresent()
+                && nzyme.getConfiguration().protocols().get().tcp().get().sessionTimeoutSeconds().isPresent()) {
+            return nzyme.getConfiguration().protocols().get().tcp().get().sessionTimeoutSeconds().get();
+        } else {
+            return DEFAULT_TCP_SESSION_TIMEOUT_SECONDS;
+        }
+    }
+
+    public int getUdpConversationTimeoutSeconds() {
+        return UDP_CONVERSATION_TIMEOUT_SECONDS;
+    }
+
+    public L4SessionTimeoutTracker getSessionTimeoutTracker() {
+        return sessionTimeoutTracker;
     }
 
     public long countAllSessions(TimeRange timeRange, Filters filters, List<UUID> taps) {
+        return countAllSessions(timeRange, filters, taps, CountMode.EXACT);
+    }
+
+    public long countAllSessions(TimeRange timeRange, Filters filters, List<UUID> taps, CountMode countMode) {
         if (taps.isEmpty()) {
             return 0;
         }
 
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new L4Filters());
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT COUNT(*) FROM (SELECT session_key, l4_type, state FROM l4_sessions " +
-                                "WHERE most_recent_segment_time >= :tr_from AND most_recent_segment_time <= :tr_to " +
-                                "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() + " " +
-                                "GROUP BY session_key, l4_type, state " +
-                                "HAVING 1=1 " + filterFragment.havingSql() + ")")
-                        .bindList("taps", taps)
-                        .bindMap(filterFragment.bindings())
-                        .bind("tr_from", timeRange.from())
-                        .bind("tr_to", timeRange.to())
-                        .mapTo(Long.class)
-                        .one()
-        );
+        String groupsSql = "SELECT session_key, l4_type, state FROM l4_sessions " +
+                "WHERE most_recent_segment_time >= :tr_from AND most_recent_segment_time <= :tr_to " +
+                "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() + " " +
+                "GROUP BY session_key, l4_type, state " +
+                "HAVING 1=1 " + filterFragment.havingSql();
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            Query query = handle.createQuery(countMode == CountMode.ESTIMATED
+                            ? DatabaseTools.EXPLAIN + groupsSql
+                            : "SELECT COUNT(*) FROM (" + groupsSql + ")")
+                    .bindList("taps", taps)
+                    .bindMap(filterFragment.bindings())
+                    .bind("tr_from", timeRange.from())
+                    .bind("tr_to", timeRange.to());
+
+            return countMode == CountMode.ESTIMATED
+                    ? DatabaseTools.estimateRows(query)
+                    : query.mapTo(Long.class).one();
+        });
     }
 
     public List<L4Session> findAllSessions(TimeRange timeRange,
@@ -98,43 +167,7 @@ public class L4 {
         FilterSqlFragment filterFragment = FilterSql.generate(filters, new L4Filters());
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT session_key, l4_type, state, ANY_VALUE(source_mac) AS source_mac, " +
-                                "ANY_VALUE(source_address) AS source_address, ANY_VALUE(source_port) AS source_port, " +
-                                "ANY_VALUE(source_address_geo_asn_number) AS source_address_geo_asn_number, " +
-                                "ANY_VALUE(source_address_geo_asn_name) AS source_address_geo_asn_name, " +
-                                "ANY_VALUE(source_address_geo_asn_domain) AS source_address_geo_asn_domain, " +
-                                "ANY_VALUE(source_address_geo_city) AS source_address_geo_city, " +
-                                "ANY_VALUE(source_address_geo_country_code) AS source_address_geo_country_code, " +
-                                "ANY_VALUE(source_address_geo_latitude) AS source_address_geo_latitude, " +
-                                "ANY_VALUE(source_address_geo_longitude) AS source_address_geo_longitude, " +
-                                "ANY_VALUE(source_address_is_site_local) AS source_address_is_site_local, " +
-                                "ANY_VALUE(source_address_is_loopback) AS source_address_is_loopback, " +
-                                "ANY_VALUE(source_address_is_multicast) AS source_address_is_multicast, " +
-                                "ANY_VALUE(destination_mac) AS destination_mac, " +
-                                "ANY_VALUE(destination_address) AS destination_address, " +
-                                "ANY_VALUE(destination_port) AS destination_port, " +
-                                "ANY_VALUE(destination_address_geo_asn_number) AS destination_address_geo_asn_number, " +
-                                "ANY_VALUE(destination_address_geo_asn_name) AS destination_address_geo_asn_name, " +
-                                "ANY_VALUE(destination_address_geo_asn_domain) AS destination_address_geo_asn_domain, " +
-                                "ANY_VALUE(destination_address_geo_city) AS destination_address_geo_city, " +
-                                "ANY_VALUE(destination_address_geo_country_code) AS destination_address_geo_country_code, " +
-                                "ANY_VALUE(destination_address_geo_latitude) AS destination_address_geo_latitude, " +
-                                "ANY_VALUE(destination_address_geo_longitude) AS destination_address_geo_longitude, " +
-                                "ANY_VALUE(destination_address_is_site_local) AS destination_address_is_site_local, " +
-                                "ANY_VALUE(destination_address_is_loopback) AS destination_address_is_loopback, " +
-                                "ANY_VALUE(destination_address_is_multicast) AS destination_address_is_multicast, " +
-                                "ANY_VALUE(fingerprint) AS fingerprint, ANY_VALUE(tags) AS tags, " +
-                                "MAX(bytes_rx_count) AS bytes_rx_count, MAX(bytes_tx_count) AS bytes_tx_count, " +
-                                "MAX(segments_count) AS segments_count, " +
-                                "MIN(start_time) AS start_time, MAX(end_time) AS end_time, " +
-                                "MAX(most_recent_segment_time) AS most_recent_segment_time, " +
-                                "(EXTRACT(EPOCH FROM (MAX(most_recent_segment_time) - MIN(start_time))) * 1000) AS duration_ms, " +
-                                "MIN(created_at) AS created_at " +
-                                "FROM l4_sessions " +
-                                "WHERE most_recent_segment_time >= :tr_from AND most_recent_segment_time <= :tr_to " +
-                                "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() + " " +
-                                "GROUP BY session_key, l4_type, state " +
-                                "HAVING 1=1 " + filterFragment.havingSql() + " " +
+                handle.createQuery(buildSessionsSql(filterFragment) + " " +
                                 "ORDER BY <order_column> <order_direction> " +
                                 "LIMIT :limit OFFSET :offset")
                         .bindList("taps", taps)
@@ -150,6 +183,95 @@ public class L4 {
         );
     }
 
+    public KeysetPage<L4Session> findSessionsPage(TimeRange timeRange,
+                                                  Filters filters,
+                                                  int limit,
+                                                  @Nullable KeysetCursor cursor,
+                                                  OrderColumn orderColumn,
+                                                  OrderDirection orderDirection,
+                                                  List<UUID> taps) {
+        if (!orderColumn.supportsKeyset()) {
+            throw new IllegalArgumentException("Order column [" + orderColumn + "] does not support keyset pagination.");
+        }
+
+        if (taps.isEmpty()) {
+            return KeysetPage.create(Collections.emptyList(), null);
+        }
+
+        FilterSqlFragment filterFragment = FilterSql.generate(filters, new L4Filters());
+
+        KeysetColumn order = orderColumn.keysetColumn;
+        String condition = Keyset.condition(order, SESSION_KEYSET_KEY, orderDirection, cursor);
+        String sql = Keyset.pageSql(
+                order.aggregated()
+                        ? buildSessionsSql(filterFragment, "", condition)
+                        : buildSessionsSql(filterFragment, condition, ""),
+                order,
+                SESSION_KEYSET_KEY,
+                orderDirection
+        );
+
+        return nzyme.getDatabase().withHandle(handle ->
+                Keyset.fetch(
+                        handle.createQuery(sql)
+                                .bindList("taps", taps)
+                                .bindMap(filterFragment.bindings())
+                                .bind("tr_from", timeRange.from())
+                                .bind("tr_to", timeRange.to()),
+                        L4Session.class,
+                        cursor,
+                        limit
+                )
+        );
+    }
+
+    private static String buildSessionsSql(FilterSqlFragment filterFragment) {
+        return buildSessionsSql(filterFragment, "", "");
+    }
+
+    private static String buildSessionsSql(FilterSqlFragment filterFragment,
+                                           String whereCondition,
+                                           String havingCondition) {
+        return "SELECT session_key, l4_type, state, " +
+                "(session_key || '/' || l4_type || '/' || state) AS group_key, ANY_VALUE(source_mac) AS source_mac, " +
+                "ANY_VALUE(source_address) AS source_address, ANY_VALUE(source_port) AS source_port, " +
+                "ANY_VALUE(source_address_geo_asn_number) AS source_address_geo_asn_number, " +
+                "ANY_VALUE(source_address_geo_asn_name) AS source_address_geo_asn_name, " +
+                "ANY_VALUE(source_address_geo_asn_domain) AS source_address_geo_asn_domain, " +
+                "ANY_VALUE(source_address_geo_city) AS source_address_geo_city, " +
+                "ANY_VALUE(source_address_geo_country_code) AS source_address_geo_country_code, " +
+                "ANY_VALUE(source_address_geo_latitude) AS source_address_geo_latitude, " +
+                "ANY_VALUE(source_address_geo_longitude) AS source_address_geo_longitude, " +
+                "ANY_VALUE(source_address_is_site_local) AS source_address_is_site_local, " +
+                "ANY_VALUE(source_address_is_loopback) AS source_address_is_loopback, " +
+                "ANY_VALUE(source_address_is_multicast) AS source_address_is_multicast, " +
+                "ANY_VALUE(destination_mac) AS destination_mac, " +
+                "ANY_VALUE(destination_address) AS destination_address, " +
+                "ANY_VALUE(destination_port) AS destination_port, " +
+                "ANY_VALUE(destination_address_geo_asn_number) AS destination_address_geo_asn_number, " +
+                "ANY_VALUE(destination_address_geo_asn_name) AS destination_address_geo_asn_name, " +
+                "ANY_VALUE(destination_address_geo_asn_domain) AS destination_address_geo_asn_domain, " +
+                "ANY_VALUE(destination_address_geo_city) AS destination_address_geo_city, " +
+                "ANY_VALUE(destination_address_geo_country_code) AS destination_address_geo_country_code, " +
+                "ANY_VALUE(destination_address_geo_latitude) AS destination_address_geo_latitude, " +
+                "ANY_VALUE(destination_address_geo_longitude) AS destination_address_geo_longitude, " +
+                "ANY_VALUE(destination_address_is_site_local) AS destination_address_is_site_local, " +
+                "ANY_VALUE(destination_address_is_loopback) AS destination_address_is_loopback, " +
+                "ANY_VALUE(destination_address_is_multicast) AS destination_address_is_multicast, " +
+                "ANY_VALUE(fingerprint) AS fingerprint, ANY_VALUE(tags) AS tags, " +
+                "MAX(bytes_rx_count) AS bytes_rx_count, MAX(bytes_tx_count) AS bytes_tx_count, " +
+                "MAX(segments_count) AS segments_count, " +
+                "MIN(start_time) AS start_time, MAX(end_time) AS end_time, " +
+                "MAX(most_recent_segment_time) AS most_recent_segment_time, " +
+                DURATION_MS_SQL + " AS duration_ms, " +
+                "MIN(created_at) AS created_at " +
+                "FROM l4_sessions " +
+                "WHERE most_recent_segment_time >= :tr_from AND most_recent_segment_time <= :tr_to " +
+                "AND tap_uuid IN (<taps>) " + filterFragment.whereSql() + whereCondition + " " +
+                "GROUP BY session_key, l4_type, state " +
+                "HAVING 1=1 " + filterFragment.havingSql() + havingCondition;
+    }
+
     public Optional<L4Session> findSession(L4Type type, DateTime startTime, String sessionKey, List<UUID> taps) {
         if (taps.isEmpty()) {
             return Optional.empty();
@@ -0,0 +1,182 @@
+package app.nzyme.core.ethernet.l4;
+
+import app.nzyme.core.ethernet.L4Type;
+import app.nzyme.core.ethernet.l4.tcp.TcpSessionState;
+import app.nzyme.core.ethernet.l4.udp.UdpConversationState;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Time wheel of all open L4 sessions, keyed by the minute in which each session times out. The TCP and UDP ingest
+ * paths move sessions forward with every new segment and remove them once they are closed, so finding timed out
+ * sessions only requires popping the expired slots instead of scanning the sessions table.
+ */
+public class L4SessionTimeoutTracker {
+
+    // Must match the state condition of the partial index l4_sessions_open.
+    public static final List<TcpSessionState> OPEN_TCP_STATES = List.of(
+            TcpSessionState.SYNSENT,
+            TcpSessionState.SYNRECEIVED,
+            TcpSessionState.ESTABLISHED,
+            TcpSessionState.FINWAIT1,
+            TcpSessionState.FINWAIT2
+    );
+    public static final List<UdpConversationState> OPEN_UDP_STATES = List.of(UdpConversationState.ACTIVE);
+
+    /*
+     * All open states as SQL literals, for example "'SYNSENT', 'ACTIVE'". Postgres only uses the partial index if
+     * the states are part of the query text. Bound parameters are unknown when the plan is made.
+     */
+    public static final String OPEN_STATES_SQL = Stream.concat(OPEN_TCP_STATES.stream(), OPEN_UDP_STATES.stream())
+            .map(state -> "'" + state.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final long SLOT_MILLIS = 60_000;
+
+    private final long tcpTimeoutMillis;
+    private final long udpTimeoutMillis;
+
+    // Session ID -> slot. The wheel may hold stale IDs of moved sessions. This map decides which slot is current.
+    private final Map<Long, TrackedSession> sessions;
+    private final NavigableMap<Long, Set<Long>> wheel;
+
+    public L4SessionTimeoutTracker(int tcpTimeoutSeconds, int udpTimeoutSeconds) {
+        this.tcpTimeoutMillis = tcpTimeoutSeconds * 1000L;
+        this.udpTimeoutMillis = udpTimeoutSeconds * 1000L;
+
+        this.sessions = Maps.newHashMap();
+        this.wheel = new TreeMap<>();
+    }
+
+    public synchronized void track(long sessionId, L4Type type, DateTime mostRecentSegmentTime) {
+        long timeout = type == L4Type.TCP ? tcpTimeoutMillis : udpTimeoutMillis;
+        long slot = slotOf(mostRecentSegmentTime.getMillis() + timeout);
+
+        TrackedSession previous = sessions.put(sessionId, new TrackedSession(type, slot));
+        if (previous != null && previous.slot == slot) {
+            return;
+        }
+
+        if (previous != null) {
+            Set<Long> previousSlot = wheel.get(previous.slot);
+            if (previousSlot != null) {
+                previousSlot.remove(sessionId);
+                if (previousSlot.isEmpty()) {
+                    wheel.remove(previous.slot);
+                }
+            }
+        }
+
+        wheel.computeIfAbsent(slot, s -> Sets.newHashSet()).add(sessionId);
+    }
+
+    public void observe(long sessionId, L4Type type, Observation observation) {
+        if (observation.open()) {
+            track(sessionId, type, observation.mostRecentSegmentTime());
+        } else {
+            untrack(sessionId);
+        }
+    }
+
+    public synchronized void untrack(long sessionId) {
+        TrackedSession previous = sessions.remove(sessionId);
+        if (previous == null) {
+            return;
+        }
+
+        Set<Long> slot = wheel.get(previous.slot);
+        if (slot != null) {
+            slot.remove(sessionId);
+            if (slot.isEmpty()) {
+                wheel.remove(previous.slot);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns all sessions that timed out before the given time, grouped by L4 type.
+     */
+    public synchronized Map<L4Type, List<Long>> expire(DateTime now) {
+        Map<L4Type, List<Long>> result = Maps.newEnumMap(L4Type.class);
+
+        NavigableMap<Long, Set<Long>> expired = wheel.headMap(slotOf(now.getMillis()), false);
+        for (Set<Long> slot : expired.values()) {
+            for (Long sessionId : slot) {
+                TrackedSession session = sessions.remove(sessionId);
+                if (session != null) {
+                    result.computeIfAbsent(session.type, t -> Lists.newArrayList()).add(sessionId);
+                }
+            }
+        }
+        expired.clear();
+
+        return result;
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    private static long slotOf(long millis) {
+        return millis / SLOT_MILLIS;
+    }
+
+    @AutoValue
+    public static abstract class Observation {
+
+        public abstract boolean open();
+        public abstract DateTime mostRecentSegmentTime();
+
+        public static Observation create(boolean open, DateTime mostRecentSegmentTime) {
+            return builder()
+                    .open(open)
+                    .mostRecentSegmentTime(mostRecentSegmentTime)
+                    .build();
+        }
+
+        public static Observation tcp(TcpSessionState state, DateTime mostRecentSegmentTime) {
+            return create(OPEN_TCP_STATES.contains(state), mostRecentSegmentTime);
+        }
+
+        public static Observation udp(UdpConversationState state, DateTime mostRecentSegmentTime) {
+            return create(OPEN_UDP_STATES.contains(state), mostRecentSegmentTime);
+        }
+
+        public static Builder builder() {
+            return new AutoValue_L4SessionTimeoutTracker_Observation.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder open(boolean open);
+
+            public abstract Builder mostRecentSegmentTime(DateTime mostRecentSegmentTime);
+
+            public abstract Observation build();
+        }
+    }
+
+    private static final class TrackedSession {
+
+        private final L4Type type;
+        private final long slot;
+
+        TrackedSession(L4Type type, long slot) {
+            this.type = type;
+            this.slot = slot;
+        }
+
+    }
+
+}
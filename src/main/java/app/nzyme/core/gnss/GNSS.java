@@ -4,13 +4,17 @@ import app.nzyme.core.NzymeNode;
 import app.nzyme.core.database.generic.LatLonResult;
 import app.nzyme.core.gnss.db.*;
 import app.nzyme.core.gnss.db.monitoring.GNSSMonitoringRuleEntry;
+import app.nzyme.core.gnss.monitoring.GNSSMonitoringRuleEngine;
 import app.nzyme.core.shared.db.GenericIntegerHistogramEntry;
 import app.nzyme.core.taps.Tap;
 import app.nzyme.core.util.Bucketing;
 import app.nzyme.core.util.TimeRange;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Nullable;
+import org.joda.time.DateTime;
 
 import java.util.*;
 
@@ -18,10 +22,16 @@ public class GNSS {
 
     private final NzymeNode nzyme;
     private final ObjectMapper om;
+    private final GNSSMonitoringRuleEngine monitoringRuleEngine;
 
     public GNSS(NzymeNode nzyme) {
         this.nzyme = nzyme;
         this.om = new ObjectMapper();
+        this.monitoringRuleEngine = new GNSSMonitoringRuleEngine(nzyme);
+    }
+
+    public GNSSMonitoringRuleEngine getMonitoringRuleEngine() {
+        return monitoringRuleEngine;
     }
 
     public List<LatLonResult> getRecordedCoordinates(Constellation constellation,
@@ -32,13 +42,10 @@ public class GNSS {
         }
 
         return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT DISTINCT round(c.lat::numeric, 5)::double precision AS lat, " +
-                                "round(c.lon::numeric, 5)::double precision AS lon " +
-                                "FROM gnss_constellations AS gnss " +
-                                "CROSS JOIN LATERAL jsonb_to_recordset(gnss.positions) " +
-                                "AS c (lat double precision, lon double precision) " +
-                                "WHERE gnss.constellation = :constellation " +
-                                "AND timestamp >= :tr_from AND timestamp <= :tr_to " +
+                handle.createQuery("SELECT DISTINCT lat_e5 / 100000.0 AS lat, lon_e5 / 100000.0 AS lon " +
+                                "FROM gnss_position_cells " +
+                                "WHERE constellation = :constellation " +
+                                "AND bucket >= date_trunc('minute', :tr_from) AND bucket <= :tr_to " +
                                 "AND tap_uuid IN (<taps>)")
                         .bind("constellation", constellation)
                         .bind("tr_from", timeRange.from())
@@ -49,6 +56,41 @@ public class GNSS {
         );
     }
 
+    /**
+     * Recorded positions, aggregated into square cells of the given size. Each bin is the center of a cell with
+     * the number of positions recorded in it. Returns the densest bins if there are more than the limit.
+     */
+    public List<GNSSPositionDensityBin> getPositionDensity(Constellation constellation,
+                                                           TimeRange timeRange,
+                                                           int cellSizeE5,
+                                                           int limit,
+                                                           List<UUID> taps) {
+        if (taps.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT (floor(lat_e5 / :cell::double precision) + 0.5) * :cell / 100000.0 AS lat, " +
+                                "(floor(lon_e5 / :cell::double precision) + 0.5) * :cell / 100000.0 AS lon, " +
+                                "SUM(count) AS count " +
+                                "FROM gnss_position_cells " +
+                                "WHERE constellation = :constellation " +
+                                "AND bucket >= date_trunc('minute', :tr_from) AND bucket <= :tr_to " +
+                                "AND tap_uuid IN (<taps>) " +
+                                "GROUP BY 1, 2 " +
+                                "ORDER BY count DESC " +
+                                "LIMIT :limit")
+                        .bind("cell", cellSizeE5)
+                        .bind("constellation", constellation)
+                        .bind("tr_from", timeRange.from())
+                        .bind("tr_to", timeRange.to())
+                        .bind("limit", limit)
+                        .bindList("taps", taps)
+                        .mapTo(GNSSPositionDensityBin.class)
+                        .list()
+        );
+    }
+
     public List<GNSSSatelliteInView> findAllSatellitesInView(TimeRange timeRange, List<UUID> taps) {
         if (taps.isEmpty()) {
             return Collections.emptyList();
@@ -495,6 +537,35 @@ public class GNSS {
         );
     }
 
+    public Optional<DateTime> findFixQualityBelowSince(UUID tapUuid,
+                                                       String constellation,
+                                                       List<String> sufficientFixes,
+                                                       DateTime from,
+                                                       DateTime to) {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("WITH last_sufficient AS ( " +
+                                "  SELECT MAX(timestamp) AS timestamp FROM gnss_constellations " +
+                                "  WHERE tap_uuid = :tap_uuid AND constellation = :constellation " +
+                                "  AND timestamp >= :from AND timestamp <= :to " +
+                                "  AND EXISTS ( " +
+                                "    SELECT 1 FROM jsonb_array_elements_text(fixes) AS v(val) " +
+                                "    WHERE v.val IN (<sufficient_fixes>) " +
+                                "  ) " +
+                                ") " +
+                                "SELECT MIN(c.timestamp) FROM gnss_constellations AS c, last_sufficient AS l " +
+                                "WHERE c.tap_uuid = :tap_uuid AND c.constellation = :constellation " +
+                                "AND c.timestamp >= :from AND c.timestamp <= :to " +
+                                "AND (l.timestamp IS NULL OR c.timestamp > l.timestamp)")
+                        .bind("tap_uuid", tapUuid)
+                        .bind("constellation", constellation)
+                        .bind("from", from)
+                        .bind("to", to)
+                        .bindList("sufficient_fixes", sufficientFixes)
+                        .mapTo(DateTime.class)
+                        .findOne()
+        );
+    }
+
     public void createMonitoringRule(String name,
                                      @Nullable String description,
                                      Map<String, List<Object>> conditions,
@@ -530,6 +601,8 @@ public class GNSS {
                         .bind("taps", tapsJson)
                         .execute()
         );
+
+        invalidateMonitoringRulesClusterWide();
     }
 
     public long countAllMonitoringRulesOfTenant(UUID organizationId, UUID tenantId) {
@@ -606,6 +679,7 @@ public class GNSS {
                         .execute()
         );
 
+        invalidateMonitoringRulesClusterWide();
     }
 
     public void deleteMonitoringRule(long id) {
@@ -614,5 +688,18 @@ public class GNSS {
                         .bind("id", id)
                         .execute()
         );
+
+        invalidateMonitoringRulesClusterWide();
+    }
+
+    private void invalidateMonitoringRulesClusterWide() {
+        // Reload locally right away. The message reaches this node, too, but only after the next poll.
+        monitoringRuleEngine.invalidateRules();
+
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "gnss_monitoring_rules"),
+                false
+        ));
     }
 }
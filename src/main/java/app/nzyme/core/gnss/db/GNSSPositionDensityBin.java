@@ -0,0 +1,34 @@
+package app.nzyme.core.gnss.db;
+
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class GNSSPositionDensityBin {
+
+    public abstract double lat();
+    public abstract double lon();
+    public abstract long count();
+
+    public static GNSSPositionDensityBin create(double lat, double lon, long count) {
+        return builder()
+                .lat(lat)
+                .lon(lon)
+                .count(count)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_GNSSPositionDensityBin.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder lat(double lat);
+
+        public abstract Builder lon(double lon);
+
+        public abstract Builder count(long count);
+
+        public abstract GNSSPositionDensityBin build();
+    }
+}
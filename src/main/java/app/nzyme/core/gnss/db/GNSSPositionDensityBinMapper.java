@@ -0,0 +1,18 @@
+package app.nzyme.core.gnss.db;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class GNSSPositionDensityBinMapper implements RowMapper<GNSSPositionDensityBin> {
+    @Override
+    public GNSSPositionDensityBin map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return GNSSPositionDensityBin.create(
+                rs.getDouble("lat"),
+                rs.getDouble("lon"),
+                rs.getLong("count")
+        );
+    }
+}
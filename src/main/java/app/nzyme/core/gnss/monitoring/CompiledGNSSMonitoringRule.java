@@ -0,0 +1,69 @@
+package app.nzyme.core.gnss.monitoring;
+
+import app.nzyme.core.gnss.db.monitoring.GNSSMonitoringRuleEntry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A monitoring rule with its conditions compiled into predicates. Conditions of the same type are OR connected,
+ * all condition types are AND connected. Constellation conditions only restrict which constellations the rule
+ * applies to.
+ */
+public class CompiledGNSSMonitoringRule {
+
+    private final GNSSMonitoringRuleEntry rule;
+
+    // Empty if rule applies to all constellations.
+    private final ImmutableSet<String> constellations;
+
+    // NULL if rule applies to all taps of tenant.
+    @Nullable
+    private final ImmutableSet<UUID> taps;
+
+    private final ImmutableList<ImmutableList<GNSSCondition>> conditionGroups;
+
+    public CompiledGNSSMonitoringRule(GNSSMonitoringRuleEntry rule,
+                                      ImmutableSet<String> constellations,
+                                      @Nullable ImmutableSet<UUID> taps,
+                                      ImmutableList<ImmutableList<GNSSCondition>> conditionGroups) {
+        this.rule = rule;
+        this.constellations = constellations;
+        this.taps = taps;
+        this.conditionGroups = conditionGroups;
+    }
+
+    public GNSSMonitoringRuleEntry getRule() {
+        return rule;
+    }
+
+    public boolean appliesTo(UUID tapUuid, String constellation) {
+        return (taps == null || taps.contains(tapUuid))
+                && (constellations.isEmpty() || constellations.contains(constellation));
+    }
+
+    /**
+     * Evaluates every condition, even if the result is already decided, so stateful conditions see every report.
+     */
+    public boolean matches(GNSSRuleSubject subject) {
+        if (conditionGroups.isEmpty()) {
+            return false;
+        }
+
+        boolean allGroupsMatched = true;
+        for (List<GNSSCondition> group : conditionGroups) {
+            boolean groupMatched = false;
+            for (GNSSCondition condition : group) {
+                groupMatched |= condition.matches(subject);
+            }
+
+            allGroupsMatched &= groupMatched;
+        }
+
+        return allGroupsMatched;
+    }
+
+}
@@ -0,0 +1,8 @@
+package app.nzyme.core.gnss.monitoring;
+
+@FunctionalInterface
+public interface GNSSCondition {
+
+    boolean matches(GNSSRuleSubject subject);
+
+}
@@ -0,0 +1,14 @@
+package app.nzyme.core.gnss.monitoring;
+
+public enum GNSSConditionType {
+
+    CONSTELLATION,
+    FIX_QUALITY,
+    FIX_DISTANCE,
+    PDOP,
+    CLOCK_DRIFT,
+    NOISE,
+    JAMMING_INDICATOR,
+    AGC_COUNT
+
+}
@@ -0,0 +1,76 @@
+package app.nzyme.core.gnss.monitoring;
+
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Matches if the fix quality of a constellation stayed below a minimum for a timeframe. Reports of a tap can be
+ * written by any node, so the start of the timeframe is read from the written reports instead of being remembered.
+ */
+public class GNSSFixQualityCondition implements GNSSCondition {
+
+    // Reports before the timeframe that are also considered. Must be longer than the tap report interval.
+    private static final long LOOKBACK_SLACK_MILLIS = 2 * 60_000L;
+
+    private final int minimumQuality;
+    private final List<String> sufficientFixes;
+    private final long timeframeMillis;
+
+    public GNSSFixQualityCondition(String minimumContinuousFixQuality, int timeframeMinutes) {
+        switch (minimumContinuousFixQuality) {
+            case "FIX_2D" -> {
+                this.minimumQuality = 1;
+                this.sufficientFixes = List.of("Fix2D", "Fix3D");
+            }
+            case "FIX_3D" -> {
+                this.minimumQuality = 2;
+                this.sufficientFixes = List.of("Fix3D");
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown fix quality [" + minimumContinuousFixQuality + "].");
+        }
+
+        if (timeframeMinutes < 0) {
+            throw new IllegalArgumentException("Fix quality timeframe must not be negative.");
+        }
+
+        this.timeframeMillis = timeframeMinutes * 60_000L;
+    }
+
+    @Override
+    public boolean matches(GNSSRuleSubject subject) {
+        if (quality(subject.report().fixes()) >= minimumQuality) {
+            return false;
+        }
+
+        if (timeframeMillis == 0) {
+            return true;
+        }
+
+        DateTime timestamp = subject.report().timestamp();
+        Optional<DateTime> since = subject.fixQualityHistory().findFixQualityBelowSince(
+                subject.tapUuid(),
+                subject.constellation(),
+                sufficientFixes,
+                timestamp.minus(timeframeMillis + LOOKBACK_SLACK_MILLIS),
+                timestamp
+        );
+
+        return since.isPresent() && timestamp.getMillis() - since.get().getMillis() >= timeframeMillis;
+    }
+
+    private static int quality(List<String> fixes) {
+        if (fixes.contains("Fix3D")) {
+            return 2;
+        }
+
+        if (fixes.contains("Fix2D")) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+}
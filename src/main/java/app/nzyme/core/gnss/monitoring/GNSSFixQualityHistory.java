@@ -0,0 +1,23 @@
+package app.nzyme.core.gnss.monitoring;
+
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@FunctionalInterface
+public interface GNSSFixQualityHistory {
+
+    /**
+     * Timestamp of the oldest constellation report of a tap that was written after the most recent report with one
+     * of the given sufficient fixes. Only reports between from and to are considered. Empty if there is no such
+     * report.
+     */
+    Optional<DateTime> findFixQualityBelowSince(UUID tapUuid,
+                                                String constellation,
+                                                List<String> sufficientFixes,
+                                                DateTime from,
+                                                DateTime to);
+
+}
@@ -0,0 +1,123 @@
+package app.nzyme.core.gnss.monitoring;
+
+import app.nzyme.core.geo.HaversineDistance;
+import app.nzyme.core.gnss.db.monitoring.GNSSMonitoringRuleEntry;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSLatLonReport;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class GNSSMonitoringRuleCompiler {
+
+    /**
+     * Compiles the conditions of a rule as created in the web interface, for example
+     * <code>{"PDOP": [{"pdop": 3}], "CONSTELLATION": [{"constellation": "GPS"}]}</code>.
+     *
+     * @throws IllegalArgumentException If the rule has an unknown condition type or invalid condition parameters.
+     */
+    public static CompiledGNSSMonitoringRule compile(GNSSMonitoringRuleEntry rule) {
+        ImmutableSet.Builder<String> constellations = ImmutableSet.builder();
+        ImmutableList.Builder<ImmutableList<GNSSCondition>> groups = ImmutableList.builder();
+
+        for (Map.Entry<String, List<Object>> conditionSet : rule.conditions().entrySet()) {
+            GNSSConditionType type = GNSSConditionType.valueOf(conditionSet.getKey());
+
+            ImmutableList.Builder<GNSSCondition> group = ImmutableList.builder();
+            for (Object parameters : conditionSet.getValue()) {
+                if (!(parameters instanceof Map)) {
+                    throw new IllegalArgumentException("Invalid parameters of [" + type + "] condition.");
+                }
+                Map<?, ?> p = (Map<?, ?>) parameters;
+
+                if (type == GNSSConditionType.CONSTELLATION) {
+                    constellations.add(string(p, "constellation"));
+                } else {
+                    group.add(build(type, p));
+                }
+            }
+
+            if (type != GNSSConditionType.CONSTELLATION) {
+                groups.add(group.build());
+            }
+        }
+
+        return new CompiledGNSSMonitoringRule(
+                rule,
+                constellations.build(),
+                rule.taps().map(ImmutableSet::copyOf).orElse(null),
+                groups.build()
+        );
+    }
+
+    private static GNSSCondition build(GNSSConditionType type, Map<?, ?> p) {
+        return switch (type) {
+            case FIX_QUALITY -> new GNSSFixQualityCondition(
+                    string(p, "minimumContinuousFixQuality"), (int) number(p, "timeframeMinutes")
+            );
+            case FIX_DISTANCE -> fixDistance(number(p, "distanceMeters"));
+            case PDOP -> greaterThan(s -> s.report().maximumPdop(), number(p, "pdop"));
+            case CLOCK_DRIFT -> clockDrift(number(p, "drift"));
+            case NOISE -> greaterThan(s -> s.report().maximumNoise(), number(p, "noise"));
+            case JAMMING_INDICATOR ->
+                    greaterThan(s -> s.report().maximumJammingIndicator(), number(p, "jammingIndicator"));
+            case AGC_COUNT -> greaterThan(s -> s.report().maximumAgcCount(), number(p, "agcCount"));
+            case CONSTELLATION -> throw new IllegalArgumentException("Constellations are not a condition.");
+        };
+    }
+
+    private static GNSSCondition greaterThan(Function<GNSSRuleSubject, Number> field, double threshold) {
+        return subject -> {
+            Number value = field.apply(subject);
+            return value != null && value.doubleValue() > threshold;
+        };
+    }
+
+    private static GNSSCondition clockDrift(double thresholdMs) {
+        return subject -> {
+            Double deviation = subject.report().maximumTimeDeviationMs();
+            return deviation != null && Math.abs(deviation) > thresholdMs;
+        };
+    }
+
+    private static GNSSCondition fixDistance(double thresholdMeters) {
+        return subject -> {
+            if (subject.tapLatitude() == null || subject.tapLongitude() == null) {
+                return false;
+            }
+
+            for (GNSSLatLonReport position : subject.report().positions()) {
+                double distance = HaversineDistance.haversine(
+                        subject.tapLatitude(), subject.tapLongitude(), position.lat(), position.lon()
+                );
+
+                if (distance > thresholdMeters) {
+                    return true;
+                }
+            }
+
+            return false;
+        };
+    }
+
+    private static String string(Map<?, ?> parameters, String key) {
+        Object value = parameters.get(key);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Missing or invalid condition parameter [" + key + "].");
+        }
+
+        return (String) value;
+    }
+
+    private static double number(Map<?, ?> parameters, String key) {
+        Object value = parameters.get(key);
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Missing or invalid condition parameter [" + key + "].");
+        }
+
+        return ((Number) value).doubleValue();
+    }
+
+}
@@ -0,0 +1,232 @@
+package app.nzyme.core.gnss.monitoring;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.detection.alerts.DetectionType;
+import app.nzyme.core.gnss.db.monitoring.GNSSMonitoringRuleEntry;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationsReport;
+import app.nzyme.core.taps.Tap;
+import app.nzyme.core.util.MetricNames;
+import app.nzyme.plugin.Subsystem;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates the GNSS monitoring rules of a tap's tenant against every constellation report of the tap, right after
+ * the report was written. Rules are compiled once and recompiled after rule changes. Unchanged rules keep their
+ * compiled instance. Conditions hold no state: Fix quality timeframes are read from the written reports of all nodes.
+ */
+public class GNSSMonitoringRuleEngine {
+
+    private static final Logger LOG = LogManager.getLogger(GNSSMonitoringRuleEngine.class);
+
+    private final NzymeNode nzyme;
+    private final Timer evaluationTimer;
+
+    // Incremented on every rule change. Rules are reloaded if the loaded generation is older.
+    private final AtomicLong generation;
+
+    @Nullable
+    private volatile LoadedRules rules;
+
+    public GNSSMonitoringRuleEngine(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+        this.evaluationTimer = nzyme.getMetrics().timer(MetricNames.GNSS_MONITORING_RULES_EVALUATION_TIMER);
+        this.generation = new AtomicLong(0);
+    }
+
+    public void evaluate(UUID tapUuid, GNSSConstellationsReport report) {
+        LoadedRules loaded = getRules();
+        if (loaded.tenantRules.isEmpty() || report.constellations().isEmpty()) {
+            return;
+        }
+
+        Optional<Tap> tap = nzyme.getTapManager().findTap(tapUuid);
+        if (tap.isEmpty() || tap.get().tenantId() == null) {
+            return;
+        }
+
+        List<LoadedRule> tenantRules = loaded.tenantRules.get(tap.get().tenantId());
+        if (tenantRules == null) {
+            return;
+        }
+
+        try (Timer.Context ignored = evaluationTimer.time()) {
+            for (Map.Entry<String, GNSSConstellationReport> constellation : report.constellations().entrySet()) {
+                GNSSRuleSubject subject = GNSSRuleSubject.create(
+                        tapUuid,
+                        tap.get().latitude(),
+                        tap.get().longitude(),
+                        constellation.getKey(),
+                        constellation.getValue(),
+                        nzyme.getGnss()::findFixQualityBelowSince
+                );
+
+                for (LoadedRule rule : tenantRules) {
+                    if (!rule.compiled.appliesTo(tapUuid, constellation.getKey())) {
+                        continue;
+                    }
+
+                    boolean matched;
+                    try (Timer.Context ignored2 = rule.timer.time()) {
+                        matched = rule.compiled.matches(subject);
+                    }
+
+                    if (matched) {
+                        raiseAlert(rule.compiled.getRule(), tap.get(), constellation.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the next evaluation reload all rules. Called after rule changes on this or any other node.
+     */
+    public void invalidateRules() {
+        generation.incrementAndGet();
+    }
+
+    private LoadedRules getRules() {
+        LoadedRules current = rules;
+        if (current != null && current.generation == generation.get()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = rules;
+            long loadGeneration = generation.get();
+            if (current != null && current.generation == loadGeneration) {
+                return current;
+            }
+
+            LoadedRules loaded = load(loadGeneration, current);
+            this.rules = loaded;
+            return loaded;
+        }
+    }
+
+    private LoadedRules load(long loadGeneration, @Nullable LoadedRules previous) {
+        List<GNSSMonitoringRuleEntry> entries = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT * FROM gnss_monitoring_rules")
+                        .mapTo(GNSSMonitoringRuleEntry.class)
+                        .list()
+        );
+
+        MetricRegistry metrics = nzyme.getMetrics();
+        Map<UUID, LoadedRule> byUuid = Maps.newHashMap();
+        Map<UUID, List<LoadedRule>> byTenant = Maps.newHashMap();
+
+        for (GNSSMonitoringRuleEntry entry : entries) {
+            LoadedRule existing = previous == null ? null : previous.byUuid.get(entry.uuid());
+
+            LoadedRule rule;
+            if (existing != null && existing.compiled.getRule().updatedAt().isEqual(entry.updatedAt())) {
+                rule = existing;
+            } else {
+                try {
+                    rule = new LoadedRule(
+                            GNSSMonitoringRuleCompiler.compile(entry),
+                            metrics.timer(MetricRegistry.name(GNSSMonitoringRuleEngine.class,
+                                    entry.uuid().toString(), "evaluation-timing"))
+                    );
+                } catch (IllegalArgumentException e) {
+                    LOG.error("Could not compile GNSS monitoring rule [{}/{}]. Skipping.",
+                            entry.uuid(), entry.name(), e);
+                    continue;
+                }
+            }
+
+            byUuid.put(entry.uuid(), rule);
+            byTenant.computeIfAbsent(entry.tenantId(), k -> Lists.newArrayList()).add(rule);
+        }
+
+        // Remove timers of deleted rules.
+        if (previous != null) {
+            for (UUID uuid : previous.byUuid.keySet()) {
+                if (!byUuid.containsKey(uuid)) {
+                    metrics.remove(MetricRegistry.name(GNSSMonitoringRuleEngine.class,
+                            uuid.toString(), "evaluation-timing"));
+                }
+            }
+        }
+
+        ImmutableMap.Builder<UUID, List<LoadedRule>> tenantRules = ImmutableMap.builder();
+        for (Map.Entry<UUID, List<LoadedRule>> tenant : byTenant.entrySet()) {
+            tenantRules.put(tenant.getKey(), ImmutableList.copyOf(tenant.getValue()));
+        }
+
+        LOG.debug("Loaded <{}> GNSS monitoring rules.", byUuid.size());
+
+        return new LoadedRules(loadGeneration, ImmutableMap.copyOf(byUuid), tenantRules.build());
+    }
+
+    private void raiseAlert(GNSSMonitoringRuleEntry rule, Tap tap, String constellation) {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put("rule_uuid", rule.uuid().toString());
+        attributes.put("rule_name", rule.name());
+        attributes.put("constellation", constellation);
+        attributes.put("tap_id", tap.uuid().toString());
+        attributes.put("tap_name", tap.name());
+
+        try {
+            nzyme.getDetectionAlertService().raiseAlert(
+                    rule.organizationId(),
+                    rule.tenantId(),
+                    null,
+                    tap.uuid(),
+                    DetectionType.GNSS_MONITORING_RULE,
+                    Subsystem.GNSS,
+                    "GNSS monitoring rule \"" + rule.name() + "\" matched for constellation " + constellation
+                            + " (Tap: \"" + tap.name() + "\")",
+                    attributes,
+                    new String[]{"rule_uuid", "constellation", "tap_id"},
+                    null
+            );
+        } catch (Exception e) {
+            LOG.error("Could not raise alert for GNSS monitoring rule [{}].", rule.uuid(), e);
+        }
+    }
+
+    private static final class LoadedRule {
+
+        private final CompiledGNSSMonitoringRule compiled;
+        private final Timer timer;
+
+        LoadedRule(CompiledGNSSMonitoringRule compiled, Timer timer) {
+            this.compiled = compiled;
+            this.timer = timer;
+        }
+
+    }
+
+    private static final class LoadedRules {
+
+        private final long generation;
+        private final Map<UUID, LoadedRule> byUuid;
+
+        // Tenant UUID -> Rules of tenant.
+        private final Map<UUID, List<LoadedRule>> tenantRules;
+
+        LoadedRules(long generation, Map<UUID, LoadedRule> byUuid, Map<UUID, List<LoadedRule>> tenantRules) {
+            this.generation = generation;
+            this.byUuid = byUuid;
+            this.tenantRules = tenantRules;
+        }
+
+    }
+
+}
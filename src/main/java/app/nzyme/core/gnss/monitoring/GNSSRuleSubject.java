@@ -0,0 +1,55 @@
+package app.nzyme.core.gnss.monitoring;
+
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationReport;
+import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
+
+import java.util.UUID;
+
+/**
+ * The data of one constellation in a tap report that monitoring rules are evaluated against.
+ */
+@AutoValue
+public abstract class GNSSRuleSubject {
+
+    public abstract UUID tapUuid();
+    @Nullable
+    public abstract Double tapLatitude();
+    @Nullable
+    public abstract Double tapLongitude();
+    public abstract String constellation();
+    public abstract GNSSConstellationReport report();
+    public abstract GNSSFixQualityHistory fixQualityHistory();
+
+    public static GNSSRuleSubject create(UUID tapUuid, Double tapLatitude, Double tapLongitude, String constellation, GNSSConstellationReport report, GNSSFixQualityHistory fixQualityHistory) {
+        return builder()
+                .tapUuid(tapUuid)
+                .tapLatitude(tapLatitude)
+                .tapLongitude(tapLongitude)
+                .constellation(constellation)
+                .report(report)
+                .fixQualityHistory(fixQualityHistory)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_GNSSRuleSubject.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder tapUuid(UUID tapUuid);
+
+        public abstract Builder tapLatitude(Double tapLatitude);
+
+        public abstract Builder tapLongitude(Double tapLongitude);
+
+        public abstract Builder constellation(String constellation);
+
+        public abstract Builder report(GNSSConstellationReport report);
+
+        public abstract Builder fixQualityHistory(GNSSFixQualityHistory fixQualityHistory);
+
+        public abstract GNSSRuleSubject build();
+    }
+}
@@ -12,11 +12,15 @@ import app.nzyme.core.taps.Tap;
 import app.nzyme.core.uav.db.UavEntry;
 import app.nzyme.core.uav.util.RemoteIdAccuracies;
 import app.nzyme.core.util.TimeRangeFactory;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class CotOutput implements ScheduledIntegration {
@@ -31,8 +35,12 @@ public class CotOutput implements ScheduledIntegration {
 
     private final NzymeNode nzyme;
 
+    // Output ID -> Open session. Only accessed from the scheduled runnable, which never runs concurrently.
+    private final Map<Long, CotOutputSession> sessions;
+
     public CotOutput(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.sessions = Maps.newHashMap();
     }
 
     public void initialize() {
@@ -44,6 +52,8 @@ public class CotOutput implements ScheduledIntegration {
             @Override
             public void run() {
                 try {
+                    Set<Long> runningOutputs = Sets.newHashSet();
+
                     // Load all configured outputs.
                     for (CotOutputEntry output : nzyme.getCotService().findAllOutputsOfAllTenants()) {
                         try {
@@ -51,25 +61,9 @@ public class CotOutput implements ScheduledIntegration {
                                 continue;
                             }
 
-                            // Decrypt certificate if there is one.
-                            byte[] decryptedCertificate = null;
-                            if (output.certificate() != null) {
-                                decryptedCertificate = nzyme.getCrypto().decryptWithClusterKey(output.certificate());
-                            }
-                            String decryptedCertificatePassphrase = null;
-                            if (output.certificatePassphrase() != null) {
-                                decryptedCertificatePassphrase = new String(
-                                        nzyme.getCrypto().decryptWithClusterKey(output.certificatePassphrase())
-                                );
-                            }
+                            runningOutputs.add(output.id());
 
-                            CotTransport transport = CotTransportFactory.buildTransport(
-                                    CotTransportType.valueOf(output.connectionType()),
-                                    output.address(),
-                                    output.port(),
-                                    decryptedCertificate,
-                                    decryptedCertificatePassphrase
-                            );
+                            CotOutputSession session = getSession(output);
 
                             // Taps.
                             for (Tap tap : nzyme.getTapManager()
@@ -103,20 +97,8 @@ public class CotOutput implements ScheduledIntegration {
                                             )
                                     );
 
-                                    // Send to output.
-                                    CotProcessingResult result;
-                                    try {
-                                        result = transport.sendEvent(event);
-                                    } catch (CotTransportException e) {
-                                        LOG.error("Could not send CoT message to CoT output [{}/{}]. Skipping.",
-                                                output.uuid(), output.name(), e);
-                                        continue;
-                                    }
-
-                                    // Count up stats if success.
-                                    nzyme.getCotService().incrementOutputStats(
-                                            output.id(), result.bytesSent(), result.messagesSent()
-                                    );
+                                    // Queue for sending to output.
+                                    session.enqueue(event);
                                 }
                             }
 
@@ -189,20 +171,8 @@ public class CotOutput implements ScheduledIntegration {
                                         )
                                 );
 
-                                // Send to output.
-                                CotProcessingResult result;
-                                try {
-                                    result = transport.sendEvent(event);
-                                } catch (CotTransportException e) {
-                                    LOG.error("Could not send CoT message to CoT output [{}/{}]. Skipping.",
-                                            output.uuid(), output.name(), e);
-                                    continue;
-                                }
-
-                                // Count up stats if success.
-                                nzyme.getCotService().incrementOutputStats(
-                                        output.id(), result.bytesSent(), result.messagesSent()
-                                );
+                                // Queue for sending to output.
+                                session.enqueue(event);
 
                                 // UAV operator.
                                 if (uav.operatorLongitude() != null && uav.operatorLatitude() != null) {
@@ -233,20 +203,8 @@ public class CotOutput implements ScheduledIntegration {
                                             )
                                     );
 
-                                    // Send to output.
-                                    CotProcessingResult operatorResult;
-                                    try {
-                                        operatorResult = transport.sendEvent(operatorEvent);
-                                    } catch (CotTransportException e) {
-                                        LOG.error("Could not send CoT message to CoT output [{}/{}]. Skipping.",
-                                                output.uuid(), output.name(), e);
-                                        continue;
-                                    }
-
-                                    // Count up stats if success.
-                                    nzyme.getCotService().incrementOutputStats(
-                                            output.id(), operatorResult.bytesSent(), operatorResult.messagesSent()
-                                    );
+                                    // Queue for sending to output.
+                                    session.enqueue(operatorEvent);
                                 }
                             }
 
@@ -256,6 +214,16 @@ public class CotOutput implements ScheduledIntegration {
                                     output.uuid(), output.name(), e);
                         }
                     }
+
+                    // Close sessions of outputs that were paused or deleted.
+                    sessions.entrySet().removeIf(session -> {
+                        if (runningOutputs.contains(session.getKey())) {
+                            return false;
+                        }
+
+                        session.getValue().close();
+                        return true;
+                    });
                 } catch(Exception e) {
                     LOG.error("Error in CotOutput.", e);
                 }
@@ -263,6 +231,44 @@ public class CotOutput implements ScheduledIntegration {
         };
     }
 
+    private CotOutputSession getSession(CotOutputEntry output) throws Crypto.CryptoOperationException {
+        CotOutputSession session = sessions.get(output.id());
+        if (session != null && session.isConfigurationOf(output)) {
+            return session;
+        }
+
+        if (session != null) {
+            // Configuration or certificate changed.
+            session.close();
+            sessions.remove(output.id());
+        }
+
+        // Decrypt certificate if there is one.
+        byte[] decryptedCertificate = null;
+        if (output.certificate() != null) {
+            decryptedCertificate = nzyme.getCrypto().decryptWithClusterKey(output.certificate());
+        }
+        String decryptedCertificatePassphrase = null;
+        if (output.certificatePassphrase() != null) {
+            decryptedCertificatePassphrase = new String(
+                    nzyme.getCrypto().decryptWithClusterKey(output.certificatePassphrase())
+            );
+        }
+
+        CotTransport transport = CotTransportFactory.buildTransport(
+                CotTransportType.valueOf(output.connectionType()),
+                output.address(),
+                output.port(),
+                decryptedCertificate,
+                decryptedCertificatePassphrase
+        );
+
+        session = new CotOutputSession(nzyme, output, transport);
+        sessions.put(output.id(), session);
+
+        return session;
+    }
+
     private String buildUavLeafType(UavEntry uav) {
         Classification classification = Classification.valueOf(uav.classification());
 
@@ -0,0 +1,179 @@
+package app.nzyme.core.integrations.tenant.cot;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.integrations.tenant.cot.db.CotOutputEntry;
+import app.nzyme.core.integrations.tenant.cot.protocol.CotEvent;
+import app.nzyme.core.integrations.tenant.cot.transports.CotProcessingResult;
+import app.nzyme.core.integrations.tenant.cot.transports.CotTransport;
+import app.nzyme.core.integrations.tenant.cot.transports.CotTransportException;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A long-lived connection to one CoT output. Events are queued and written in batches over the same connection
+ * by a dedicated writer thread that reconnects if the connection breaks. Sessions are replaced when the output
+ * configuration changes.
+ */
+public class CotOutputSession {
+
+    private static final Logger LOG = LogManager.getLogger(CotOutputSession.class);
+
+    static final int QUEUE_CAPACITY = 10_000;
+    static final int MAXIMUM_BATCH_SIZE = 500;
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000;
+
+    private final NzymeNode nzyme;
+    private final CotOutputEntry output;
+    private final CotTransport transport;
+
+    private final BlockingQueue<CotEvent> queue;
+    private final ExecutorService writer;
+
+    private final String metricsPrefix;
+    private final Timer sendLatency;
+    private final Counter reconnects;
+    private final Counter droppedEvents;
+
+    private volatile boolean running = true;
+    private boolean connectedBefore = false;
+
+    public CotOutputSession(NzymeNode nzyme, CotOutputEntry output, CotTransport transport) {
+        this.nzyme = nzyme;
+        this.output = output;
+        this.transport = transport;
+        this.queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+        MetricRegistry metrics = nzyme.getMetrics();
+        this.metricsPrefix = MetricRegistry.name(CotOutput.class, output.uuid().toString());
+        this.sendLatency = metrics.timer(MetricRegistry.name(metricsPrefix, "send-latency"));
+        this.reconnects = metrics.counter(MetricRegistry.name(metricsPrefix, "reconnects"));
+        this.droppedEvents = metrics.counter(MetricRegistry.name(metricsPrefix, "dropped-events"));
+        metrics.gauge(MetricRegistry.name(metricsPrefix, "queue-depth"), () -> (Gauge<Integer>) queue::size);
+
+        this.writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("cot-output-%d")
+                        .build()
+        );
+        this.writer.submit(this::write);
+    }
+
+    /**
+     * Queues an event for sending. Drops the event if the queue is full, for example because the server is down.
+     */
+    public void enqueue(CotEvent event) {
+        if (!queue.offer(event)) {
+            droppedEvents.inc();
+        }
+    }
+
+    /**
+     * Returns true if this session was built from the given configuration of its output.
+     */
+    public boolean isConfigurationOf(CotOutputEntry entry) {
+        return output.id() == entry.id() && output.updatedAt().isEqual(entry.updatedAt());
+    }
+
+    public void close() {
+        running = false;
+        writer.shutdownNow();
+
+        nzyme.getMetrics().removeMatching((name, metric) -> name.startsWith(metricsPrefix + "."));
+    }
+
+    private void write() {
+        try {
+            while (running) {
+                CotEvent first;
+                try {
+                    first = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                if (first == null) {
+                    continue;
+                }
+
+                List<CotEvent> batch = Lists.newArrayList();
+                batch.add(first);
+                queue.drainTo(batch, MAXIMUM_BATCH_SIZE - 1);
+
+                int unsent = send(batch);
+                if (unsent > 0) {
+                    droppedEvents.inc(unsent);
+
+                    try {
+                        Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unexpected error in writer of CoT output [{}/{}].", output.uuid(), output.name(), e);
+        } finally {
+            transport.close();
+        }
+    }
+
+    /**
+     * @return The number of events of the batch that could not be sent.
+     */
+    private int send(List<CotEvent> batch) {
+        List<CotEvent> remaining = batch;
+
+        // Retry once on a fresh connection, because servers may close idle connections.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                if (!transport.isConnected()) {
+                    if (connectedBefore) {
+                        reconnects.inc();
+                    }
+                    connectedBefore = true;
+
+                    transport.connect();
+                }
+
+                CotProcessingResult result;
+                try (Timer.Context ignored = sendLatency.time()) {
+                    result = transport.sendEvents(remaining);
+                }
+
+                recordSent(result);
+                return 0;
+            } catch (CotTransportException e) {
+                transport.close();
+
+                // Resume after the events that made it out before the failure. Sending them again would duplicate them.
+                CotProcessingResult sent = e.getSent();
+                if (sent.messagesSent() > 0) {
+                    recordSent(sent);
+                    remaining = remaining.subList(sent.messagesSent(), remaining.size());
+                }
+
+                LOG.error("Could not send <{}> CoT messages to CoT output [{}/{}]. (Attempt {})",
+                        remaining.size(), output.uuid(), output.name(), attempt + 1, e);
+            }
+        }
+
+        return remaining.size();
+    }
+
+    private void recordSent(CotProcessingResult result) {
+        nzyme.getCotService().incrementOutputStats(output.id(), result.bytesSent(), result.messagesSent());
+    }
+
+}
@@ -3,16 +3,21 @@ package app.nzyme.core.integrations.tenant.cot.transports;
 import app.nzyme.core.integrations.tenant.cot.protocol.CotEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.collect.Lists;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.List;
 
 public class CotPlaintextUdpTransport implements CotTransport {
 
+    private static final XmlMapper XML_MAPPER = new XmlMapper();
+
     private final String address;
     private final int port;
 
-    private final XmlMapper xmlMapper = new XmlMapper();
+    private InetAddress serverAddress;
+    private DatagramSocket socket;
 
     public CotPlaintextUdpTransport(String address, int port) {
         this.address = address;
@@ -20,41 +25,68 @@ public class CotPlaintextUdpTransport implements CotTransport {
     }
 
     @Override
-    public CotProcessingResult sendEvent(CotEvent event) throws CotTransportException {
-        String payload;
-        try {
-            payload = xmlMapper.writeValueAsString(event);
-        } catch(JsonProcessingException e) {
-            throw new CotTransportException("Could not serialize CoT event.", e);
-        }
+    public void connect() throws CotTransportException {
+        close();
 
-        InetAddress serverAddress;
+        // Resolved again on every reconnect, in case the server moved.
         try {
             serverAddress = InetAddress.getByName(address);
         } catch (UnknownHostException e) {
             throw new CotTransportException("Could not prepare CoT socket.", e);
         }
 
-        byte[] buffer = payload.getBytes();
-        DatagramPacket packet = new DatagramPacket(buffer, buffer.length, serverAddress, port);
-
-        DatagramSocket socket;
-
         try {
             socket = new DatagramSocket();
         } catch (SocketException e) {
             throw new CotTransportException("Could not create CoT socket.", e);
         }
+    }
 
-        try {
-            socket.send(packet);
-        } catch (IOException e) {
-            throw new CotTransportException("Could not send CoT event.", e);
-        } finally {
-            socket.close();
+    @Override
+    public boolean isConnected() {
+        return socket != null && !socket.isClosed();
+    }
+
+    @Override
+    public CotProcessingResult sendEvents(List<CotEvent> events) throws CotTransportException {
+        if (!isConnected()) {
+            throw new CotTransportException("CoT socket is not open.");
+        }
+
+        List<byte[]> payloads = Lists.newArrayListWithCapacity(events.size());
+        for (CotEvent event : events) {
+            try {
+                payloads.add(XML_MAPPER.writeValueAsBytes(event));
+            } catch (JsonProcessingException e) {
+                throw new CotTransportException("Could not serialize CoT event.", e);
+            }
+        }
+
+        // One event per datagram. Datagrams that were sent before a failure are reported, so they are not repeated.
+        int bytes = 0;
+        int sent = 0;
+        for (byte[] payload : payloads) {
+            try {
+                socket.send(new DatagramPacket(payload, payload.length, serverAddress, port));
+            } catch (IOException e) {
+                close();
+                throw new CotTransportException("Could not send CoT event.", e,
+                        CotProcessingResult.create(bytes, sent));
+            }
+
+            bytes += payload.length;
+            sent++;
         }
 
-        return CotProcessingResult.create(payload.length(), 1);
+        return CotProcessingResult.create(bytes, sent);
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
     }
 
 }
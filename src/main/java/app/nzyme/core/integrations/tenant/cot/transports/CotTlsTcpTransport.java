@@ -3,25 +3,37 @@ package app.nzyme.core.integrations.tenant.cot.transports;
 import app.nzyme.core.integrations.tenant.cot.protocol.CotEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.collect.Lists;
 import jakarta.annotation.Nullable;
 
 import javax.net.ssl.*;
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.security.KeyStore;
 import java.security.SecureRandom;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.Enumeration;
+import java.util.List;
 
 public class CotTlsTcpTransport implements CotTransport {
 
+    private static final XmlMapper XML_MAPPER = new XmlMapper();
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+
     private final String address;
     private final int port;
     private final byte[] certificate;
     @Nullable
     private final char[] certificatePassphrase;
 
-    private final XmlMapper xmlMapper = new XmlMapper();
+    // Built on first connect and reused for reconnects. Transports are replaced if the certificate changes.
+    private SSLSocketFactory socketFactory;
+
+    private SSLSocket socket;
+    private OutputStream out;
 
     public CotTlsTcpTransport(String address, int port, byte[] certificate, @Nullable String certificatePassphrase) {
         if (certificate == null || certificate.length == 0) {
@@ -40,20 +52,88 @@ public class CotTlsTcpTransport implements CotTransport {
     }
 
     @Override
-    public CotProcessingResult sendEvent(CotEvent event) throws CotTransportException {
-        if (certificate == null) {
-            throw new CotTransportException("CoT transport requires certificate to be uploaded.");
+    public void connect() throws CotTransportException {
+        close();
+
+        if (socketFactory == null) {
+            socketFactory = buildSSLContext().getSocketFactory();
         }
 
-        String payload;
+        Socket plain = new Socket();
         try {
-            payload = xmlMapper.writeValueAsString(event);
-        } catch(JsonProcessingException e) {
-            throw new CotTransportException("Could not serialize CoT event.", e);
+            plain.setKeepAlive(true);
+            plain.setTcpNoDelay(true);
+            plain.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT_MILLIS);
+
+            socket = (SSLSocket) socketFactory.createSocket(plain, address, port, true);
+            socket.startHandshake();
+
+            out = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            close();
+
+            try {
+                plain.close();
+            } catch (IOException ignored) {
+                // Nothing left to do.
+            }
+
+            throw new CotTransportException("Could not connect to CoT server.", e);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return socket != null && !socket.isClosed();
+    }
+
+    @Override
+    public CotProcessingResult sendEvents(List<CotEvent> events) throws CotTransportException {
+        if (!isConnected()) {
+            throw new CotTransportException("CoT connection is not open.");
+        }
+
+        // Serialize everything first to never write partial batches because of a bad event.
+        List<byte[]> payloads = Lists.newArrayListWithCapacity(events.size());
+        for (CotEvent event : events) {
+            try {
+                payloads.add(XML_MAPPER.writeValueAsBytes(event));
+            } catch (JsonProcessingException e) {
+                throw new CotTransportException("Could not serialize CoT event.", e);
+            }
         }
 
-        // Prepare TLS.
-        SSLContext sslContext;
+        // Written back to back over the same stream and flushed once.
+        int bytes = 0;
+        try {
+            for (byte[] payload : payloads) {
+                out.write(payload);
+                bytes += payload.length;
+            }
+            out.flush();
+        } catch (IOException e) {
+            close();
+            throw new CotTransportException("Could not send CoT events.", e);
+        }
+
+        return CotProcessingResult.create(bytes, payloads.size());
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing left to do.
+            }
+        }
+
+        socket = null;
+        out = null;
+    }
+
+    private SSLContext buildSSLContext() throws CotTransportException {
         try {
             // Load PKCS#12 file (contains cert, key, CA chain)
             KeyStore keyStore = KeyStore.getInstance("PKCS12");
@@ -92,25 +172,13 @@ public class CotTlsTcpTransport implements CotTransport {
             tmf.init(trustStore);
 
             // Build SSLContext.
-            sslContext = SSLContext.getInstance("TLS");
+            SSLContext sslContext = SSLContext.getInstance("TLS");
             sslContext.init(kmf.getKeyManagers(), tmf.getTrustManagers(), new SecureRandom());
-        } catch (Exception e) {
-            throw new CotTransportException("Could not prepare TLS for CoT event.", e);
-        }
 
-        // Create secure socket
-        SSLSocketFactory factory = sslContext.getSocketFactory();
-        try (SSLSocket socket = (SSLSocket) factory.createSocket(address, port)) {
-            socket.startHandshake();
-
-            OutputStream out = socket.getOutputStream();
-            out.write(payload.getBytes());
-            out.flush();
+            return sslContext;
         } catch (Exception e) {
-            throw new CotTransportException("Could not send CoT event.", e);
+            throw new CotTransportException("Could not prepare TLS for CoT connection.", e);
         }
-
-        return CotProcessingResult.create(payload.length(), 1);
     }
 
 }
@@ -2,8 +2,23 @@ package app.nzyme.core.integrations.tenant.cot.transports;
 
 import app.nzyme.core.integrations.tenant.cot.protocol.CotEvent;
 
+import java.util.List;
+
 public interface CotTransport {
 
-    CotProcessingResult sendEvent(CotEvent event) throws CotTransportException;
+    /**
+     * Opens the connection to the CoT server. Called again to reconnect after close().
+     */
+    void connect() throws CotTransportException;
+
+    boolean isConnected();
+
+    /**
+     * Writes all events over the open connection. Closes the connection if writing fails. Transports that know which
+     * leading events were sent before the failure report them in the exception.
+     */
+    CotProcessingResult sendEvents(List<CotEvent> events) throws CotTransportException;
+
+    void close();
 
 }
@@ -2,12 +2,27 @@ package app.nzyme.core.integrations.tenant.cot.transports;
 
 public class CotTransportException extends Throwable {
 
+    private final CotProcessingResult sent;
+
     public CotTransportException(String message) {
         super(message);
+        this.sent = CotProcessingResult.create(0, 0);
     }
 
     public CotTransportException(String message, Throwable cause) {
+        this(message, cause, CotProcessingResult.create(0, 0));
+    }
+
+    /**
+     * @param sent The leading events of the batch that were sent before the failure.
+     */
+    public CotTransportException(String message, Throwable cause, CotProcessingResult sent) {
         super(message, cause);
+        this.sent = sent;
+    }
+
+    public CotProcessingResult getSent() {
+        return sent;
     }
 
 }
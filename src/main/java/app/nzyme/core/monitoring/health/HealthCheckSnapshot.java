@@ -0,0 +1,34 @@
+package app.nzyme.core.monitoring.health;
+
+import app.nzyme.core.distributed.Node;
+import app.nzyme.core.distributed.NodeManager;
+import app.nzyme.core.taps.Tap;
+import app.nzyme.core.taps.TapManager;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import java.util.List;
+
+/**
+ * Taps and nodes, shared by all indicators of one health check run. Each is loaded once, by the first indicator
+ * that asks for it, instead of once per indicator.
+ */
+public class HealthCheckSnapshot {
+
+    private final Supplier<List<Tap>> taps;
+    private final Supplier<List<Node>> nodes;
+
+    public HealthCheckSnapshot(TapManager tapManager, NodeManager nodeManager) {
+        this.taps = Suppliers.memoize(tapManager::findAllTapsOfAllUsers);
+        this.nodes = Suppliers.memoize(nodeManager::getNodes);
+    }
+
+    public List<Tap> getTaps() {
+        return taps.get();
+    }
+
+    public List<Node> getNodes() {
+        return nodes.get();
+    }
+
+}
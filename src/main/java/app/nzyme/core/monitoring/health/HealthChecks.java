@@ -0,0 +1,32 @@
+package app.nzyme.core.monitoring.health;
+
+import app.nzyme.core.periodicals.Periodical;
+
+/**
+ * Runs the health indicators on one node per period. All indicators check cluster-wide state and write one shared
+ * status row each, so running them on every node would only repeat the same queries.
+ */
+public class HealthChecks extends Periodical {
+
+    private final HealthMonitor healthMonitor;
+
+    public HealthChecks(HealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+    }
+
+    @Override
+    protected void execute() {
+        healthMonitor.runChecks();
+    }
+
+    @Override
+    public String getName() {
+        return "HealthChecks";
+    }
+
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
+}
@@ -3,86 +3,182 @@ package app.nzyme.core.monitoring.health;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.monitoring.health.indicators.*;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class HealthMonitor {
 
     private static final Logger LOG = LogManager.getLogger(HealthMonitor.class);
 
+    // Indicators that take longer are reported as unavailable for this run.
+    private static final int INDICATOR_TIMEOUT_SECONDS = 20;
+
     private final NzymeNode nzyme;
 
+    private final ExecutorService indicatorPool;
+    private final Meter indicatorTimeouts;
+
+    private List<Indicator> indicators;
+    private Map<String, Timer> indicatorTimers;
+
     public HealthMonitor(NzymeNode nzyme) {
         this.nzyme = nzyme;
-    }
 
-    public void initialize() {
-        Executors.newSingleThreadScheduledExecutor(
+        // Not bounded, so that indicators that ignore interruption after a timeout can't starve the next runs.
+        this.indicatorPool = Executors.newCachedThreadPool(
                 new ThreadFactoryBuilder()
-                        .setNameFormat("node-metrics-updater-%d")
+                        .setNameFormat("health-indicators-%d")
                         .setDaemon(true)
                         .build()
-        ).scheduleAtFixedRate(this::runChecks, 0, 1, TimeUnit.MINUTES);
-    }
+        );
 
-    private void runChecks() {
-        LOG.debug("Running health monitor checks.");
+        this.indicatorTimeouts = nzyme.getMetrics().meter(MetricNames.HEALTH_INDICATOR_TIMEOUTS);
+    }
 
+    public void initialize() {
         // Add all checks/indicators here.
-        List<Indicator> indicators = new ImmutableList.Builder<Indicator>()
-                .add(new NodeClockIndicator(nzyme.getNodeManager()))
+        this.indicators = new ImmutableList.Builder<Indicator>()
+                .add(new NodeClockIndicator())
                 .add(new CryptoSyncIndicator(nzyme.getCrypto()))
                 .add(new DatabaseClockIndicator(nzyme.getDatabase(), nzyme.getConfiguration().ntpServer()))
-                .add(new TapClockIndicator(nzyme.getTapManager()))
-                .add(new NodeOfflineIndicator(nzyme.getNodeManager()))
-                .add(new TapOfflineIndicator(nzyme.getTapManager()))
+                .add(new TapClockIndicator())
+                .add(new NodeOfflineIndicator())
+                .add(new TapOfflineIndicator())
                 .add(new TapThroughputIndicator(nzyme.getTapManager()))
                 .add(new TapDropIndicator(nzyme.getTapManager()))
                 .add(new TapBufferIndicator(nzyme.getTapManager()))
                 .add(new TapErrorIndicator(nzyme.getTapManager()))
-                .add(new TLSExpirationIndicator(nzyme.getCrypto(), nzyme.getNodeManager()))
+                .add(new TLSExpirationIndicator(nzyme.getCrypto()))
                 .add(new TasksQueueTaskFailureIndicator(nzyme.getTasksQueue()))
                 .add(new TasksQueueTaskStuckIndicator(nzyme.getTasksQueue()))
                 .add(new MessageBusMessageFailureIndicator(nzyme.getMessageBus()))
                 .add(new MessageBusMessageStuckIndicator(nzyme.getMessageBus()))
                 .build();
 
+        ImmutableMap.Builder<String, Timer> timers = ImmutableMap.builder();
         for (Indicator indicator : indicators) {
-            try {
-                if (!indicatorIsActive(indicator.getId())) {
-                    continue;
+            timers.put(indicator.getId(), nzyme.getMetrics().timer(
+                    MetricRegistry.name(HealthMonitor.class, indicator.getId(), "run-timing")
+            ));
+        }
+        this.indicatorTimers = timers.build();
+    }
+
+    /**
+     * Runs all active indicators concurrently, on a snapshot of taps and nodes that is shared by all indicators of
+     * this run. Called by the HealthChecks periodical on one node of the cluster.
+     */
+    public void runChecks() {
+        if (indicators == null) {
+            LOG.debug("Not running health monitor checks. Health monitor is not initialized yet.");
+            return;
+        }
+
+        LOG.debug("Running health monitor checks.");
+
+        Map<String, Boolean> activeStates = findIndicatorActivationStates();
+        HealthCheckSnapshot snapshot = new HealthCheckSnapshot(nzyme.getTapManager(), nzyme.getNodeManager());
+
+        Map<Indicator, Future<IndicatorStatus>> running = Maps.newLinkedHashMap();
+        for (Indicator indicator : indicators) {
+            // An indicator is active if no db entry exists yet. (Could be the first run.)
+            if (!activeStates.getOrDefault(indicator.getId(), true)) {
+                continue;
+            }
+
+            Timer timer = indicatorTimers.get(indicator.getId());
+            running.put(indicator, indicatorPool.submit(() -> {
+                try (Timer.Context ignored = timer.time()) {
+                    return indicator.run(snapshot);
                 }
+            }));
+        }
 
-                IndicatorStatus status = indicator.run();
-
-                // Write to database.
-                nzyme.getDatabase().useHandle(handle ->
-                        handle.createUpdate("INSERT INTO health_indicators(indicator_id, indicator_name, level, " +
-                                        "last_checked) VALUES(:indicator_id, :indicator_name, :level, :last_checked) " +
-                                        "ON CONFLICT(indicator_id) DO UPDATE SET indicator_name = :indicator_name, " +
-                                        "level = :level, last_checked = :last_checked")
-                                .bind("indicator_id", indicator.getId())
-                                .bind("indicator_name", indicator.getName())
-                                .bind("level", status.resultLevel().toUpperCase())
-                                .bind("last_checked", DateTime.now())
-                                .execute()
-                );
-            } catch(Exception e) {
-                LOG.error("Could not run health check indicator. Skipping.", e);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(INDICATOR_TIMEOUT_SECONDS);
+        List<IndicatorStatus> results = Lists.newArrayList();
+        for (Map.Entry<Indicator, Future<IndicatorStatus>> run : running.entrySet()) {
+            Indicator indicator = run.getKey();
+
+            try {
+                results.add(run.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                run.getValue().cancel(true);
+                indicatorTimeouts.mark();
+                LOG.warn("Health check indicator [{}] did not finish within <{} seconds>. Marking as unavailable.",
+                        indicator.getId(), INDICATOR_TIMEOUT_SECONDS);
+                results.add(IndicatorStatus.unavailable(indicator));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOG.error("Could not run health check indicator [{}]. Skipping.", indicator.getId(), e.getCause());
             }
         }
 
+        writeIndicatorStatus(results);
+
         LOG.debug("Finished running health monitor checks.");
     }
 
+    private Map<String, Boolean> findIndicatorActivationStates() {
+        List<Map.Entry<String, Boolean>> states = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT indicator_id, active FROM health_indicators")
+                        .map((rs, ctx) -> Map.entry(rs.getString("indicator_id"), rs.getBoolean("active")))
+                        .list()
+        );
+
+        Map<String, Boolean> result = Maps.newHashMap();
+        for (Map.Entry<String, Boolean> state : states) {
+            result.put(state.getKey(), state.getValue());
+        }
+
+        return result;
+    }
+
+    private void writeIndicatorStatus(List<IndicatorStatus> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+
+        nzyme.getDatabase().useHandle(handle -> {
+            PreparedBatch batch = handle.prepareBatch("INSERT INTO health_indicators(indicator_id, " +
+                    "indicator_name, level, last_checked) VALUES(:indicator_id, :indicator_name, :level, " +
+                    ":last_checked) ON CONFLICT(indicator_id) DO UPDATE SET indicator_name = :indicator_name, " +
+                    "level = :level, last_checked = :last_checked");
+
+            for (IndicatorStatus status : results) {
+                batch.bind("indicator_id", status.indicatorId())
+                        .bind("indicator_name", status.indicatorName())
+                        .bind("level", status.resultLevel().toUpperCase())
+                        .bind("last_checked", DateTime.now())
+                        .add();
+            }
+
+            batch.execute();
+        });
+    }
+
     public Optional<List<IndicatorStatus>> getIndicatorStatus() {
         List<IndicatorStatus> result = nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT indicator_id, indicator_name, level, last_checked, active " +
@@ -8,15 +8,15 @@ public abstract class Indicator {
 
     private static final Logger LOG = LogManager.getLogger(Indicator.class);
 
-    public IndicatorStatus run() {
+    public IndicatorStatus run(HealthCheckSnapshot snapshot) {
         LOG.debug("Running health check indicator [{}].", getName());
-        IndicatorStatus result = doRun();
+        IndicatorStatus result = doRun(snapshot);
         LOG.debug("Finished health check indicator run of [{}].", getName());
 
         return result;
     }
 
-    protected abstract IndicatorStatus doRun();
+    protected abstract IndicatorStatus doRun(HealthCheckSnapshot snapshot);
 
     public abstract String getId();
     public abstract String getName();
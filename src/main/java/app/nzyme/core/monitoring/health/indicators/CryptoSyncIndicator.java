@@ -1,6 +1,7 @@
 package app.nzyme.core.monitoring.health.indicators;
 
 import app.nzyme.core.crypto.Crypto;
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 
@@ -13,7 +14,7 @@ public class CryptoSyncIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
         return crypto.allPGPKeysEqualAcrossCluster()
                 ? IndicatorStatus.green(this) : IndicatorStatus.red(this);
     }
@@ -1,5 +1,6 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.plugin.Database;
@@ -34,7 +35,7 @@ public class DatabaseClockIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
         NTPUDPClient c = new NTPUDPClient();
         c.setDefaultTimeout(5000);
 
@@ -1,5 +1,6 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.plugin.distributed.messaging.MessageBus;
@@ -14,7 +15,7 @@ public class MessageBusMessageFailureIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
         if (messages.getAllFailedMessagesSince(DateTime.now().minusHours(24)).isEmpty()) {
             return IndicatorStatus.green(this);
         } else {
@@ -1,7 +1,7 @@
 package app.nzyme.core.monitoring.health.indicators;
 
 import app.nzyme.core.distributed.Node;
-import app.nzyme.core.distributed.NodeManager;
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import org.apache.logging.log4j.LogManager;
@@ -12,15 +12,9 @@ public class NodeClockIndicator extends Indicator {
 
     private static final Logger LOG = LogManager.getLogger(NodeClockIndicator.class);
 
-    private final NodeManager nodeManager;
-
-    public NodeClockIndicator(NodeManager nodeManager) {
-        this.nodeManager = nodeManager;
-    }
-
     @Override
-    protected IndicatorStatus doRun() {
-        for (Node node : nodeManager.getNodes()) {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        for (Node node : snapshot.getNodes()) {
             // We only want to check very recently active nodes.
             if (node.lastSeen().isBefore(DateTime.now().minusMinutes(2))) {
                 LOG.debug("Skipping inactive node [{}/{}].", node.name(), node.uuid());
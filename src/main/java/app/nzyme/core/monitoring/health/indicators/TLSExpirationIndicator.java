@@ -5,7 +5,7 @@ import app.nzyme.core.crypto.Crypto;
 import app.nzyme.core.crypto.tls.TLSKeyAndCertificate;
 import app.nzyme.core.crypto.tls.TLSWildcardKeyAndCertificate;
 import app.nzyme.core.distributed.Node;
-import app.nzyme.core.distributed.NodeManager;
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import org.joda.time.DateTime;
@@ -15,17 +15,15 @@ import java.util.Optional;
 public class TLSExpirationIndicator extends Indicator  {
 
     private final Crypto crypto;
-    private final NodeManager nodes;
 
-    public TLSExpirationIndicator(Crypto crypto, NodeManager nodes) {
+    public TLSExpirationIndicator(Crypto crypto) {
         this.crypto = crypto;
-        this.nodes = nodes;
     }
 
     @Override
-    protected IndicatorStatus doRun() {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
         // Individual certificates.
-        for (Node node : nodes.getNodes()) {
+        for (Node node : snapshot.getNodes()) {
             Optional<TLSKeyAndCertificate> tls = crypto.getTLSCertificateOfNode(node.uuid());
             if (tls.isPresent()) {
                 if (tls.get().expiresAt().isBefore(DateTime.now().plusDays(7))) {
@@ -1,5 +1,6 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.taps.Bus;
@@ -19,8 +20,8 @@ public class TapBufferIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
-        List<Tap> taps = tapManager.findAllTapsOfAllUsers();
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        List<Tap> taps = snapshot.getTaps();
 
         for (Tap tap : taps) {
             Optional<List<Bus>> buses = tapManager.findBusesOfTap(tap.uuid());
@@ -1,9 +1,9 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.taps.Tap;
-import app.nzyme.core.taps.TapManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
@@ -15,15 +15,9 @@ public class TapClockIndicator extends Indicator {
 
     private static final Logger LOG = LogManager.getLogger(TapClockIndicator.class);
 
-    private final TapManager tapManager;
-
-    public TapClockIndicator(TapManager tapManager) {
-        this.tapManager = tapManager;
-    }
-
     @Override
-    protected IndicatorStatus doRun() {
-        List<Tap> taps = tapManager.findAllTapsOfAllUsers();
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        List<Tap> taps = snapshot.getTaps();
 
         for (Tap tap : taps) {
             // We only want to check very recently active taps.
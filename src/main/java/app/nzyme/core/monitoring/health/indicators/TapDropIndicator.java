@@ -1,12 +1,16 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.taps.Capture;
 import app.nzyme.core.taps.Tap;
 import app.nzyme.core.taps.TapManager;
+import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class TapDropIndicator extends Indicator {
 
@@ -17,11 +21,11 @@ public class TapDropIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
-        List<Tap> taps = tapManager.findAllTapsOfAllUsers();
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        Map<UUID, List<Capture>> captures = tapManager.findCapturesOfAllTaps(DateTime.now().minusMinutes(1));
 
-        for (Tap tap : taps) {
-            for (Capture capture : tapManager.findActiveCapturesOfTap(tap.uuid())) {
+        for (Tap tap : snapshot.getTaps()) {
+            for (Capture capture : captures.getOrDefault(tap.uuid(), List.of())) {
                 if (capture.droppedBuffer() > 0 || capture.droppedInterface() > 0) {
                     return IndicatorStatus.red(this);
                 }
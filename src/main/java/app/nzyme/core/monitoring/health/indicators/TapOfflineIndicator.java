@@ -1,9 +1,9 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.taps.Tap;
-import app.nzyme.core.taps.TapManager;
 import org.joda.time.DateTime;
 
 import java.util.List;
@@ -11,15 +11,9 @@ import java.util.Optional;
 
 public class TapOfflineIndicator extends Indicator {
 
-    private final TapManager tapManager;
-
-    public TapOfflineIndicator(TapManager tapManager) {
-        this.tapManager = tapManager;
-    }
-
     @Override
-    protected IndicatorStatus doRun() {
-        List<Tap> taps = tapManager.findAllTapsOfAllUsers();
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        List<Tap> taps = snapshot.getTaps();
 
         for (Tap tap : taps) {
             if (tap.lastReport() != null && tap.lastReport().isBefore(DateTime.now().minusMinutes(2))) {
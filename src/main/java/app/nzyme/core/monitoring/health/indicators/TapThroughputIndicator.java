@@ -1,18 +1,22 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.taps.Tap;
 import app.nzyme.core.taps.TapManager;
-import app.nzyme.core.taps.db.metrics.TapMetrics;
-import app.nzyme.core.taps.db.metrics.TapMetricsGauge;
+import com.google.common.collect.Lists;
 import com.google.common.math.DoubleMath;
 import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class TapThroughputIndicator extends Indicator {
 
+    private static final String THROUGHPUT_METRIC = "system.captures.throughput_bit_sec";
+
     private final TapManager tapManager;
 
     public TapThroughputIndicator(TapManager tapManager) {
@@ -20,21 +24,28 @@ public class TapThroughputIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
-        List<Tap> taps = tapManager.findAllTapsOfAllUsers();
-
-        for (Tap tap : taps) {
-            if (tap.lastReport() == null || tap.lastReport().isBefore(DateTime.now().minusMinutes(2))) {
-                continue;
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
+        List<UUID> activeTaps = Lists.newArrayList();
+        for (Tap tap : snapshot.getTaps()) {
+            if (tap.lastReport() != null && tap.lastReport().isAfter(DateTime.now().minusMinutes(2))) {
+                activeTaps.add(tap.uuid());
             }
+        }
+
+        if (activeTaps.isEmpty()) {
+            return IndicatorStatus.green(this);
+        }
+
+        Map<UUID, Map<String, Double>> throughput = tapManager.findLatestActiveMetricsGaugeValuesOfTaps(
+                activeTaps, List.of(THROUGHPUT_METRIC)
+        );
+
+        for (Map<String, Double> gauges : throughput.values()) {
+            Double value = gauges.get(THROUGHPUT_METRIC);
 
-            for (TapMetricsGauge gauge : tapManager.findGaugesOfTap(tap.uuid())) {
-                if (gauge.metricName().equals("system.captures.throughput_bit_sec")) {
-                    // Oh god why is it Double
-                    if (DoubleMath.fuzzyEquals(gauge.metricValue(), 0, 0.01)) {
-                        return IndicatorStatus.orange(this);
-                    }
-                }
+            // Oh god why is it Double
+            if (value != null && DoubleMath.fuzzyEquals(value, 0, 0.01)) {
+                return IndicatorStatus.orange(this);
             }
         }
 
@@ -1,5 +1,6 @@
 package app.nzyme.core.monitoring.health.indicators;
 
+import app.nzyme.core.monitoring.health.HealthCheckSnapshot;
 import app.nzyme.core.monitoring.health.Indicator;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.plugin.distributed.tasksqueue.TasksQueue;
@@ -14,7 +15,7 @@ public class TasksQueueTaskStuckIndicator extends Indicator {
     }
 
     @Override
-    protected IndicatorStatus doRun() {
+    protected IndicatorStatus doRun(HealthCheckSnapshot snapshot) {
         if (tasks.getAllStuckTasks(DateTime.now().minusMinutes(60)).isEmpty()) {
             return IndicatorStatus.green(this);
         } else {
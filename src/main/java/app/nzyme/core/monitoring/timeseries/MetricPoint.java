@@ -0,0 +1,27 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import org.joda.time.DateTime;
+
+public final class MetricPoint {
+
+    private final DateTime timestamp;
+    private final double[] values;
+
+    public MetricPoint(DateTime timestamp, double[] values) {
+        this.timestamp = timestamp;
+        this.values = values;
+    }
+
+    public DateTime timestamp() {
+        return timestamp;
+    }
+
+    public double value() {
+        return values[0];
+    }
+
+    public double value(int index) {
+        return values[index];
+    }
+
+}
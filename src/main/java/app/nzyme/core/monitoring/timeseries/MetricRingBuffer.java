@@ -0,0 +1,57 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import org.joda.time.DateTime;
+
+import java.util.Optional;
+
+/**
+ * Fixed-capacity ring of the most recent points of a single metric series. Every point carries
+ * <code>width</code> values, for example one for a gauge or several for a timer snapshot.
+ */
+public class MetricRingBuffer {
+
+    private final long[] timestamps;
+    private final double[][] values;
+    private final int width;
+
+    private int head = 0;
+    private int size = 0;
+
+    public MetricRingBuffer(int capacity, int width) {
+        if (capacity <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Capacity and width must be positive.");
+        }
+
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity][width];
+        this.width = width;
+    }
+
+    public synchronized void record(DateTime timestamp, double... pointValues) {
+        if (pointValues.length != width) {
+            throw new IllegalArgumentException("Expected <" + width + "> values but got <" + pointValues.length + ">.");
+        }
+
+        timestamps[head] = timestamp.getMillis();
+        System.arraycopy(pointValues, 0, values[head], 0, width);
+
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    public synchronized Optional<MetricPoint> latest() {
+        if (size == 0) {
+            return Optional.empty();
+        }
+
+        int idx = (head - 1 + timestamps.length) % timestamps.length;
+        return Optional.of(new MetricPoint(new DateTime(timestamps[idx]), values[idx].clone()));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,52 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * All gauge and timer values of one collection cycle. Written to the database in a single batch
+ * by {@link MetricsStore}.
+ */
+public class MetricsBatch {
+
+    private final DateTime timestamp;
+
+    private final Map<String, Double> gauges;
+    private final Map<String, TimerValues> timers;
+
+    public MetricsBatch(DateTime timestamp) {
+        this.timestamp = timestamp;
+        this.gauges = Maps.newLinkedHashMap();
+        this.timers = Maps.newLinkedHashMap();
+    }
+
+    public MetricsBatch gauge(String metricName, double value) {
+        gauges.put(metricName, value);
+        return this;
+    }
+
+    public MetricsBatch timer(String metricName, TimerValues values) {
+        timers.put(metricName, values);
+        return this;
+    }
+
+    public DateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, Double> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    public Map<String, TimerValues> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public boolean isEmpty() {
+        return gauges.isEmpty() && timers.isEmpty();
+    }
+
+}
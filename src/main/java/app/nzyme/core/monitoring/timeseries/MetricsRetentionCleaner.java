@@ -0,0 +1,29 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.periodicals.Periodical;
+
+public class MetricsRetentionCleaner extends Periodical {
+
+    private final NzymeNode nzyme;
+
+    public MetricsRetentionCleaner(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    @Override
+    protected void execute() {
+        nzyme.getMetricsStore().retentionClean();
+    }
+
+    @Override
+    public String getName() {
+        return "MetricsRetentionCleaner";
+    }
+
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
+}
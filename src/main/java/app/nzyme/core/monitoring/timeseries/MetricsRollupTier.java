@@ -0,0 +1,40 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import org.joda.time.Duration;
+
+import java.util.Optional;
+
+public enum MetricsRollupTier {
+
+    FIVE_MINUTES(Duration.standardMinutes(5), Duration.standardDays(8)),
+    HOURLY(Duration.standardHours(1), Duration.standardDays(35));
+
+    /*
+     * Raw points are kept for 24 hours. Histograms over longer ranges are served from rollups.
+     */
+    public static final Duration RAW_RETENTION = Duration.standardHours(24);
+
+    public final Duration resolution;
+    public final Duration retention;
+
+    MetricsRollupTier(Duration resolution, Duration retention) {
+        this.resolution = resolution;
+        this.retention = retention;
+    }
+
+    /**
+     * @return The tier to read a histogram over the given time range from or empty if raw points should be used.
+     */
+    public static Optional<MetricsRollupTier> forRange(int hours) {
+        if (hours <= RAW_RETENTION.getStandardHours()) {
+            return Optional.empty();
+        }
+
+        if (hours <= FIVE_MINUTES.retention.getStandardHours()) {
+            return Optional.of(FIVE_MINUTES);
+        }
+
+        return Optional.of(HOURLY);
+    }
+
+}
@@ -0,0 +1,33 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.periodicals.Periodical;
+
+/**
+ * Downsamples raw node and tap metrics into rollups. Rollups are computed from the shared tables, so one node per
+ * run covers the whole cluster.
+ */
+public class MetricsRollupUpdater extends Periodical {
+
+    private final NzymeNode nzyme;
+
+    public MetricsRollupUpdater(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    @Override
+    protected void execute() {
+        nzyme.getMetricsStore().rollUp();
+    }
+
+    @Override
+    public String getName() {
+        return "MetricsRollupUpdater";
+    }
+
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
+}
@@ -0,0 +1,27 @@
+package app.nzyme.core.monitoring.timeseries;
+
+/**
+ * The raw metric tables and their downsampled rollup tables. Timer rollups aggregate the mean value.
+ */
+public enum MetricsSeries {
+
+    NODE_GAUGES("node_metrics_gauges", "node_metrics_gauges_rollups", "node_id", "metric_value", 1),
+    NODE_TIMERS("node_metrics_timers", "node_metrics_timers_rollups", "node_id", "metric_mean", TimerValues.WIDTH),
+    TAP_GAUGES("tap_metrics_gauges", "tap_metrics_gauges_rollups", "tap_uuid", "metric_value", 1),
+    TAP_TIMERS("tap_metrics_timers", "tap_metrics_timers_rollups", "tap_uuid", "mean", TimerValues.WIDTH);
+
+    public final String rawTable;
+    public final String rollupTable;
+    public final String ownerColumn;
+    public final String valueColumn;
+    public final int width;
+
+    MetricsSeries(String rawTable, String rollupTable, String ownerColumn, String valueColumn, int width) {
+        this.rawTable = rawTable;
+        this.rollupTable = rollupTable;
+        this.ownerColumn = ownerColumn;
+        this.valueColumn = valueColumn;
+        this.width = width;
+    }
+
+}
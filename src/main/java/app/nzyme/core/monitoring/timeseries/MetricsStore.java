@@ -0,0 +1,298 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.distributed.database.metrics.GaugeHistogramBucket;
+import app.nzyme.core.taps.db.metrics.BucketSize;
+import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.jdbi.v3.core.statement.Query;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Time-series store for node and tap metrics. Every collection cycle is written as one batch, the most recent
+ * points are kept in memory for "latest value" lookups and raw points are downsampled into 5-minute and hourly
+ * rollups so that long histogram ranges don't have to aggregate raw rows.
+ *
+ * Rollups and retention cleaning run on one node of the cluster, in the MetricsRollupUpdater and
+ * MetricsRetentionCleaner periodicals.
+ */
+public class MetricsStore {
+
+    /*
+     * Rollup buckets are re-aggregated over this window on every run, covering late points.
+     */
+    private static final int FIVE_MINUTE_ROLLUP_LOOKBACK_MINUTES = 60;
+    private static final int HOURLY_ROLLUP_LOOKBACK_HOURS = 3;
+
+    private static final int RETENTION_DELETE_BATCH_SIZE = 10000;
+
+    public static final int DEFAULT_HISTOGRAM_HOURS = 24;
+    public static final int MAX_HISTOGRAM_HOURS = 30*24;
+
+    private final NzymeNode nzyme;
+
+    private final Map<MetricsSeries, RecentMetrics> recent;
+
+    public MetricsStore(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+
+        this.recent = Maps.newEnumMap(MetricsSeries.class);
+        for (MetricsSeries series : MetricsSeries.values()) {
+            this.recent.put(series, new RecentMetrics(series.width));
+        }
+    }
+
+    public void writeNodeMetrics(UUID nodeId, MetricsBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        nzyme.getDatabase().useHandle(handle -> handle.useTransaction(tx -> {
+            PreparedBatch gauges = tx.prepareBatch("INSERT INTO node_metrics_gauges(node_id, metric_name, " +
+                    "metric_value, created_at) VALUES(:node_id, :metric_name, :metric_value, :created_at)");
+            for (Map.Entry<String, Double> gauge : batch.getGauges().entrySet()) {
+                gauges.bind("node_id", nodeId)
+                        .bind("metric_name", gauge.getKey())
+                        .bind("metric_value", gauge.getValue())
+                        .bind("created_at", batch.getTimestamp())
+                        .add();
+            }
+
+            if (gauges.size() > 0) {
+                gauges.execute();
+            }
+
+            PreparedBatch timers = tx.prepareBatch("INSERT INTO node_metrics_timers(node_id, metric_name, " +
+                    "metric_max, metric_min, metric_mean, metric_p99, metric_stddev, metric_counter, created_at) " +
+                    "VALUES(:node_id, :metric_name, :metric_max, :metric_min, :metric_mean, :metric_p99, " +
+                    ":metric_stddev, :metric_counter, :created_at)");
+            for (Map.Entry<String, TimerValues> timer : batch.getTimers().entrySet()) {
+                TimerValues t = timer.getValue();
+                timers.bind("node_id", nodeId)
+                        .bind("metric_name", timer.getKey())
+                        .bind("metric_max", (long) t.max())
+                        .bind("metric_min", (long) t.min())
+                        .bind("metric_mean", (long) t.mean())
+                        .bind("metric_p99", (long) t.p99())
+                        .bind("metric_stddev", (long) t.stddev())
+                        .bind("metric_counter", (long) t.counter())
+                        .bind("created_at", batch.getTimestamp())
+                        .add();
+            }
+
+            if (timers.size() > 0) {
+                timers.execute();
+            }
+        }));
+
+        recordRecent(MetricsSeries.NODE_GAUGES, MetricsSeries.NODE_TIMERS, nodeId, batch);
+    }
+
+    public void writeTapMetrics(UUID tapUuid, MetricsBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        nzyme.getDatabase().useHandle(handle -> handle.useTransaction(tx -> {
+            PreparedBatch gauges = tx.prepareBatch("INSERT INTO tap_metrics_gauges(tap_uuid, metric_name, " +
+                    "metric_value, created_at) VALUES(:tap_uuid, :metric_name, :metric_value, :created_at)");
+            for (Map.Entry<String, Double> gauge : batch.getGauges().entrySet()) {
+                gauges.bind("tap_uuid", tapUuid)
+                        .bind("metric_name", gauge.getKey())
+                        .bind("metric_value", gauge.getValue())
+                        .bind("created_at", batch.getTimestamp())
+                        .add();
+            }
+
+            if (gauges.size() > 0) {
+                gauges.execute();
+            }
+
+            PreparedBatch timers = tx.prepareBatch("INSERT INTO tap_metrics_timers(tap_uuid, metric_name, " +
+                    "mean, p99, created_at) VALUES(:tap_uuid, :metric_name, :mean, :p99, :created_at)");
+            for (Map.Entry<String, TimerValues> timer : batch.getTimers().entrySet()) {
+                timers.bind("tap_uuid", tapUuid)
+                        .bind("metric_name", timer.getKey())
+                        .bind("mean", timer.getValue().mean())
+                        .bind("p99", timer.getValue().p99())
+                        .bind("created_at", batch.getTimestamp())
+                        .add();
+            }
+
+            if (timers.size() > 0) {
+                timers.execute();
+            }
+        }));
+
+        recordRecent(MetricsSeries.TAP_GAUGES, MetricsSeries.TAP_TIMERS, tapUuid, batch);
+    }
+
+    private void recordRecent(MetricsSeries gaugeSeries, MetricsSeries timerSeries, UUID ownerId, MetricsBatch batch) {
+        RecentMetrics gauges = recent.get(gaugeSeries);
+        for (Map.Entry<String, Double> gauge : batch.getGauges().entrySet()) {
+            gauges.record(ownerId, gauge.getKey(), batch.getTimestamp(), gauge.getValue());
+        }
+
+        RecentMetrics timers = recent.get(timerSeries);
+        for (Map.Entry<String, TimerValues> timer : batch.getTimers().entrySet()) {
+            timers.record(ownerId, timer.getKey(), batch.getTimestamp(), timer.getValue().toArray());
+        }
+    }
+
+    /**
+     * Latest point of a series that was written by this node. Points written by other nodes are not buffered
+     * locally and callers should fall back to the database if this returns empty.
+     */
+    public Optional<MetricPoint> findRecentPoint(MetricsSeries series,
+                                                 UUID ownerId,
+                                                 String metricName,
+                                                 DateTime notBefore) {
+        return recent.get(series).latest(ownerId, metricName, notBefore);
+    }
+
+    /**
+     * Latest points of all series of an owner that were written by this node. Empty if the owner reports to
+     * another node, in which case callers should fall back to the database.
+     */
+    public Map<String, MetricPoint> findRecentPointsOfOwner(MetricsSeries series, UUID ownerId, DateTime notBefore) {
+        return recent.get(series).latestOfOwner(ownerId, notBefore);
+    }
+
+    public List<GaugeHistogramBucket> findHistogram(MetricsSeries series,
+                                                    @Nullable UUID ownerId,
+                                                    String metricName,
+                                                    int hours,
+                                                    BucketSize bucketSize) {
+        Optional<MetricsRollupTier> tier = MetricsRollupTier.forRange(hours);
+        String ownerCondition = ownerId == null ? "" : series.ownerColumn + " = :owner_id AND ";
+
+        String query;
+        if (tier.isEmpty()) {
+            query = "SELECT AVG(" + series.valueColumn + ") AS average, " +
+                    "MAX(" + series.valueColumn + ") AS maximum, MIN(" + series.valueColumn + ") AS minimum, " +
+                    "SUM(" + series.valueColumn + ") AS sum, date_trunc(:bucket_size, created_at) AS bucket " +
+                    "FROM " + series.rawTable + " WHERE " + ownerCondition + "metric_name = :metric_name " +
+                    "AND created_at > :since GROUP BY bucket ORDER BY bucket DESC";
+        } else {
+            query = "SELECT SUM(value_sum)/SUM(sample_count) AS average, MAX(value_maximum) AS maximum, " +
+                    "MIN(value_minimum) AS minimum, SUM(value_sum) AS sum, " +
+                    "date_trunc(:bucket_size, bucket) AS bucket FROM " + series.rollupTable + " " +
+                    "WHERE " + ownerCondition + "metric_name = :metric_name AND tier = :tier " +
+                    "AND bucket > :since GROUP BY 5 ORDER BY 5 DESC";
+        }
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            Query q = handle.createQuery(query)
+                    .bind("bucket_size", bucketSize.toString().toLowerCase())
+                    .bind("metric_name", metricName)
+                    .bind("since", DateTime.now().minusHours(hours));
+
+            if (ownerId != null) {
+                q.bind("owner_id", ownerId);
+            }
+
+            tier.ifPresent(t -> q.bind("tier", t.name()));
+
+            return q.mapTo(GaugeHistogramBucket.class).list();
+        });
+    }
+
+    public static int sanitizeHistogramHours(@Nullable Integer hours) {
+        if (hours == null) {
+            return DEFAULT_HISTOGRAM_HOURS;
+        }
+
+        return Math.max(1, Math.min(hours, MAX_HISTOGRAM_HOURS));
+    }
+
+    public static BucketSize histogramBucketSize(int hours) {
+        return hours <= DEFAULT_HISTOGRAM_HOURS ? BucketSize.MINUTE : BucketSize.HOUR;
+    }
+
+    public void rollUp() {
+        DateTime now = DateTime.now();
+        long fiveMinuteSeconds = MetricsRollupTier.FIVE_MINUTES.resolution.getStandardSeconds();
+
+        for (MetricsSeries series : MetricsSeries.values()) {
+            nzyme.getDatabase().useHandle(handle -> {
+                handle.createUpdate("INSERT INTO " + series.rollupTable + "(" + series.ownerColumn + ", " +
+                                "metric_name, tier, bucket, value_average, value_minimum, value_maximum, value_sum, " +
+                                "sample_count) " +
+                                "SELECT " + series.ownerColumn + ", metric_name, " +
+                                "'" + MetricsRollupTier.FIVE_MINUTES.name() + "', " +
+                                "to_timestamp(floor(extract(epoch FROM created_at) / " + fiveMinuteSeconds + ") * " +
+                                fiveMinuteSeconds + "), " +
+                                "AVG(" + series.valueColumn + "), MIN(" + series.valueColumn + "), " +
+                                "MAX(" + series.valueColumn + "), SUM(" + series.valueColumn + "), COUNT(*) " +
+                                "FROM " + series.rawTable + " WHERE created_at >= :since " +
+                                "GROUP BY 1, 2, 4 " +
+                                rollupConflictClause(series))
+                        .bind("since", now.minusMinutes(FIVE_MINUTE_ROLLUP_LOOKBACK_MINUTES)
+                                .hourOfDay().roundFloorCopy())
+                        .execute();
+
+                handle.createUpdate("INSERT INTO " + series.rollupTable + "(" + series.ownerColumn + ", " +
+                                "metric_name, tier, bucket, value_average, value_minimum, value_maximum, value_sum, " +
+                                "sample_count) " +
+                                "SELECT " + series.ownerColumn + ", metric_name, " +
+                                "'" + MetricsRollupTier.HOURLY.name() + "', date_trunc('hour', bucket), " +
+                                "SUM(value_sum)/SUM(sample_count), MIN(value_minimum), MAX(value_maximum), " +
+                                "SUM(value_sum), SUM(sample_count) " +
+                                "FROM " + series.rollupTable + " " +
+                                "WHERE tier = '" + MetricsRollupTier.FIVE_MINUTES.name() + "' AND bucket >= :since " +
+                                "GROUP BY 1, 2, 4 " +
+                                rollupConflictClause(series))
+                        .bind("since", now.minusHours(HOURLY_ROLLUP_LOOKBACK_HOURS)
+                                .hourOfDay().roundFloorCopy())
+                        .execute();
+            });
+        }
+    }
+
+    private static String rollupConflictClause(MetricsSeries series) {
+        return "ON CONFLICT (" + series.ownerColumn + ", metric_name, tier, bucket) DO UPDATE SET " +
+                "value_average = EXCLUDED.value_average, value_minimum = EXCLUDED.value_minimum, " +
+                "value_maximum = EXCLUDED.value_maximum, value_sum = EXCLUDED.value_sum, " +
+                "sample_count = EXCLUDED.sample_count";
+    }
+
+    public void retentionClean() {
+        DateTime rawCutoff = DateTime.now().minus(MetricsRollupTier.RAW_RETENTION);
+
+        for (MetricsSeries series : MetricsSeries.values()) {
+            // Delete raw points in small batches to not lock the table for long.
+            nzyme.getDatabase().useHandle(handle -> {
+                int deleted;
+                do {
+                    deleted = deleteRawBatch(handle, series, rawCutoff);
+                } while (deleted >= RETENTION_DELETE_BATCH_SIZE);
+            });
+
+            for (MetricsRollupTier tier : MetricsRollupTier.values()) {
+                nzyme.getDatabase().useHandle(handle ->
+                        handle.createUpdate("DELETE FROM " + series.rollupTable + " " +
+                                        "WHERE tier = :tier AND bucket < :cutoff")
+                                .bind("tier", tier.name())
+                                .bind("cutoff", DateTime.now().minus(tier.retention))
+                                .execute()
+                );
+            }
+        }
+    }
+
+    private static int deleteRawBatch(Handle handle, MetricsSeries series, DateTime cutoff) {
+        return handle.createUpdate("DELETE FROM " + series.rawTable + " WHERE id IN (" +
+                        "SELECT id FROM " + series.rawTable + " WHERE created_at < :cutoff LIMIT :limit)")
+                .bind("cutoff", cutoff)
+                .bind("limit", RETENTION_DELETE_BATCH_SIZE)
+                .execute();
+    }
+
+}
@@ -0,0 +1,84 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory ring buffers of recently written points, grouped by owner (node or tap). Serves "latest value"
+ * lookups without touching the database. Owners that stop reporting are evicted after an hour.
+ */
+public class RecentMetrics {
+
+    private static final int CAPACITY = 16;
+
+    private final int width;
+    private final Cache<UUID, ConcurrentMap<String, MetricRingBuffer>> owners;
+
+    public RecentMetrics(int width) {
+        this.width = width;
+        this.owners = CacheBuilder.newBuilder()
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    public void record(UUID ownerId, String metricName, DateTime timestamp, double... values) {
+        ConcurrentMap<String, MetricRingBuffer> series;
+        try {
+            series = owners.get(ownerId, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        series.computeIfAbsent(metricName, n -> new MetricRingBuffer(CAPACITY, width))
+                .record(timestamp, values);
+    }
+
+    public Optional<MetricPoint> latest(UUID ownerId, String metricName, DateTime notBefore) {
+        ConcurrentMap<String, MetricRingBuffer> series = owners.getIfPresent(ownerId);
+        if (series == null) {
+            return Optional.empty();
+        }
+
+        MetricRingBuffer buffer = series.get(metricName);
+        if (buffer == null) {
+            return Optional.empty();
+        }
+
+        return buffer.latest().filter(p -> p.timestamp().isAfter(notBefore));
+    }
+
+    /**
+     * @return Latest point of every series of the owner that was written after <code>notBefore</code>.
+     */
+    public Map<String, MetricPoint> latestOfOwner(UUID ownerId, DateTime notBefore) {
+        Map<String, MetricPoint> result = Maps.newHashMap();
+
+        ConcurrentMap<String, MetricRingBuffer> series = owners.getIfPresent(ownerId);
+        if (series == null) {
+            return result;
+        }
+
+        for (Map.Entry<String, MetricRingBuffer> s : series.entrySet()) {
+            s.getValue().latest()
+                    .filter(p -> p.timestamp().isAfter(notBefore))
+                    .ifPresent(p -> result.put(s.getKey(), p));
+        }
+
+        return result;
+    }
+
+    public boolean hasOwner(UUID ownerId) {
+        return owners.getIfPresent(ownerId) != null;
+    }
+
+}
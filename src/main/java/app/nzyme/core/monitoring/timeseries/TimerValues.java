@@ -0,0 +1,64 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class TimerValues {
+
+    public static final int WIDTH = 6;
+
+    public abstract double max();
+    public abstract double min();
+    public abstract double mean();
+    public abstract double p99();
+    public abstract double stddev();
+    public abstract double counter();
+
+    public static TimerValues create(double max, double min, double mean, double p99, double stddev, double counter) {
+        return builder()
+                .max(max)
+                .min(min)
+                .mean(mean)
+                .p99(p99)
+                .stddev(stddev)
+                .counter(counter)
+                .build();
+    }
+
+    /*
+     * Taps only report mean and p99.
+     */
+    public static TimerValues meanAndP99(double mean, double p99) {
+        return create(0, 0, mean, p99, 0, 0);
+    }
+
+    public double[] toArray() {
+        return new double[]{max(), min(), mean(), p99(), stddev(), counter()};
+    }
+
+    public static TimerValues fromPoint(MetricPoint point) {
+        return create(point.value(0), point.value(1), point.value(2), point.value(3), point.value(4), point.value(5));
+    }
+
+    public static Builder builder() {
+        return new AutoValue_TimerValues.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder max(double max);
+
+        public abstract Builder min(double min);
+
+        public abstract Builder mean(double mean);
+
+        public abstract Builder p99(double p99);
+
+        public abstract Builder stddev(double stddev);
+
+        public abstract Builder counter(double counter);
+
+        public abstract TimerValues build();
+    }
+
+}
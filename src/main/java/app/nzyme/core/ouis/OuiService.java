@@ -2,11 +2,13 @@ package app.nzyme.core.ouis;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.connect.ConnectRegistryKeys;
+import app.nzyme.core.shared.MacAddress;
 import app.nzyme.core.util.MetricNames;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
 import com.google.common.net.HttpHeaders;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import okhttp3.HttpUrl;
@@ -33,7 +35,9 @@ public class OuiService {
     private final ScheduledExecutorService refresher;
 
     private final ReentrantLock lock = new ReentrantLock();
-    private Map<String, String> ouis;
+
+    // 24-bit OUI -> Vendor. Replaced as a whole on reload.
+    private volatile Map<Integer, String> ouis;
 
     // Can be disabled if Connect is not set up or OUI data source is not enabled in Connect.
     private boolean isEnabled = false;
@@ -86,7 +90,7 @@ public class OuiService {
                 return;
             }
 
-            this.ouis = data.get();
+            this.ouis = packOuis(data.get());
             this.isEnabled = true;
         } catch (Exception e) {
             LOG.error("Could not download OUI data from Connect.", e);
@@ -101,21 +105,33 @@ public class OuiService {
             return Optional.empty();
         }
 
-        if (mac.length() != 17) {
-            LOG.warn("Passed invalid MAC address [{}]", mac);
-            return Optional.empty();
-        }
-
         try(Timer.Context ignored = lookupTimer.time()) {
-            lock.lock();
+            long packed = MacAddress.pack(mac);
+            if (packed == MacAddress.INVALID) {
+                LOG.warn("Passed invalid MAC address [{}]", mac);
+                return Optional.empty();
+            }
 
+            Map<Integer, String> current = ouis;
+            if (current == null) {
+                return Optional.empty();
+            }
+
+            return Optional.ofNullable(current.get(MacAddress.oui(packed)));
+        }
+    }
+
+    private static Map<Integer, String> packOuis(Map<String, String> ouis) {
+        Map<Integer, String> packed = Maps.newHashMapWithExpectedSize(ouis.size());
+        for (Map.Entry<String, String> oui : ouis.entrySet()) {
             try {
-                String oui = ouis.get(mac.toUpperCase().substring(0, 8).replace(":", ""));
-                return oui == null ? Optional.empty() : Optional.of(oui);
-            } finally {
-                lock.unlock();
+                packed.put(Integer.parseInt(oui.getKey(), 16), oui.getValue());
+            } catch (NumberFormatException e) {
+                LOG.debug("Skipping invalid OUI [{}].", oui.getKey());
             }
         }
+
+        return packed;
     }
 
     private Optional<Map<String, String>> fetchOuisFromConnect() {
@@ -0,0 +1,57 @@
+package app.nzyme.core.periodicals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Assigns work keys to the live nodes of the cluster using rendezvous hashing: Every key belongs to the node with
+ * the highest hash of (node, key). When a node joins or leaves, only the keys of that node move.
+ */
+public class ClusterShard {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final UUID localNodeId;
+    private final List<UUID> nodeIds;
+
+    public ClusterShard(UUID localNodeId, List<UUID> nodeIds) {
+        this.localNodeId = localNodeId;
+
+        if (nodeIds.contains(localNodeId)) {
+            this.nodeIds = ImmutableList.copyOf(nodeIds);
+        } else {
+            // The local node is running this, so it's alive even if its last heartbeat was not written yet.
+            this.nodeIds = ImmutableList.<UUID>builder().addAll(nodeIds).add(localNodeId).build();
+        }
+    }
+
+    public boolean owns(UUID key) {
+        UUID owner = null;
+        long highest = Long.MIN_VALUE;
+        for (UUID nodeId : nodeIds) {
+            long hash = HASH.newHasher()
+                    .putLong(nodeId.getMostSignificantBits())
+                    .putLong(nodeId.getLeastSignificantBits())
+                    .putLong(key.getMostSignificantBits())
+                    .putLong(key.getLeastSignificantBits())
+                    .hash()
+                    .asLong();
+
+            if (owner == null || hash > highest) {
+                owner = nodeId;
+                highest = hash;
+            }
+        }
+
+        return localNodeId.equals(owner);
+    }
+
+    public int size() {
+        return nodeIds.size();
+    }
+
+}
@@ -21,15 +21,46 @@ import com.google.common.base.Stopwatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 public abstract class Periodical implements Runnable {
 
     private static final Logger LOG = LogManager.getLogger(Periodical.class);
 
+    public enum ClusterMode {
+        // Runs on every node. For work on node-local state.
+        ALL_NODES,
+
+        // Runs on only one node of the cluster per period.
+        SINGLE_NODE,
+
+        // Runs on every node, but each node only processes the work keys it owns. See ownsShard().
+        SHARDED
+    }
+
+    private volatile ClusterShard shard = null;
+
     protected abstract void execute();
     public abstract String getName();
 
+    public ClusterMode getClusterMode() {
+        return ClusterMode.ALL_NODES;
+    }
+
+    /**
+     * Sharded periodicals must skip all work keys (for example monitored networks or tenants) that this node does not
+     * own. Always true for periodicals that are not sharded.
+     */
+    protected boolean ownsShard(UUID key) {
+        ClusterShard current = this.shard;
+        return current == null || current.owns(key);
+    }
+
+    void setShard(ClusterShard shard) {
+        this.shard = shard;
+    }
+
     @Override
     public void run() {
         LOG.debug("Running periodical [{}].", getName());
@@ -17,23 +17,39 @@
 
 package app.nzyme.core.periodicals;
 
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.distributed.Node;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
 
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PeriodicalManager {
 
     private static final Logger LOG = LogManager.getLogger(PeriodicalManager.class);
 
+    // First key of all periodical advisory locks. The second key is the hashed periodical name.
+    private static final int ADVISORY_LOCK_NAMESPACE = 7_250_001;
+
+    // Nodes that have not written a heartbeat for this long don't get any shards.
+    private static final int LIVE_NODE_TIMEOUT_SECONDS = 60;
+
+    private final NzymeNode nzyme;
     private final ScheduledExecutorService executor;
 
-    public PeriodicalManager() {
-        // TODO make core pool size configurable
-        this.executor = Executors.newScheduledThreadPool(5,
+    public PeriodicalManager(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+        this.executor = Executors.newScheduledThreadPool(nzyme.getConfiguration().performance().periodicalsPoolSize(),
                 new ThreadFactoryBuilder()
                         .setDaemon(true)
                         .setNameFormat("periodicals-%d")
@@ -43,10 +59,142 @@ public class PeriodicalManager {
     }
 
     public void scheduleAtFixedRate(Periodical periodical, long initialDelay, long period, TimeUnit timeUnit) {
-        LOG.info("Scheduling [{}] for every <{} {}> with <{} {}> initial delay.",
-                periodical.getName(), period, timeUnit, initialDelay, timeUnit);
+        LOG.info("Scheduling [{}] for every <{} {}> with <{} {}> initial delay. Cluster mode: [{}]",
+                periodical.getName(), period, timeUnit, initialDelay, timeUnit, periodical.getClusterMode());
+
+        executor.scheduleAtFixedRate(
+                new ScheduledPeriodical(periodical, timeUnit.toMillis(period)), initialDelay, period, timeUnit
+        );
+    }
+
+    private final class ScheduledPeriodical implements Runnable {
+
+        private final Periodical periodical;
+        private final long periodMs;
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private final Timer runTimer;
+        private final Counter overlaps;
+        private final Counter skips;
+
+        ScheduledPeriodical(Periodical periodical, long periodMs) {
+            this.periodical = periodical;
+            this.periodMs = periodMs;
+
+            MetricRegistry metrics = nzyme.getMetrics();
+            this.runTimer = metrics.timer(MetricRegistry.name(Periodical.class, periodical.getName(), "run-timing"));
+            this.overlaps = metrics.counter(MetricRegistry.name(Periodical.class, periodical.getName(), "overlaps"));
+            this.skips = metrics.counter(MetricRegistry.name(Periodical.class, periodical.getName(), "skips"));
+        }
+
+        @Override
+        public void run() {
+            // The executor never starts the same task concurrently, but keep long runs from piling up anyway.
+            if (!running.compareAndSet(false, true)) {
+                skips.inc();
+                return;
+            }
+
+            try {
+                boolean executed;
+                long start = System.nanoTime();
+
+                switch (periodical.getClusterMode()) {
+                    case SINGLE_NODE -> executed = runOnSingleNode();
+                    case SHARDED -> {
+                        periodical.setShard(buildShard());
+                        periodical.run();
+                        executed = true;
+                    }
+                    default -> {
+                        periodical.run();
+                        executed = true;
+                    }
+                }
+
+                if (!executed) {
+                    skips.inc();
+                    return;
+                }
+
+                long tookNs = System.nanoTime() - start;
+                runTimer.update(tookNs, TimeUnit.NANOSECONDS);
+
+                if (TimeUnit.NANOSECONDS.toMillis(tookNs) > periodMs) {
+                    // The next run is already due and will start late.
+                    overlaps.inc();
+                    LOG.warn("Periodical [{}] took <{} ms> and overlapped with its next run. Period is <{} ms>.",
+                            periodical.getName(), TimeUnit.NANOSECONDS.toMillis(tookNs), periodMs);
+                }
+            } catch (Exception e) {
+                skips.inc();
+                LOG.error("Could not schedule run of periodical [{}].", periodical.getName(), e);
+            } finally {
+                running.set(false);
+            }
+        }
+
+        /**
+         * Runs the periodical if no other node is running it right now and no node has started it within the last
+         * half period. The advisory lock is bound to the database session and released if this node dies.
+         */
+        private boolean runOnSingleNode() {
+            UUID localNodeId = nzyme.getNodeManager().getLocalNodeId();
+
+            return nzyme.getDatabase().withHandle(handle -> {
+                boolean locked = handle.createQuery("SELECT pg_try_advisory_lock(:namespace, hashtext(:name))")
+                        .bind("namespace", ADVISORY_LOCK_NAMESPACE)
+                        .bind("name", periodical.getName())
+                        .mapTo(Boolean.class)
+                        .one();
+
+                if (!locked) {
+                    LOG.debug("Not running periodical [{}]. Another node is running it.", periodical.getName());
+                    return false;
+                }
+
+                try {
+                    int claimed = handle.createUpdate("INSERT INTO periodical_runs(name, node_id, started_at) " +
+                                    "VALUES(:name, :node_id, NOW()) ON CONFLICT (name) DO UPDATE " +
+                                    "SET node_id = :node_id, started_at = NOW() " +
+                                    "WHERE periodical_runs.started_at < NOW() - :min_distance_ms * INTERVAL '1 millisecond'")
+                            .bind("name", periodical.getName())
+                            .bind("node_id", localNodeId)
+                            .bind("min_distance_ms", periodMs / 2)
+                            .execute();
+
+                    if (claimed == 0) {
+                        LOG.debug("Not running periodical [{}]. Another node ran it recently.", periodical.getName());
+                        return false;
+                    }
+
+                    periodical.run();
+                    return true;
+                } finally {
+                    handle.createQuery("SELECT pg_advisory_unlock(:namespace, hashtext(:name))")
+                            .bind("namespace", ADVISORY_LOCK_NAMESPACE)
+                            .bind("name", periodical.getName())
+                            .mapTo(Boolean.class)
+                            .one();
+                }
+            });
+        }
+
+        private ClusterShard buildShard() {
+            DateTime cutoff = DateTime.now().minusSeconds(LIVE_NODE_TIMEOUT_SECONDS);
+
+            List<UUID> liveNodes = nzyme.getNodeManager().getNodes().stream()
+                    .filter(node -> !node.deleted() && node.lastSeen().isAfter(cutoff))
+                    .map(Node::uuid)
+                    .toList();
+
+            ClusterShard shard = new ClusterShard(nzyme.getNodeManager().getLocalNodeId(), liveNodes);
+            LOG.debug("Running sharded periodical [{}] on <{}> nodes.", periodical.getName(), shard.size());
+
+            return shard;
+        }
 
-        executor.scheduleAtFixedRate(periodical, initialDelay, period, timeUnit);
     }
 
 }
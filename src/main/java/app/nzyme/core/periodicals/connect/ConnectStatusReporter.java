@@ -19,6 +19,9 @@ import app.nzyme.core.taps.db.metrics.BucketSize;
 import app.nzyme.core.taps.db.metrics.TapMetricsGaugeAggregation;
 import app.nzyme.core.taps.db.metrics.TapMetricsTimerAggregation;
 import app.nzyme.core.taps.db.metrics.TapMetricsTimerHistogramAggregation;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -26,6 +29,7 @@ import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import okhttp3.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,19 +40,44 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class ConnectStatusReporter extends Periodical {
 
     private static final Logger LOG = LogManager.getLogger(ConnectStatusReporter.class);
 
+    private static final List<String> TAP_LOG_COUNT_METRICS = List.of(
+            "logs.counts.trace", "logs.counts.debug", "logs.counts.info", "logs.counts.warn", "logs.counts.error"
+    );
+
     private final NzymeNode nzyme;
     private final OkHttpClient httpClient;
     private final ObjectMapper om;
 
+    private final ExecutorService collectorPool;
+
+    private final Timer collectionTimer;
+    private final Histogram statusReportSizes;
+    private final Histogram metricsReportSizes;
+
     public ConnectStatusReporter(NzymeNode nzyme) {
         this.nzyme = nzyme;
 
+        this.collectorPool = Executors.newFixedThreadPool(
+                4,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("connect-report-collector-%d")
+                        .setDaemon(true)
+                        .build()
+        );
+
+        this.collectionTimer = nzyme.getMetrics().timer(MetricNames.CONNECT_REPORT_COLLECTION_TIMER);
+        this.statusReportSizes = nzyme.getMetrics().histogram(MetricNames.CONNECT_STATUS_REPORT_SIZES);
+        this.metricsReportSizes = nzyme.getMetrics().histogram(MetricNames.CONNECT_METRICS_REPORT_SIZES);
+
         this.httpClient = new OkHttpClient.Builder()
                 .connectTimeout(15, TimeUnit.SECONDS)
                 .readTimeout(15, TimeUnit.SECONDS)
@@ -71,11 +100,87 @@ public class ConnectStatusReporter extends Periodical {
 
         LOG.debug("Running Connect status reporter.");
 
-        sendStatusReport();
-        sendMetricsReport();
+        ReportData data;
+        try (Timer.Context ignored = collectionTimer.time()) {
+            data = collectReportData();
+        } catch (Exception e) {
+            LOG.error("Could not collect Connect report data.", e);
+            return;
+        }
+
+        sendStatusReport(data);
+        sendMetricsReport(data);
     }
 
-    private void sendStatusReport() {
+    /**
+     * Collects everything both reports need with a few grouped queries across all taps and nodes instead of
+     * several queries per tap and node. The queries are independent and run in parallel.
+     */
+    private ReportData collectReportData() {
+        DateTime metricsCutoff = DateTime.now().minusMinutes(1);
+
+        CompletableFuture<List<Tap>> taps = CompletableFuture.supplyAsync(
+                () -> nzyme.getTapManager().findAllTapsOfAllUsers(), collectorPool);
+        CompletableFuture<List<Node>> nodes = CompletableFuture.supplyAsync(
+                () -> nzyme.getNodeManager().getNodes(), collectorPool);
+        CompletableFuture<Map<UUID, List<TapMetricsGaugeAggregation>>> tapGauges = CompletableFuture.supplyAsync(
+                () -> nzyme.getTapManager().findAverageGaugeValuesOfAllTaps(metricsCutoff), collectorPool);
+        CompletableFuture<Map<UUID, List<TapMetricsTimerAggregation>>> tapTimers = CompletableFuture.supplyAsync(
+                () -> nzyme.getTapManager().findAverageTimerValuesOfAllTaps(metricsCutoff), collectorPool);
+        CompletableFuture<Map<UUID, List<GaugeEntryAverage>>> nodeGauges = CompletableFuture.supplyAsync(
+                () -> nzyme.getNodeManager().findAverageGaugeValuesOfAllNodes(metricsCutoff), collectorPool);
+        CompletableFuture<Map<UUID, List<TimerEntryAverage>>> nodeTimers = CompletableFuture.supplyAsync(
+                () -> nzyme.getNodeManager().findAverageTimerValuesOfAllNodes(metricsCutoff), collectorPool);
+        CompletableFuture<Map<UUID, List<Capture>>> captures = CompletableFuture.supplyAsync(
+                () -> nzyme.getTapManager().findCapturesOfAllTaps(DateTime.now().minusHours(24)), collectorPool);
+        CompletableFuture<Map<UUID, OrganizationEntry>> organizations = CompletableFuture.supplyAsync(() -> {
+            Map<UUID, OrganizationEntry> result = Maps.newHashMap();
+            for (OrganizationEntry org : nzyme.getAuthenticationService().findAllOrganizations()) {
+                result.put(org.uuid(), org);
+            }
+            return result;
+        }, collectorPool);
+        CompletableFuture<Map<UUID, TenantEntry>> tenants = CompletableFuture.supplyAsync(() -> {
+            Map<UUID, TenantEntry> result = Maps.newHashMap();
+            for (TenantEntry tenant : nzyme.getAuthenticationService().findAllTenantsOfAllOrganizations()) {
+                result.put(tenant.uuid(), tenant);
+            }
+            return result;
+        }, collectorPool);
+        CompletableFuture<List<ConnectHealthIndicatorReport>> healthIndicators = CompletableFuture.supplyAsync(
+                this::buildHealthIndicatorsReport, collectorPool);
+        CompletableFuture<List<ConnectThroughputReport>> throughput = CompletableFuture.supplyAsync(
+                this::buildThroughputReport, collectorPool);
+        CompletableFuture<ConnectNodeLogCountReport> nodeLogCounts = CompletableFuture.supplyAsync(
+                this::buildLogCountReport, collectorPool);
+
+        // Log counts are mostly served from the metrics store and need the tap list to query the rest.
+        CompletableFuture<Map<UUID, Map<String, Double>>> tapLogCounts = taps.thenApplyAsync(t -> {
+            List<UUID> tapUuids = Lists.newArrayList();
+            for (Tap tap : t) {
+                tapUuids.add(tap.uuid());
+            }
+            return nzyme.getTapManager().findLatestActiveMetricsGaugeValuesOfTaps(tapUuids, TAP_LOG_COUNT_METRICS);
+        }, collectorPool);
+
+        return new ReportData(
+                taps.join(),
+                nodes.join(),
+                tapGauges.join(),
+                tapTimers.join(),
+                nodeGauges.join(),
+                nodeTimers.join(),
+                tapLogCounts.join(),
+                captures.join(),
+                organizations.join(),
+                tenants.join(),
+                healthIndicators.join(),
+                throughput.join(),
+                nodeLogCounts.join()
+        );
+    }
+
+    private void sendStatusReport(ReportData data) {
         try {
             NodeInformation.Info ni = new NodeInformation().collect();
 
@@ -89,16 +194,17 @@ public class ConnectStatusReporter extends Periodical {
                     getSystemProperty("os.name"),
                     getSystemProperty("os.arch"),
                     getSystemProperty("os.version"),
-                    buildHealthIndicatorsReport(),
-                    buildThroughputReport(),
-                    buildTapsReport(),
-                    buildLogCountReport(),
+                    data.healthIndicators,
+                    data.throughput,
+                    buildTapsReport(data),
+                    data.nodeLogCounts,
                     ni.cpuSystemLoad(),
                     (ni.memoryUsed()*100.0)/ni.memoryTotal(),
                     (ni.heapUsed()*100.0)/ni.heapTotal()
             );
 
             byte[] body = om.writeValueAsBytes(report);
+            statusReportSizes.update(body.length);
 
             HttpUrl url = HttpUrl.get(nzyme.getConnect().getApiUri())
                     .newBuilder()
@@ -150,25 +256,21 @@ public class ConnectStatusReporter extends Periodical {
         }
     }
 
-    // TODO we are currently pulling some metrics twice: Once for node status and then again for metrics.
-
-    private void sendMetricsReport() {
+    private void sendMetricsReport(ReportData data) {
         try {
-            DateTime cutoff = DateTime.now().minusMinutes(1);
-
             Map<UUID, ConnectNodeMetricsReport> nodes = Maps.newHashMap();
             Map<UUID, ConnectTapMetricsReport> taps = Maps.newHashMap();
 
             // Node metrics. We report each node, not just ourselves.
-            for (Node node : nzyme.getNodeManager().getNodes()) {
+            for (Node node : data.nodes) {
                 Map<String, Double> gauges = Maps.newHashMap();
                 Map<String, ConnectNodeTimerReport> timers = Maps.newHashMap();
 
-                for (GaugeEntryAverage g : nzyme.getNodeManager().findAverageGaugeValuesOfNode(node.uuid(), cutoff)) {
+                for (GaugeEntryAverage g : data.nodeGauges.getOrDefault(node.uuid(), List.of())) {
                     gauges.put(g.name(), g.value());
                 }
 
-                for (TimerEntryAverage t : nzyme.getNodeManager().findAverageTimerValuesOfNode(node.uuid(), cutoff)) {
+                for (TimerEntryAverage t : data.nodeTimers.getOrDefault(node.uuid(), List.of())) {
                     timers.put(t.name(), ConnectNodeTimerReport.create(
                             t.max(), t.min(), t.mean(), t.p99(), t.stddev(), t.counter()
                     ));
@@ -178,17 +280,15 @@ public class ConnectStatusReporter extends Periodical {
             }
 
             // Tap metrics.
-            for (Tap tap : nzyme.getTapManager().findAllTapsOfAllUsers()) {
+            for (Tap tap : data.taps) {
                 Map<String, Double> gauges = Maps.newHashMap();
                 Map<String, ConnectTapTimerReport> timers = Maps.newHashMap();
 
-                for (TapMetricsGaugeAggregation g : nzyme.getTapManager()
-                        .findAverageGaugeValuesOfTap(tap.uuid(), cutoff)) {
+                for (TapMetricsGaugeAggregation g : data.tapGauges.getOrDefault(tap.uuid(), List.of())) {
                     gauges.put(g.name(), g.value());
                 }
 
-                for (TapMetricsTimerAggregation t : nzyme.getTapManager()
-                        .findAverageTimerValuesOfTap(tap.uuid(), cutoff)) {
+                for (TapMetricsTimerAggregation t : data.tapTimers.getOrDefault(tap.uuid(), List.of())) {
                     timers.put(t.name(), ConnectTapTimerReport.create(t.mean(), t.p99()));
                 }
 
@@ -196,6 +296,7 @@ public class ConnectStatusReporter extends Periodical {
             }
 
             byte[] body = om.writeValueAsBytes(ConnectMetricsReport.create(nodes, taps));
+            metricsReportSizes.update(body.length);
 
             HttpUrl url = HttpUrl.get(nzyme.getConnect().getApiUri())
                     .newBuilder()
@@ -284,70 +385,58 @@ public class ConnectStatusReporter extends Periodical {
         return report;
     }
 
-    private List<ConnectTapStatusReport> buildTapsReport() {
+    private List<ConnectTapStatusReport> buildTapsReport(ReportData data) {
         List<ConnectTapStatusReport> taps = Lists.newArrayList();
 
-        nzyme.getDatabase().useHandle(handle -> {
-            for (Tap tap : nzyme.getTapManager().findAllTapsOfAllUsers()) {
-                double memoryUsed = tap.memoryUsed() == null ? 0 : tap.memoryUsed();
-                double memoryTotal = tap.memoryTotal() == null ? 0 : tap.memoryTotal();
-
-                Optional<OrganizationEntry> org = nzyme.getAuthenticationService().findOrganization(tap.organizationId());
-                Optional<TenantEntry> tenant = nzyme.getAuthenticationService().findTenant(tap.tenantId());
-
-                // The org and tenant should always exist, but just to make sure.
-                String organizationName = org.isPresent() ? org.get().name() : "Unknown Organization";
-                String tenantName = tenant.isPresent() ? tenant.get().name() : "Unknown Tenant";
-
-                long trace = nzyme.getTapManager().findLatestActiveMetricsGaugeValue(
-                        tap.uuid(), "logs.counts.trace", handle
-                ).orElse(0D).longValue();
-                long debug = nzyme.getTapManager().findLatestActiveMetricsGaugeValue(
-                        tap.uuid(), "logs.counts.debug", handle
-                ).orElse(0D).longValue();
-                long info = nzyme.getTapManager().findLatestActiveMetricsGaugeValue(
-                        tap.uuid(), "logs.counts.info", handle
-                ).orElse(0D).longValue();
-                long warn = nzyme.getTapManager().findLatestActiveMetricsGaugeValue(
-                        tap.uuid(), "logs.counts.warn", handle
-                ).orElse(0D).longValue();
-                long error = nzyme.getTapManager().findLatestActiveMetricsGaugeValue(
-                        tap.uuid(), "logs.counts.error", handle
-                ).orElse(0D).longValue();
-
-                // Captures.
-                List<ConnectTapCaptureReport> captures = Lists.newArrayList();
-                for (Capture capture : nzyme.getTapManager()
-                        .findCapturesOfTap(tap.uuid(), DateTime.now().minusHours(24))) {
-                    captures.add(ConnectTapCaptureReport.create(
-                            capture.interfaceName(),
-                            capture.captureType(),
-                            capture.isRunning(),
-                            capture.cycleTime(),
-                            capture.updatedAt()
-                    ));
-                }
-
-                taps.add(ConnectTapStatusReport.create(
-                        tap.version(),
-                        tap.uuid().toString(),
-                        tap.name(),
-                        tap.processedBytes() == null ? null : tap.processedBytes().average(),
-                        tap.clock(),
-                        tap.remoteAddress(),
-                        tap.cpuLoad() == null ? null : tap.cpuLoad(),
-                        (memoryUsed == 0 && memoryTotal == 0) ? null : (memoryUsed*100.0)/memoryTotal,
-                        organizationName,
-                        tenantName,
-                        ConnectTapLogCountReport.create(trace, debug, info, warn, error),
-                        captures,
-                        tap.rpi(),
-                        tap.rpiTemperature(),
-                        tap.configuration(),
-                        tap.lastReport()
+        for (Tap tap : data.taps) {
+            double memoryUsed = tap.memoryUsed() == null ? 0 : tap.memoryUsed();
+            double memoryTotal = tap.memoryTotal() == null ? 0 : tap.memoryTotal();
+
+            OrganizationEntry org = data.organizations.get(tap.organizationId());
+            TenantEntry tenant = data.tenants.get(tap.tenantId());
+
+            // The org and tenant should always exist, but just to make sure.
+            String organizationName = org != null ? org.name() : "Unknown Organization";
+            String tenantName = tenant != null ? tenant.name() : "Unknown Tenant";
+
+            Map<String, Double> logCounts = data.tapLogCounts.getOrDefault(tap.uuid(), Map.of());
+            long trace = logCounts.getOrDefault("logs.counts.trace", 0D).longValue();
+            long debug = logCounts.getOrDefault("logs.counts.debug", 0D).longValue();
+            long info = logCounts.getOrDefault("logs.counts.info", 0D).longValue();
+            long warn = logCounts.getOrDefault("logs.counts.warn", 0D).longValue();
+            long error = logCounts.getOrDefault("logs.counts.error", 0D).longValue();
+
+            // Captures.
+            List<ConnectTapCaptureReport> captures = Lists.newArrayList();
+            for (Capture capture : data.captures.getOrDefault(tap.uuid(), List.of())) {
+                captures.add(ConnectTapCaptureReport.create(
+                        capture.interfaceName(),
+                        capture.captureType(),
+                        capture.isRunning(),
+                        capture.cycleTime(),
+                        capture.updatedAt()
                 ));
             }
-        });
+
+            taps.add(ConnectTapStatusReport.create(
+                    tap.version(),
+                    tap.uuid().toString(),
+                    tap.name(),
+                    tap.processedBytes() == null ? null : tap.processedBytes().average(),
+                    tap.clock(),
+                    tap.remoteAddress(),
+                    tap.cpuLoad() == null ? null : tap.cpuLoad(),
+                    (memoryUsed == 0 && memoryTotal == 0) ? null : (memoryUsed*100.0)/memoryTotal,
+                    organizationName,
+                    tenantName,
+                    ConnectTapLogCountReport.create(trace, debug, info, warn, error),
+                    captures,
+                    tap.rpi(),
+                    tap.rpiTemperature(),
+                    tap.configuration(),
+                    tap.lastReport()
+            ));
+        }
 
         return taps;
     }
@@ -384,4 +473,50 @@ public class ConnectStatusReporter extends Periodical {
         return "ConnectStatusReporter";
     }
 
+    private static final class ReportData {
+
+        private final List<Tap> taps;
+        private final List<Node> nodes;
+        private final Map<UUID, List<TapMetricsGaugeAggregation>> tapGauges;
+        private final Map<UUID, List<TapMetricsTimerAggregation>> tapTimers;
+        private final Map<UUID, List<GaugeEntryAverage>> nodeGauges;
+        private final Map<UUID, List<TimerEntryAverage>> nodeTimers;
+        private final Map<UUID, Map<String, Double>> tapLogCounts;
+        private final Map<UUID, List<Capture>> captures;
+        private final Map<UUID, OrganizationEntry> organizations;
+        private final Map<UUID, TenantEntry> tenants;
+        private final List<ConnectHealthIndicatorReport> healthIndicators;
+        private final List<ConnectThroughputReport> throughput;
+        private final ConnectNodeLogCountReport nodeLogCounts;
+
+        ReportData(List<Tap> taps,
+                   List<Node> nodes,
+                   Map<UUID, List<TapMetricsGaugeAggregation>> tapGauges,
+                   Map<UUID, List<TapMetricsTimerAggregation>> tapTimers,
+                   Map<UUID, List<GaugeEntryAverage>> nodeGauges,
+                   Map<UUID, List<TimerEntryAverage>> nodeTimers,
+                   Map<UUID, Map<String, Double>> tapLogCounts,
+                   Map<UUID, List<Capture>> captures,
+                   Map<UUID, OrganizationEntry> organizations,
+                   Map<UUID, TenantEntry> tenants,
+                   List<ConnectHealthIndicatorReport> healthIndicators,
+                   List<ConnectThroughputReport> throughput,
+                   ConnectNodeLogCountReport nodeLogCounts) {
+            this.taps = taps;
+            this.nodes = nodes;
+            this.tapGauges = tapGauges;
+            this.tapTimers = tapTimers;
+            this.nodeGauges = nodeGauges;
+            this.nodeTimers = nodeTimers;
+            this.tapLogCounts = tapLogCounts;
+            this.captures = captures;
+            this.organizations = organizations;
+            this.tenants = tenants;
+            this.healthIndicators = healthIndicators;
+            this.throughput = throughput;
+            this.nodeLogCounts = nodeLogCounts;
+        }
+
+    }
+
 }
@@ -51,4 +51,9 @@ public class DatabaseRetentionCleaner extends Periodical {
         return "DatabaseRetentionCleaner";
     }
 
+    @Override
+    public ClusterMode getClusterMode() {
+        return ClusterMode.SINGLE_NODE;
+    }
+
 }
@@ -1,31 +1,56 @@
 package app.nzyme.core.registry;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.util.MetricNames;
 import app.nzyme.plugin.RegistryChangeMonitor;
-import com.google.api.client.util.Lists;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Follows the registry_changes log that triggers on the registry and registry_encrypted tables write to. Every
+ * change notifies listening nodes with a NOTIFY and this monitor then fetches only the changes since the last
+ * revision it processed. Notifications can be lost during reconnects, so the log is also polled periodically.
+ *
+ * The monitor holds one database connection for as long as it runs. It only starts to follow the log once
+ * initialized and subscribers are not notified before that.
+ */
 public class RegistryChangeMonitorImpl implements RegistryChangeMonitor {
 
     private static final Logger LOG = LogManager.getLogger(RegistryChangeMonitorImpl.class);
 
+    private static final String CHANNEL = "registry_changes";
+
+    private static final int POLL_INTERVAL_MILLIS = 5000;
+    private static final long GAP_TIMEOUT_MILLIS = 30_000;
+    private static final long RETENTION_CLEANING_INTERVAL_MILLIS = 60_000;
+
     private final NzymeNode nzyme;
 
     private final Map<String, List<Runnable>> subscribers;
 
-    private Map<String, String> snapshot = null;
-
     private final List<String> ignoredKeys;
 
+    private final Timer propagationLatency;
+
+    private RevisionWatermark watermark = null;
+    private long lastRetentionCleaning = 0;
+
+    private ExecutorService processor = null;
+
     public RegistryChangeMonitorImpl(NzymeNode nzyme) {
         this.nzyme = nzyme;
 
@@ -33,63 +58,112 @@ public class RegistryChangeMonitorImpl implements RegistryChangeMonitor {
             add("core.connect_last_successful_report");
         }};
 
-        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
-                        .setNameFormat("registry-change-processor-%d")
-                        .build())
-                .scheduleAtFixedRate(this::processChanges, 0, 5, TimeUnit.SECONDS);
+        this.subscribers = Maps.newConcurrentMap();
+        this.propagationLatency = nzyme.getMetrics().timer(MetricNames.REGISTRY_CHANGE_PROPAGATION_LATENCY);
+    }
+
+    public synchronized void initialize() {
+        if (processor != null) {
+            return;
+        }
+
+        processor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("registry-change-processor-%d")
+                .setDaemon(true)
+                .build());
+        processor.submit(this::run);
+    }
+
+    public synchronized void stop() {
+        if (processor == null) {
+            return;
+        }
 
-        this.subscribers = Maps.newHashMap();
+        // The processor notices the interrupt after the current notification wait and releases its connection.
+        processor.shutdownNow();
+        processor = null;
     }
 
-    private void processChanges() {
-        try {
-            if (snapshot == null) {
-                // First run. Fill image.
-                snapshot = takeSnapshot();
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                nzyme.getDatabase().useHandle(this::listen);
+            } catch (Exception e) {
+                LOG.error("Error while processing registry changes. Reconnecting.", e);
+            }
 
-                // Exit. (No changes on first run)
-                return;
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+    }
 
-            Map<String, String> previous = Maps.newHashMap(this.snapshot);
+    private void listen(Handle handle) throws Exception {
+        handle.execute("LISTEN " + CHANNEL);
+        PGConnection connection = handle.getConnection().unwrap(PGConnection.class);
 
-            // Create new snapshot. Do this immediately to avoid missing changes that happen during processing.
-            this.snapshot = takeSnapshot();
+        if (watermark == null) {
+            // First run. Changes that happened before we started are not reported.
+            long latest = handle.createQuery("SELECT COALESCE(MAX(revision), 0) FROM registry_changes")
+                    .mapTo(Long.class)
+                    .one();
+            watermark = new RevisionWatermark(latest, GAP_TIMEOUT_MILLIS);
+        }
 
-            Map<String, String> current = takeSnapshot();
+        while (!Thread.currentThread().isInterrupted()) {
+            // We only need to know that there was at least one notification. Changes are read from the log.
+            PGNotification[] notifications = connection.getNotifications(POLL_INTERVAL_MILLIS);
+            if (notifications != null && notifications.length > 0) {
+                LOG.debug("Received <{}> registry change notifications.", notifications.length);
+            }
 
-            for (Map.Entry<String, String> entry : current.entrySet()) {
-                if (ignoredKeys.contains(entry.getKey())) {
-                    continue;
-                }
+            processChanges(handle);
+            cleanRetention(handle);
+        }
+    }
 
-                if (!previous.containsKey(entry.getKey())) {
-                    // New entry.
-                    LOG.info("Registry key [{}] now has a value. Notifying subscribers.", entry.getKey());
-                    notifyChange(entry.getKey());
-                } else {
-                    // Existing entry. Compare.
-                    if (!entry.getValue().equals(previous.get(entry.getKey()))) {
-                        // Value changed.
-                        LOG.info("Registry key [{}] has a new value. Notifying subscribers.", entry.getKey());
-                        notifyChange(entry.getKey());
-                    }
-                }
+    private void processChanges(Handle handle) {
+        List<RegistryChange> changes = handle.createQuery("SELECT revision, key, " +
+                        "EXTRACT(EPOCH FROM (clock_timestamp() - changed_at)) * 1000 AS latency_ms " +
+                        "FROM registry_changes WHERE revision > :revision ORDER BY revision")
+                .bind("revision", watermark.get())
+                .map((rs, ctx) -> new RegistryChange(
+                        rs.getLong("revision"),
+                        rs.getString("key"),
+                        rs.getLong("latency_ms"))
+                )
+                .list();
+
+        for (RegistryChange change : changes) {
+            if (!watermark.markProcessed(change.revision)) {
+                continue;
             }
 
-            for (Map.Entry<String, String> entry : previous.entrySet()) {
-                if (ignoredKeys.contains(entry.getKey())) {
-                    continue;
-                }
-                // Did a value disappear?
-                if (!current.containsKey(entry.getKey())) {
-                    LOG.info("Registry key [{}] has disappeared. Notifying subscribers.", entry.getKey());
-                    notifyChange(entry.getKey());
-                }
+            propagationLatency.update(Math.max(0, change.latencyMs), TimeUnit.MILLISECONDS);
+
+            if (ignoredKeys.contains(change.key)) {
+                continue;
             }
-        } catch (Exception e) {
-            LOG.error("Error while processing registry changes.", e);
+
+            LOG.info("Registry key [{}] has changed. Notifying subscribers.", change.key);
+            notifyChange(change.key);
+        }
+
+        watermark.advance(System.currentTimeMillis());
+    }
+
+    private void cleanRetention(Handle handle) {
+        if (System.currentTimeMillis() - lastRetentionCleaning < RETENTION_CLEANING_INTERVAL_MILLIS) {
+            return;
         }
+
+        // Nodes only look back as far as their watermark, which never trails far behind.
+        handle.createUpdate("DELETE FROM registry_changes WHERE changed_at < NOW() - INTERVAL '1 hour'")
+                .execute();
+
+        lastRetentionCleaning = System.currentTimeMillis();
     }
 
     private void notifyChange(String key) {
@@ -117,41 +191,25 @@ public class RegistryChangeMonitorImpl implements RegistryChangeMonitor {
         }
     }
 
-    private Map<String, String> takeSnapshot() {
-        List<RegistryEntry> entries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT key, value FROM registry")
-                        .mapTo(RegistryEntry.class)
-                        .list()
-        );
-
-        List<RegistryEntry> encryptedEntries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT key, value FROM registry_encrypted")
-                        .mapTo(RegistryEntry.class)
-                        .list()
-        );
-
-        Map<String, String> result = Maps.newHashMap();
-
-        for (RegistryEntry entry : entries) {
-            result.put(entry.key(), entry.value());
-        }
-
-        for (RegistryEntry entry : encryptedEntries) {
-            result.put(entry.key(), entry.value());
-        }
-
-        return result;
-    }
-
     @Override
     public void onChange(String namespace, String key, Runnable runnable) {
         String namespacedKey = RegistryImpl.buildNamespacedKey(namespace, key);
 
-        if (!subscribers.containsKey(namespacedKey)) {
-            subscribers.put(namespacedKey, Lists.newArrayList());
+        subscribers.computeIfAbsent(namespacedKey, k -> new CopyOnWriteArrayList<>()).add(runnable);
+    }
+
+    private static final class RegistryChange {
+
+        private final long revision;
+        private final String key;
+        private final long latencyMs;
+
+        RegistryChange(long revision, String key, long latencyMs) {
+            this.revision = revision;
+            this.key = key;
+            this.latencyMs = latencyMs;
         }
 
-        subscribers.get(namespacedKey).add(runnable);
     }
 
 }
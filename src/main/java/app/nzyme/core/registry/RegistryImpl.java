@@ -119,15 +119,42 @@ public class RegistryImpl implements Registry {
         if (encrypted.isEmpty()) {
             return Optional.empty();
         } else {
+            Crypto crypto = nzyme.getCrypto();
+
+            byte[] decrypted;
             try {
-                return Optional.of(
-                        new String(nzyme.getCrypto().decryptWithClusterKey(
-                                BaseEncoding.base64().decode(encrypted.get())
-                        ), Charsets.UTF_8)
-                );
+                byte[] value = BaseEncoding.base64().decode(encrypted.get());
+                decrypted = crypto.decryptWithClusterKey(value);
+
+                if (!crypto.isEnvelopeEncrypted(value)) {
+                    migrateToEnvelope(key, encrypted.get(), decrypted);
+                }
             } catch (Crypto.CryptoOperationException e) {
                 throw new RegistryCryptoException("Could not decrypt registry value for key [" + key + "]", e);
             }
+
+            return Optional.of(new String(decrypted, Charsets.UTF_8));
+        }
+    }
+
+    /**
+     * Re-encrypts a value that is still PGP-encrypted with the cluster key using the envelope data key, which is
+     * much cheaper to decrypt. The row is matched by its old ciphertext, so concurrent updates are not overwritten.
+     */
+    private void migrateToEnvelope(String key, String oldValue, byte[] decrypted) {
+        try {
+            String reencrypted = BaseEncoding.base64().encode(nzyme.getCrypto().encryptWithClusterKey(decrypted));
+
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("UPDATE registry_encrypted SET value = :new_value " +
+                                    "WHERE key = :key AND value = :old_value")
+                            .bind("key", buildNamespacedKey(namespace, key))
+                            .bind("new_value", reencrypted)
+                            .bind("old_value", oldValue)
+                            .execute()
+            );
+        } catch (Exception e) {
+            LOG.warn("Could not migrate encrypted registry value for key [{}] to envelope encryption.", key, e);
         }
     }
 
@@ -0,0 +1,66 @@
+package app.nzyme.core.registry;
+
+import com.google.common.collect.Sets;
+
+import java.util.NavigableSet;
+
+/**
+ * Tracks which registry change revisions have been processed. Revisions come from a sequence and can become
+ * visible out of order when concurrent transactions commit, so the watermark only moves past a gap once the
+ * missing revision was seen or the gap is older than the gap timeout. Gaps that never close are sequence values
+ * of rolled back transactions.
+ */
+class RevisionWatermark {
+
+    private final long gapTimeoutMillis;
+
+    private long watermark;
+    private final NavigableSet<Long> processedAboveWatermark;
+    private long gapOpenedAt;
+
+    RevisionWatermark(long initial, long gapTimeoutMillis) {
+        this.watermark = initial;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.processedAboveWatermark = Sets.newTreeSet();
+        this.gapOpenedAt = -1;
+    }
+
+    /**
+     * All revisions up to and including the watermark are processed. Query for changes with a revision above it.
+     */
+    long get() {
+        return watermark;
+    }
+
+    /**
+     * Records a revision as processed. Returns false if it was processed before and must not fire reactions again.
+     */
+    boolean markProcessed(long revision) {
+        if (revision <= watermark) {
+            return false;
+        }
+
+        return processedAboveWatermark.add(revision);
+    }
+
+    void advance(long nowMillis) {
+        while (!processedAboveWatermark.isEmpty()) {
+            long next = processedAboveWatermark.first();
+
+            if (next != watermark + 1) {
+                if (gapOpenedAt < 0) {
+                    gapOpenedAt = nowMillis;
+                }
+
+                if (nowMillis - gapOpenedAt < gapTimeoutMillis) {
+                    return;
+                }
+            }
+
+            processedAboveWatermark.pollFirst();
+            watermark = next;
+            gapOpenedAt = -1;
+        }
+    }
+
+}
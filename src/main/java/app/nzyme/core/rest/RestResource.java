@@ -1,5 +1,7 @@
 package app.nzyme.core.rest;
 
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.KeysetCursor;
 import app.nzyme.core.rest.parameters.FiltersParameter;
 import app.nzyme.core.rest.parameters.TimeRangeParameter;
 import app.nzyme.core.util.filters.Filter;
@@ -14,6 +16,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -74,4 +77,37 @@ public class RestResource {
         return Filters.create(filters);
     }
 
+    public boolean isKeysetPaginationQueryParameter(@Nullable String query) {
+        if (query == null || query.isEmpty() || query.equalsIgnoreCase("offset")) {
+            return false;
+        }
+
+        if (query.equalsIgnoreCase("keyset")) {
+            return true;
+        }
+
+        throw new IllegalArgumentException("Invalid pagination parameter provided.");
+    }
+
+    @Nullable
+    public KeysetCursor parseCursorQueryParameter(@Nullable String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+
+        return KeysetCursor.decode(query);
+    }
+
+    public CountMode parseCountModeQueryParameter(@Nullable String query) {
+        if (query == null || query.isEmpty()) {
+            return CountMode.EXACT;
+        }
+
+        try {
+            return CountMode.valueOf(query.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid count parameter provided.", e);
+        }
+    }
+
 }
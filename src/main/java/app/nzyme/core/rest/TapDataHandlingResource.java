@@ -18,37 +18,25 @@ public class TapDataHandlingResource extends UserAuthenticatedResource {
     protected final List<UUID> parseAndValidateTapIds(AuthenticatedUser requestingUser,
                                                       NzymeNode nzyme,
                                                       String queryParamDataCsv) {
-        List<UUID> userAccessibleTaps = nzyme.getTapManager().allTapUUIDsAccessibleByUser(requestingUser);
-
         if (Strings.isNullOrEmpty(queryParamDataCsv)) {
             return Lists.newArrayList();
         }
 
         if (queryParamDataCsv.equals("*")) {
-            return userAccessibleTaps;
+            return nzyme.getTapManager().allTapUUIDsAccessibleByUser(requestingUser);
         }
 
-        return parseAndValidateTapIds(
-                requestingUser, Splitter.on(",").splitToList(queryParamDataCsv), userAccessibleTaps
-        );
+        return parseAndValidateTapIds(requestingUser, nzyme, Splitter.on(",").splitToList(queryParamDataCsv));
     }
 
     protected List<UUID> parseAndValidateTapIds(AuthenticatedUser requestingUser,
                                               NzymeNode nzyme,
                                               List<String> tapIds) {
-        return parseAndValidateTapIds(
-                requestingUser, tapIds, nzyme.getTapManager().allTapUUIDsAccessibleByUser(requestingUser)
-        );
-    }
-
-    private List<UUID> parseAndValidateTapIds(AuthenticatedUser requestingUser,
-                                              List<String> tapIds,
-                                              List<UUID> userAccessibleTaps) {
         List<UUID> uuids = Lists.newArrayList();
         for (String id : tapIds) {
             UUID tapUuid = UUID.fromString(id);
 
-            if (userAccessibleTaps.contains(tapUuid)) {
+            if (nzyme.getTapManager().isTapAccessibleByUser(requestingUser, tapUuid)) {
                 uuids.add(tapUuid);
             } else {
                 LOG.warn("User [{}] requested data from tap <{}> but they are not allowed to access it. Skipping.",
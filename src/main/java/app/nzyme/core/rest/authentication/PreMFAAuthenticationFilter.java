@@ -18,7 +18,6 @@ import org.apache.logging.log4j.Logger;
 import org.glassfish.grizzly.http.server.Request;
 
 import java.io.IOException;
-import java.net.InetAddress;
 import java.security.Principal;
 import java.util.Optional;
 
@@ -81,12 +80,7 @@ public class PreMFAAuthenticationFilter implements ContainerRequestFilter {
             }
 
             // Authenticated. Set last activity information.
-            nzyme.getAuthenticationService().updateLastUserActivity(
-                    user.get().uuid(),
-                    remoteIp,
-                    nzyme.getGeoIpService().lookup(InetAddress.getByName(remoteIp))
-                            .orElse(null)
-            );
+            nzyme.getAuthenticationService().recordUserActivity(user.get().uuid(), remoteIp);
 
             // Set new security context for later use in resources.
             final SecurityContext currentSecurityContext = requestContext.getSecurityContext();
@@ -20,9 +20,11 @@ package app.nzyme.core.rest.authentication;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.security.authentication.db.UserEntry;
 import app.nzyme.core.security.sessions.db.SessionEntry;
+import app.nzyme.core.util.MetricNames;
 import app.nzyme.plugin.Subsystem;
 import app.nzyme.plugin.rest.security.PermissionLevel;
 import app.nzyme.plugin.rest.security.RESTSecured;
+import com.codahale.metrics.Timer;
 import com.google.common.net.HttpHeaders;
 import jakarta.annotation.Priority;
 import jakarta.ws.rs.Priorities;
@@ -40,7 +42,6 @@ import org.glassfish.grizzly.http.server.Request;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.net.InetAddress;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.List;
@@ -54,6 +55,7 @@ public class RESTAuthenticationFilter implements ContainerRequestFilter {
     private static final Logger LOG = LogManager.getLogger(RESTAuthenticationFilter.class);
 
     private final NzymeNode nzyme;
+    private final Timer timer;
 
     @Context
     ResourceInfo resourceInfo;
@@ -65,10 +67,17 @@ public class RESTAuthenticationFilter implements ContainerRequestFilter {
 
     public RESTAuthenticationFilter(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.timer = nzyme.getMetrics().timer(MetricNames.REST_AUTHENTICATION_FILTER_TIMER);
     }
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
+        try (Timer.Context ignored = timer.time()) {
+            authenticate(requestContext);
+        }
+    }
+
+    private void authenticate(ContainerRequestContext requestContext) throws IOException {
         Method resourceMethod = resourceInfo.getResourceMethod();
         Class resourceClass = resourceInfo.getResourceClass();
 
@@ -121,13 +130,13 @@ public class RESTAuthenticationFilter implements ContainerRequestFilter {
             String sessionId = authorizationHeader.substring(AUTHENTICATION_SCHEME.length()).trim();
 
             // Check if session exists.
-            Optional<SessionEntry> session = nzyme.getAuthenticationService().findSessionWithOrWithoutPassedMFABySessionId(sessionId);
+            Optional<SessionEntry> session = nzyme.getAuthenticationService().findSessionWithOrWithoutPassedMFABySessionIdCached(sessionId);
             if (session.isEmpty()) {
                 abortWithUnauthorized(requestContext);
                 return;
             }
 
-            Optional<UserEntry> user = nzyme.getAuthenticationService().findUserById(session.get().userId());
+            Optional<UserEntry> user = nzyme.getAuthenticationService().findUserByIdCached(session.get().userId());
 
             if (user.isEmpty()) {
                 LOG.error("Session referenced user that doesn't exist. Aborting.");
@@ -211,7 +220,7 @@ public class RESTAuthenticationFilter implements ContainerRequestFilter {
 
             // Check if we also need a feature permission.
             if (requiredFeaturePermissions.isPresent() && !user.get().isOrganizationAdmin() && !user.get().isSuperAdmin()) {
-                List<String> userPermissions = nzyme.getAuthenticationService().findPermissionsOfUser(user.get().uuid());
+                List<String> userPermissions = nzyme.getAuthenticationService().findPermissionsOfUserCached(user.get().uuid());
                 for (String requiredPermission : requiredFeaturePermissions.get()) {
                     if(!userPermissions.contains(requiredPermission)) {
                         LOG.warn("User <{}> requested resource [/{}] which requires missing feature permission [{}].",
@@ -223,12 +232,7 @@ public class RESTAuthenticationFilter implements ContainerRequestFilter {
             }
 
             // Authenticated. Set last activity information.
-            nzyme.getAuthenticationService().updateLastUserActivity(
-                    user.get().uuid(),
-                    remoteIp,
-                    nzyme.getGeoIpService().lookup(InetAddress.getByName(remoteIp))
-                            .orElse(null)
-            );
+            nzyme.getAuthenticationService().recordUserActivity(user.get().uuid(), remoteIp);
 
             // Set new security context for later use in resources.
             final SecurityContext currentSecurityContext = requestContext.getSecurityContext();
@@ -6,6 +6,8 @@ import com.google.auto.value.AutoValue;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 
+import javax.annotation.Nullable;
+
 import java.util.Map;
 import java.util.UUID;
 
@@ -24,16 +26,21 @@ public abstract class SimulateDiscoDetectionConfigRequest {
     @NotNull
     public abstract Map<String, Object> configuration();
 
+    @Nullable
+    public abstract Integer historyDays();
+
     @JsonCreator
     public static SimulateDiscoDetectionConfigRequest create(@JsonProperty("monitored_network_id") UUID monitoredNetworkId,
                                                              @JsonProperty("tap_id") UUID tapId,
                                                              @JsonProperty("method_type") String methodType,
-                                                             @JsonProperty("configuration") Map<String, Object> configuration) {
+                                                             @JsonProperty("configuration") Map<String, Object> configuration,
+                                                             @JsonProperty("history_days") @Nullable Integer historyDays) {
         return builder()
                 .monitoredNetworkId(monitoredNetworkId)
                 .tapId(tapId)
                 .methodType(methodType)
                 .configuration(configuration)
+                .historyDays(historyDays)
                 .build();
     }
 
@@ -51,6 +58,8 @@ public abstract class SimulateDiscoDetectionConfigRequest {
 
         public abstract SimulateDiscoDetectionConfigRequest.Builder configuration(Map<String, Object> configuration);
 
+        public abstract SimulateDiscoDetectionConfigRequest.Builder historyDays(Integer historyDays);
+
         public abstract SimulateDiscoDetectionConfigRequest build();
     }
 
@@ -8,9 +8,11 @@ import app.nzyme.core.dot11.db.BSSIDPairFrameCount;
 import app.nzyme.core.dot11.db.DiscoHistogramEntry;
 import app.nzyme.core.dot11.db.monitoring.MonitoredBSSID;
 import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
 import app.nzyme.core.dot11.monitoring.disco.db.Dot11DiscoMonitorMethodConfiguration;
 import app.nzyme.core.dot11.monitoring.disco.monitormethods.DiscoMonitorFactory;
 import app.nzyme.core.dot11.monitoring.disco.monitormethods.DiscoMonitorMethodType;
+import app.nzyme.core.dot11.monitoring.disco.monitormethods.Dot11DiscoMonitorMethod;
 import app.nzyme.core.rest.TapDataHandlingResource;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.requests.SimulateDiscoDetectionConfigRequest;
@@ -59,6 +61,8 @@ public class Dot11DiscoResource extends TapDataHandlingResource {
 
     private static final Logger LOG = LogManager.getLogger(TapDataHandlingResource.class);
 
+    private static final int MAXIMUM_SIMULATION_HISTORY_DAYS = 28;
+
     private enum ListType {
         SENDERS,
         RECEIVERS,
@@ -392,20 +396,48 @@ public class Dot11DiscoResource extends TapDataHandlingResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(tap.get().uuid())) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, tap.get().uuid())) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        DiscoMonitorMethodType type;
+        Dot11DiscoMonitorMethod method;
         try {
-            type = DiscoMonitorMethodType.valueOf(req.methodType());
+            method = DiscoMonitorFactory.build(
+                    DiscoMonitorMethodType.valueOf(req.methodType()),
+                    monitoredNetwork.get(),
+                    req.configuration()
+            );
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
 
-        List<Dot11DiscoMonitorAnomalyDetailsResponse> anomalies = DiscoMonitorFactory
-                .build(nzyme, type, monitoredNetwork.get(), req.configuration())
-                .execute(tap.get())
+        int historyDays = req.historyDays() == null ? 1 : req.historyDays();
+        if (historyDays < 1 || historyDays > MAXIMUM_SIMULATION_HISTORY_DAYS) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        List<String> bssids = Lists.newArrayList();
+        for (MonitoredBSSID bssid : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(monitoredNetwork.get().id())) {
+            bssids.add(bssid.bssid());
+        }
+
+        // Fetch the simulated range plus the history the method needs as one dense minute series.
+        DateTime to = DateTime.now();
+        DateTime from = to.minusMinutes(historyDays * 24 * 60 + method.historyMinutes() - 1);
+        DiscoSeries series = DiscoSeries.fromHistogram(
+                nzyme.getDot11().getDiscoHistogram(
+                        Dot11.DiscoType.DISCONNECTION,
+                        TimeRange.create(from, to, false),
+                        Bucketing.BucketingConfiguration.create(Bucketing.Type.MINUTE),
+                        tap.get().uuid(),
+                        bssids
+                ),
+                from,
+                to
+        );
+
+        List<Dot11DiscoMonitorAnomalyDetailsResponse> anomalies = method
+                .calculate(series, Math.min(method.historyMinutes(), series.size()))
                 .stream()
                 .map(a -> Dot11DiscoMonitorAnomalyDetailsResponse.create(a.timestamp(), a.frameCount()))
                 .collect(Collectors.toList());
@@ -2,6 +2,9 @@ package app.nzyme.core.rest.resources.dot11;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.context.db.MacAddressContextEntry;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.dot11.Dot11;
 import app.nzyme.core.dot11.Dot11RegistryKeys;
@@ -69,12 +72,26 @@ public class Dot11NetworksResource extends TapDataHandlingResource {
                            @QueryParam("offset") int offset,
                            @QueryParam("order_column") @Nullable String orderColumnParam,
                            @QueryParam("order_direction") @Nullable String orderDirectionParam,
+                           @QueryParam("pagination") @Nullable String paginationParam,
+                           @QueryParam("cursor") @Nullable String cursorParam,
+                           @QueryParam("count") @Nullable String countParam,
                            @QueryParam("taps") String taps) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
         List<UUID> tapUuids = parseAndValidateTapIds(authenticatedUser, nzyme, taps);
         TimeRange timeRange = parseTimeRangeQueryParameter(timeRangeParameter);
         Filters filters = parseFiltersQueryParameter(filtersParameter);
 
+        boolean keyset;
+        KeysetCursor cursor;
+        CountMode countMode;
+        try {
+            keyset = isKeysetPaginationQueryParameter(paginationParam);
+            cursor = parseCursorQueryParameter(cursorParam);
+            countMode = parseCountModeQueryParameter(countParam);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
         Dot11.BssidOrderColumn orderColumn = Dot11.BssidOrderColumn.SIGNAL_STRENGTH_AVERAGE;
         OrderDirection orderDirection = OrderDirection.DESC;
         if (orderColumnParam != null && orderDirectionParam != null) {
@@ -86,16 +103,30 @@ public class Dot11NetworksResource extends TapDataHandlingResource {
             }
         }
 
+        long total = nzyme.getDot11().countBSSIDs(timeRange, filters, tapUuids, countMode);
+
+        List<BSSIDSummary> page;
+        KeysetCursor nextCursor = null;
+        if (keyset) {
+            KeysetPage<BSSIDSummary> keysetPage;
+            try {
+                keysetPage = nzyme.getDot11().findBSSIDsPage(
+                        timeRange, filters, orderColumn, orderDirection, limit, cursor, tapUuids
+                );
+            } catch (IllegalArgumentException e) {
+                // Cursor does not match the order column or limit is smaller than 1.
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            page = keysetPage.items();
+            nextCursor = keysetPage.nextCursor();
+        } else {
+            page = nzyme.getDot11().findBSSIDs(
+                    timeRange, filters, orderColumn, orderDirection, limit, offset, tapUuids
+            );
+        }
+
         List<BSSIDSummaryDetailsResponse> bssids = Lists.newArrayList();
-        long total = nzyme.getDot11().countBSSIDs(timeRange, filters, tapUuids);
-        for (BSSIDSummary bssid : nzyme.getDot11().findBSSIDs(
-                timeRange,
-                filters,
-                orderColumn,
-                orderDirection,
-                limit,
-                offset,
-                tapUuids)) {
+        for (BSSIDSummary bssid : page) {
             Optional<MacAddressContextEntry> bssidContext = nzyme.getContextService().findMacAddressContext(
                     bssid.bssid(),
                     authenticatedUser.getOrganizationId(),
@@ -126,7 +157,12 @@ public class Dot11NetworksResource extends TapDataHandlingResource {
             ));
         }
 
-        return Response.ok(BSSIDListResponse.create(total, bssids)).build();
+        return Response.ok(BSSIDListResponse.create(
+                total,
+                countMode == CountMode.ESTIMATED,
+                bssids,
+                nextCursor == null ? null : nextCursor.encode()
+        )).build();
     }
 
     @GET
@@ -615,7 +651,7 @@ public class Dot11NetworksResource extends TapDataHandlingResource {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
         // Check if user has access to this tap.
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(req.tapId())) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, req.tapId())) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -8,6 +8,9 @@ import app.nzyme.core.assets.db.AssetHostnameEntry;
 import app.nzyme.core.assets.db.AssetIpAddressEntry;
 import app.nzyme.core.context.db.MacAddressContextEntry;
 import app.nzyme.core.context.db.MacAddressTransparentContextEntry;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.rest.TapDataHandlingResource;
 import app.nzyme.core.rest.requests.GenericConfigurationUpdateRequest;
@@ -58,7 +61,10 @@ public class AssetsResource extends TapDataHandlingResource {
                               @QueryParam("order_column") @Nullable String orderColumnParam,
                               @QueryParam("order_direction") @Nullable String orderDirectionParam,
                               @QueryParam("limit") int limit,
-                              @QueryParam("offset") int offset) {
+                              @QueryParam("offset") int offset,
+                              @QueryParam("pagination") @Nullable String paginationParam,
+                              @QueryParam("cursor") @Nullable String cursorParam,
+                              @QueryParam("count") @Nullable String countParam) {
         TimeRange timeRange = parseTimeRangeQueryParameter(timeRangeParameter);
         Filters filters = parseFiltersQueryParameter(filtersParameter);
 
@@ -66,6 +72,17 @@ public class AssetsResource extends TapDataHandlingResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
+        boolean keyset;
+        KeysetCursor cursor;
+        CountMode countMode;
+        try {
+            keyset = isKeysetPaginationQueryParameter(paginationParam);
+            cursor = parseCursorQueryParameter(cursorParam);
+            countMode = parseCountModeQueryParameter(countParam);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
         AssetManager.OrderColumn orderColumn = AssetManager.OrderColumn.LAST_SEEN;
         OrderDirection orderDirection = OrderDirection.DESC;
         if (orderColumnParam != null && orderDirectionParam != null) {
@@ -77,11 +94,29 @@ public class AssetsResource extends TapDataHandlingResource {
             }
         }
 
-        long total = nzyme.getAssetsManager().countAssets(timeRange, filters, organizationId, tenantId);
+        long total = nzyme.getAssetsManager().countAssets(timeRange, filters, organizationId, tenantId, countMode);
+
+        List<AssetEntry> page;
+        KeysetCursor nextCursor = null;
+        if (keyset) {
+            KeysetPage<AssetEntry> keysetPage;
+            try {
+                keysetPage = nzyme.getAssetsManager().findAssetsPage(
+                        organizationId, tenantId, timeRange, filters, limit, cursor, orderColumn, orderDirection
+                );
+            } catch (IllegalArgumentException e) {
+                // Cursor does not match the order column or limit is smaller than 1.
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            page = keysetPage.items();
+            nextCursor = keysetPage.nextCursor();
+        } else {
+            page = nzyme.getAssetsManager()
+                    .findAllAssets(organizationId, tenantId, timeRange, filters, limit, offset, orderColumn, orderDirection);
+        }
 
         List<AssetSummaryResponse> assets = Lists.newArrayList();
-        for (AssetEntry asset : nzyme.getAssetsManager()
-                .findAllAssets(organizationId, tenantId, timeRange, filters, limit, offset, orderColumn, orderDirection)) {
+        for (AssetEntry asset : page) {
 
             Optional<MacAddressContextEntry> context = nzyme.getContextService().findMacAddressContext(
                     asset.mac(), organizationId, tenantId
@@ -119,7 +154,12 @@ public class AssetsResource extends TapDataHandlingResource {
             ));
         }
 
-        return Response.ok(AssetSummariesListResponse.create(total, assets)).build();
+        return Response.ok(AssetSummariesListResponse.create(
+                total,
+                countMode == CountMode.ESTIMATED,
+                assets,
+                nextCursor == null ? null : nextCursor.encode()
+        )).build();
     }
 
     @GET
@@ -1,6 +1,9 @@
 package app.nzyme.core.rest.resources.ethernet;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.generic.DateTimeNumberAggregationResult;
 import app.nzyme.core.ethernet.L4Type;
 import app.nzyme.core.ethernet.dns.DNSTransaction;
@@ -18,6 +21,7 @@ import app.nzyme.plugin.rest.security.PermissionLevel;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import app.nzyme.plugin.rest.security.RESTSecured;
+import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import org.joda.time.DateTime;
@@ -223,6 +227,9 @@ public class DNSResource extends TapDataHandlingResource {
                                    @QueryParam("filters") String filtersParameter,
                                    @QueryParam("limit") int limit,
                                    @QueryParam("offset") int offset,
+                                   @QueryParam("pagination") @Nullable String paginationParam,
+                                   @QueryParam("cursor") @Nullable String cursorParam,
+                                   @QueryParam("count") @Nullable String countParam,
                                    @QueryParam("taps") String tapIds) {
         List<UUID> taps = parseAndValidateTapIds(getAuthenticatedUser(sc), nzyme, tapIds);
 
@@ -233,11 +240,37 @@ public class DNSResource extends TapDataHandlingResource {
         TimeRange timeRange = parseTimeRangeQueryParameter(timeRangeParameter);
         Filters filters = parseFiltersQueryParameter(filtersParameter);
 
-        long total = nzyme.getEthernet().dns().countAllQueries(timeRange, filters, taps);
+        boolean keyset;
+        KeysetCursor cursor;
+        CountMode countMode;
+        try {
+            keyset = isKeysetPaginationQueryParameter(paginationParam);
+            cursor = parseCursorQueryParameter(cursorParam);
+            countMode = parseCountModeQueryParameter(countParam);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        long total = nzyme.getEthernet().dns().countAllQueries(timeRange, filters, taps, countMode);
+
+        List<DNSLogEntry> page;
+        KeysetCursor nextCursor = null;
+        if (keyset) {
+            KeysetPage<DNSLogEntry> keysetPage;
+            try {
+                keysetPage = nzyme.getEthernet().dns().findQueriesPage(timeRange, filters, limit, cursor, taps);
+            } catch (IllegalArgumentException e) {
+                // Cursor does not match the order column or limit is smaller than 1.
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            page = keysetPage.items();
+            nextCursor = keysetPage.nextCursor();
+        } else {
+            page = nzyme.getEthernet().dns().findAllQueries(timeRange, filters, limit, offset, taps);
+        }
 
         List<DNSLogEntryResponse> transactions = Lists.newArrayList();
-        for (DNSLogEntry q : nzyme.getEthernet().dns()
-                .findAllQueries(timeRange, filters, limit, offset, taps)) {
+        for (DNSLogEntry q : page) {
             DNSLogDataResponse query = logToResponse(organizationId, tenantId, q);
 
             transactions.add(DNSLogEntryResponse.create(query));
@@ -245,7 +278,12 @@ public class DNSResource extends TapDataHandlingResource {
 
         transactions.sort((o1, o2) -> o2.query().timestamp().compareTo(o1.query().timestamp()));
 
-        return Response.ok(DNSLogListResponse.create(total, transactions)).build();
+        return Response.ok(DNSLogListResponse.create(
+                total,
+                countMode == CountMode.ESTIMATED,
+                transactions,
+                nextCursor == null ? null : nextCursor.encode()
+        )).build();
     }
 
     @GET
@@ -318,7 +356,8 @@ public class DNSResource extends TapDataHandlingResource {
                 log.dataType(),
                 log.dnsType(),
                 log.timestamp(),
-                log.createdAt()
+                log.createdAt(),
+                log.count()
         );
     }
 
@@ -3,6 +3,9 @@ package app.nzyme.core.rest.resources.ethernet;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.assets.db.AssetEntry;
 import app.nzyme.core.context.db.MacAddressContextEntry;
+import app.nzyme.core.database.CountMode;
+import app.nzyme.core.database.KeysetCursor;
+import app.nzyme.core.database.KeysetPage;
 import app.nzyme.core.database.OrderDirection;
 import app.nzyme.core.database.generic.L4AddressDataAddressNumberNumberAggregationResult;
 import app.nzyme.core.database.generic.NumberNumberNumberAggregationResult;
@@ -62,11 +65,25 @@ public class L4Resource extends TapDataHandlingResource  {
                                 @QueryParam("offset") int offset,
                                 @QueryParam("order_column") @Nullable String orderColumnParam,
                                 @QueryParam("order_direction") @Nullable String orderDirectionParam,
+                                @QueryParam("pagination") @Nullable String paginationParam,
+                                @QueryParam("cursor") @Nullable String cursorParam,
+                                @QueryParam("count") @Nullable String countParam,
                                 @QueryParam("taps") String tapIds) {
         List<UUID> taps = parseAndValidateTapIds(getAuthenticatedUser(sc), nzyme, tapIds);
         TimeRange timeRange = parseTimeRangeQueryParameter(timeRangeParameter);
         Filters filters = parseFiltersQueryParameter(filtersParameter);
 
+        boolean keyset;
+        KeysetCursor cursor;
+        CountMode countMode;
+        try {
+            keyset = isKeysetPaginationQueryParameter(paginationParam);
+            cursor = parseCursorQueryParameter(cursorParam);
+            countMode = parseCountModeQueryParameter(countParam);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
         if (!passedTenantDataAccessible(sc, organizationId, tenantId)) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -82,15 +99,41 @@ public class L4Resource extends TapDataHandlingResource  {
             }
         }
 
-        long total = nzyme.getEthernet().l4().countAllSessions(timeRange, filters, taps);
+        if (keyset && !orderColumn.supportsKeyset()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        long total = nzyme.getEthernet().l4().countAllSessions(timeRange, filters, taps, countMode);
+
+        List<L4Session> page;
+        KeysetCursor nextCursor = null;
+        if (keyset) {
+            KeysetPage<L4Session> keysetPage;
+            try {
+                keysetPage = nzyme.getEthernet().l4()
+                        .findSessionsPage(timeRange, filters, limit, cursor, orderColumn, orderDirection, taps);
+            } catch (IllegalArgumentException e) {
+                // Cursor does not match the order column or limit is smaller than 1.
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            page = keysetPage.items();
+            nextCursor = keysetPage.nextCursor();
+        } else {
+            page = nzyme.getEthernet().l4()
+                    .findAllSessions(timeRange, filters, limit, offset, orderColumn, orderDirection, taps);
+        }
 
         List<L4SessionDetailsResponse> sessions = Lists.newArrayList();
-        for (L4Session session : nzyme.getEthernet().l4()
-                .findAllSessions(timeRange, filters, limit, offset, orderColumn, orderDirection, taps)) {
+        for (L4Session session : page) {
             sessions.add(buildSessionDetailsResponse(organizationId, tenantId, session));
         }
 
-        return Response.ok(L4SessionsListResponse.create(total, sessions)).build();
+        return Response.ok(L4SessionsListResponse.create(
+                total,
+                countMode == CountMode.ESTIMATED,
+                sessions,
+                nextCursor == null ? null : nextCursor.encode()
+        )).build();
     }
 
     @GET
@@ -49,6 +49,9 @@ import java.util.UUID;
 @RESTSecured(PermissionLevel.ANY)
 public class GNSSResource extends TapDataHandlingResource {
 
+    private static final int MAXIMUM_MAP_ZOOM = 22;
+    private static final int MAXIMUM_DENSITY_BINS = 25_000;
+
     @Inject
     private NzymeNode nzyme;
 
@@ -74,22 +77,45 @@ public class GNSSResource extends TapDataHandlingResource {
             coordinates.add(LatLonResponse.create(coords.lat(), coords.lon()));
         }
 
-        // Tap locations.
-        List<GNSSTapLocationResponse> tapLocations = Lists.newArrayList();
-        for (UUID tapUuid : taps) {
-            Optional<Tap> tap = nzyme.getTapManager().findTap(tapUuid);
-            if (tap.isPresent() && tap.get().latitude() != null && tap.get().longitude() != null
-                    && tap.get().latitude() != 0 && tap.get().longitude() != 0) {
-                tapLocations.add(GNSSTapLocationResponse.create(
-                        tap.get().latitude(),
-                        tap.get().longitude(),
-                        Tools.isTapActive(tap.get().lastReport()),
-                        tap.get().name()
-                ));
-            }
+        return Response.ok(GNSSConstellationCoordinatesResponse.create(coordinates, buildTapLocations(taps))).build();
+    }
+
+    @GET
+    @Path("/constellations/{constellation}/coordinates/density")
+    public Response constellationCoordinatesDensity(@Context SecurityContext sc,
+                                                    @PathParam("constellation") String constellationParam,
+                                                    @QueryParam("time_range") @Valid String timeRangeParameter,
+                                                    @QueryParam("zoom") int zoom,
+                                                    @QueryParam("taps") String tapIds) {
+        List<UUID> taps = parseAndValidateTapIds(getAuthenticatedUser(sc), nzyme, tapIds);
+        TimeRange timeRange = parseTimeRangeQueryParameter(timeRangeParameter);
+
+        Constellation constellation;
+        try {
+            constellation = Constellation.valueOf(constellationParam);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        if (zoom < 0 || zoom > MAXIMUM_MAP_ZOOM) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        /*
+         * One cell for every 8x8 pixels of a 256 pixel map tile. Positions are stored with five decimal places, so
+         * cells can't be smaller than 0.00001 degrees.
+         */
+        int cellSizeE5 = (int) Math.max(1, Math.round(1_125_000.0 / (1L << zoom)));
+
+        List<GNSSPositionDensityBinResponse> bins = Lists.newArrayList();
+        for (GNSSPositionDensityBin bin : nzyme.getGnss()
+                .getPositionDensity(constellation, timeRange, cellSizeE5, MAXIMUM_DENSITY_BINS, taps)) {
+            bins.add(GNSSPositionDensityBinResponse.create(bin.lat(), bin.lon(), bin.count()));
         }
 
-        return Response.ok(GNSSConstellationCoordinatesResponse.create(coordinates, tapLocations)).build();
+        return Response.ok(GNSSPositionDensityResponse.create(
+                cellSizeE5 / 100_000.0, bins, buildTapLocations(taps)
+        )).build();
     }
 
     @GET
@@ -631,4 +657,22 @@ public class GNSSResource extends TapDataHandlingResource {
         );
     }
 
+    private List<GNSSTapLocationResponse> buildTapLocations(List<UUID> taps) {
+        List<GNSSTapLocationResponse> tapLocations = Lists.newArrayList();
+        for (UUID tapUuid : taps) {
+            Optional<Tap> tap = nzyme.getTapManager().findTap(tapUuid);
+            if (tap.isPresent() && tap.get().latitude() != null && tap.get().longitude() != null
+                    && tap.get().latitude() != 0 && tap.get().longitude() != 0) {
+                tapLocations.add(GNSSTapLocationResponse.create(
+                        tap.get().latitude(),
+                        tap.get().longitude(),
+                        Tools.isTapActive(tap.get().lastReport()),
+                        tap.get().name()
+                ));
+            }
+        }
+
+        return tapLocations;
+    }
+
 }
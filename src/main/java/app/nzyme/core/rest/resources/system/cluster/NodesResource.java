@@ -7,6 +7,7 @@ import app.nzyme.core.distributed.NodeRegistryKeys;
 import app.nzyme.core.distributed.database.metrics.GaugeHistogramBucket;
 import app.nzyme.core.distributed.MetricExternalName;
 import app.nzyme.core.monitoring.TimerEntry;
+import app.nzyme.core.monitoring.timeseries.MetricsStore;
 import app.nzyme.core.rest.requests.NodesConfigurationUpdateRequest;
 import app.nzyme.core.rest.responses.metrics.GaugeResponse;
 import app.nzyme.core.rest.responses.metrics.TimerResponse;
@@ -111,7 +112,9 @@ public class NodesResource {
 
     @GET
     @Path("/show/{uuid}/metrics/gauges/{metricname}/histogram")
-    public Response findMetricsGaugeHistogram(@PathParam("uuid") String uuid, @PathParam("metricname") String n) {
+    public Response findMetricsGaugeHistogram(@PathParam("uuid") String uuid,
+                                              @PathParam("metricname") String n,
+                                              @QueryParam("hours") Integer hours) {
         MetricExternalName metricName;
         UUID nodeId;
 
@@ -129,8 +132,9 @@ public class NodesResource {
             return Response.status(Response.Status.FORBIDDEN).build();
         }
 
+        int histogramHours = MetricsStore.sanitizeHistogramHours(hours);
         Optional<Map<DateTime, GaugeHistogramBucket>> histo = nzyme.getNodeManager().findMetricsHistogram(
-                nodeId, metricName.database_label, 24, BucketSize.MINUTE
+                nodeId, metricName.database_label, histogramHours, MetricsStore.histogramBucketSize(histogramHours)
         );
 
         if (histo.isEmpty()) {
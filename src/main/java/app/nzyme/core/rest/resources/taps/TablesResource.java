@@ -33,6 +33,7 @@ import app.nzyme.core.rest.resources.taps.reports.tables.uav.UavsReport;
 import app.nzyme.core.rest.resources.taps.reports.tables.udp.UdpConversationsReport;
 import app.nzyme.plugin.Subsystem;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -44,6 +45,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
 
+import java.util.Optional;
+
 @Path("/api/taps/tables")
 @TapSecured
 @Produces(MediaType.APPLICATION_JSON)
@@ -51,6 +54,13 @@ public class TablesResource {
 
     private static final Logger LOG = LogManager.getLogger(StatusResource.class);
 
+    /*
+     * Optional ID of a report, unique per tap and table. Taps that send it can safely resubmit reports after
+     * timeouts or errors, because already written reports are skipped.
+     */
+    public static final String REPORT_ID_HEADER = "X-Nzyme-Report-ID";
+    private static final int MAXIMUM_REPORT_ID_LENGTH = 64;
+
     @Inject
     private NzymeNode nzyme;
 
@@ -61,57 +71,85 @@ public class TablesResource {
 
     @POST
     @Path("/dot11/summary")
-    public Response dot11Summary(@Context SecurityContext sc, Dot11TablesReport report) {
+    public Response dot11Summary(@Context SecurityContext sc,
+                                 @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                 Dot11TablesReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.DOT11, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting 802.11 summary report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received 802.11 summary report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().dot11().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().dot11().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/bluetooth/devices")
-    public Response bluetoothDevices(@Context SecurityContext sc, BluetoothDevicesReport report) {
+    public Response bluetoothDevices(@Context SecurityContext sc,
+                                     @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                     BluetoothDevicesReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.BLUETOOTH, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting Bluetooth devices report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received Bluetooth devices report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().bluetooth().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().bluetooth().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/tcp/sessions")
-    public Response tcpSessions(@Context SecurityContext sc, TcpSessionsReport report) {
+    public Response tcpSessions(@Context SecurityContext sc,
+                                @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                TcpSessionsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting TCP sessions report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received TCP session table report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().tcp().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().tcp().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/udp/conversations")
-    public Response udpConversations(@Context SecurityContext sc, UdpConversationsReport report) {
+    public Response udpConversations(@Context SecurityContext sc,
+                                     @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                     UdpConversationsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting UDP conversations report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
@@ -120,121 +158,178 @@ public class TablesResource {
         LOG.debug("Received UDP conversations table report from tap [{}]: {}", tap.getUuid(), report);
 
         // Store in combined TCP/UDP table.
-        nzyme.getTablesService().udp().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().udp().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/dns/summary")
-    public Response dnsSummary(@Context SecurityContext sc, DnsTablesReport report) {
+    public Response dnsSummary(@Context SecurityContext sc,
+                               @HeaderParam(REPORT_ID_HEADER) String reportId,
+                               DnsTablesReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting DNS summary report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received DNS summary report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().dns().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().dns().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/ssh/sessions")
-    public Response sshSessions(@Context SecurityContext sc, SshSessionsReport report) {
+    public Response sshSessions(@Context SecurityContext sc,
+                                @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                SshSessionsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting SSH sessions report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received SSH sessions report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().ssh().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().ssh().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/socks/tunnels")
-    public Response socksTunnels(@Context SecurityContext sc, SocksTunnelsReport report) {
+    public Response socksTunnels(@Context SecurityContext sc,
+                                 @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                 SocksTunnelsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting SOCKS tunnels report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received SOCKS tunnels report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().socks().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().socks().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/uav/uavs")
-    public Response uavUavs(@Context SecurityContext sc, UavsReport report) {
+    public Response uavUavs(@Context SecurityContext sc,
+                            @HeaderParam(REPORT_ID_HEADER) String reportId,
+                            UavsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.UAV, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting UAVs report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received UAVs report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().uav().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().uav().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/dhcp/transactions")
-    public Response dhcpTransactions(@Context SecurityContext sc, DhcpTransactionsReport report) {
+    public Response dhcpTransactions(@Context SecurityContext sc,
+                                     @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                     DhcpTransactionsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting DHCP transactions report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received DHCP transactions report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().dhcp().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().dhcp().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/arp/packets")
-    public Response arpPackets(@Context SecurityContext sc, ArpPacketsReport report) {
+    public Response arpPackets(@Context SecurityContext sc,
+                               @HeaderParam(REPORT_ID_HEADER) String reportId,
+                               ArpPacketsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.ETHERNET, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting ARP packets report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received ARP packets report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().arp().handleReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().arp().handleReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
     @POST
     @Path("/gnss/constellations")
-    public Response gnssConstellations(@Context SecurityContext sc, GNSSConstellationsReport report) {
+    public Response gnssConstellations(@Context SecurityContext sc,
+                                       @HeaderParam(REPORT_ID_HEADER) String reportId,
+                                       GNSSConstellationsReport report) {
         AuthenticatedTap tap = ((AuthenticatedTap) sc.getUserPrincipal());
 
+        Optional<Response> invalidReportId = validateReportId(reportId);
+        if (invalidReportId.isPresent()) {
+            return invalidReportId.get();
+        }
+
         if (!nzyme.getSubsystems().isEnabled(Subsystem.GNSS, tap.getOrganizationId(), tap.getTenantId())) {
             LOG.debug("Rejecting GNSS constellations report from tap [{}]: Subsystem is disabled.", tap.getUuid());
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
         LOG.debug("Received GNSS constellations report from tap [{}]: {}", tap.getUuid(), report);
-        nzyme.getTablesService().gnss().handleConstellationsReport(tap.getUuid(), DateTime.now(), report);
+        nzyme.getTablesService().gnss().handleConstellationsReport(tap.getUuid(), DateTime.now(), reportId, report);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
+    private static Optional<Response> validateReportId(String reportId) {
+        if (reportId != null && reportId.length() > MAXIMUM_REPORT_ID_LENGTH) {
+            return Optional.of(Response.status(Response.Status.BAD_REQUEST).build());
+        }
+
+        return Optional.empty();
+    }
+
 }
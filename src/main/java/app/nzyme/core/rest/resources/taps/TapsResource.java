@@ -3,6 +3,7 @@ package app.nzyme.core.rest.resources.taps;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.floorplans.db.TenantLocationEntry;
 import app.nzyme.core.floorplans.db.TenantLocationFloorEntry;
+import app.nzyme.core.monitoring.timeseries.MetricsStore;
 import app.nzyme.core.rest.UserAuthenticatedResource;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.responses.taps.metrics.*;
@@ -99,7 +100,7 @@ public class TapsResource extends UserAuthenticatedResource {
     public Response findTap(@Context SecurityContext sc, @PathParam("uuid") UUID uuid) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(uuid)) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, uuid)) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -133,7 +134,7 @@ public class TapsResource extends UserAuthenticatedResource {
     public Response tapMetrics(@Context SecurityContext sc, @PathParam("uuid") UUID uuid) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(uuid)) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, uuid)) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -180,10 +181,11 @@ public class TapsResource extends UserAuthenticatedResource {
     @Path("/show/{uuid}/metrics/gauges/{metricName}/histogram")
     public Response tapMetricsGauge(@Context SecurityContext sc,
                                     @PathParam("uuid") UUID uuid,
-                                    @PathParam("metricName") String metricName) {
+                                    @PathParam("metricName") String metricName,
+                                    @QueryParam("hours") Integer hours) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(uuid)) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, uuid)) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -193,8 +195,9 @@ public class TapsResource extends UserAuthenticatedResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
+        int histogramHours = MetricsStore.sanitizeHistogramHours(hours);
         Optional<Map<DateTime, TapMetricsTimerHistogramAggregation>> histo = nzyme.getTapManager().findMetricsGaugeHistogram(
-                uuid, metricName, 24, BucketSize.MINUTE
+                uuid, metricName, histogramHours, MetricsStore.histogramBucketSize(histogramHours)
         );
 
         if (histo.isEmpty()) {
@@ -216,10 +219,11 @@ public class TapsResource extends UserAuthenticatedResource {
     @Path("/show/{uuid}/metrics/timers/{metricName}/histogram")
     public Response tapMetricsTimer(@Context SecurityContext sc,
                                     @PathParam("uuid") UUID uuid,
-                                    @PathParam("metricName") String metricName) {
+                                    @PathParam("metricName") String metricName,
+                                    @QueryParam("hours") Integer hours) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(uuid)) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, uuid)) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -229,8 +233,9 @@ public class TapsResource extends UserAuthenticatedResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
+        int histogramHours = MetricsStore.sanitizeHistogramHours(hours);
         Optional<Map<DateTime, TapMetricsTimerHistogramAggregation>> histo = nzyme.getTapManager().findMetricsTimerHistogram(
-                uuid, metricName, 24, BucketSize.MINUTE
+                uuid, metricName, histogramHours, MetricsStore.histogramBucketSize(histogramHours)
         );
 
         if (histo.isEmpty()) {
@@ -256,7 +261,7 @@ public class TapsResource extends UserAuthenticatedResource {
                                     @QueryParam("offset") int offset) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
-        if (!nzyme.getTapManager().allTapUUIDsAccessibleByUser(authenticatedUser).contains(uuid)) {
+        if (!nzyme.getTapManager().isTapAccessibleByUser(authenticatedUser, uuid)) {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
@@ -2,6 +2,7 @@ package app.nzyme.core.rest.responses.dot11;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotNull;
 
 import java.util.List;
@@ -13,13 +14,22 @@ public abstract class BSSIDListResponse {
     @NotNull
     public abstract Long total();
 
+    @JsonProperty("total_is_estimate")
+    public abstract boolean totalIsEstimate();
+
     @JsonProperty("bssids")
     public abstract List<BSSIDSummaryDetailsResponse> bssids();
 
-    public static BSSIDListResponse create(Long total, List<BSSIDSummaryDetailsResponse> bssids) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static BSSIDListResponse create(Long total, boolean totalIsEstimate, List<BSSIDSummaryDetailsResponse> bssids, String nextCursor) {
         return builder()
                 .total(total)
+                .totalIsEstimate(totalIsEstimate)
                 .bssids(bssids)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -31,8 +41,12 @@ public abstract class BSSIDListResponse {
     public abstract static class Builder {
         public abstract Builder total(Long total);
 
+        public abstract Builder totalIsEstimate(boolean totalIsEstimate);
+
         public abstract Builder bssids(List<BSSIDSummaryDetailsResponse> bssids);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract BSSIDListResponse build();
     }
 }
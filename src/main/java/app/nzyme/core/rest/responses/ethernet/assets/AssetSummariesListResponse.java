@@ -2,6 +2,7 @@ package app.nzyme.core.rest.responses.ethernet.assets;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
 
 import java.util.List;
 
@@ -11,13 +12,22 @@ public abstract class AssetSummariesListResponse {
     @JsonProperty("total")
     public abstract long total();
 
+    @JsonProperty("total_is_estimate")
+    public abstract boolean totalIsEstimate();
+
     @JsonProperty("assets")
     public abstract List<AssetSummaryResponse> assets();
 
-    public static AssetSummariesListResponse create(long total, List<AssetSummaryResponse> assets) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static AssetSummariesListResponse create(long total, boolean totalIsEstimate, List<AssetSummaryResponse> assets, String nextCursor) {
         return builder()
                 .total(total)
+                .totalIsEstimate(totalIsEstimate)
                 .assets(assets)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -29,8 +39,12 @@ public abstract class AssetSummariesListResponse {
     public abstract static class Builder {
         public abstract Builder total(long total);
 
+        public abstract Builder totalIsEstimate(boolean totalIsEstimate);
+
         public abstract Builder assets(List<AssetSummaryResponse> assets);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract AssetSummariesListResponse build();
     }
 }
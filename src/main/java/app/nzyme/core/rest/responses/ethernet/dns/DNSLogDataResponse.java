@@ -45,7 +45,10 @@ public abstract class DNSLogDataResponse {
     @JsonProperty("created_at")
     public abstract DateTime createdAt();
 
-    public static DNSLogDataResponse create(UUID uuid, UUID tapUUID, int transactionId, L4AddressResponse clientAddress, L4AddressResponse serverAddress, String dataValue, String dataValueEtld, String dataType, String dnsType, DateTime timestamp, DateTime createdAt) {
+    @JsonProperty("count")
+    public abstract long count();
+
+    public static DNSLogDataResponse create(UUID uuid, UUID tapUUID, int transactionId, L4AddressResponse clientAddress, L4AddressResponse serverAddress, String dataValue, String dataValueEtld, String dataType, String dnsType, DateTime timestamp, DateTime createdAt, long count) {
         return builder()
                 .uuid(uuid)
                 .tapUUID(tapUUID)
@@ -58,6 +61,7 @@ public abstract class DNSLogDataResponse {
                 .dnsType(dnsType)
                 .timestamp(timestamp)
                 .createdAt(createdAt)
+                .count(count)
                 .build();
     }
 
@@ -89,6 +93,8 @@ public abstract class DNSLogDataResponse {
 
         public abstract Builder createdAt(DateTime createdAt);
 
+        public abstract Builder count(long count);
+
         public abstract DNSLogDataResponse build();
     }
 }
@@ -2,6 +2,7 @@ package app.nzyme.core.rest.responses.ethernet.dns;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
 
 import java.util.List;
 
@@ -11,13 +12,22 @@ public abstract class DNSLogListResponse {
     @JsonProperty("total")
     public abstract long total();
 
+    @JsonProperty("total_is_estimate")
+    public abstract boolean totalIsEstimate();
+
     @JsonProperty("logs")
     public abstract List<DNSLogEntryResponse> logs();
 
-    public static DNSLogListResponse create(long total, List<DNSLogEntryResponse> logs) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static DNSLogListResponse create(long total, boolean totalIsEstimate, List<DNSLogEntryResponse> logs, String nextCursor) {
         return builder()
                 .total(total)
+                .totalIsEstimate(totalIsEstimate)
                 .logs(logs)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -29,8 +39,12 @@ public abstract class DNSLogListResponse {
     public abstract static class Builder {
         public abstract Builder total(long total);
 
+        public abstract Builder totalIsEstimate(boolean totalIsEstimate);
+
         public abstract Builder logs(List<DNSLogEntryResponse> logs);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract DNSLogListResponse build();
     }
 }
@@ -2,6 +2,7 @@ package app.nzyme.core.rest.responses.ethernet.l4;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import jakarta.annotation.Nullable;
 
 import java.util.List;
 
@@ -11,13 +12,22 @@ public abstract class L4SessionsListResponse {
     @JsonProperty("total")
     public abstract long total();
 
+    @JsonProperty("total_is_estimate")
+    public abstract boolean totalIsEstimate();
+
     @JsonProperty("sessions")
     public abstract List<L4SessionDetailsResponse> sessions();
 
-    public static L4SessionsListResponse create(long total, List<L4SessionDetailsResponse> sessions) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static L4SessionsListResponse create(long total, boolean totalIsEstimate, List<L4SessionDetailsResponse> sessions, String nextCursor) {
         return builder()
                 .total(total)
+                .totalIsEstimate(totalIsEstimate)
                 .sessions(sessions)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -29,8 +39,12 @@ public abstract class L4SessionsListResponse {
     public abstract static class Builder {
         public abstract Builder total(long total);
 
+        public abstract Builder totalIsEstimate(boolean totalIsEstimate);
+
         public abstract Builder sessions(List<L4SessionDetailsResponse> sessions);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract L4SessionsListResponse build();
     }
 }
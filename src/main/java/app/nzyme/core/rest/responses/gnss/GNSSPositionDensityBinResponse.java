@@ -0,0 +1,38 @@
+package app.nzyme.core.rest.responses.gnss;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class GNSSPositionDensityBinResponse {
+
+    @JsonProperty("lat")
+    public abstract double lat();
+    @JsonProperty("lon")
+    public abstract double lon();
+    @JsonProperty("count")
+    public abstract long count();
+
+    public static GNSSPositionDensityBinResponse create(double lat, double lon, long count) {
+        return builder()
+                .lat(lat)
+                .lon(lon)
+                .count(count)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_GNSSPositionDensityBinResponse.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder lat(double lat);
+
+        public abstract Builder lon(double lon);
+
+        public abstract Builder count(long count);
+
+        public abstract GNSSPositionDensityBinResponse build();
+    }
+}
@@ -0,0 +1,40 @@
+package app.nzyme.core.rest.responses.gnss;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import java.util.List;
+
+@AutoValue
+public abstract class GNSSPositionDensityResponse {
+
+    @JsonProperty("cell_size_degrees")
+    public abstract double cellSizeDegrees();
+    @JsonProperty("bins")
+    public abstract List<GNSSPositionDensityBinResponse> bins();
+    @JsonProperty("tap_locations")
+    public abstract List<GNSSTapLocationResponse> tapLocations();
+
+    public static GNSSPositionDensityResponse create(double cellSizeDegrees, List<GNSSPositionDensityBinResponse> bins, List<GNSSTapLocationResponse> tapLocations) {
+        return builder()
+                .cellSizeDegrees(cellSizeDegrees)
+                .bins(bins)
+                .tapLocations(tapLocations)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_GNSSPositionDensityResponse.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder cellSizeDegrees(double cellSizeDegrees);
+
+        public abstract Builder bins(List<GNSSPositionDensityBinResponse> bins);
+
+        public abstract Builder tapLocations(List<GNSSTapLocationResponse> tapLocations);
+
+        public abstract GNSSPositionDensityResponse build();
+    }
+}
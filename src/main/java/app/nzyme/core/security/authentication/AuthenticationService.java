@@ -11,43 +11,91 @@ import app.nzyme.core.security.authentication.db.TenantEntry;
 import app.nzyme.core.security.authentication.db.UserEntry;
 import app.nzyme.core.security.sessions.db.SessionEntry;
 import app.nzyme.core.security.sessions.db.SessionEntryWithUserDetails;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.BaseEncoding;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
+import java.net.InetAddress;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class AuthenticationService {
 
     private static final Logger LOG = LogManager.getLogger(AuthenticationService.class);
 
+    private static final int AUTHENTICATION_CACHE_TTL_SECONDS = 15;
+    private static final int USER_ACTIVITY_FLUSH_INTERVAL_SECONDS = 10;
+
     public final NzymeNode nzyme;
 
+    // Resolved by the REST authentication filter on every request. Invalidated cluster-wide on changes.
+    private final Cache<String, SessionEntry> sessionCache;
+    private final Cache<UUID, UserEntry> userCache;
+    private final Cache<UUID, List<String>> userPermissionsCache;
+
+    // User ID -> Latest activity that was not written to the database yet.
+    private final ConcurrentMap<UUID, UserActivity> pendingUserActivity;
+
+    private final List<Runnable> tapAccessibilityListeners;
+
     public AuthenticationService(NzymeNode nzyme) {
         this.nzyme = nzyme;
+
+        this.sessionCache = CacheBuilder.newBuilder()
+                .maximumSize(5000)
+                .expireAfterWrite(AUTHENTICATION_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.userCache = CacheBuilder.newBuilder()
+                .maximumSize(5000)
+                .expireAfterWrite(AUTHENTICATION_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.userPermissionsCache = CacheBuilder.newBuilder()
+                .maximumSize(5000)
+                .expireAfterWrite(AUTHENTICATION_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        this.pendingUserActivity = Maps.newConcurrentMap();
+        this.tapAccessibilityListeners = new CopyOnWriteArrayList<>();
     }
 
     public void initialize() {
         seedDatabase();
 
-        Executors.newSingleThreadScheduledExecutor(
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("session-cleaner-%d")
                         .build()
-        ).scheduleAtFixedRate(this::runSessionCleaning, 0, 30, TimeUnit.SECONDS);
+        );
+
+        executor.scheduleAtFixedRate(this::runSessionCleaning, 0, 30, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                flushUserActivity();
+            } catch (Exception e) {
+                LOG.error("Could not write user activity.", e);
+            }
+        }, USER_ACTIVITY_FLUSH_INTERVAL_SECONDS, USER_ACTIVITY_FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     private void seedDatabase() {
@@ -132,6 +180,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public OrganizationEntry createOrganization(String name, String description) {
@@ -215,6 +265,8 @@ public class AuthenticationService {
                         .bind("id", id)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public long countTenantsOfOrganization(OrganizationEntry o) {
@@ -319,6 +371,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public TenantEntry createTenant(UUID organizationId,
@@ -424,6 +478,8 @@ public class AuthenticationService {
                         .bind("id", id)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public Optional<UserEntry> findUserOfTenant(UUID organizationId, UUID tenantId, UUID userId) {
@@ -478,6 +534,83 @@ public class AuthenticationService {
         );
     }
 
+    /**
+     * Cached variant of findSessionWithOrWithoutPassedMFABySessionId() for the REST authentication filter. Only
+     * existing sessions are cached.
+     */
+    public Optional<SessionEntry> findSessionWithOrWithoutPassedMFABySessionIdCached(String sessionId) {
+        SessionEntry cached = sessionCache.getIfPresent(sessionId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<SessionEntry> session = findSessionWithOrWithoutPassedMFABySessionId(sessionId);
+        session.ifPresent(s -> sessionCache.put(sessionId, s));
+
+        return session;
+    }
+
+    public Optional<UserEntry> findUserByIdCached(UUID id) {
+        UserEntry cached = userCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<UserEntry> user = findUserById(id);
+        user.ifPresent(u -> userCache.put(id, u));
+
+        return user;
+    }
+
+    public List<String> findPermissionsOfUserCached(UUID userId) {
+        List<String> cached = userPermissionsCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<String> permissions = List.copyOf(findPermissionsOfUser(userId));
+        userPermissionsCache.put(userId, permissions);
+
+        return permissions;
+    }
+
+    public void invalidateAuthenticationCaches() {
+        sessionCache.invalidateAll();
+        userCache.invalidateAll();
+        userPermissionsCache.invalidateAll();
+    }
+
+    private void invalidateAuthenticationCachesClusterWide() {
+        // Invalidate locally right away. The message reaches this node, too, but only after the next poll.
+        invalidateAuthenticationCaches();
+
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "authentication"),
+                false
+        ));
+    }
+
+    /**
+     * Registers a reaction to changes of taps or tap permissions on this node. Other nodes are notified through
+     * the message bus.
+     */
+    public void onTapAccessibilityChange(Runnable runnable) {
+        tapAccessibilityListeners.add(runnable);
+    }
+
+    private void invalidateTapAccessibilityClusterWide() {
+        for (Runnable listener : tapAccessibilityListeners) {
+            listener.run();
+        }
+
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "tap_accessibility"),
+                false
+        ));
+    }
+
     public List<UUID> findTapPermissionsOfUser(UUID userId) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT t.uuid FROM auth_users_taps AS u " +
@@ -496,6 +629,10 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
+
+        invalidateTapAccessibilityClusterWide();
     }
 
     public void setUserTapPermissions(UUID userId, List<UUID> newPermissions) {
@@ -514,6 +651,8 @@ public class AuthenticationService {
                             .execute()
             );
         }
+
+        invalidateTapAccessibilityClusterWide();
     }
 
     public void setUserPermissions(UUID userId, List<String> permissions) {
@@ -532,6 +671,8 @@ public class AuthenticationService {
                             .execute()
             );
         }
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public UserEntry createUserOfTenant(UUID organizationId,
@@ -571,6 +712,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public void editUserPassword(UUID userId, PasswordHasher.GeneratedHashAndSalt password) {
@@ -582,6 +725,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public void deleteUserOfTenant(UUID organizationId, UUID tenantId, UUID userId) {
@@ -593,6 +738,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public void resetMFAOfUser(UUID userId) {
@@ -605,6 +752,8 @@ public class AuthenticationService {
 
         // Reset all sessions of this user.
         deleteAllSessionsOfUser(userId);
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public long countUsersOfTenant(TenantEntry t) {
@@ -698,6 +847,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public void markUserFailedLogin(UserEntry user) {
@@ -809,6 +960,8 @@ public class AuthenticationService {
                         .bind("sessionid", sessionId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public void deleteSession(long id) {
@@ -817,6 +970,8 @@ public class AuthenticationService {
                         .bind("id", id)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public long countAllSessions() {
@@ -850,22 +1005,59 @@ public class AuthenticationService {
         );
     }
 
-    public void updateLastUserActivity(UUID userId, String remoteIp, @Nullable GeoIpLookupResult remoteIpGeo) {
-        String countryCode = remoteIpGeo != null && remoteIpGeo.geo() != null ? remoteIpGeo.geo().countryCode() : null;
-        String city = remoteIpGeo != null && remoteIpGeo.geo() != null ? remoteIpGeo.geo().city() : null;
-        String asnName = remoteIpGeo != null && remoteIpGeo.asn() != null ? remoteIpGeo.asn().name() : null;;
+    /**
+     * Remembers the latest activity of a user. Written to the database in batches by flushUserActivity() to not
+     * issue an UPDATE for every authenticated request.
+     */
+    public void recordUserActivity(UUID userId, String remoteIp) {
+        pendingUserActivity.put(userId, new UserActivity(remoteIp, DateTime.now()));
+    }
 
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE auth_users SET last_activity = NOW(), last_remote_ip = :remote_ip, " +
-                                "last_geo_country = :country_code, last_geo_city = :city, last_geo_asn = :asn " +
-                                "WHERE uuid = :user_id")
-                        .bind("remote_ip", remoteIp)
-                        .bind("country_code", countryCode)
-                        .bind("city", city)
-                        .bind("asn", asnName)
-                        .bind("user_id", userId)
-                        .execute()
-        );
+    private void flushUserActivity() {
+        if (pendingUserActivity.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, UserActivity> activities = Maps.newHashMap();
+        for (UUID userId : pendingUserActivity.keySet()) {
+            UserActivity activity = pendingUserActivity.remove(userId);
+            if (activity != null) {
+                activities.put(userId, activity);
+            }
+        }
+
+        nzyme.getDatabase().useHandle(handle -> {
+            PreparedBatch batch = handle.prepareBatch("UPDATE auth_users SET last_activity = :last_activity, " +
+                    "last_remote_ip = :remote_ip, last_geo_country = :country_code, last_geo_city = :city, " +
+                    "last_geo_asn = :asn WHERE uuid = :user_id");
+
+            for (Map.Entry<UUID, UserActivity> activity : activities.entrySet()) {
+                GeoIpLookupResult remoteIpGeo = lookupRemoteIp(activity.getValue().remoteIp);
+
+                batch.bind("last_activity", activity.getValue().timestamp)
+                        .bind("remote_ip", activity.getValue().remoteIp)
+                        .bind("country_code", remoteIpGeo != null && remoteIpGeo.geo() != null
+                                ? remoteIpGeo.geo().countryCode() : null)
+                        .bind("city", remoteIpGeo != null && remoteIpGeo.geo() != null
+                                ? remoteIpGeo.geo().city() : null)
+                        .bind("asn", remoteIpGeo != null && remoteIpGeo.asn() != null
+                                ? remoteIpGeo.asn().name() : null)
+                        .bind("user_id", activity.getKey())
+                        .add();
+            }
+
+            batch.execute();
+        });
+    }
+
+    @Nullable
+    private GeoIpLookupResult lookupRemoteIp(String remoteIp) {
+        try {
+            return nzyme.getGeoIpService().lookup(InetAddress.getByName(remoteIp)).orElse(null);
+        } catch (Exception e) {
+            LOG.debug("Could not look up remote IP [{}] of user activity.", remoteIp, e);
+            return null;
+        }
     }
 
     public void deleteAllSessionsOfUser(UUID userId) {
@@ -874,6 +1066,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateAuthenticationCachesClusterWide();
     }
 
     public TapPermissionEntry createTap(UUID organizationId,
@@ -890,7 +1084,7 @@ public class AuthenticationService {
             throw new RuntimeException("Could not encrypt tap secret.", e);
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        TapPermissionEntry tap = nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("INSERT INTO taps(uuid, organization_id, tenant_id, secret, name, " +
                                 "description, latitude, longitude, deleted, created_at, updated_at) " +
                                 "VALUES(:uuid, :organization_id, :tenant_id, :secret, :name, :description, " +
@@ -908,6 +1102,10 @@ public class AuthenticationService {
                         .mapTo(TapPermissionEntry.class)
                         .one()
         );
+
+        invalidateTapAccessibilityClusterWide();
+
+        return tap;
     }
 
     public List<TapPermissionEntry> findAllTapsOfTenant(UUID organizationId, UUID tenantId) {
@@ -957,11 +1155,13 @@ public class AuthenticationService {
 
         for (TapPermissionEntry tap : taps) {
             try {
-                String decryptedSecret = new String(
-                        nzyme.getCrypto().decryptWithClusterKey(
-                                BaseEncoding.base64().decode(tap.secret())
-                        )
-                );
+                byte[] encryptedSecret = BaseEncoding.base64().decode(tap.secret());
+                byte[] decrypted = nzyme.getCrypto().decryptWithClusterKey(encryptedSecret);
+                String decryptedSecret = new String(decrypted);
+
+                if (!nzyme.getCrypto().isEnvelopeEncrypted(encryptedSecret)) {
+                    migrateTapSecretToEnvelope(tap, decrypted);
+                }
 
                 if (secret.equals(decryptedSecret)) {
                     return Optional.of(tap);
@@ -974,6 +1174,28 @@ public class AuthenticationService {
         return Optional.empty();
     }
 
+    /**
+     * Re-encrypts a tap secret that is still PGP-encrypted with the cluster key using the envelope data key, which
+     * is much cheaper to decrypt on every tap request.
+     */
+    private void migrateTapSecretToEnvelope(TapPermissionEntry tap, byte[] decryptedSecret) {
+        try {
+            String reencrypted = BaseEncoding.base64().encode(
+                    nzyme.getCrypto().encryptWithClusterKey(decryptedSecret)
+            );
+
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("UPDATE taps SET secret = :new_secret WHERE uuid = :uuid AND secret = :old_secret")
+                            .bind("new_secret", reencrypted)
+                            .bind("uuid", tap.uuid())
+                            .bind("old_secret", tap.secret())
+                            .execute()
+            );
+        } catch (Exception e) {
+            LOG.warn("Could not migrate secret of tap [{}] to envelope encryption.", tap.uuid(), e);
+        }
+    }
+
     public void deleteTap(UUID organizationId, UUID tenantId, UUID tapId) {
         nzyme.getDatabase().useHandle(handle ->
                 handle.createUpdate("UPDATE taps SET deleted = true WHERE organization_id = :organization_id " +
@@ -989,6 +1211,10 @@ public class AuthenticationService {
                         .bind("uuid", tapId)
                         .execute()
         );
+
+        nzyme.getTapManager().forgetTapStatus(tapId);
+
+        invalidateTapAccessibilityClusterWide();
     }
 
     public void editTap(UUID organizationId,
@@ -1379,6 +1605,8 @@ public class AuthenticationService {
                                 .bindList("user_ids", sessionsToClean)
                                 .execute()
                 );
+
+                invalidateAuthenticationCachesClusterWide();
             } catch(Exception e) {
                 LOG.error("Could not delete sessions marked for deletion.", e);
             }
@@ -1389,4 +1617,16 @@ public class AuthenticationService {
         return countTapsOfTenant(t) == 0 && countUsersOfTenant(t) == 0;
     }
 
+    private static final class UserActivity {
+
+        private final String remoteIp;
+        private final DateTime timestamp;
+
+        UserActivity(String remoteIp, DateTime timestamp) {
+            this.remoteIp = remoteIp;
+            this.timestamp = timestamp;
+        }
+
+    }
+
 }
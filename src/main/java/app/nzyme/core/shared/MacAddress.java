@@ -0,0 +1,127 @@
+package app.nzyme.core.shared;
+
+/**
+ * A 48-bit MAC address, packed into the lower six bytes of a long. Parsing does not allocate, so hot paths can
+ * work on the packed value of MAC addresses they received as text.
+ */
+public final class MacAddress {
+
+    public static final long INVALID = -1;
+
+    private final long value;
+
+    private MacAddress(long value) {
+        this.value = value;
+    }
+
+    public static MacAddress of(long value) {
+        if (value < 0 || value > 0xFFFFFFFFFFFFL) {
+            throw new IllegalArgumentException("Not a 48-bit MAC address value: " + value);
+        }
+
+        return new MacAddress(value);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the MAC address is not in <code>AA:BB:CC:DD:EE:FF</code> notation.
+     */
+    public static MacAddress parse(String mac) {
+        long value = pack(mac);
+        if (value == INVALID) {
+            throw new IllegalArgumentException("Invalid MAC address [" + mac + "].");
+        }
+
+        return new MacAddress(value);
+    }
+
+    /**
+     * Packs a MAC address in <code>AA:BB:CC:DD:EE:FF</code> notation, case-insensitive.
+     *
+     * @return The packed MAC address or INVALID if it is NULL or not in the expected notation.
+     */
+    public static long pack(String mac) {
+        if (mac == null || mac.length() != 17) {
+            return INVALID;
+        }
+
+        long value = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = mac.charAt(i);
+
+            if (i % 3 == 2) {
+                if (c != ':') {
+                    return INVALID;
+                }
+                continue;
+            }
+
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0) {
+                return INVALID;
+            }
+
+            value = (value << 4) | nibble;
+        }
+
+        return value;
+    }
+
+    public long value() {
+        return value;
+    }
+
+    /**
+     * The 24-bit organizationally unique identifier. (The first three octets)
+     */
+    public int oui() {
+        return oui(value);
+    }
+
+    /**
+     * Locally administered addresses are usually randomized by the device to prevent tracking.
+     */
+    public boolean isLocallyAdministered() {
+        return isLocallyAdministered(value);
+    }
+
+    public boolean isMulticast() {
+        return (value & 0x010000000000L) != 0;
+    }
+
+    public static int oui(long value) {
+        return (int) (value >>> 24);
+    }
+
+    public static boolean isLocallyAdministered(long value) {
+        return (value & 0x020000000000L) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MacAddress && ((MacAddress) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    /**
+     * @return The MAC address in upper case <code>AA:BB:CC:DD:EE:FF</code> notation.
+     */
+    @Override
+    public String toString() {
+        char[] chars = new char[17];
+        for (int i = 0; i < 6; i++) {
+            int octet = (int) (value >>> (40 - i * 8)) & 0xFF;
+            chars[i * 3] = Character.toUpperCase(Character.forDigit(octet >>> 4, 16));
+            chars[i * 3 + 1] = Character.toUpperCase(Character.forDigit(octet & 0xF, 16));
+            if (i < 5) {
+                chars[i * 3 + 2] = ':';
+            }
+        }
+
+        return new String(chars);
+    }
+
+}
@@ -3,20 +3,51 @@ package app.nzyme.core.subsystems;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.plugin.RegistryKey;
 import app.nzyme.plugin.Subsystem;
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import jakarta.annotation.Nullable;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class Subsystems {
 
     private final NzymeNode nzyme;
 
+    // Checked by the REST authentication filter on every request. Invalidated when a subsystem setting changes.
+    private final LoadingCache<SubsystemCacheKey, Boolean> cache;
+
     public Subsystems(NzymeNode nzyme) {
         this.nzyme = nzyme;
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build(new CacheLoader<>() {
+                    @NotNull
+                    @Override
+                    public Boolean load(@NotNull SubsystemCacheKey key) {
+                        return isEnabledNoCache(key.subsystem(), key.organizationId(), key.tenantId());
+                    }
+                });
+
+        for (RegistryKey key : List.of(SubsystemRegistryKeys.DOT11_ENABLED, SubsystemRegistryKeys.ETHERNET_ENABLED,
+                SubsystemRegistryKeys.BLUETOOTH_ENABLED, SubsystemRegistryKeys.UAV_ENABLED,
+                SubsystemRegistryKeys.GNSS_ENABLED)) {
+            nzyme.getRegistryChangeMonitor().onChange("core", key.key(), cache::invalidateAll);
+        }
     }
 
     public boolean isEnabled(Subsystem subsystem, @Nullable UUID organizationId, @Nullable UUID tenantId) {
+        return cache.getUnchecked(SubsystemCacheKey.create(subsystem, organizationId, tenantId));
+    }
+
+    private boolean isEnabledNoCache(Subsystem subsystem, @Nullable UUID organizationId, @Nullable UUID tenantId) {
         if (organizationId == null && tenantId == null) {
             // Superadmin / System setting.
             return isGloballyEnabled(subsystem);
@@ -87,4 +118,39 @@ public class Subsystems {
         }
     }
 
+    @AutoValue
+    public static abstract class SubsystemCacheKey {
+
+        public abstract Subsystem subsystem();
+        @Nullable
+        public abstract UUID organizationId();
+        @Nullable
+        public abstract UUID tenantId();
+
+        public static SubsystemCacheKey create(Subsystem subsystem,
+                                               @Nullable UUID organizationId,
+                                               @Nullable UUID tenantId) {
+            return builder()
+                    .subsystem(subsystem)
+                    .organizationId(organizationId)
+                    .tenantId(tenantId)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_Subsystems_SubsystemCacheKey.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder subsystem(Subsystem subsystem);
+
+            public abstract Builder organizationId(UUID organizationId);
+
+            public abstract Builder tenantId(UUID tenantId);
+
+            public abstract SubsystemCacheKey build();
+        }
+    }
+
 }
@@ -22,13 +22,21 @@ import app.nzyme.core.tables.dot11.Dot11Table;
 import app.nzyme.core.tables.ethernet.*;
 import app.nzyme.core.tables.gnss.GNSSTable;
 import app.nzyme.core.tables.uav.UAVTable;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Meter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import app.nzyme.core.NzymeNode;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.HandleConsumer;
 
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -43,8 +51,11 @@ public class TablesService {
 
     private final ExecutorService processorPool;
 
+    private final Meter duplicateReports;
+
     public TablesService(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.duplicateReports = nzyme.getMetrics().meter(MetricNames.TAP_TABLE_DUPLICATE_REPORTS);
 
         this.tables = new ImmutableMap.Builder<String, DataTable>()
                 .put("dot11", new Dot11Table(this))
@@ -63,7 +74,7 @@ public class TablesService {
         this.processorPool = Executors.newFixedThreadPool(
                 nzyme.getConfiguration().performance().reportProcessorPoolSize(),
                 new ThreadFactoryBuilder()
-                        .setNameFormat("dot11-report-writer-%d")
+                        .setNameFormat("report-processor-%d")
                         .setDaemon(true)
                         .build()
         );
@@ -76,12 +87,75 @@ public class TablesService {
         ).scheduleAtFixedRate(this::retentionClean, 0, 1, TimeUnit.HOURS);
     }
 
+    /**
+     * Writes a tap table report in one transaction. If the tap sent a report ID, it is recorded in the same
+     * transaction and a report with an ID that was already recorded for the tap and table is not written again.
+     * Taps can so safely resubmit reports that timed out or failed.
+     *
+     * @return false if the report is a duplicate and was skipped.
+     */
+    public boolean writeReport(UUID tapUuid,
+                               String table,
+                               @Nullable String reportId,
+                               HandleConsumer<RuntimeException> writer) {
+        return writeReport(tapUuid, table, reportId, (handle, afterCommit) -> writer.useHandle(handle));
+    }
+
+    /**
+     * Like {@link #writeReport(UUID, String, String, HandleConsumer)}, but the writer can defer actions like raising
+     * alerts until the report was committed. Deferred actions of reports that were rolled back or skipped as
+     * duplicates never run.
+     */
+    public boolean writeReport(UUID tapUuid, String table, @Nullable String reportId, ReportWriter writer) {
+        List<Runnable> afterCommit = Lists.newArrayList();
+
+        boolean written = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+            if (reportId != null) {
+                int claimed = tx.createUpdate("INSERT INTO tap_table_reports(tap_uuid, table_name, report_id, " +
+                                "received_at) VALUES(:tap_uuid, :table_name, :report_id, NOW()) " +
+                                "ON CONFLICT DO NOTHING")
+                        .bind("tap_uuid", tapUuid)
+                        .bind("table_name", table)
+                        .bind("report_id", reportId)
+                        .execute();
+
+                if (claimed == 0) {
+                    return false;
+                }
+            }
+
+            writer.write(tx, afterCommit);
+            return true;
+        }));
+
+        if (!written) {
+            LOG.debug("Skipping duplicate [{}] report [{}] of tap [{}].", table, reportId, tapUuid);
+            duplicateReports.mark();
+            return false;
+        }
+
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                LOG.error("Could not run post-commit action of [{}] report of tap [{}].", table, tapUuid, e);
+            }
+        }
+
+        return true;
+    }
+
     private void retentionClean() {
         for (Map.Entry<String, DataTable> table : tables.entrySet()) {
             LOG.debug("Retention cleaning data table [{}].", table.getKey());
             table.getValue().retentionClean();
         }
 
+        // Taps only resubmit recent reports.
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM tap_table_reports WHERE received_at < NOW() - INTERVAL '1 day'")
+                        .execute()
+        );
     }
 
     public Dot11Table dot11() {
@@ -132,4 +206,12 @@ public class TablesService {
         return nzyme;
     }
 
+    @FunctionalInterface
+    public interface ReportWriter {
+        /**
+         * @param afterCommit Actions to run once the report was committed.
+         */
+        void write(Handle handle, List<Runnable> afterCommit);
+    }
+
 }
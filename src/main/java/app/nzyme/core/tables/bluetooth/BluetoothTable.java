@@ -10,6 +10,7 @@ import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -36,8 +37,11 @@ public class BluetoothTable implements DataTable {
                 .timer(MetricNames.BLUETOOTH_TOTAL_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, BluetoothDevicesReport report) {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
+    public void handleReport(UUID tapUuid,
+                             DateTime timestamp,
+                             @Nullable String reportId,
+                             BluetoothDevicesReport report) {
+        tablesService.writeReport(tapUuid, "bluetooth", reportId, handle -> {
             try(Timer.Context ignored = totalReportTimer.time()) {
                 writeDevices(handle, tapUuid, report.devices());
             }
@@ -0,0 +1,42 @@
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.dot11.bandits.Dot11BanditDescription;
+import app.nzyme.core.tables.dot11.monitoring.PreLoadedMonitoredSSID;
+import com.google.auto.value.AutoValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monitored networks and bandits of a tenant, loaded once per report and shared by all of its BSSIDs.
+ */
+@AutoValue
+public abstract class BSSIDWriteContext {
+
+    public abstract Map<String, PreLoadedMonitoredSSID> monitoredSSIDs();
+    public abstract List<String> monitoredSSIDNames();
+    public abstract List<Dot11BanditDescription> bandits();
+
+    public static BSSIDWriteContext create(Map<String, PreLoadedMonitoredSSID> monitoredSSIDs, List<String> monitoredSSIDNames, List<Dot11BanditDescription> bandits) {
+        return builder()
+                .monitoredSSIDs(monitoredSSIDs)
+                .monitoredSSIDNames(monitoredSSIDNames)
+                .bandits(bandits)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_BSSIDWriteContext.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder monitoredSSIDs(Map<String, PreLoadedMonitoredSSID> monitoredSSIDs);
+
+        public abstract Builder monitoredSSIDNames(List<String> monitoredSSIDNames);
+
+        public abstract Builder bandits(List<Dot11BanditDescription> bandits);
+
+        public abstract BSSIDWriteContext build();
+    }
+}
@@ -9,7 +9,6 @@ import app.nzyme.core.dot11.Dot11RegistryKeys;
 import app.nzyme.core.dot11.db.monitoring.*;
 import app.nzyme.core.dot11.bandits.Dot11BanditDescription;
 import app.nzyme.core.dot11.bandits.Dot11Bandits;
-import app.nzyme.core.dot11.db.monitoring.probereq.MonitoredProbeRequestEntry;
 import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
 import app.nzyme.core.tables.DataTable;
 import app.nzyme.core.tables.TablesService;
@@ -24,7 +23,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import info.debatty.java.stringsimilarity.JaroWinkler;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -32,12 +34,18 @@ import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 import com.codahale.metrics.Timer;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Dot11Table implements DataTable {
 
@@ -51,11 +59,37 @@ public class Dot11Table implements DataTable {
     private final Timer clientsReportTimer;
     private final Timer discoReportTimer;
     private final Timer alertTimer;
+    private final Timer bssidPreloadTimer;
+    private final Timer bssidWriteTimer;
+    private final Timer ssidWriteTimer;
+    private final Timer ssidAnalysisTimer;
+
+    private final ExecutorService analysisPool;
 
     public Dot11Table(TablesService tablesService) {
         this.tablesService = tablesService;
         this.om = new ObjectMapper();
 
+        /*
+         * The CPU-bound SSID analysis of a report's BSSIDs runs in parallel on this pool, before the report
+         * transaction starts. It is separate from the shared report processor pool and bounded, with the submitting
+         * report thread running analysis tasks itself if the queue is full. Database writes of a report stay on its
+         * single transaction.
+         */
+        int parallelism = tablesService.getNzyme().getConfiguration().performance().dot11IngestParallelism();
+        this.analysisPool = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 16),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("dot11-ingest-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+
         this.totalReportTimer = tablesService.getNzyme().getMetrics()
                 .timer(MetricNames.DOT11_TOTAL_REPORT_PROCESSING_TIMER);
         this.bssidReportTimer = tablesService.getNzyme().getMetrics()
@@ -66,9 +100,17 @@ public class Dot11Table implements DataTable {
                 .timer(MetricNames.DOT11_DISCO_REPORT_PROCESSING_TIMER);
         this.alertTimer = tablesService.getNzyme().getMetrics()
                 .timer(MetricNames.DOT11_ALERT_PROCESSING_TIMER);
+        this.bssidPreloadTimer = tablesService.getNzyme().getMetrics()
+                .timer(MetricNames.DOT11_BSSID_PRELOAD_TIMER);
+        this.bssidWriteTimer = tablesService.getNzyme().getMetrics()
+                .timer(MetricNames.DOT11_BSSID_WRITE_TIMER);
+        this.ssidWriteTimer = tablesService.getNzyme().getMetrics()
+                .timer(MetricNames.DOT11_SSID_WRITE_TIMER);
+        this.ssidAnalysisTimer = tablesService.getNzyme().getMetrics()
+                .timer(MetricNames.DOT11_SSID_ANALYSIS_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, Dot11TablesReport report) {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, Dot11TablesReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
             Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
 
@@ -77,16 +119,46 @@ public class Dot11Table implements DataTable {
                 return;
             }
 
-            try (Timer.Context ignored2 = bssidReportTimer.time()) {
-                writeBSSIDs(tap.get(), timestamp, report.bssids(), tap.get().organizationId(), tap.get().tenantId());
-            }
+            // Load monitored networks and bandits once for all BSSIDs and analyze all SSIDs before writing.
+            BSSIDWriteContext context = null;
+            Map<String, Map<String, SSIDAnalysis>> analyses = Collections.emptyMap();
+            if (!report.bssids().isEmpty()) {
+                try (Timer.Context ignored2 = bssidPreloadTimer.time()) {
+                    context = preloadBSSIDWriteContext(tap.get(), tap.get().organizationId(), tap.get().tenantId());
+                }
 
-            try (Timer.Context ignored2 = clientsReportTimer.time()) {
-                writeClients(tap.get(), timestamp, report.clients());
+                try (Timer.Context ignored2 = ssidAnalysisTimer.time()) {
+                    analyses = analyzeSSIDs(context, report.bssids());
+                }
             }
 
-            try (Timer.Context ignored2 = discoReportTimer.time()) {
-                writeDisco(tap.get(), timestamp, report.disco());
+            BSSIDWriteContext bssidContext = context;
+            Map<String, Map<String, SSIDAnalysis>> ssidAnalyses = analyses;
+            // Alerts are raised once the report was committed.
+            boolean written = tablesService.writeReport(tapUuid, "dot11", reportId, (handle, afterCommit) -> {
+                try (Timer.Context ignored2 = bssidReportTimer.time()) {
+                    writeBSSIDs(handle, tap.get(), timestamp, bssidContext, ssidAnalyses, report.bssids(), afterCommit);
+                }
+
+                try (Timer.Context ignored2 = clientsReportTimer.time()) {
+                    writeClients(handle, tap.get(), timestamp, report.clients(), afterCommit);
+                }
+
+                try (Timer.Context ignored2 = discoReportTimer.time()) {
+                    writeDisco(handle, tap.get(), timestamp, report.disco());
+                }
+
+                Set<String> clientMacs = Sets.newHashSet(report.clients().keySet());
+                for (Dot11BSSIDReport bssid : report.bssids().values()) {
+                    clientMacs.addAll(bssid.clients().keySet());
+                }
+
+                tablesService.getNzyme().getDot11().getMacRoleIndex()
+                        .record(handle, tapUuid, timestamp, report.bssids().keySet(), clientMacs);
+            });
+
+            if (!written) {
+                return;
             }
 
             try (Timer.Context ignored2 = alertTimer.time()) {
@@ -95,605 +167,742 @@ public class Dot11Table implements DataTable {
         }
     }
 
-    private void writeClients(Tap tap, DateTime timestamp, Map<String, Dot11ClientReport> clients) {
-        Map<String, MonitoredProbeRequestEntry> monitoredProbeRequests = tablesService.getNzyme().getDot11()
-                .findAllMonitoredProbeRequests(tap.organizationId(), tap.tenantId(), Integer.MAX_VALUE, 0)
-                .stream()
-                .collect(Collectors.toMap(MonitoredProbeRequestEntry::ssid, entry -> entry));
+    private void writeClients(Handle handle,
+                              Tap tap,
+                              DateTime timestamp,
+                              Map<String, Dot11ClientReport> clients,
+                              List<Runnable> alerts) {
+        if (clients.isEmpty()) {
+            return;
+        }
+
+        Set<String> monitoredProbeRequests = tablesService.getNzyme().getDot11()
+                .getMonitoredProbeRequestSSIDs(tap.organizationId(), tap.tenantId());
+
+        List<String> macs = Lists.newArrayListWithCapacity(clients.size());
+        List<Boolean> randomized = Lists.newArrayListWithCapacity(clients.size());
+        List<Long> wildcardProbeRequests = Lists.newArrayListWithCapacity(clients.size());
+        List<Float> signalAverages = Lists.newArrayListWithCapacity(clients.size());
+        List<Long> signalMaximums = Lists.newArrayListWithCapacity(clients.size());
+        List<Long> signalMinimums = Lists.newArrayListWithCapacity(clients.size());
 
         for (Map.Entry<String, Dot11ClientReport> entry : clients.entrySet()) {
-            String clientMac = entry.getKey();
             Dot11ClientReport report = entry.getValue();
 
-            long clientDatabaseId = tablesService.getNzyme().getDatabase().withHandle(handle ->
-                    handle.createQuery("INSERT INTO dot11_clients(tap_uuid, client_mac, client_mac_is_randomized, " +
-                                    "wildcard_probe_requests, signal_strength_average, signal_strength_max, " +
-                                    "signal_strength_min, created_at) VALUES(:tap_uuid, :client_mac, " +
-                                    ":client_mac_is_randomized, :wildcard_probe_requests, :signal_strength_average, " +
-                                    ":signal_strength_max, :signal_strength_min, :created_at) RETURNING id")
-                            .bind("tap_uuid", tap.uuid())
-                            .bind("client_mac", clientMac)
-                            .bind("client_mac_is_randomized", Tools.macAddressIsRandomized(clientMac))
-                            .bind("wildcard_probe_requests", report.wildcardProbeRequests())
-                            .bind("signal_strength_average", report.signalStrength().average())
-                            .bind("signal_strength_min", report.signalStrength().min())
-                            .bind("signal_strength_max", report.signalStrength().max())
-                            .bind("created_at", timestamp)
-                            .mapTo(Long.class)
-                            .one()
-            );
-
-            tablesService.getNzyme().getDatabase().useHandle(handle -> {
-                PreparedBatch batch = handle.prepareBatch(
-                        "INSERT INTO dot11_client_probereq_ssids(client_id, ssid, frame_count, tap_uuid) " +
-                                "VALUES(:client_id, :ssid, :frame_count, :tap_uuid)"
-                );
+            macs.add(entry.getKey());
+            randomized.add(Tools.macAddressIsRandomized(entry.getKey()));
+            wildcardProbeRequests.add(report.wildcardProbeRequests());
+            signalAverages.add(report.signalStrength().average());
+            signalMaximums.add(report.signalStrength().max());
+            signalMinimums.add(report.signalStrength().min());
+        }
 
-                for (Map.Entry<String, Long> pr : report.probeRequestSSIDs().entrySet()) {
-                    String ssid = Tools.sanitizeSSID(pr.getKey());
+        // Client MACs are unique within a report, so the returned IDs can be mapped back by MAC.
+        Map<String, Long> clientIds = Maps.newHashMapWithExpectedSize(clients.size());
+        handle.createQuery("INSERT INTO dot11_clients(tap_uuid, client_mac, client_mac_is_randomized, " +
+                        "wildcard_probe_requests, signal_strength_average, signal_strength_max, " +
+                        "signal_strength_min, created_at) " +
+                        "SELECT :tap_uuid, c.client_mac, c.client_mac_is_randomized, c.wildcard_probe_requests, " +
+                        "c.signal_strength_average, c.signal_strength_max, c.signal_strength_min, :created_at " +
+                        "FROM unnest(:macs, :randomized, :wildcards, :signal_averages, :signal_maximums, " +
+                        ":signal_minimums) AS c(client_mac, client_mac_is_randomized, wildcard_probe_requests, " +
+                        "signal_strength_average, signal_strength_max, signal_strength_min) " +
+                        "RETURNING id, client_mac")
+                .bind("tap_uuid", tap.uuid())
+                .bind("created_at", timestamp)
+                .bindArray("macs", String.class, macs)
+                .bindArray("randomized", Boolean.class, randomized)
+                .bindArray("wildcards", Long.class, wildcardProbeRequests)
+                .bindArray("signal_averages", Float.class, signalAverages)
+                .bindArray("signal_maximums", Long.class, signalMaximums)
+                .bindArray("signal_minimums", Long.class, signalMinimums)
+                .map((rs, ctx) -> Maps.immutableEntry(rs.getString("client_mac"), rs.getLong("id")))
+                .forEach(e -> clientIds.put(e.getKey(), e.getValue()));
+
+        List<Long> probeRequestClientIds = Lists.newArrayList();
+        List<String> probeRequestSSIDs = Lists.newArrayList();
+        List<Long> probeRequestFrameCounts = Lists.newArrayList();
 
-                    // Check if we are monitoring for this probe request SSID and raise alert if so.
-                    if (monitoredProbeRequests.containsKey(ssid)) {
-                        // Raise alert.
-                        Map<String, String> attributes = Maps.newHashMap();
-                        attributes.put("ssid", ssid);
-                        attributes.put("client_mac", clientMac);
-
-                        tablesService.getNzyme().getDetectionAlertService().raiseAlert(
-                                tap.organizationId(),
-                                tap.tenantId(),
-                                null,
-                                tap.uuid(),
-                                DetectionType.DOT11_PROBEREQ,
-                                Subsystem.DOT11,
-                                "Monitored probe request for SSID \"" + ssid + "\" detected in range.",
-                                attributes,
-                                new String[]{"ssid"},
-                                report.signalStrength().average()
-                        );
-                    }
+        for (Map.Entry<String, Dot11ClientReport> entry : clients.entrySet()) {
+            String clientMac = entry.getKey();
+            Dot11ClientReport report = entry.getValue();
+            Long clientId = clientIds.get(clientMac);
 
-                    batch.bind("client_id", clientDatabaseId)
-                            .bind("ssid", ssid)
-                            .bind("frame_count", pr.getValue())
-                            .bind("tap_uuid", tap.uuid())
-                            .add();
+            for (Map.Entry<String, Long> pr : report.probeRequestSSIDs().entrySet()) {
+                String ssid = Tools.sanitizeSSID(pr.getKey());
+
+                // Check if we are monitoring for this probe request SSID and raise alert if so.
+                if (monitoredProbeRequests.contains(ssid)) {
+                    alerts.add(() -> raiseMonitoredProbeRequestAlert(tap, clientMac, ssid, report));
                 }
 
-                batch.execute();
-            });
+                probeRequestClientIds.add(clientId);
+                probeRequestSSIDs.add(ssid);
+                probeRequestFrameCounts.add(pr.getValue());
+            }
         }
-    }
 
-    public void writeBSSIDs(Tap tap, DateTime timestamp,
-                            Map<String, Dot11BSSIDReport> bssids,
-                            UUID organizationId,
-                            UUID tenantId) {
-        // Collect all monitored SSIDs and their attributes.
-        Map<String, PreLoadedMonitoredSSID> monitoredSSIDs = Maps.newHashMap();
-        List<String> monitoredSSIDNames = Lists.newArrayList();
-        NzymeNode nzyme = tablesService.getNzyme();
+        if (probeRequestClientIds.isEmpty()) {
+            return;
+        }
 
-        nzyme.getDatabase().useHandle(handle -> {
-            for (MonitoredSSID s : nzyme.getDot11().findAllMonitoredSSIDs(tap.organizationId(), tap.tenantId())) {
-                if (!s.isEnabled()) {
-                    continue;
-                }
+        handle.createUpdate("INSERT INTO dot11_client_probereq_ssids(client_id, ssid, frame_count, tap_uuid) " +
+                        "SELECT p.client_id, p.ssid, p.frame_count, :tap_uuid " +
+                        "FROM unnest(:client_ids, :ssids, :frame_counts) AS p(client_id, ssid, frame_count)")
+                .bind("tap_uuid", tap.uuid())
+                .bindArray("client_ids", Long.class, probeRequestClientIds)
+                .bindArray("ssids", String.class, probeRequestSSIDs)
+                .bindArray("frame_counts", Long.class, probeRequestFrameCounts)
+                .execute();
+    }
 
-                monitoredSSIDNames.add(s.ssid());
+    private void raiseMonitoredProbeRequestAlert(Tap tap, String clientMac, String ssid, Dot11ClientReport report) {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put("ssid", ssid);
+        attributes.put("client_mac", clientMac);
+
+        tablesService.getNzyme().getDetectionAlertService().raiseAlert(
+                tap.organizationId(),
+                tap.tenantId(),
+                null,
+                tap.uuid(),
+                DetectionType.DOT11_PROBEREQ,
+                Subsystem.DOT11,
+                "Monitored probe request for SSID \"" + ssid + "\" detected in range.",
+                attributes,
+                new String[]{"ssid"},
+                report.signalStrength().average()
+        );
+    }
 
-                Map<String, PreLoadedMonitoredBSSID> preLoadedBSSIDs = Maps.newHashMap();
-                for (MonitoredBSSID b : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(s.id())) {
-                    List<String> fingerprints = Lists.newArrayList();
-                    for (MonitoredFingerprint f : nzyme.getDot11().findMonitoredFingerprintsOfMonitoredBSSID(b.id())) {
-                        fingerprints.add(f.fingerprint());
-                    }
+    /**
+     * Writes all BSSIDs and their SSIDs of a report. A BSSID that fails is rolled back to its savepoint without
+     * affecting the rest of the report, and its alerts are discarded.
+     */
+    private void writeBSSIDs(Handle handle,
+                             Tap tap,
+                             DateTime timestamp,
+                             BSSIDWriteContext context,
+                             Map<String, Map<String, SSIDAnalysis>> analyses,
+                             Map<String, Dot11BSSIDReport> bssids,
+                             List<Runnable> alerts) {
+        if (bssids.isEmpty()) {
+            return;
+        }
 
-                    preLoadedBSSIDs.put(b.bssid(), PreLoadedMonitoredBSSID.create(b.bssid(), fingerprints));
+        for (Map.Entry<String, Dot11BSSIDReport> entry : bssids.entrySet()) {
+            List<Runnable> bssidAlerts = Lists.newArrayList();
+            handle.savepoint("bssid");
+            try (Timer.Context ignored = bssidWriteTimer.time()) {
+                Map<String, SSIDAnalysis> ssidAnalyses = analyses.get(entry.getKey());
+                if (ssidAnalyses == null) {
+                    throw new IllegalStateException("SSIDs of BSSID were not analyzed.");
                 }
 
-                List<Integer> preLoadedChannels = Lists.newArrayList();
-                for (MonitoredChannel c : nzyme.getDot11().findMonitoredChannelsOfMonitoredNetwork(s.id())) {
-                    preLoadedChannels.add((int) c.frequency());
-                }
+                writeBSSID(handle, tap, timestamp, context, ssidAnalyses,
+                        entry.getKey(), entry.getValue(), bssidAlerts);
+                handle.release("bssid");
+                alerts.addAll(bssidAlerts);
+            } catch (Exception e) {
+                LOG.error("Could not write BSSID [{}].", entry.getKey(), e);
+                handle.rollbackToSavepoint("bssid");
+            }
+        }
+    }
 
-                List<String> preLoadedSecuritySuites = Lists.newArrayList();
-                for (MonitoredSecuritySuite ss : nzyme.getDot11().findMonitoredSecuritySuitesOfMonitoredNetwork(s.id())) {
-                    preLoadedSecuritySuites.add(ss.securitySuite());
+    /**
+     * Analyzes the SSIDs of all BSSIDs in parallel. BSSIDs that could not be analyzed are missing from the result.
+     *
+     * @return BSSID -> SSID as reported -> Analysis
+     */
+    private Map<String, Map<String, SSIDAnalysis>> analyzeSSIDs(BSSIDWriteContext context,
+                                                                Map<String, Dot11BSSIDReport> bssids) {
+        Map<String, Future<Map<String, SSIDAnalysis>>> futures = Maps.newHashMapWithExpectedSize(bssids.size());
+        for (Map.Entry<String, Dot11BSSIDReport> bssid : bssids.entrySet()) {
+            futures.put(bssid.getKey(), analysisPool.submit(() -> {
+                Map<String, SSIDAnalysis> result = Maps.newHashMap();
+                for (Map.Entry<String, Dot11AdvertisedNetworkReport> ssid
+                        : bssid.getValue().advertisedNetworks().entrySet()) {
+                    result.put(ssid.getKey(), analyzeSSID(context, ssid.getKey(), ssid.getValue()));
                 }
 
-                monitoredSSIDs.put(s.ssid(), PreLoadedMonitoredSSID.create(
-                        s.id(),
-                        s.uuid(),
-                        s.ssid(),
-                        preLoadedBSSIDs,
-                        preLoadedChannels,
-                        preLoadedSecuritySuites,
-                        s.enabledUnexpectedBSSID(),
-                        s.enabledUnexpectedChannel(),
-                        s.enabledUnexpectedSecuritySuites(),
-                        s.enabledUnexpectedFingerprint(),
-                        s.enabledUnexpectedSignalTracks(),
-                        s.enabledSimilarLookingSSID(),
-                        s.enabledSSIDSubstring(),
-                        s.detectionConfigSimilarLookingSSIDThreshold()
-                ));
+                return result;
+            }));
+        }
+
+        Map<String, Map<String, SSIDAnalysis>> analyses = Maps.newHashMapWithExpectedSize(bssids.size());
+        for (Map.Entry<String, Future<Map<String, SSIDAnalysis>>> future : futures.entrySet()) {
+            try {
+                analyses.put(future.getKey(), future.getValue().get());
+            } catch (ExecutionException e) {
+                LOG.error("Could not analyze SSIDs of BSSID [{}].", future.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while analyzing SSIDs.", e);
             }
+        }
 
+        return analyses;
+    }
 
-            // Load all bandits.
-            List<Dot11BanditDescription> bandits = Lists.newArrayList(Dot11Bandits.BUILT_IN);
-            for (CustomBanditDescription bandit : nzyme.getDot11()
-                    .findAllCustomBandits(organizationId, tenantId, Integer.MAX_VALUE, 0)) {
-                List<String> fingerprints = nzyme.getDot11().findFingerprintsOfCustomBandit(bandit.id());
+    private SSIDAnalysis analyzeSSID(BSSIDWriteContext context, String reportedSSID, Dot11AdvertisedNetworkReport report) {
+        // Replace all non-printable characters.
+        String ssid = Tools.sanitizeSSID(reportedSSID);
 
-                bandits.add(Dot11BanditDescription.create(
-                        bandit.uuid().toString(),
-                        true,
-                        bandit.name(),
-                        bandit.description(),
-                        fingerprints
-                ));
+        if (ssid.isEmpty()) {
+            return SSIDAnalysis.create(ssid, Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        List<String> securitySuites = Lists.newArrayList();
+        for (Dot11SecurityInformationReport sec : report.security()) {
+            Map<String, String> suiteMap = Maps.newHashMap();
+            suiteMap.put("group_cipher", sec.suites().groupCipher());
+            suiteMap.put("pairwise_ciphers",
+                    Joiner.on(",").join(sec.suites().pairwiseCiphers()));
+            suiteMap.put("key_management_modes",
+                    Joiner.on(",").join(sec.suites().keyManagementModes()));
+            suiteMap.put("pmf_mode", sec.pmf());
+
+            try {
+                securitySuites.add(this.om.writeValueAsString(suiteMap));
+            } catch(JsonProcessingException e) {
+                LOG.error("Could not serialize SSID <{}> security suites.", ssid, e);
             }
+        }
 
-            List<SSIDProcessingTask> ssidProcessingTasks = Lists.newArrayList();
-
-            for (Map.Entry<String, Dot11BSSIDReport> entry : bssids.entrySet()) {
-                String bssid = entry.getKey();
-                Dot11BSSIDReport report = entry.getValue();
-
-                long bssidDatabaseId = handle.createQuery(
-                        "INSERT INTO dot11_bssids(tap_uuid, bssid, oui, " +
-                                "signal_strength_average, signal_strength_max, signal_strength_min, " +
-                                "hidden_ssid_frames, created_at) VALUES(:tap_uuid, :bssid, NULL, " +
-                                ":signal_strength_average, :signal_strength_max, :signal_strength_min, " +
-                                ":hidden_ssid_frames, :created_at) RETURNING id")
-                        .bind("tap_uuid", tap.uuid())
-                        .bind("bssid", bssid)
-                        .bind("signal_strength_average", report.signalStrength().average())
-                        .bind("signal_strength_max", report.signalStrength().max())
-                        .bind("signal_strength_min", report.signalStrength().min())
-                        .bind("hidden_ssid_frames", report.hiddenSSIDFrames())
-                        .bind("created_at", timestamp)
-                        .mapTo(Long.class)
-                        .one();
-
-                // BSSID Fingerprints.
-                PreparedBatch fingerprintBatch = handle.prepareBatch(
-                        "INSERT INTO dot11_fingerprints(fingerprint, bssid_id) " +
-                                "VALUES(:fingerprint, :bssid_id)");
-                for (String fingerprint : report.fingerprints()) {
-                    fingerprintBatch
-                            .bind("fingerprint", fingerprint)
-                            .bind("bssid_id", bssidDatabaseId)
-                            .add();
+        /*
+         * Check if this SSID is similar to any monitored SSIDs or includes a monitored substring. Skip
+         * other monitored SSIDs because they are considered trusted.
+         */
+        Map<UUID, Double> similarMonitoredSSIDs = Maps.newHashMap();
+        Map<UUID, List<String>> restrictedSubstrings = Maps.newHashMap();
+        if (!context.monitoredSSIDNames().contains(ssid)) {
+            JaroWinkler jaroWinkler = new JaroWinkler();
+            String lowercaseSSID = ssid.toLowerCase();
 
-                    // Is this a known bandit fingerprint?
-                    for (Dot11BanditDescription bandit : bandits) {
-                        if (bandit.fingerprints() != null && bandit.fingerprints().contains(fingerprint)) {
-                            Map<String, String> attributes = Maps.newHashMap();
-                            attributes.put("fingerprint", fingerprint);
-                            attributes.put("bssid", bssid);
-                            attributes.put("tap_uuid", tap.uuid().toString());
-                            attributes.put("bandit_name", bandit.name());
-                            attributes.put("bandit_description", bandit.description());
-                            attributes.put("bandit_is_custom", String.valueOf(bandit.isCustom()));
-
-                            tablesService.getNzyme().getDetectionAlertService().raiseAlert(
-                                    tap.organizationId(),
-                                    tap.tenantId(),
-                                    null,
-                                    tap.uuid(),
-                                    DetectionType.DOT11_BANDIT_CONTACT,
-                                    Subsystem.DOT11,
-                                    "Bandit \"" + bandit.name() + "\" advertising BSSID \"" + bssid + "\" " +
-                                            "detected in range.",
-                                    attributes,
-                                    new String[]{"bssid", "fingerprint", "bandit_is_custom"},
-                                    report.signalStrength().average()
-                            );
-                        }
-                    }
-                }
-                fingerprintBatch.execute();
-
-                // BSSID Clients.
-                PreparedBatch bssidClientsBatch = handle.prepareBatch(
-                        "INSERT INTO dot11_bssid_clients(bssid_id, client_mac, tx_frames, " +
-                                "tx_bytes, rx_frames, rx_bytes, signal_strength_average, " +
-                                "signal_strength_min, signal_strength_max) VALUES(:bssid_id, :client_mac, " +
-                                ":tx_frames, :tx_bytes, :rx_frames, :rx_bytes, :signal_strength_average, " +
-                                ":signal_strength_min, :signal_strength_max)");
-
-                for (Map.Entry<String, Dot11ClientStatisticsReport> client : report.clients().entrySet()) {
-                    String mac = client.getKey();
-                    Dot11ClientStatisticsReport stats = client.getValue();
-
-                    if (!bssid.equals(mac)) { // Don't record BSSID itself.
-                        bssidClientsBatch
-                                .bind("bssid_id", bssidDatabaseId)
-                                .bind("client_mac", mac)
-                                .bind("tx_frames", stats.txFrames())
-                                .bind("tx_bytes", stats.txBytes())
-                                .bind("rx_frames", stats.rxFrames())
-                                .bind("rx_bytes", stats.rxBytes())
-                                .bind("signal_strength_average", stats.signalStrength().average())
-                                .bind("signal_strength_min", stats.signalStrength().average())
-                                .bind("signal_strength_max", stats.signalStrength().average())
-                                .add();
+            for (PreLoadedMonitoredSSID monitoredSSID : context.monitoredSSIDs().values()) {
+                // Similar looking SSIDs.
+                if (monitoredSSID.enabledSimilarLookingSSID()) {
+                    double similarity = jaroWinkler
+                            .similarity(monitoredSSID.ssid().toLowerCase(), lowercaseSSID) * 100.0;
+
+                    if (similarity > monitoredSSID.detectionConfigSimilarLookingSSIDThreshold()) {
+                        similarMonitoredSSIDs.put(monitoredSSID.uuid(), similarity);
                     }
                 }
-                bssidClientsBatch.execute();
 
-                // Pre-process all SSIDs.
-                for (Map.Entry<String, Dot11AdvertisedNetworkReport> ssidEntry : report.advertisedNetworks().entrySet()) {
-                    ssidProcessingTasks.add(SSIDProcessingTask.create(
-                            bssid, ssidEntry.getKey(), ssidEntry.getValue(), bssidDatabaseId, tap, timestamp
-                    ));
+                // Restricted substrings.
+                if (monitoredSSID.enabledSSIDSubstring()) {
+                    for (String substring : monitoredSSID.restrictedSubstrings()) {
+                        if (lowercaseSSID.contains(substring.toLowerCase())) {
+                            restrictedSubstrings.computeIfAbsent(monitoredSSID.uuid(), k -> Lists.newArrayList())
+                                    .add(substring);
+                        }
+                    }
                 }
             }
+        }
+
+        return SSIDAnalysis.create(ssid, securitySuites, similarMonitoredSSIDs, restrictedSubstrings);
+    }
 
-            // Write all SSIDs.
-            CountDownLatch latch = new CountDownLatch(ssidProcessingTasks.size());
-            for (SSIDProcessingTask ssidProcessingTask : ssidProcessingTasks) {
-                tablesService.getProcessorPool().submit(() -> {
-                    writeSSID(nzyme, handle, monitoredSSIDNames, monitoredSSIDs, ssidProcessingTask);
+    private BSSIDWriteContext preloadBSSIDWriteContext(Tap tap, UUID organizationId, UUID tenantId) {
+        // Collect all monitored SSIDs and their attributes.
+        Map<String, PreLoadedMonitoredSSID> monitoredSSIDs = Maps.newHashMap();
+        List<String> monitoredSSIDNames = Lists.newArrayList();
+        NzymeNode nzyme = tablesService.getNzyme();
 
-                    latch.countDown();
-                });
+        for (MonitoredSSID s : nzyme.getDot11().findAllMonitoredSSIDs(tap.organizationId(), tap.tenantId())) {
+            if (!s.isEnabled()) {
+                continue;
             }
 
-            // Wait for SSID processing to finish.
-            try {
-                latch.await();
-            } catch (InterruptedException e) {
-                LOG.error("SSID writer process interrupted.", e);
+            monitoredSSIDNames.add(s.ssid());
+
+            Map<String, PreLoadedMonitoredBSSID> preLoadedBSSIDs = Maps.newHashMap();
+            for (MonitoredBSSID b : nzyme.getDot11().findMonitoredBSSIDsOfMonitoredNetwork(s.id())) {
+                List<String> fingerprints = Lists.newArrayList();
+                for (MonitoredFingerprint f : nzyme.getDot11().findMonitoredFingerprintsOfMonitoredBSSID(b.id())) {
+                    fingerprints.add(f.fingerprint());
+                }
+
+                preLoadedBSSIDs.put(b.bssid(), PreLoadedMonitoredBSSID.create(b.bssid(), fingerprints));
             }
-        });
-    }
 
-    private void writeSSID(NzymeNode nzyme,
-                           Handle handle,
-                           List<String> monitoredSSIDNames,
-                           Map<String, PreLoadedMonitoredSSID> monitoredSSIDs,
-                           SSIDProcessingTask task) {
-        try {
-            // Replace all non-printable characters.
-            final String ssid = Tools.sanitizeSSID(task.ssid());
-
-            /*
-             * If all characters were sanitized away, this is a hidden SSID.
-             * (some access points build hidden SSIDs this way)
-             */
-            if (ssid.isEmpty()) {
-                return;
+            List<Integer> preLoadedChannels = Lists.newArrayList();
+            for (MonitoredChannel c : nzyme.getDot11().findMonitoredChannelsOfMonitoredNetwork(s.id())) {
+                preLoadedChannels.add((int) c.frequency());
             }
 
-            Long ssidDatabaseId = handle.createQuery(
-                    "INSERT INTO dot11_ssids(bssid_id, tap_uuid, ssid, bssid, " +
-                            "signal_strength_average, signal_strength_max, signal_strength_min, " +
-                            "beacon_advertisements, proberesp_advertisements, created_at) " +
-                            "VALUES(:bssid_id, :tap_uuid, :ssid, :bssid, :signal_strength_average, " +
-                            ":signal_strength_max, :signal_strength_min, :beacon_advertisements, " +
-                            ":proberesp_advertisements, :created_at) RETURNING *")
-                    .bind("bssid_id", task.bssidDatabaseId())
-                    .bind("tap_uuid", task.tap().uuid())
-                    .bind("ssid", ssid)
-                    .bind("bssid", task.bssid())
-                    .bind("signal_strength_average", task.ssidReport().signalStrength().average())
-                    .bind("signal_strength_max", task.ssidReport().signalStrength().max())
-                    .bind("signal_strength_min", task.ssidReport().signalStrength().min())
-                    .bind("beacon_advertisements", task.ssidReport().beaconAdvertisements())
-                    .bind("proberesp_advertisements", task.ssidReport().probeResponseAdvertisements())
-                    .bind("created_at", task.timestamp())
-                    .mapTo(Long.class)
-                    .one();
-
-            // WPS settings.
-            PreparedBatch wpsBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
-                            "VALUES(:ssid_id, 'has_wps', :value)");
-            for (boolean hasWps : task.ssidReport().wps()) {
-                wpsBatch.bind("ssid_id", ssidDatabaseId).bind("value", String.valueOf(hasWps)).add();
+            List<String> preLoadedSecuritySuites = Lists.newArrayList();
+            for (MonitoredSecuritySuite ss : nzyme.getDot11().findMonitoredSecuritySuitesOfMonitoredNetwork(s.id())) {
+                preLoadedSecuritySuites.add(ss.securitySuite());
             }
-            wpsBatch.execute();
-
-            // Security protocols and suites.
-            PreparedBatch noneSettingsBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
-                            "VALUES(:ssid_id, 'security_protocol', NULL"); // We insert NULL to signal "NONE".
-            PreparedBatch someSettingsBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
-                            "VALUES(:ssid_id, 'security_protocol', :value)");
-            PreparedBatch suitesBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
-                            "VALUES(:ssid_id, 'security_suite', :value)");
-            for (Dot11SecurityInformationReport sec : task.ssidReport().security()) {
-                if (sec.protocols().isEmpty()) {
-                    noneSettingsBatch.bind("ssid_id", ssidDatabaseId).add();
-                } else {
-                    for (String protocol : sec.protocols()) {
-                        someSettingsBatch
-                                .bind("ssid_id", ssidDatabaseId)
-                                .bind("value", protocol)
-                                .add();
-                    }
+
+            List<String> preLoadedRestrictedSubstrings = Lists.newArrayList();
+            if (s.enabledSSIDSubstring()) {
+                for (RestrictedSSIDSubstring rss : nzyme.getDot11().findAllRestrictedSSIDSubstrings(s.id())) {
+                    preLoadedRestrictedSubstrings.add(rss.substring());
                 }
+            }
 
-                Map<String, String> suiteMap = Maps.newHashMap();
-                suiteMap.put("group_cipher", sec.suites().groupCipher());
-                suiteMap.put("pairwise_ciphers",
-                        Joiner.on(",").join(sec.suites().pairwiseCiphers()));
-                suiteMap.put("key_management_modes",
-                        Joiner.on(",").join(sec.suites().keyManagementModes()));
-                suiteMap.put("pmf_mode", sec.pmf());
+            monitoredSSIDs.put(s.ssid(), PreLoadedMonitoredSSID.create(
+                    s.id(),
+                    s.uuid(),
+                    s.ssid(),
+                    preLoadedBSSIDs,
+                    preLoadedChannels,
+                    preLoadedSecuritySuites,
+                    preLoadedRestrictedSubstrings,
+                    s.enabledUnexpectedBSSID(),
+                    s.enabledUnexpectedChannel(),
+                    s.enabledUnexpectedSecuritySuites(),
+                    s.enabledUnexpectedFingerprint(),
+                    s.enabledUnexpectedSignalTracks(),
+                    s.enabledSimilarLookingSSID(),
+                    s.enabledSSIDSubstring(),
+                    s.detectionConfigSimilarLookingSSIDThreshold()
+            ));
+        }
 
-                try {
-                    suitesBatch
-                            .bind("ssid_id", ssidDatabaseId)
-                            .bind("value", this.om.writeValueAsString(suiteMap))
-                            .add();
-                } catch(JsonProcessingException e) {
-                    LOG.error("Could not serialize SSID <{}> security suites.", task.bssidDatabaseId(), e);
+        // Load all bandits.
+        List<Dot11BanditDescription> bandits = Lists.newArrayList(Dot11Bandits.BUILT_IN);
+        for (CustomBanditDescription bandit : nzyme.getDot11()
+                .findAllCustomBandits(organizationId, tenantId, Integer.MAX_VALUE, 0)) {
+            List<String> fingerprints = nzyme.getDot11().findFingerprintsOfCustomBandit(bandit.id());
+
+            bandits.add(Dot11BanditDescription.create(
+                    bandit.uuid().toString(),
+                    true,
+                    bandit.name(),
+                    bandit.description(),
+                    fingerprints
+            ));
+        }
+
+        return BSSIDWriteContext.create(monitoredSSIDs, monitoredSSIDNames, bandits);
+    }
+
+    private void writeBSSID(Handle handle,
+                            Tap tap,
+                            DateTime timestamp,
+                            BSSIDWriteContext context,
+                            Map<String, SSIDAnalysis> ssidAnalyses,
+                            String bssid,
+                            Dot11BSSIDReport report,
+                            List<Runnable> alerts) {
+        long bssidDatabaseId = handle.createQuery(
+                "INSERT INTO dot11_bssids(tap_uuid, bssid, oui, " +
+                        "signal_strength_average, signal_strength_max, signal_strength_min, " +
+                        "hidden_ssid_frames, created_at) VALUES(:tap_uuid, :bssid, NULL, " +
+                        ":signal_strength_average, :signal_strength_max, :signal_strength_min, " +
+                        ":hidden_ssid_frames, :created_at) RETURNING id")
+                .bind("tap_uuid", tap.uuid())
+                .bind("bssid", bssid)
+                .bind("signal_strength_average", report.signalStrength().average())
+                .bind("signal_strength_max", report.signalStrength().max())
+                .bind("signal_strength_min", report.signalStrength().min())
+                .bind("hidden_ssid_frames", report.hiddenSSIDFrames())
+                .bind("created_at", timestamp)
+                .mapTo(Long.class)
+                .one();
+
+        // BSSID Fingerprints.
+        PreparedBatch fingerprintBatch = handle.prepareBatch(
+                "INSERT INTO dot11_fingerprints(fingerprint, bssid_id) " +
+                        "VALUES(:fingerprint, :bssid_id)");
+        for (String fingerprint : report.fingerprints()) {
+            fingerprintBatch
+                    .bind("fingerprint", fingerprint)
+                    .bind("bssid_id", bssidDatabaseId)
+                    .add();
+
+            // Is this a known bandit fingerprint?
+            for (Dot11BanditDescription bandit : context.bandits()) {
+                if (bandit.fingerprints() != null && bandit.fingerprints().contains(fingerprint)) {
+                    Map<String, String> attributes = Maps.newHashMap();
+                    attributes.put("fingerprint", fingerprint);
+                    attributes.put("bssid", bssid);
+                    attributes.put("tap_uuid", tap.uuid().toString());
+                    attributes.put("bandit_name", bandit.name());
+                    attributes.put("bandit_description", bandit.description());
+                    attributes.put("bandit_is_custom", String.valueOf(bandit.isCustom()));
+
+                    alerts.add(() -> tablesService.getNzyme().getDetectionAlertService().raiseAlert(
+                            tap.organizationId(),
+                            tap.tenantId(),
+                            null,
+                            tap.uuid(),
+                            DetectionType.DOT11_BANDIT_CONTACT,
+                            Subsystem.DOT11,
+                            "Bandit \"" + bandit.name() + "\" advertising BSSID \"" + bssid + "\" " +
+                                    "detected in range.",
+                            attributes,
+                            new String[]{"bssid", "fingerprint", "bandit_is_custom"},
+                            report.signalStrength().average()
+                    ));
                 }
             }
+        }
+        fingerprintBatch.execute();
+
+        // BSSID Clients.
+        PreparedBatch bssidClientsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_bssid_clients(bssid_id, client_mac, tx_frames, " +
+                        "tx_bytes, rx_frames, rx_bytes, signal_strength_average, " +
+                        "signal_strength_min, signal_strength_max) VALUES(:bssid_id, :client_mac, " +
+                        ":tx_frames, :tx_bytes, :rx_frames, :rx_bytes, :signal_strength_average, " +
+                        ":signal_strength_min, :signal_strength_max)");
+
+        for (Map.Entry<String, Dot11ClientStatisticsReport> client : report.clients().entrySet()) {
+            String mac = client.getKey();
+            Dot11ClientStatisticsReport stats = client.getValue();
+
+            if (!bssid.equals(mac)) { // Don't record BSSID itself.
+                bssidClientsBatch
+                        .bind("bssid_id", bssidDatabaseId)
+                        .bind("client_mac", mac)
+                        .bind("tx_frames", stats.txFrames())
+                        .bind("tx_bytes", stats.txBytes())
+                        .bind("rx_frames", stats.rxFrames())
+                        .bind("rx_bytes", stats.rxBytes())
+                        .bind("signal_strength_average", stats.signalStrength().average())
+                        .bind("signal_strength_min", stats.signalStrength().average())
+                        .bind("signal_strength_max", stats.signalStrength().average())
+                        .add();
+            }
+        }
+        bssidClientsBatch.execute();
+
+        // SSIDs.
+        for (Map.Entry<String, Dot11AdvertisedNetworkReport> ssidEntry : report.advertisedNetworks().entrySet()) {
+            try (Timer.Context ignored = ssidWriteTimer.time()) {
+                writeSSID(
+                        tablesService.getNzyme(),
+                        handle,
+                        context.monitoredSSIDs(),
+                        ssidAnalyses.get(ssidEntry.getKey()),
+                        SSIDProcessingTask.create(
+                                bssid, ssidEntry.getKey(), ssidEntry.getValue(), bssidDatabaseId, tap, timestamp
+                        ),
+                        alerts
+                );
+            }
+        }
+    }
 
-            noneSettingsBatch.execute();
-            someSettingsBatch.execute();
-            suitesBatch.execute();
+    private void writeSSID(NzymeNode nzyme,
+                           Handle handle,
+                           Map<String, PreLoadedMonitoredSSID> monitoredSSIDs,
+                           SSIDAnalysis analysis,
+                           SSIDProcessingTask task,
+                           List<Runnable> alerts) {
+        final String ssid = analysis.ssid();
+
+        /*
+         * If all characters were sanitized away, this is a hidden SSID.
+         * (some access points build hidden SSIDs this way)
+         */
+        if (ssid.isEmpty()) {
+            return;
+        }
 
-            // SSID Fingerprints.
-            PreparedBatch fingerprintsBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_fingerprints(fingerprint, ssid_id) " +
-                            "VALUES(:fingerprint, :ssid_id)");
-            for (String fingerprint : task.ssidReport().fingerprints()) {
-                    fingerprintsBatch.bind("fingerprint", fingerprint)
-                            .bind("ssid_id", ssidDatabaseId)
-                            .add();
-            }
-            fingerprintsBatch.execute();
+        Long ssidDatabaseId = handle.createQuery(
+                "INSERT INTO dot11_ssids(bssid_id, tap_uuid, ssid, bssid, " +
+                        "signal_strength_average, signal_strength_max, signal_strength_min, " +
+                        "beacon_advertisements, proberesp_advertisements, created_at) " +
+                        "VALUES(:bssid_id, :tap_uuid, :ssid, :bssid, :signal_strength_average, " +
+                        ":signal_strength_max, :signal_strength_min, :beacon_advertisements, " +
+                        ":proberesp_advertisements, :created_at) RETURNING *")
+                .bind("bssid_id", task.bssidDatabaseId())
+                .bind("tap_uuid", task.tap().uuid())
+                .bind("ssid", ssid)
+                .bind("bssid", task.bssid())
+                .bind("signal_strength_average", task.ssidReport().signalStrength().average())
+                .bind("signal_strength_max", task.ssidReport().signalStrength().max())
+                .bind("signal_strength_min", task.ssidReport().signalStrength().min())
+                .bind("beacon_advertisements", task.ssidReport().beaconAdvertisements())
+                .bind("proberesp_advertisements", task.ssidReport().probeResponseAdvertisements())
+                .bind("created_at", task.timestamp())
+                .mapTo(Long.class)
+                .one();
 
-            // SSID Rates.
-            PreparedBatch ratesBatch = handle.prepareBatch("INSERT INTO dot11_rates(rate, ssid_id) " +
-                    "VALUES(:rate, :ssid_id)");
-            for (Float rate : task.ssidReport().rates()) {
-                ratesBatch.bind("rate", rate).bind("ssid_id", ssidDatabaseId).add();
-            }
-            ratesBatch.execute();
-
-            // Channel Statistics.
-            PreparedBatch statsBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_channels(ssid_id, frequency, " +
-                            "frame_type, stats_bytes, stats_frames) VALUES(:ssid_id, " +
-                            ":frequency, :frame_type, :stats_bytes, :stats_frames)");
-            for (Map.Entry<Long, Map<String, Dot11ChannelStatisticsReport>> cs : task.ssidReport().channelStatistics().entrySet()) {
-                long frequency = cs.getKey();
-                for (Map.Entry<String, Dot11ChannelStatisticsReport> ft : cs.getValue().entrySet()) {
-                    String frameType = ft.getKey();
-                    Dot11ChannelStatisticsReport stats = ft.getValue();
-
-                    statsBatch
+        // WPS settings.
+        PreparedBatch wpsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
+                        "VALUES(:ssid_id, 'has_wps', :value)");
+        for (boolean hasWps : task.ssidReport().wps()) {
+            wpsBatch.bind("ssid_id", ssidDatabaseId).bind("value", String.valueOf(hasWps)).add();
+        }
+        wpsBatch.execute();
+
+        // Security protocols and suites.
+        PreparedBatch noneSettingsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
+                        "VALUES(:ssid_id, 'security_protocol', NULL"); // We insert NULL to signal "NONE".
+        PreparedBatch someSettingsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
+                        "VALUES(:ssid_id, 'security_protocol', :value)");
+        PreparedBatch suitesBatch = handle.prepareBatch(
+                "INSERT INTO dot11_ssid_settings(ssid_id, attribute, value) " +
+                        "VALUES(:ssid_id, 'security_suite', :value)");
+        for (Dot11SecurityInformationReport sec : task.ssidReport().security()) {
+            if (sec.protocols().isEmpty()) {
+                noneSettingsBatch.bind("ssid_id", ssidDatabaseId).add();
+            } else {
+                for (String protocol : sec.protocols()) {
+                    someSettingsBatch
                             .bind("ssid_id", ssidDatabaseId)
-                            .bind("frequency", frequency)
-                            .bind("frame_type", frameType.toLowerCase())
-                            .bind("stats_bytes", stats.bytes())
-                            .bind("stats_frames", stats.frames())
+                            .bind("value", protocol)
                             .add();
                 }
             }
-            statsBatch.execute();
-
-            // Write channel signal histogram.
-            PreparedBatch histoBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_channel_histograms(ssid_id, frequency, " +
-                            "signal_strength, frame_count) VALUES(:ssid_id, :frequency, " +
-                            ":signal_strength, :frame_count)");
-            for (Map.Entry<Long, Map<Long, Long>> channel : task.ssidReport().signalHistogram().entrySet()) {
-                long frequency = channel.getKey();
-                for (Map.Entry<Long, Long> histo : channel.getValue().entrySet()) {
-                    histoBatch
-                            .bind("ssid_id", ssidDatabaseId)
-                            .bind("frequency", frequency)
-                            .bind("signal_strength", histo.getKey())
-                            .bind("frame_count", histo.getValue())
-                            .add();
-                }
+        }
+
+        for (String suite : analysis.securitySuites()) {
+            suitesBatch
+                    .bind("ssid_id", ssidDatabaseId)
+                    .bind("value", suite)
+                    .add();
+        }
+
+        noneSettingsBatch.execute();
+        someSettingsBatch.execute();
+        suitesBatch.execute();
+
+        // SSID Fingerprints.
+        PreparedBatch fingerprintsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_fingerprints(fingerprint, ssid_id) " +
+                        "VALUES(:fingerprint, :ssid_id)");
+        for (String fingerprint : task.ssidReport().fingerprints()) {
+                fingerprintsBatch.bind("fingerprint", fingerprint)
+                        .bind("ssid_id", ssidDatabaseId)
+                        .add();
+        }
+        fingerprintsBatch.execute();
+
+        // SSID Rates.
+        PreparedBatch ratesBatch = handle.prepareBatch("INSERT INTO dot11_rates(rate, ssid_id) " +
+                "VALUES(:rate, :ssid_id)");
+        for (Float rate : task.ssidReport().rates()) {
+            ratesBatch.bind("rate", rate).bind("ssid_id", ssidDatabaseId).add();
+        }
+        ratesBatch.execute();
+
+        // Channel Statistics.
+        PreparedBatch statsBatch = handle.prepareBatch(
+                "INSERT INTO dot11_channels(ssid_id, frequency, " +
+                        "frame_type, stats_bytes, stats_frames) VALUES(:ssid_id, " +
+                        ":frequency, :frame_type, :stats_bytes, :stats_frames)");
+        for (Map.Entry<Long, Map<String, Dot11ChannelStatisticsReport>> cs : task.ssidReport().channelStatistics().entrySet()) {
+            long frequency = cs.getKey();
+            for (Map.Entry<String, Dot11ChannelStatisticsReport> ft : cs.getValue().entrySet()) {
+                String frameType = ft.getKey();
+                Dot11ChannelStatisticsReport stats = ft.getValue();
+
+                statsBatch
+                        .bind("ssid_id", ssidDatabaseId)
+                        .bind("frequency", frequency)
+                        .bind("frame_type", frameType.toLowerCase())
+                        .bind("stats_bytes", stats.bytes())
+                        .bind("stats_frames", stats.frames())
+                        .add();
             }
-            histoBatch.execute();
-
-            // Infrastructure Types.
-            PreparedBatch infraBatch = handle.prepareBatch(
-                    "INSERT INTO dot11_infrastructure_types(infrastructure_type, " +
-                            "ssid_id) VALUES(:infrastructure_type, :ssid_id)");
-            for (String infrastructureType : task.ssidReport().infrastructureTypes()) {
-                infraBatch
-                        .bind("infrastructure_type", infrastructureType.toLowerCase())
+        }
+        statsBatch.execute();
+
+        // Write channel signal histogram.
+        PreparedBatch histoBatch = handle.prepareBatch(
+                "INSERT INTO dot11_channel_histograms(ssid_id, frequency, " +
+                        "signal_strength, frame_count) VALUES(:ssid_id, :frequency, " +
+                        ":signal_strength, :frame_count)");
+        for (Map.Entry<Long, Map<Long, Long>> channel : task.ssidReport().signalHistogram().entrySet()) {
+            long frequency = channel.getKey();
+            for (Map.Entry<Long, Long> histo : channel.getValue().entrySet()) {
+                histoBatch
                         .bind("ssid_id", ssidDatabaseId)
+                        .bind("frequency", frequency)
+                        .bind("signal_strength", histo.getKey())
+                        .bind("frame_count", histo.getValue())
                         .add();
             }
-            infraBatch.execute();
+        }
+        histoBatch.execute();
+
+        // Infrastructure Types.
+        PreparedBatch infraBatch = handle.prepareBatch(
+                "INSERT INTO dot11_infrastructure_types(infrastructure_type, " +
+                        "ssid_id) VALUES(:infrastructure_type, :ssid_id)");
+        for (String infrastructureType : task.ssidReport().infrastructureTypes()) {
+            infraBatch
+                    .bind("infrastructure_type", infrastructureType.toLowerCase())
+                    .bind("ssid_id", ssidDatabaseId)
+                    .add();
+        }
+        infraBatch.execute();
+
+        // Similar looking SSIDs and restricted substrings, as found by the analysis.
+        for (PreLoadedMonitoredSSID monitoredSSID : monitoredSSIDs.values()) {
+            Double similarity = analysis.similarMonitoredSSIDs().get(monitoredSSID.uuid());
+            if (similarity != null) {
+                Map<String, String> attributes = Maps.newHashMap();
+                attributes.put("similar_ssid", ssid);
+                attributes.put("similarity", String.valueOf(similarity));
+                attributes.put("similarity_threshold",
+                        String.valueOf(monitoredSSID.detectionConfigSimilarLookingSSIDThreshold()));
+
+                alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
+                        task.tap().organizationId(),
+                        task.tap().tenantId(),
+                        monitoredSSID.uuid(),
+                        task.tap().uuid(),
+                        DetectionType.DOT11_MONITOR_SIMILAR_LOOKING_SSID,
+                        Subsystem.DOT11,
+                        "SSID \"" + ssid + "\" looking similar to monitored network SSID " +
+                                "\"" + monitoredSSID.ssid() + "\"",
+                        attributes,
+                        new String[]{"similar_ssid"},
+                        task.ssidReport().signalStrength().average()
+                ));
+            }
 
-            /*
-             * Check if this SSID is similar to any monitored SSIDs or includes a monitored substring. Skip
-             * other monitored SSIDs because they are considered trusted.
-             */
-            JaroWinkler jaroWinkler = new JaroWinkler();
-            for (PreLoadedMonitoredSSID monitoredSSID : monitoredSSIDs.values()) {
-                if (!monitoredSSIDNames.contains(ssid)) {
-                    // Similar looking SSIDs.
-                    if (monitoredSSID.enabledSimilarLookingSSID()) {
-                        double similarity = jaroWinkler
-                                .similarity(monitoredSSID.ssid().toLowerCase(), ssid.toLowerCase()) * 100.0;
-
-                        if (similarity > monitoredSSID.detectionConfigSimilarLookingSSIDThreshold()) {
+            for (String substring : analysis.restrictedSubstrings()
+                    .getOrDefault(monitoredSSID.uuid(), Collections.emptyList())) {
+                Map<String, String> attributes = Maps.newHashMap();
+                attributes.put("ssid", ssid);
+                attributes.put("restricted_substring", substring);
+
+                alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
+                        task.tap().organizationId(),
+                        task.tap().tenantId(),
+                        monitoredSSID.uuid(),
+                        task.tap().uuid(),
+                        DetectionType.DOT11_MONITOR_SSID_SUBSTRING,
+                        Subsystem.DOT11,
+                        "SSID \"" + ssid + "\" contains restricted " +
+                                "substring \"" + substring + "\"",
+                        attributes,
+                        new String[]{"ssid", "restricted_substring"},
+                        task.ssidReport().signalStrength().average()
+                ));
+            }
+        }
+
+        // Network Monitoring / Alerting.
+        PreLoadedMonitoredSSID monitoredSSID = monitoredSSIDs.get(ssid);
+        if (monitoredSSID != null) {
+            // This is a monitored SSID.
+
+            PreLoadedMonitoredBSSID monitoredBSSID = monitoredSSID.bssids().get(task.bssid());
+            if (monitoredBSSID == null) {
+                if (monitoredSSID.enabledUnexpectedBSSID()) {
+                    // Unexpected BSSID.
+                    Map<String, String> attributes = Maps.newHashMap();
+                    attributes.put("bssid", task.bssid());
+
+                    alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
+                            task.tap().organizationId(),
+                            task.tap().tenantId(),
+                            monitoredSSID.uuid(),
+                            task.tap().uuid(),
+                            DetectionType.DOT11_MONITOR_BSSID,
+                            Subsystem.DOT11,
+                            "Monitored network \"" + monitoredSSID.ssid() + "\" advertised with " +
+                                    "unexpected BSSID \"" + task.bssid() + "\"",
+                            attributes,
+                            new String[]{"bssid"},
+                            task.ssidReport().signalStrength().average()
+                    ));
+                }
+            } else {
+                // Expected BSSID. Compare fingerprints.
+                if (monitoredSSID.enabledUnexpectedFingerprint()) {
+                    for (String observedFingerprint : task.ssidReport().fingerprints()) {
+                        if (!monitoredBSSID.fingerprints().contains(observedFingerprint)) {
+                            // Unexpected fingerprint.
                             Map<String, String> attributes = Maps.newHashMap();
-                            attributes.put("similar_ssid", ssid);
-                            attributes.put("similarity", String.valueOf(similarity));
-                            attributes.put("similarity_threshold",
-                                    String.valueOf(monitoredSSID.detectionConfigSimilarLookingSSIDThreshold()));
+                            attributes.put("bssid", task.bssid());
+                            attributes.put("fingerprint", observedFingerprint);
 
-                            nzyme.getDetectionAlertService().raiseAlert(
+                            alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
                                     task.tap().organizationId(),
                                     task.tap().tenantId(),
                                     monitoredSSID.uuid(),
                                     task.tap().uuid(),
-                                    DetectionType.DOT11_MONITOR_SIMILAR_LOOKING_SSID,
+                                    DetectionType.DOT11_MONITOR_FINGERPRINT,
                                     Subsystem.DOT11,
-                                    "SSID \"" + ssid + "\" looking similar to monitored network SSID " +
-                                            "\"" + monitoredSSID.ssid() + "\"",
+                                    "Monitored network \"" + monitoredSSID.ssid() + "\" advertised " +
+                                            "with unexpected fingerprint \"" + observedFingerprint + "\".",
                                     attributes,
-                                    new String[]{"similar_ssid"},
+                                    new String[]{"bssid", "fingerprint"},
                                     task.ssidReport().signalStrength().average()
-                            );
-                        }
-                    }
-
-                    // Restricted substrings.
-                    if (monitoredSSID.enabledSSIDSubstring()) {
-                        // Pull all restricted substrings.
-                        for (RestrictedSSIDSubstring rss :
-                                nzyme.getDot11().findAllRestrictedSSIDSubstrings(monitoredSSID.id())) {
-                            if (ssid.toLowerCase().contains(rss.substring().toLowerCase())) {
-                                Map<String, String> attributes = Maps.newHashMap();
-                                attributes.put("ssid", ssid);
-                                attributes.put("restricted_substring", rss.substring());
-
-                                nzyme.getDetectionAlertService().raiseAlert(
-                                        task.tap().organizationId(),
-                                        task.tap().tenantId(),
-                                        monitoredSSID.uuid(),
-                                        task.tap().uuid(),
-                                        DetectionType.DOT11_MONITOR_SSID_SUBSTRING,
-                                        Subsystem.DOT11,
-                                        "SSID \"" + ssid + "\" contains restricted " +
-                                                "substring \"" + rss.substring() + "\"",
-                                        attributes,
-                                        new String[]{"ssid", "restricted_substring"},
-                                        task.ssidReport().signalStrength().average()
-                                );
-                            }
+                            ));
                         }
                     }
                 }
             }
 
-            // Network Monitoring / Alerting.
-            PreLoadedMonitoredSSID monitoredSSID = monitoredSSIDs.get(ssid);
-            if (monitoredSSID != null) {
-                // This is a monitored SSID.
-
-                PreLoadedMonitoredBSSID monitoredBSSID = monitoredSSID.bssids().get(task.bssid());
-                if (monitoredBSSID == null) {
-                    if (monitoredSSID.enabledUnexpectedBSSID()) {
-                        // Unexpected BSSID.
+            if (monitoredSSID.enabledUnexpectedChannel()) {
+                for (Long frequency : task.ssidReport().channelStatistics().keySet()) {
+                    if (!monitoredSSID.channels().contains(frequency.intValue())) {
+                        // Unexpected channel.
                         Map<String, String> attributes = Maps.newHashMap();
-                        attributes.put("bssid", task.bssid());
+                        attributes.put("frequency", String.valueOf(frequency));
 
-                        nzyme.getDetectionAlertService().raiseAlert(
+                        alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
                                 task.tap().organizationId(),
                                 task.tap().tenantId(),
                                 monitoredSSID.uuid(),
                                 task.tap().uuid(),
-                                DetectionType.DOT11_MONITOR_BSSID,
+                                DetectionType.DOT11_MONITOR_CHANNEL,
                                 Subsystem.DOT11,
-                                "Monitored network \"" + monitoredSSID.ssid() + "\" advertised with " +
-                                        "unexpected BSSID \"" + task.bssid() + "\"",
+                                "Monitored network \"" + monitoredSSID.ssid() + "\" advertised on " +
+                                        "unexpected frequency " + frequency + "MHz",
                                 attributes,
-                                new String[]{"bssid"},
+                                new String[]{"frequency"},
                                 task.ssidReport().signalStrength().average()
-                        );
-                    }
-                } else {
-                    // Expected BSSID. Compare fingerprints.
-                    if (monitoredSSID.enabledUnexpectedFingerprint()) {
-                        for (String observedFingerprint : task.ssidReport().fingerprints()) {
-                            if (!monitoredBSSID.fingerprints().contains(observedFingerprint)) {
-                                // Unexpected fingerprint.
-                                Map<String, String> attributes = Maps.newHashMap();
-                                attributes.put("bssid", task.bssid());
-                                attributes.put("fingerprint", observedFingerprint);
-
-                                nzyme.getDetectionAlertService().raiseAlert(
-                                        task.tap().organizationId(),
-                                        task.tap().tenantId(),
-                                        monitoredSSID.uuid(),
-                                        task.tap().uuid(),
-                                        DetectionType.DOT11_MONITOR_FINGERPRINT,
-                                        Subsystem.DOT11,
-                                        "Monitored network \"" + monitoredSSID.ssid() + "\" advertised " +
-                                                "with unexpected fingerprint \"" + observedFingerprint + "\".",
-                                        attributes,
-                                        new String[]{"bssid", "fingerprint"},
-                                        task.ssidReport().signalStrength().average()
-                                );
-                            }
-                        }
-                    }
-                }
-
-                if (monitoredSSID.enabledUnexpectedChannel()) {
-                    for (Long frequency : task.ssidReport().channelStatistics().keySet()) {
-                        if (!monitoredSSID.channels().contains(frequency.intValue())) {
-                            // Unexpected channel.
-                            Map<String, String> attributes = Maps.newHashMap();
-                            attributes.put("frequency", String.valueOf(frequency));
-
-                            nzyme.getDetectionAlertService().raiseAlert(
-                                    task.tap().organizationId(),
-                                    task.tap().tenantId(),
-                                    monitoredSSID.uuid(),
-                                    task.tap().uuid(),
-                                    DetectionType.DOT11_MONITOR_CHANNEL,
-                                    Subsystem.DOT11,
-                                    "Monitored network \"" + monitoredSSID.ssid() + "\" advertised on " +
-                                            "unexpected frequency " + frequency + "MHz",
-                                    attributes,
-                                    new String[]{"frequency"},
-                                    task.ssidReport().signalStrength().average()
-                            );
-                        }
+                        ));
                     }
                 }
+            }
 
-                if (monitoredSSID.enabledUnexpectedSecuritySuites()) {
-                    for (Dot11SecurityInformationReport security : task.ssidReport().security()) {
-                        String suite = Dot11.securitySuitesToIdentifier(security);
-                        if (!monitoredSSID.securitySuites().contains(suite)) {
-                            Map<String, String> attributes = Maps.newHashMap();
-                            attributes.put("suite", suite);
+            if (monitoredSSID.enabledUnexpectedSecuritySuites()) {
+                for (Dot11SecurityInformationReport security : task.ssidReport().security()) {
+                    String suite = Dot11.securitySuitesToIdentifier(security);
+                    if (!monitoredSSID.securitySuites().contains(suite)) {
+                        Map<String, String> attributes = Maps.newHashMap();
+                        attributes.put("suite", suite);
 
-                            nzyme.getDetectionAlertService().raiseAlert(
-                                    task.tap().organizationId(),
-                                    task.tap().tenantId(),
-                                    monitoredSSID.uuid(),
-                                    task.tap().uuid(),
-                                    DetectionType.DOT11_MONITOR_SECURITY_SUITE,
-                                    Subsystem.DOT11,
-                                    "Monitored network \"" + monitoredSSID.ssid() + "\" advertised with " +
-                                            "unexpected security suites \"" + suite + "\"",
-                                    attributes,
-                                    new String[]{"suite"},
-                                    task.ssidReport().signalStrength().average()
-                            );
-                        }
+                        alerts.add(() -> nzyme.getDetectionAlertService().raiseAlert(
+                                task.tap().organizationId(),
+                                task.tap().tenantId(),
+                                monitoredSSID.uuid(),
+                                task.tap().uuid(),
+                                DetectionType.DOT11_MONITOR_SECURITY_SUITE,
+                                Subsystem.DOT11,
+                                "Monitored network \"" + monitoredSSID.ssid() + "\" advertised with " +
+                                        "unexpected security suites \"" + suite + "\"",
+                                attributes,
+                                new String[]{"suite"},
+                                task.ssidReport().signalStrength().average()
+                        ));
                     }
                 }
             }
-        } catch(Exception e) {
-            LOG.error("Could not write SSID.", e);
         }
     }
 
-    private void writeDisco(Tap tap, DateTime timestamp, Dot11DiscoReport disco) {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
-            for (Dot11DiscoTransmitterReport report : disco.deauthentication().values()) {
-                writeDiscoReport(handle, tap, timestamp, Dot11.DiscoType.DEAUTHENTICATION, report);
-            }
+    private void writeDisco(Handle handle,
+                            Tap tap,
+                            DateTime timestamp,
+                            Dot11DiscoReport disco) {
+        for (Dot11DiscoTransmitterReport report : disco.deauthentication().values()) {
+            writeDiscoReport(handle, tap, timestamp, Dot11.DiscoType.DEAUTHENTICATION, report);
+        }
 
-            for (Dot11DiscoTransmitterReport report : disco.disassociation().values()) {
-                writeDiscoReport(handle, tap, timestamp, Dot11.DiscoType.DISASSOCIATION, report);
-            }
-        });
+        for (Dot11DiscoTransmitterReport report : disco.disassociation().values()) {
+            writeDiscoReport(handle, tap, timestamp, Dot11.DiscoType.DISASSOCIATION, report);
+        }
     }
 
     private void writeDiscoReport(Handle handle, Tap tap, DateTime timestamp, Dot11.DiscoType discoType, Dot11DiscoTransmitterReport report) {
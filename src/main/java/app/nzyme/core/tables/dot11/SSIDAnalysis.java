@@ -0,0 +1,52 @@
+package app.nzyme.core.tables.dot11;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The CPU-bound part of processing an advertised SSID, computed before the report transaction starts.
+ */
+@AutoValue
+public abstract class SSIDAnalysis {
+
+    // Sanitized. Empty if all characters were sanitized away.
+    public abstract String ssid();
+
+    // Serialized security suites, in the order of the reported security information.
+    public abstract List<String> securitySuites();
+
+    // Monitored network UUID -> Similarity. Only networks above their similarity threshold.
+    public abstract Map<UUID, Double> similarMonitoredSSIDs();
+
+    // Monitored network UUID -> Restricted substrings contained in the SSID.
+    public abstract Map<UUID, List<String>> restrictedSubstrings();
+
+    public static SSIDAnalysis create(String ssid, List<String> securitySuites, Map<UUID, Double> similarMonitoredSSIDs, Map<UUID, List<String>> restrictedSubstrings) {
+        return builder()
+                .ssid(ssid)
+                .securitySuites(securitySuites)
+                .similarMonitoredSSIDs(similarMonitoredSSIDs)
+                .restrictedSubstrings(restrictedSubstrings)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_SSIDAnalysis.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder ssid(String ssid);
+
+        public abstract Builder securitySuites(List<String> securitySuites);
+
+        public abstract Builder similarMonitoredSSIDs(Map<UUID, Double> similarMonitoredSSIDs);
+
+        public abstract Builder restrictedSubstrings(Map<UUID, List<String>> restrictedSubstrings);
+
+        public abstract SSIDAnalysis build();
+    }
+}
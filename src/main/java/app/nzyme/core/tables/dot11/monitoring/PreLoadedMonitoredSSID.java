@@ -16,6 +16,7 @@ public abstract class PreLoadedMonitoredSSID {
     public abstract Map<String, PreLoadedMonitoredBSSID> bssids();
     public abstract List<Integer> channels();
     public abstract List<String> securitySuites();
+    public abstract List<String> restrictedSubstrings();
 
     public abstract boolean enabledUnexpectedBSSID();
     public abstract boolean enabledUnexpectedChannel();
@@ -27,7 +28,7 @@ public abstract class PreLoadedMonitoredSSID {
 
     public abstract Integer detectionConfigSimilarLookingSSIDThreshold();
 
-    public static PreLoadedMonitoredSSID create(long id, UUID uuid, String ssid, Map<String, PreLoadedMonitoredBSSID> bssids, List<Integer> channels, List<String> securitySuites, boolean enabledUnexpectedBSSID, boolean enabledUnexpectedChannel, boolean enabledUnexpectedSecuritySuites, boolean enabledUnexpectedFingerprint, boolean enabledUnexpectedSignalTracks, boolean enabledSimilarLookingSSID, boolean enabledSSIDSubstring, Integer detectionConfigSimilarLookingSSIDThreshold) {
+    public static PreLoadedMonitoredSSID create(long id, UUID uuid, String ssid, Map<String, PreLoadedMonitoredBSSID> bssids, List<Integer> channels, List<String> securitySuites, List<String> restrictedSubstrings, boolean enabledUnexpectedBSSID, boolean enabledUnexpectedChannel, boolean enabledUnexpectedSecuritySuites, boolean enabledUnexpectedFingerprint, boolean enabledUnexpectedSignalTracks, boolean enabledSimilarLookingSSID, boolean enabledSSIDSubstring, Integer detectionConfigSimilarLookingSSIDThreshold) {
         return builder()
                 .id(id)
                 .uuid(uuid)
@@ -35,6 +36,7 @@ public abstract class PreLoadedMonitoredSSID {
                 .bssids(bssids)
                 .channels(channels)
                 .securitySuites(securitySuites)
+                .restrictedSubstrings(restrictedSubstrings)
                 .enabledUnexpectedBSSID(enabledUnexpectedBSSID)
                 .enabledUnexpectedChannel(enabledUnexpectedChannel)
                 .enabledUnexpectedSecuritySuites(enabledUnexpectedSecuritySuites)
@@ -64,6 +66,8 @@ public abstract class PreLoadedMonitoredSSID {
 
         public abstract Builder securitySuites(List<String> securitySuites);
 
+        public abstract Builder restrictedSubstrings(List<String> restrictedSubstrings);
+
         public abstract Builder enabledUnexpectedBSSID(boolean enabledUnexpectedBSSID);
 
         public abstract Builder enabledUnexpectedChannel(boolean enabledUnexpectedChannel);
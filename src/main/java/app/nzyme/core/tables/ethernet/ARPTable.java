@@ -11,6 +11,7 @@ import app.nzyme.core.util.MetricNames;
 import app.nzyme.plugin.Subsystem;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -41,9 +42,9 @@ public class ARPTable implements DataTable {
                 .timer(MetricNames.ARP_ASSET_REGISTRATION_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, ArpPacketsReport report) {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, ArpPacketsReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
-            tablesService.getNzyme().getDatabase().useHandle(handle -> {
+            tablesService.writeReport(tapUuid, "arp", reportId, (handle, afterCommit) -> {
                 Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
                 if (tap.isEmpty()) {
                     throw new RuntimeException("Reporting tap [" + tapUuid + "] not found. Not processing report.");
@@ -78,13 +79,17 @@ public class ARPTable implements DataTable {
                 insertBatch.execute();
 
                 try (Timer.Context ignored1 = assetRegistrationTimer.time()) {
-                    registerAssets(handle, tap.get(), timestamp, report.packets());
+                    registerAssets(handle, tap.get(), timestamp, report.packets(), afterCommit);
                 }
             });
         }
     }
 
-    private void registerAssets(Handle handle, Tap tap, DateTime timestamp, List<ArpPacketReport> conversations) {
+    private void registerAssets(Handle handle,
+                                Tap tap,
+                                DateTime timestamp,
+                                List<ArpPacketReport> conversations,
+                                List<Runnable> afterCommit) {
         // Aggregate sources to avoid updating same asset over and over again.
 
         PreparedBatch insertBatch = handle.prepareBatch("INSERT INTO assets(uuid, organization_id, tenant_id, " +
@@ -153,14 +158,14 @@ public class ARPTable implements DataTable {
                             .add();
 
                     // Handle new asset.
-                    tablesService.getNzyme().getAssetsManager().onNewAsset(
+                    afterCommit.add(() -> tablesService.getNzyme().getAssetsManager().onNewAsset(
                             Subsystem.ETHERNET,
                             uuid,
                             assetInfo.mac(),
                             tap.organizationId(),
                             tap.tenantId(),
                             tap.uuid()
-                    );
+                    ));
                 }
             } catch (Exception e) {
                 LOG.error("Could not register asset from ARP packets.", e);
@@ -16,6 +16,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -55,8 +56,11 @@ public class DHCPTable implements DataTable {
                 .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, DhcpTransactionsReport report) {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
+    public void handleReport(UUID tapUuid,
+                             DateTime timestamp,
+                             @Nullable String reportId,
+                             DhcpTransactionsReport report) {
+        tablesService.writeReport(tapUuid, "dhcp", reportId, (handle, afterCommit) -> {
             try (Timer.Context ignored1 = totalReportTimer.time()) {
                 Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
                 if (tap.isEmpty()) {
@@ -68,7 +72,7 @@ public class DHCPTable implements DataTable {
                 }
 
                 try (Timer.Context ignored3 = assetRegistrationTimer.time()) {
-                    registerAssets(handle, tap.get(), report.four());
+                    registerAssets(handle, tap.get(), report.four(), afterCommit);
                 }
             }
         });
@@ -191,7 +195,10 @@ public class DHCPTable implements DataTable {
         }
     }
 
-    private void registerAssets(Handle handle, Tap tap, List<Dhcpv4TransactionReport> txs) {
+    private void registerAssets(Handle handle,
+                                Tap tap,
+                                List<Dhcpv4TransactionReport> txs,
+                                List<Runnable> afterCommit) {
         PreparedBatch insertBatch = handle.prepareBatch("INSERT INTO assets(uuid, organization_id, tenant_id, " +
                 "mac, dhcp_fingerprint_initial, dhcp_fingerprint_renew, dhcp_fingerprint_reboot, dhcp_fingerprint_rebind, first_seen, last_seen, seen_dhcp, updated_at, created_at) VALUES(:uuid, " +
                 ":organization_id, :tenant_id, :mac, :dhcp_fingerprint_initial, :dhcp_fingerprint_renew, :dhcp_fingerprint_reboot, :dhcp_fingerprint_rebind, :first_seen, :last_seen, true,  NOW(), NOW())");
@@ -245,7 +252,7 @@ public class DHCPTable implements DataTable {
                 updateBatch.add();
 
                 // Spoof checks.
-                checkFingerprint(tap, asset.get(), tx);
+                afterCommit.add(() -> checkFingerprint(tap, asset.get(), tx));
             } else {
                 // First time we are seeing this asset.
 
@@ -282,14 +289,14 @@ public class DHCPTable implements DataTable {
                         .add();
 
                 // Handle new asset.
-                tablesService.getNzyme().getAssetsManager().onNewAsset(
+                afterCommit.add(() -> tablesService.getNzyme().getAssetsManager().onNewAsset(
                         Subsystem.ETHERNET,
                         uuid,
                         tx.clientMac(),
                         tap.organizationId(),
                         tap.tenantId(),
                         tap.uuid()
-                );
+                ));
             }
         }
 
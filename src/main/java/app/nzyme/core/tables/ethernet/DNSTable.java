@@ -17,6 +17,7 @@
 
 package app.nzyme.core.tables.ethernet;
 
+import app.nzyme.core.database.CopyWriter;
 import app.nzyme.core.integrations.geoip.GeoIpLookupResult;
 import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsEntropyLogReport;
 import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsIpStatisticsReport;
@@ -26,9 +27,9 @@ import app.nzyme.core.tables.DataTable;
 import app.nzyme.core.tables.TablesService;
 import app.nzyme.core.util.MetricNames;
 import com.codahale.metrics.Timer;
+import com.google.auto.value.AutoValue;
 import com.google.common.collect.Maps;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import jakarta.annotation.Nullable;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
@@ -51,8 +52,11 @@ public class DNSTable implements DataTable {
     private final Timer logReportTimer;
     private final Timer entropyReportTimer;
 
+    private final boolean aggregateLogs;
+
     public DNSTable(TablesService tablesService) {
         this.tablesService = tablesService;
+        this.aggregateLogs = tablesService.getNzyme().getConfiguration().performance().dnsLogAggregation();
 
         this.totalReportTimer = tablesService.getNzyme().getMetrics()
                 .timer(MetricNames.DNS_TOTAL_REPORT_PROCESSING_TIMER);
@@ -66,19 +70,25 @@ public class DNSTable implements DataTable {
                 .timer(MetricNames.DNS_ENTROPY_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, DnsTablesReport report) {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, DnsTablesReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
-            tablesService.getNzyme().getDatabase().useHandle(handle -> {
+            GeoCache geo = new GeoCache();
+
+            tablesService.writeReport(tapUuid, "dns", reportId, handle -> {
                 try (Timer.Context ignored2 = statisticsReportTimer.time()) {
                     registerStatistics(handle, tapUuid, report.ips(), timestamp);
                 }
 
                 try (Timer.Context ignored2 = pairsReportTimer.time()) {
-                    registerPairs(handle, tapUuid, report.queryLog(), timestamp);
+                    registerPairs(handle, tapUuid, report.queryLog(), timestamp, geo);
                 }
 
                 try (Timer.Context ignored2 = logReportTimer.time()) {
-                    registerLogs(handle, tapUuid, report.queryLog(), report.responseLog());
+                    if (aggregateLogs) {
+                        registerLogBuckets(handle, tapUuid, report.queryLog(), report.responseLog(), geo);
+                    } else {
+                        registerLogs(handle, tapUuid, report.queryLog(), report.responseLog(), geo);
+                    }
                 }
 
                 try (Timer.Context ignored2 = entropyReportTimer.time()) {
@@ -115,77 +125,121 @@ public class DNSTable implements DataTable {
         batch.execute();
     }
 
-    private void registerPairs(Handle handle, UUID tapUuid, List<DnsLogReport> logs, DateTime timestamp) {
+    private void registerPairs(Handle handle,
+                               UUID tapUuid,
+                               List<DnsLogReport> logs,
+                               DateTime timestamp,
+                               GeoCache geo) {
         // Build pairs.
         Map<String, Map<Integer, Map<String, Long>>> pairs = Maps.newHashMap();
         for (DnsLogReport log : logs) {
-            if (!pairs.containsKey(log.clientAddress())) {
-                pairs.put(log.clientAddress(), Maps.newHashMap());
-            }
-
-            Map<Integer, Map<String, Long>> server = pairs.get(log.clientAddress());
-            if (!server.containsKey(log.serverPort())) {
-                server.put(log.serverPort(), Maps.newHashMap());
-            }
-
-            Map<String, Long> port = server.get(log.serverPort());
-            if (!port.containsKey(log.serverAddress())) {
-                port.put(log.serverAddress(), 1L);
-            } else {
-                port.compute(log.serverAddress(), (k, oldCount) -> oldCount + 1);
-            }
+            pairs.computeIfAbsent(log.clientAddress(), k -> Maps.newHashMap())
+                    .computeIfAbsent(log.serverPort(), k -> Maps.newHashMap())
+                    .merge(log.serverAddress(), 1L, Long::sum);
         }
 
-        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_pairs(tap_uuid, client_address, " +
-                "server_address, server_port, server_address_geo_asn_number, server_address_geo_asn_name, " +
-                "server_address_geo_asn_domain, server_address_geo_city, server_address_geo_country_code, " +
-                "server_address_geo_latitude, server_address_geo_longitude, server_address_is_site_local, " +
-                "server_address_is_multicast, server_address_is_loopback, count, " +
-                "created_at) VALUES(:tap_uuid, :client_address::inet, :server_address::inet, :server_port, " +
-                ":server_address_geo_asn_number, :server_address_geo_asn_name, :server_address_geo_asn_domain, " +
-                ":server_address_geo_city, :server_address_geo_country_code, :server_address_geo_latitude, " +
-                ":server_address_geo_longitude, :server_address_is_site_local, :server_address_is_multicast, " +
-                ":server_address_is_loopback, :count, :timestamp)");
+        CopyWriter copy = new CopyWriter("dns_pairs", "tap_uuid", "client_address", "server_address",
+                "server_port", "server_address_geo_asn_number", "server_address_geo_asn_name",
+                "server_address_geo_asn_domain", "server_address_geo_city", "server_address_geo_country_code",
+                "server_address_geo_latitude", "server_address_geo_longitude", "server_address_is_site_local",
+                "server_address_is_multicast", "server_address_is_loopback", "count", "created_at");
 
         for (Map.Entry<String, Map<Integer, Map<String, Long>>> pair : pairs.entrySet()) {
             for (Map.Entry<Integer, Map<String, Long>> server : pair.getValue().entrySet()) {
                 for (Map.Entry<String, Long> port : server.getValue().entrySet()) {
-                    InetAddress serverAddress = stringtoInetAddress(port.getKey());
-                    Optional<GeoIpLookupResult> geo = tablesService.getNzyme().getGeoIpService().lookup(serverAddress);
-
-                    batch.bind("tap_uuid", tapUuid)
-                            .bind("client_address", pair.getKey())
-                            .bind("server_address", port.getKey())
-                            .bind("server_port", server.getKey())
-                            .bind("server_address_geo_asn_number", geo.map(g -> g.asn().number()).orElse(null))
-                            .bind("server_address_geo_asn_name", geo.map(g -> g.asn().name()).orElse(null))
-                            .bind("server_address_geo_asn_domain", geo.map(g -> g.asn().domain()).orElse(null))
-                            .bind("server_address_geo_city", geo.map(g -> g.geo().city()).orElse(null))
-                            .bind("server_address_geo_country_code", geo.map(g -> g.geo().countryCode()).orElse(null))
-                            .bind("server_address_geo_latitude", geo.map(g -> g.geo().latitude()).orElse(null))
-                            .bind("server_address_geo_longitude", geo.map(g -> g.geo().longitude()).orElse(null))
-                            .bind("server_address_is_site_local", serverAddress.isSiteLocalAddress())
-                            .bind("server_address_is_multicast", serverAddress.isMulticastAddress())
-                            .bind("server_address_is_loopback", serverAddress.isLoopbackAddress())
-                            .bind("count", port.getValue())
-                            .bind("timestamp", timestamp)
-                            .add();
+                    copy.value(tapUuid)
+                            .value(pair.getKey())
+                            .value(port.getKey())
+                            .value(server.getKey());
+                    geo.address(port.getKey()).write(copy);
+                    copy.value(port.getValue())
+                            .value(timestamp)
+                            .endRow();
                 }
             }
         }
 
-        batch.execute();
+        copy.execute(handle);
     }
 
-    /*
-     */
-
     private void registerLogs(Handle handle,
                               UUID tapUuid,
                               List<DnsLogReport> queries,
-                              List<DnsLogReport> responses) {
-        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_log(uuid, tap_uuid, transaction_id, " +
-                "dns_type, client_address, client_port, client_mac, client_address_geo_asn_number, " +
+                              List<DnsLogReport> responses,
+                              GeoCache geo) {
+        CopyWriter copy = new CopyWriter("dns_log", "uuid", "tap_uuid", "transaction_id", "dns_type",
+                "client_address", "client_port", "client_mac", "client_address_geo_asn_number",
+                "client_address_geo_asn_name", "client_address_geo_asn_domain", "client_address_geo_city",
+                "client_address_geo_country_code", "client_address_geo_latitude", "client_address_geo_longitude",
+                "client_address_is_site_local", "client_address_is_multicast", "client_address_is_loopback",
+                "server_address", "server_port", "server_mac", "server_address_geo_asn_number",
+                "server_address_geo_asn_name", "server_address_geo_asn_domain", "server_address_geo_city",
+                "server_address_geo_country_code", "server_address_geo_latitude", "server_address_geo_longitude",
+                "server_address_is_site_local", "server_address_is_multicast", "server_address_is_loopback",
+                "data_value", "data_value_etld", "data_type", "timestamp", "created_at");
+
+        DateTime now = DateTime.now();
+        for (DnsLogReport d : queries) {
+            writeLog(copy, tapUuid, "query", d, geo, now);
+        }
+        for (DnsLogReport d : responses) {
+            writeLog(copy, tapUuid, "response", d, geo, now);
+        }
+
+        copy.execute(handle);
+    }
+
+    private void writeLog(CopyWriter copy,
+                          UUID tapUuid,
+                          String dnsType,
+                          DnsLogReport d,
+                          GeoCache geo,
+                          DateTime now) {
+        copy.value(UUID.randomUUID())
+                .value(tapUuid)
+                .value(d.transactionId())
+                .value(dnsType)
+                .value(d.clientAddress())
+                .value(d.clientPort())
+                .value(d.clientMac());
+        geo.address(d.clientAddress()).write(copy);
+
+        copy.value(d.serverAddress())
+                .value(d.serverPort())
+                .value(d.serverMac());
+        geo.address(d.serverAddress()).write(copy);
+
+        copy.value(d.dataValue())
+                .value(d.dataValueEtld())
+                .value(d.dataType())
+                .value(d.timestamp())
+                .value(now)
+                .endRow();
+    }
+
+    /*
+     * Aggregated mode: Repeated (client, server, value, type) tuples are counted into minute buckets instead of
+     * being written as individual rows. Buckets are upserted, because a bucket may span multiple tap reports.
+     */
+    private void registerLogBuckets(Handle handle,
+                                    UUID tapUuid,
+                                    List<DnsLogReport> queries,
+                                    List<DnsLogReport> responses,
+                                    GeoCache geo) {
+        Map<LogBucketKey, LogBucket> buckets = Maps.newHashMap();
+        for (DnsLogReport d : queries) {
+            aggregate(buckets, "query", d);
+        }
+        for (DnsLogReport d : responses) {
+            aggregate(buckets, "response", d);
+        }
+
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_log_buckets(uuid, tap_uuid, dns_type, bucket, " +
+                "transaction_id, client_address, client_port, client_mac, client_address_geo_asn_number, " +
                 "client_address_geo_asn_name, client_address_geo_asn_domain, client_address_geo_city, " +
                 "client_address_geo_country_code, client_address_geo_latitude, client_address_geo_longitude, " +
                 "client_address_is_site_local, client_address_is_multicast, client_address_is_loopback, " +
@@ -193,133 +247,222 @@ public class DNSTable implements DataTable {
                 "server_address_geo_asn_name, server_address_geo_asn_domain, server_address_geo_city, " +
                 "server_address_geo_country_code, server_address_geo_latitude, server_address_geo_longitude, " +
                 "server_address_is_site_local, server_address_is_multicast, server_address_is_loopback, " +
-                "data_value, data_value_etld, data_type, timestamp, created_at) VALUES(:uuid, :tap_uuid, " +
-                ":transaction_id, :dns_type, :client_address::inet, :client_port, :client_mac, " +
-                ":client_address_geo_asn_number, :client_address_geo_asn_name, :client_address_geo_asn_domain, " +
-                ":client_address_geo_city, :client_address_geo_country_code, :client_address_geo_latitude, " +
-                ":client_address_geo_longitude, :client_address_is_site_local, :client_address_is_multicast, " +
-                ":client_address_is_loopback, :server_address::inet, :server_port, :server_mac, " +
-                ":server_address_geo_asn_number, :server_address_geo_asn_name, :server_address_geo_asn_domain, " +
-                ":server_address_geo_city, :server_address_geo_country_code, :server_address_geo_latitude, " +
-                ":server_address_geo_longitude, :server_address_is_site_local, :server_address_is_multicast, " +
-                ":server_address_is_loopback, :data_value, :data_value_etld, :data_type, :timestamp, NOW())");
-
-        for (DnsLogReport d : queries) {
-            InetAddress serverAddress = stringtoInetAddress(d.serverAddress());
-            Optional<GeoIpLookupResult> serverGeo = tablesService.getNzyme().getGeoIpService().lookup(serverAddress);
-
-            InetAddress clientAddress = stringtoInetAddress(d.clientAddress());
-            Optional<GeoIpLookupResult> clientGeo = tablesService.getNzyme().getGeoIpService().lookup(clientAddress);
-
-            batch
-                    .bind("uuid", UUID.randomUUID())
+                "data_value, data_value_etld, data_type, count, first_seen, timestamp, created_at) " +
+                "VALUES(:uuid, :tap_uuid, :dns_type, :bucket, :transaction_id, :client_address::inet, " +
+                ":client_port, :client_mac, :client_address_geo_asn_number, :client_address_geo_asn_name, " +
+                ":client_address_geo_asn_domain, :client_address_geo_city, :client_address_geo_country_code, " +
+                ":client_address_geo_latitude, :client_address_geo_longitude, :client_address_is_site_local, " +
+                ":client_address_is_multicast, :client_address_is_loopback, :server_address::inet, " +
+                ":server_port, :server_mac, :server_address_geo_asn_number, :server_address_geo_asn_name, " +
+                ":server_address_geo_asn_domain, :server_address_geo_city, :server_address_geo_country_code, " +
+                ":server_address_geo_latitude, :server_address_geo_longitude, :server_address_is_site_local, " +
+                ":server_address_is_multicast, :server_address_is_loopback, :data_value, :data_value_etld, " +
+                ":data_type, :count, :first_seen, :timestamp, NOW()) " +
+                "ON CONFLICT (tap_uuid, bucket, dns_type, client_address, server_address, data_type, " +
+                "md5(data_value)) DO UPDATE SET count = dns_log_buckets.count + EXCLUDED.count, " +
+                "first_seen = LEAST(dns_log_buckets.first_seen, EXCLUDED.first_seen), " +
+                "timestamp = GREATEST(dns_log_buckets.timestamp, EXCLUDED.timestamp), " +
+                "transaction_id = EXCLUDED.transaction_id, client_port = EXCLUDED.client_port, " +
+                "server_port = EXCLUDED.server_port");
+
+        for (Map.Entry<LogBucketKey, LogBucket> b : buckets.entrySet()) {
+            LogBucketKey key = b.getKey();
+            LogBucket bucket = b.getValue();
+            DnsLogReport d = bucket.latest;
+
+            batch.bind("uuid", UUID.randomUUID())
                     .bind("tap_uuid", tapUuid)
+                    .bind("dns_type", key.dnsType())
+                    .bind("bucket", key.bucket())
                     .bind("transaction_id", d.transactionId())
-                    .bind("dns_type", "query")
                     .bind("client_address", d.clientAddress())
                     .bind("client_port", d.clientPort())
                     .bind("client_mac", d.clientMac())
-                    .bind("client_address_geo_asn_number", clientGeo.map(g -> g.asn().number()).orElse(null))
-                    .bind("client_address_geo_asn_name", clientGeo.map(g -> g.asn().name()).orElse(null))
-                    .bind("client_address_geo_asn_domain", clientGeo.map(g -> g.asn().domain()).orElse(null))
-                    .bind("client_address_geo_city", clientGeo.map(g -> g.geo().city()).orElse(null))
-                    .bind("client_address_geo_country_code", clientGeo.map(g -> g.geo().countryCode()).orElse(null))
-                    .bind("client_address_geo_latitude", clientGeo.map(g -> g.geo().latitude()).orElse(null))
-                    .bind("client_address_geo_longitude", clientGeo.map(g -> g.geo().longitude()).orElse(null))
-                    .bind("client_address_is_site_local", clientAddress.isSiteLocalAddress())
-                    .bind("client_address_is_multicast", clientAddress.isMulticastAddress())
-                    .bind("client_address_is_loopback", clientAddress.isLoopbackAddress())
                     .bind("server_address", d.serverAddress())
                     .bind("server_port", d.serverPort())
                     .bind("server_mac", d.serverMac())
-                    .bind("server_address_geo_asn_number", serverGeo.map(g -> g.asn().number()).orElse(null))
-                    .bind("server_address_geo_asn_name", serverGeo.map(g -> g.asn().name()).orElse(null))
-                    .bind("server_address_geo_asn_domain", serverGeo.map(g -> g.asn().domain()).orElse(null))
-                    .bind("server_address_geo_city", serverGeo.map(g -> g.geo().city()).orElse(null))
-                    .bind("server_address_geo_country_code", serverGeo.map(g -> g.geo().countryCode()).orElse(null))
-                    .bind("server_address_geo_latitude", serverGeo.map(g -> g.geo().latitude()).orElse(null))
-                    .bind("server_address_geo_longitude", serverGeo.map(g -> g.geo().longitude()).orElse(null))
-                    .bind("server_address_is_site_local", serverAddress.isSiteLocalAddress())
-                    .bind("server_address_is_multicast", serverAddress.isMulticastAddress())
-                    .bind("server_address_is_loopback", serverAddress.isLoopbackAddress())
                     .bind("data_value", d.dataValue())
                     .bind("data_value_etld", d.dataValueEtld())
                     .bind("data_type", d.dataType())
-                    .bind("timestamp", d.timestamp())
-                    .add();
-        }
+                    .bind("count", bucket.count)
+                    .bind("first_seen", bucket.firstSeen)
+                    .bind("timestamp", d.timestamp());
 
-        for (DnsLogReport d : responses) {
-            InetAddress serverAddress = stringtoInetAddress(d.serverAddress());
-            Optional<GeoIpLookupResult> serverGeo = tablesService.getNzyme().getGeoIpService().lookup(serverAddress);
-
-            InetAddress clientAddress = stringtoInetAddress(d.clientAddress());
-            Optional<GeoIpLookupResult> clientGeo = tablesService.getNzyme().getGeoIpService().lookup(clientAddress);
+            geo.address(d.clientAddress()).bind(batch, "client");
+            geo.address(d.serverAddress()).bind(batch, "server");
 
-            batch
-                    .bind("uuid", UUID.randomUUID())
-                    .bind("tap_uuid", tapUuid)
-                    .bind("transaction_id", d.transactionId())
-                    .bind("dns_type", "response")
-                    .bind("client_address", d.clientAddress())
-                    .bind("client_port", d.clientPort())
-                    .bind("client_mac", d.clientMac())
-                    .bind("client_address_geo_asn_number", clientGeo.map(g -> g.asn().number()).orElse(null))
-                    .bind("client_address_geo_asn_name", clientGeo.map(g -> g.asn().name()).orElse(null))
-                    .bind("client_address_geo_asn_domain", clientGeo.map(g -> g.asn().domain()).orElse(null))
-                    .bind("client_address_geo_city", clientGeo.map(g -> g.geo().city()).orElse(null))
-                    .bind("client_address_geo_country_code", clientGeo.map(g -> g.geo().countryCode()).orElse(null))
-                    .bind("client_address_geo_latitude", clientGeo.map(g -> g.geo().latitude()).orElse(null))
-                    .bind("client_address_geo_longitude", clientGeo.map(g -> g.geo().longitude()).orElse(null))
-                    .bind("client_address_is_site_local", clientAddress.isSiteLocalAddress())
-                    .bind("client_address_is_multicast", clientAddress.isMulticastAddress())
-                    .bind("client_address_is_loopback", clientAddress.isLoopbackAddress())
-                    .bind("server_address", d.serverAddress())
-                    .bind("server_port", d.serverPort())
-                    .bind("server_mac", d.serverMac())
-                    .bind("server_address_geo_asn_number", serverGeo.map(g -> g.asn().number()).orElse(null))
-                    .bind("server_address_geo_asn_name", serverGeo.map(g -> g.asn().name()).orElse(null))
-                    .bind("server_address_geo_asn_domain", serverGeo.map(g -> g.asn().domain()).orElse(null))
-                    .bind("server_address_geo_city", serverGeo.map(g -> g.geo().city()).orElse(null))
-                    .bind("server_address_geo_country_code", serverGeo.map(g -> g.geo().countryCode()).orElse(null))
-                    .bind("server_address_geo_latitude", serverGeo.map(g -> g.geo().latitude()).orElse(null))
-                    .bind("server_address_geo_longitude", serverGeo.map(g -> g.geo().longitude()).orElse(null))
-                    .bind("server_address_is_site_local", serverAddress.isSiteLocalAddress())
-                    .bind("server_address_is_multicast", serverAddress.isMulticastAddress())
-                    .bind("server_address_is_loopback", serverAddress.isLoopbackAddress())
-                    .bind("data_value", d.dataValue())
-                    .bind("data_value_etld", d.dataValueEtld())
-                    .bind("data_type", d.dataType())
-                    .bind("timestamp", d.timestamp())
-                    .add();
+            batch.add();
         }
 
         batch.execute();
     }
 
+    private static void aggregate(Map<LogBucketKey, LogBucket> buckets, String dnsType, DnsLogReport d) {
+        LogBucketKey key = LogBucketKey.create(
+                dnsType,
+                d.timestamp().minuteOfHour().roundFloorCopy(),
+                d.clientAddress(),
+                d.serverAddress(),
+                d.dataValue(),
+                d.dataType()
+        );
+
+        LogBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            buckets.put(key, new LogBucket(d));
+        } else {
+            bucket.record(d);
+        }
+    }
+
     public void registerEntropyLogs(Handle handle,
                                     UUID tapUuid,
                                     List<DnsEntropyLogReport> logs) {
-        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_entropy_log(tap_uuid, transaction_id, " +
-                "entropy, entropy_mean, zscore, timestamp, created_at) VALUES(:tap_uuid, :transaction_id, " +
-                ":entropy, :entropy_mean, :zscore, :timestamp, NOW())");
+        CopyWriter copy = new CopyWriter("dns_entropy_log", "tap_uuid", "transaction_id", "entropy",
+                "entropy_mean", "zscore", "timestamp", "created_at");
 
+        DateTime now = DateTime.now();
         for (DnsEntropyLogReport log : logs) {
-            batch
-                    .bind("tap_uuid", tapUuid)
-                    .bind("transaction_id", log.transactionId())
-                    .bind("entropy", log.entropy())
-                    .bind("entropy_mean", log.entropyMean())
-                    .bind("zscore", log.zScore())
-                    .bind("timestamp", log.timestamp())
-                    .add();
+            copy.value(tapUuid)
+                    .value(log.transactionId())
+                    .value(log.entropy())
+                    .value(log.entropyMean())
+                    .value(log.zScore())
+                    .value(log.timestamp())
+                    .value(now)
+                    .endRow();
         }
 
-        batch.execute();
+        copy.execute(handle);
     }
 
     @Override
     public void retentionClean() {
         // NOOP. Remove from plugin APIs if there remains no use. Database cleaned by category/tenant independently.
     }
+
+    /*
+     * The same few resolvers and clients show up in almost every row of a report. Look up every address only once.
+     */
+    private final class GeoCache {
+
+        private final Map<String, AddressInformation> addresses = Maps.newHashMap();
+
+        AddressInformation address(String address) {
+            return addresses.computeIfAbsent(address, a -> {
+                InetAddress inet = stringtoInetAddress(a);
+                return new AddressInformation(inet, tablesService.getNzyme().getGeoIpService().lookup(inet));
+            });
+        }
+
+    }
+
+    private static final class AddressInformation {
+
+        private final InetAddress address;
+        private final Optional<GeoIpLookupResult> geo;
+
+        AddressInformation(InetAddress address, Optional<GeoIpLookupResult> geo) {
+            this.address = address;
+            this.geo = geo;
+        }
+
+        // Writes the geo and attribute columns, in the order used by all DNS tables.
+        void write(CopyWriter copy) {
+            copy.value(geo.map(g -> g.asn().number()).orElse(null))
+                    .value(geo.map(g -> g.asn().name()).orElse(null))
+                    .value(geo.map(g -> g.asn().domain()).orElse(null))
+                    .value(geo.map(g -> g.geo().city()).orElse(null))
+                    .value(geo.map(g -> g.geo().countryCode()).orElse(null))
+                    .value(geo.map(g -> g.geo().latitude()).orElse(null))
+                    .value(geo.map(g -> g.geo().longitude()).orElse(null))
+                    .value(address.isSiteLocalAddress())
+                    .value(address.isMulticastAddress())
+                    .value(address.isLoopbackAddress());
+        }
+
+        void bind(PreparedBatch batch, String prefix) {
+            batch.bind(prefix + "_address_geo_asn_number", geo.map(g -> g.asn().number()).orElse(null))
+                    .bind(prefix + "_address_geo_asn_name", geo.map(g -> g.asn().name()).orElse(null))
+                    .bind(prefix + "_address_geo_asn_domain", geo.map(g -> g.asn().domain()).orElse(null))
+                    .bind(prefix + "_address_geo_city", geo.map(g -> g.geo().city()).orElse(null))
+                    .bind(prefix + "_address_geo_country_code", geo.map(g -> g.geo().countryCode()).orElse(null))
+                    .bind(prefix + "_address_geo_latitude", geo.map(g -> g.geo().latitude()).orElse(null))
+                    .bind(prefix + "_address_geo_longitude", geo.map(g -> g.geo().longitude()).orElse(null))
+                    .bind(prefix + "_address_is_site_local", address.isSiteLocalAddress())
+                    .bind(prefix + "_address_is_multicast", address.isMulticastAddress())
+                    .bind(prefix + "_address_is_loopback", address.isLoopbackAddress());
+        }
+
+    }
+
+    private static final class LogBucket {
+
+        private DnsLogReport latest;
+        private DateTime firstSeen;
+        private long count;
+
+        LogBucket(DnsLogReport first) {
+            this.latest = first;
+            this.firstSeen = first.timestamp();
+            this.count = 1;
+        }
+
+        void record(DnsLogReport d) {
+            count++;
+
+            if (d.timestamp().isAfter(latest.timestamp())) {
+                latest = d;
+            }
+
+            if (d.timestamp().isBefore(firstSeen)) {
+                firstSeen = d.timestamp();
+            }
+        }
+
+    }
+
+    @AutoValue
+    public static abstract class LogBucketKey {
+
+        public abstract String dnsType();
+        public abstract DateTime bucket();
+        public abstract String clientAddress();
+        public abstract String serverAddress();
+        public abstract String dataValue();
+        public abstract String dataType();
+
+        public static LogBucketKey create(String dnsType, DateTime bucket, String clientAddress, String serverAddress, String dataValue, String dataType) {
+            return builder()
+                    .dnsType(dnsType)
+                    .bucket(bucket)
+                    .clientAddress(clientAddress)
+                    .serverAddress(serverAddress)
+                    .dataValue(dataValue)
+                    .dataType(dataType)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_DNSTable_LogBucketKey.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder dnsType(String dnsType);
+
+            public abstract Builder bucket(DateTime bucket);
+
+            public abstract Builder clientAddress(String clientAddress);
+
+            public abstract Builder serverAddress(String serverAddress);
+
+            public abstract Builder dataValue(String dataValue);
+
+            public abstract Builder dataType(String dataType);
+
+            public abstract LogBucketKey build();
+        }
+    }
+
 }
@@ -7,6 +7,7 @@ import app.nzyme.core.tables.TablesService;
 import app.nzyme.core.util.MetricNames;
 import app.nzyme.core.util.Tools;
 import com.codahale.metrics.Timer;
+import jakarta.annotation.Nullable;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
@@ -28,8 +29,8 @@ public class SOCKSTable implements DataTable {
                 .timer(MetricNames.SOCKS_TOTAL_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, SocksTunnelsReport report) {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, SocksTunnelsReport report) {
+        tablesService.writeReport(tapUuid, "socks", reportId, handle -> {
             try(Timer.Context ignored = totalReportTimer.time()) {
                 writeTunnels(handle, tapUuid, report.tunnels());
             }
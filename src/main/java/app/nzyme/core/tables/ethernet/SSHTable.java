@@ -7,6 +7,7 @@ import app.nzyme.core.tables.TablesService;
 import app.nzyme.core.util.MetricNames;
 import app.nzyme.core.util.Tools;
 import com.codahale.metrics.Timer;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -32,8 +33,8 @@ public class SSHTable implements DataTable {
                 .timer(MetricNames.SSH_TOTAL_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, SshSessionsReport report) {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, SshSessionsReport report) {
+        tablesService.writeReport(tapUuid, "ssh", reportId, handle -> {
             try(Timer.Context ignored = totalReportTimer.time()) {
                 writeSessions(handle, tapUuid, report.sessions());
             }
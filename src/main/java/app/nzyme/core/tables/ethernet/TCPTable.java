@@ -2,6 +2,8 @@ package app.nzyme.core.tables.ethernet;
 
 import app.nzyme.core.assets.AssetInformation;
 import app.nzyme.core.assets.db.AssetEntry;
+import app.nzyme.core.ethernet.L4Type;
+import app.nzyme.core.ethernet.l4.L4SessionTimeoutTracker;
 import app.nzyme.core.ethernet.l4.tcp.TCPFingerprint;
 import app.nzyme.core.ethernet.l4.tcp.TcpSessionState;
 import app.nzyme.core.ethernet.l4.tcp.db.TcpSessionEntry;
@@ -18,7 +20,9 @@ import app.nzyme.plugin.Subsystem;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -65,7 +69,7 @@ public class TCPTable implements DataTable {
                 .timer(MetricNames.TCP_ASSET_REGISTRATION_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, TcpSessionsReport report) {
+    public void handleReport(UUID tapUuid, DateTime timestamp, @Nullable String reportId, TcpSessionsReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
             tablesService.getProcessorPool().submit(() -> {
                 Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
@@ -73,13 +77,13 @@ public class TCPTable implements DataTable {
                     throw new RuntimeException("Reporting tap [" + tapUuid + "] not found. Not processing report.");
                 }
 
-                tablesService.getNzyme().getDatabase().useHandle(handle -> {
+                tablesService.writeReport(tapUuid, "tcp", reportId, (handle, afterCommit) -> {
                     try (Timer.Context ignored2 = sessionsReportTimer.time()) {
                         writeSessions(handle, tap.get(), timestamp, report.sessions());
                     }
 
                     try (Timer.Context ignored2 = assetRegistrationTimer.time()) {
-                        registerAssets(handle, tap.get(), timestamp, report.sessions());
+                        registerAssets(handle, tap.get(), timestamp, report.sessions(), afterCommit);
                     }
                 });
             });
@@ -121,6 +125,9 @@ public class TCPTable implements DataTable {
                 "segments_count = :segments_count, tags = tags::jsonb, end_time = :end_time, " +
                 "most_recent_segment_time = :most_recent_segment_time WHERE id = :id");
 
+        Map<Long, L4SessionTimeoutTracker.Observation> updatedSessions = Maps.newHashMap();
+        List<L4SessionTimeoutTracker.Observation> insertedSessions = Lists.newArrayList();
+
         long totalRxBytes = 0;
         long totalTxBytes = 0;
         long totalRxInternalBytes = 0;
@@ -181,6 +188,11 @@ public class TCPTable implements DataTable {
                                 .bind("tags", tags)
                                 .bind("id", existingSession.get().id())
                                 .add();
+
+                        updatedSessions.put(existingSession.get().id(), L4SessionTimeoutTracker.Observation.tcp(
+                                TcpSessionState.valueOf(session.state().toUpperCase()),
+                                session.mostRecentSegmentTime()
+                        ));
                     } else {
                         String synOptions;
                         try {
@@ -250,6 +262,11 @@ public class TCPTable implements DataTable {
                                 .bind("created_at", timestamp)
                                 .bind("tags", tags)
                                 .add();
+
+                        insertedSessions.add(L4SessionTimeoutTracker.Observation.tcp(
+                                TcpSessionState.valueOf(session.state().toUpperCase()),
+                                session.mostRecentSegmentTime()
+                        ));
                     }
 
                     totalRxBytes += session.bytesCountRxIncremental();
@@ -288,13 +305,27 @@ public class TCPTable implements DataTable {
                     .execute();
 
             updateBatch.execute();
-            insertBatch.execute();
+            List<Long> insertedIds = insertBatch.size() == 0 ? Collections.emptyList()
+                    : insertBatch.executePreparedBatch("id").mapTo(Long.class).list();
+
+            // Keep the session timeout tracker up to date. It closes sessions that stop receiving segments.
+            L4SessionTimeoutTracker tracker = tablesService.getNzyme().getEthernet().l4().getSessionTimeoutTracker();
+            for (Map.Entry<Long, L4SessionTimeoutTracker.Observation> updated : updatedSessions.entrySet()) {
+                tracker.observe(updated.getKey(), L4Type.TCP, updated.getValue());
+            }
+            for (int i = 0; i < insertedIds.size() && i < insertedSessions.size(); i++) {
+                tracker.observe(insertedIds.get(i), L4Type.TCP, insertedSessions.get(i));
+            }
         } catch (Exception e) {
             LOG.error("Could not write TCP sessions.", e);
         }
     }
 
-    private void registerAssets(Handle handle, Tap tap, DateTime timestamp, List<TcpSessionReport> sessions) {
+    private void registerAssets(Handle handle,
+                                Tap tap,
+                                DateTime timestamp,
+                                List<TcpSessionReport> sessions,
+                                List<Runnable> afterCommit) {
         PreparedBatch insertBatch = handle.prepareBatch("INSERT INTO assets(uuid, organization_id, tenant_id, " +
                 "mac, first_seen, last_seen, seen_tcp, updated_at, created_at) VALUES(:uuid, " +
                 ":organization_id, :tenant_id, :mac, :first_seen, :last_seen, true, NOW(), NOW())");
@@ -369,14 +400,14 @@ public class TCPTable implements DataTable {
                             .add();
 
                     // Handle new asset.
-                    tablesService.getNzyme().getAssetsManager().onNewAsset(
+                    afterCommit.add(() -> tablesService.getNzyme().getAssetsManager().onNewAsset(
                             Subsystem.ETHERNET,
                             uuid,
                             assetInfo.mac(),
                             tap.organizationId(),
                             tap.tenantId(),
                             tap.uuid()
-                    );
+                    ));
                 }
             } catch (Exception e) {
                 LOG.error("Could not register asset from TCP session.", e);
@@ -2,6 +2,8 @@ package app.nzyme.core.tables.ethernet;
 
 import app.nzyme.core.assets.AssetInformation;
 import app.nzyme.core.assets.db.AssetEntry;
+import app.nzyme.core.ethernet.L4Type;
+import app.nzyme.core.ethernet.l4.L4SessionTimeoutTracker;
 import app.nzyme.core.ethernet.l4.udp.UdpConversationState;
 import app.nzyme.core.ethernet.l4.udp.db.UdpConversationEntry;
 import app.nzyme.core.integrations.geoip.GeoIpLookupResult;
@@ -17,7 +19,9 @@ import app.nzyme.plugin.Subsystem;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -25,6 +29,7 @@ import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -67,7 +72,10 @@ public class UDPTable implements DataTable {
                 .timer(MetricNames.UDP_ASSET_REGISTRATION_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, UdpConversationsReport report) {
+    public void handleReport(UUID tapUuid,
+                             DateTime timestamp,
+                             @Nullable String reportId,
+                             UdpConversationsReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
             tablesService.getProcessorPool().submit(() -> {
                 Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
@@ -75,13 +83,13 @@ public class UDPTable implements DataTable {
                     throw new RuntimeException("Reporting tap [" + tapUuid + "] not found. Not processing report.");
                 }
 
-                tablesService.getNzyme().getDatabase().useHandle(handle -> {
+                tablesService.writeReport(tapUuid, "udp", reportId, (handle, afterCommit) -> {
                     try (Timer.Context ignored2 = conversationsReportTimer.time()) {
                         writeConversations(handle, tap.get(), timestamp, report.conversations());
                     }
 
                     try (Timer.Context ignored2 = assetRegistrationTimer.time()) {
-                        registerAssets(handle, tap.get(), timestamp, report.conversations());
+                        registerAssets(handle, tap.get(), timestamp, report.conversations(), afterCommit);
                     }
                 });
             });
@@ -122,6 +130,9 @@ public class UDPTable implements DataTable {
                 "segments_count = :segments_count, tags = :tags::jsonb, end_time = :end_time, " +
                 "most_recent_segment_time = :most_recent_segment_time WHERE id = :id");
 
+        Map<Long, L4SessionTimeoutTracker.Observation> updatedSessions = Maps.newHashMap();
+        List<L4SessionTimeoutTracker.Observation> insertedSessions = Lists.newArrayList();
+
         long totalRxBytes = 0;
         long totalTxBytes = 0;
         long totalRxInternalBytes = 0;
@@ -180,6 +191,11 @@ public class UDPTable implements DataTable {
                             .bind("most_recent_segment_time", conversation.mostRecentSegmentTime())
                             .bind("id", existingConversation.get().id())
                             .add();
+
+                    updatedSessions.put(existingConversation.get().id(), L4SessionTimeoutTracker.Observation.udp(
+                            UdpConversationState.valueOf(conversation.state().toUpperCase()),
+                            conversation.mostRecentSegmentTime()
+                    ));
                 } else {
                     // This is a new session.
                     insertBatch
@@ -222,6 +238,11 @@ public class UDPTable implements DataTable {
                             .bind("tags", tags)
                             .bind("created_at", timestamp)
                             .add();
+
+                    insertedSessions.add(L4SessionTimeoutTracker.Observation.udp(
+                            UdpConversationState.valueOf(conversation.state().toUpperCase()),
+                            conversation.mostRecentSegmentTime()
+                    ));
                 }
 
                 totalRxBytes += conversation.bytesCountRxIncremental();
@@ -259,13 +280,27 @@ public class UDPTable implements DataTable {
                     .execute();
 
             updateBatch.execute();
-            insertBatch.execute();
+            List<Long> insertedIds = insertBatch.size() == 0 ? Collections.emptyList()
+                    : insertBatch.executePreparedBatch("id").mapTo(Long.class).list();
+
+            // Keep the session timeout tracker up to date. It closes sessions that stop receiving segments.
+            L4SessionTimeoutTracker tracker = tablesService.getNzyme().getEthernet().l4().getSessionTimeoutTracker();
+            for (Map.Entry<Long, L4SessionTimeoutTracker.Observation> updated : updatedSessions.entrySet()) {
+                tracker.observe(updated.getKey(), L4Type.UDP, updated.getValue());
+            }
+            for (int i = 0; i < insertedIds.size() && i < insertedSessions.size(); i++) {
+                tracker.observe(insertedIds.get(i), L4Type.UDP, insertedSessions.get(i));
+            }
         } catch (Exception e) {
             LOG.error("Could not write UDP conversations.", e);
         }
     }
 
-    private void registerAssets(Handle handle, Tap tap, DateTime timestamp, List<UdpConversationReport> conversations) {
+    private void registerAssets(Handle handle,
+                                Tap tap,
+                                DateTime timestamp,
+                                List<UdpConversationReport> conversations,
+                                List<Runnable> afterCommit) {
         PreparedBatch insertBatch = handle.prepareBatch("INSERT INTO assets(uuid, organization_id, tenant_id, " +
                 "mac, first_seen, last_seen, seen_udp, updated_at, created_at) VALUES(:uuid, " +
                 ":organization_id, :tenant_id, :mac, :first_seen, :last_seen, true, NOW(), NOW())");
@@ -330,14 +365,14 @@ public class UDPTable implements DataTable {
                             .add();
 
                     // Handle new asset.
-                    tablesService.getNzyme().getAssetsManager().onNewAsset(
+                    afterCommit.add(() -> tablesService.getNzyme().getAssetsManager().onNewAsset(
                             Subsystem.ETHERNET,
                             uuid,
                             assetInfo.mac(),
                             tap.organizationId(),
                             tap.tenantId(),
                             tap.uuid()
-                    );
+                    ));
                 }
             } catch (Exception e) {
                 LOG.error("Could not register asset from UDP conversations.", e);
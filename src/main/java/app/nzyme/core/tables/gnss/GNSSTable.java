@@ -2,6 +2,7 @@ package app.nzyme.core.tables.gnss;
 
 import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationReport;
 import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationsReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSLatLonReport;
 import app.nzyme.core.tables.DataTable;
 import app.nzyme.core.tables.TablesService;
 import app.nzyme.core.util.MetricNames;
@@ -9,8 +10,11 @@ import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.util.Lists;
+import com.google.common.collect.Maps;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
@@ -35,9 +39,12 @@ public class GNSSTable implements DataTable {
                 .timer(MetricNames.GNSS_TOTAL_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleConstellationsReport(UUID tapUuid, DateTime timestamp, GNSSConstellationsReport report) {
+    public void handleConstellationsReport(UUID tapUuid,
+                                           DateTime timestamp,
+                                           @Nullable String reportId,
+                                           GNSSConstellationsReport report) {
         try (Timer.Context ignored = totalReportTimer.time()) {
-            tablesService.getNzyme().getDatabase().useHandle(handle -> {
+            boolean written = tablesService.writeReport(tapUuid, "gnss", reportId, handle -> {
                 PreparedBatch constellationInsertBatch = handle.prepareBatch("INSERT INTO gnss_constellations(tap_uuid, " +
                         "constellation, fixes, maximum_time_deviation_ms, positions, maximum_fix_satellite_count, " +
                         "minimum_fix_satellite_count, fix_satellites, maximum_altitude_meters, " +
@@ -113,7 +120,57 @@ public class GNSSTable implements DataTable {
                 }
 
                 satellitesInsertBatch.execute();
+
+                writePositionCells(handle, tapUuid, report);
             });
+
+            if (!written) {
+                return;
+            }
+
+            try {
+                tablesService.getNzyme().getGnss().getMonitoringRuleEngine().evaluate(tapUuid, report);
+            } catch (Exception e) {
+                LOG.error("Could not evaluate GNSS monitoring rules.", e);
+            }
+        }
+    }
+
+    /*
+     * Positions rounded to five decimal places (about one meter) and counted per minute. Map views aggregate these
+     * cells instead of expanding the positions JSONB of every constellation row.
+     */
+    private void writePositionCells(Handle handle, UUID tapUuid, GNSSConstellationsReport report) {
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO gnss_position_cells(tap_uuid, constellation, " +
+                "bucket, lat_e5, lon_e5, count) VALUES(:tap_uuid, :constellation, :bucket, :lat_e5, :lon_e5, " +
+                ":count) ON CONFLICT (tap_uuid, constellation, bucket, lat_e5, lon_e5) " +
+                "DO UPDATE SET count = gnss_position_cells.count + EXCLUDED.count");
+
+        for (Map.Entry<String, GNSSConstellationReport> constellation : report.constellations().entrySet()) {
+            GNSSConstellationReport data = constellation.getValue();
+            DateTime bucket = data.timestamp().withSecondOfMinute(0).withMillisOfSecond(0);
+
+            // Latitude and longitude cell packed into one long.
+            Map<Long, Integer> cells = Maps.newHashMap();
+            for (GNSSLatLonReport position : data.positions()) {
+                long latE5 = Math.round(position.lat() * 100_000);
+                long lonE5 = Math.round(position.lon() * 100_000);
+                cells.merge((latE5 << 32) | (lonE5 & 0xFFFFFFFFL), 1, Integer::sum);
+            }
+
+            for (Map.Entry<Long, Integer> cell : cells.entrySet()) {
+                batch.bind("tap_uuid", tapUuid)
+                        .bind("constellation", constellation.getKey())
+                        .bind("bucket", bucket)
+                        .bind("lat_e5", (int) (cell.getKey() >> 32))
+                        .bind("lon_e5", cell.getKey().intValue())
+                        .bind("count", cell.getValue())
+                        .add();
+            }
+        }
+
+        if (batch.size() > 0) {
+            batch.execute();
         }
     }
 
@@ -17,6 +17,7 @@ import com.codahale.metrics.Timer;
 import com.google.common.collect.Maps;
 import com.google.common.math.Quantiles;
 import com.google.common.math.Stats;
+import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.Handle;
@@ -41,7 +42,7 @@ public class UAVTable implements DataTable {
                 .timer(MetricNames.UAV_TOTAL_REPORT_PROCESSING_TIMER);
     }
 
-    public void handleReport(UUID tapUuid, DateTime ignored, UavsReport report) {
+    public void handleReport(UUID tapUuid, DateTime ignored, @Nullable String reportId, UavsReport report) {
         Optional<Tap> tap = tablesService.getNzyme().getTapManager().findTap(tapUuid);
 
         if (tap.isEmpty()) {
@@ -50,10 +51,10 @@ public class UAVTable implements DataTable {
             return;
         }
 
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
+        tablesService.writeReport(tapUuid, "uav", reportId, (handle, afterCommit) -> {
             try(Timer.Context ignored2 = totalReportTimer.time()) {
                 writeUavs(handle, tap.get(), report.uavs());
-                alertUavs(tap.get(), report.uavs());
+                afterCommit.add(() -> alertUavs(tap.get(), report.uavs()));
             }
         });
     }
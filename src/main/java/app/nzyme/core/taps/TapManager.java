@@ -1,9 +1,12 @@
 package app.nzyme.core.taps;
 
 import app.nzyme.core.NzymeNode;
-import app.nzyme.core.context.ContextService;
-import app.nzyme.core.context.db.MacAddressContextEntry;
-import app.nzyme.core.context.db.MacAddressTransparentContextEntry;
+import app.nzyme.core.context.TransparentContextValue;
+import app.nzyme.core.distributed.database.metrics.GaugeHistogramBucket;
+import app.nzyme.core.monitoring.timeseries.MetricPoint;
+import app.nzyme.core.monitoring.timeseries.MetricsBatch;
+import app.nzyme.core.monitoring.timeseries.MetricsSeries;
+import app.nzyme.core.monitoring.timeseries.TimerValues;
 import app.nzyme.core.rest.resources.taps.reports.context.TapContextDataReport;
 import app.nzyme.core.rest.resources.taps.reports.context.TapContextReport;
 import app.nzyme.core.rest.resources.taps.reports.context.TapMacContextReport;
@@ -11,11 +14,15 @@ import app.nzyme.core.shared.db.TapBasedSignalStrengthResult;
 import app.nzyme.core.floorplans.db.TenantLocationFloorEntry;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.resources.taps.reports.*;
+import app.nzyme.core.taps.db.CaptureMapper;
 import app.nzyme.core.taps.db.EngagementLogEntry;
 import app.nzyme.core.taps.db.metrics.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -31,6 +38,7 @@ import java.net.UnknownHostException;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TapManager {
 
@@ -38,17 +46,36 @@ public class TapManager {
 
     private final NzymeNode nzyme;
     private final ObjectMapper om;
+    private final TapStatusWriter statusWriter;
+
+    /*
+     * Taps accessible by users and scopes. Resolved once and reused until taps or tap permissions change. Every
+     * change increments the generation, which is part of the cache keys, so results of resolutions that raced
+     * with a change are never served.
+     */
+    private final AtomicLong accessibilityGeneration;
+    private volatile TapScopes tapScopes;
+    private final Cache<UserAccessKey, ImmutableSet<UUID>> userAccessibleTaps;
 
     public TapManager(NzymeNode nzyme) {
         this.nzyme = nzyme;
         this.om = new ObjectMapper();
+        this.statusWriter = new TapStatusWriter(nzyme);
+
+        this.accessibilityGeneration = new AtomicLong(0);
+        this.userAccessibleTaps = CacheBuilder.newBuilder()
+                .maximumSize(5000)
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                .build();
+
+        nzyme.getAuthenticationService().onTapAccessibilityChange(this::invalidateTapAccessibility);
 
         Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("taps-cleaner-%d")
                         .setDaemon(true)
                         .build()
-        ).scheduleAtFixedRate(this::retentionCleanMetrics, 0, 5, TimeUnit.MINUTES);
+        ).scheduleAtFixedRate(this::retentionCleanEngagementLogs, 0, 5, TimeUnit.MINUTES);
     }
 
     public void registerTapHello(HelloReport report, UUID tapUUID) {
@@ -169,227 +196,84 @@ public class TapManager {
                         .execute()
         );
 
-        // Register captures.
-        for (CapturesReport capture : report.captures()) {
-            long captureCount = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT COUNT(*) AS count FROM tap_captures " +
-                                    "WHERE interface = :interface AND tap_uuid = :tap_uuid")
-                            .bind("interface", capture.interfaceName())
-                            .bind("tap_uuid",  tapUUID)
-                            .mapTo(Long.class)
-                            .one()
-            );
+        // All metrics of this report are written in one batch at the end.
+        MetricsBatch metrics = new MetricsBatch(report.timestamp());
 
-            if (captureCount == 0) {
-                nzyme.getDatabase().withHandle(handle ->
-                    handle.createUpdate("INSERT INTO tap_captures(tap_uuid, uuid, interface, capture_type, " +
-                                    "is_running, received, dropped_buffer, dropped_interface, updated_at, created_at) " +
-                                    "VALUES(:tap_uuid, :uuid, :interface, :capture_type, :is_running, :received, " +
-                                    ":dropped_buffer, :dropped_interface, NOW(), NOW())")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("uuid", UUID.randomUUID())
-                            .bind("interface", capture.interfaceName())
-                            .bind("capture_type", capture.captureType())
-                            .bind("is_running", capture.isRunning())
-                            .bind("received", capture.received())
-                            .bind("dropped_buffer", capture.droppedBuffer())
-                            .bind("dropped_interface", capture.droppedInterface())
-                            .execute()
-                );
-            } else {
-                nzyme.getDatabase().withHandle(handle ->
-                        handle.createUpdate("UPDATE tap_captures SET capture_type = :capture_type, " +
-                                "is_running = :is_running, received = :received, dropped_buffer = :dropped_buffer, " +
-                                "dropped_interface = :dropped_interface, updated_at = NOW() " +
-                                "WHERE tap_uuid = :tap_uuid AND interface = :interface")
-                                .bind("capture_type", capture.captureType())
-                                .bind("is_running", capture.isRunning())
-                                .bind("received", capture.received())
-                                .bind("dropped_buffer", capture.droppedBuffer())
-                                .bind("dropped_interface", capture.droppedInterface())
-                                .bind("tap_uuid", tapUUID)
-                                .bind("interface", capture.interfaceName())
-                                .execute()
-                );
-            }
+        // Captures, buses and channels. Only changes are written immediately, counters are flushed periodically.
+        statusWriter.write(tapUUID, report);
 
-            // Capture metrics.
-            writeGauge(
-                    tapUUID,
+        for (CapturesReport capture : report.captures()) {
+            metrics.gauge(
                     "captures." + capture.interfaceName().toLowerCase() + ".received",
-                    capture.received(),
-                    report.timestamp()
+                    capture.received()
             );
 
-            writeGauge(
-                    tapUUID,
+            metrics.gauge(
                     "captures." + capture.interfaceName().toLowerCase() + ".dropped_if",
-                    capture.droppedInterface(),
-                    report.timestamp()
+                    capture.droppedInterface()
             );
 
-            writeGauge(
-                    tapUUID,
+            metrics.gauge(
                     "captures." + capture.interfaceName().toLowerCase() + ".dropped_buffer",
-                    capture.droppedBuffer(),
-                    report.timestamp()
+                    capture.droppedBuffer()
             );
         }
 
-        // Register buses.
         for (BusReport bus : report.buses()) {
-            long busCount = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT COUNT(*) AS count FROM tap_buses " +
-                                    "WHERE tap_uuid = :tap_uuid AND name = :name")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("name", bus.name())
-                            .mapTo(Long.class)
-                            .one()
-            );
-
-            if (busCount == 0) {
-                nzyme.getDatabase().useHandle(handle ->
-                        handle.createUpdate("INSERT INTO tap_buses(tap_uuid, name, created_at, updated_at) " +
-                                        "VALUES(:tap_uuid, :name, NOW(), NOW())")
-                                .bind("tap_uuid", tapUUID)
-                                .bind("name", bus.name())
-                                .execute()
-                );
-            } else {
-                nzyme.getDatabase().useHandle(handle ->
-                        handle.createUpdate("UPDATE tap_buses SET updated_at = NOW() " +
-                                        "WHERE tap_uuid = :tap_uuid AND name = :name")
-                                .bind("tap_uuid", tapUUID)
-                                .bind("name", bus.name())
-                                .execute()
-                );
-            }
-
-            Long busId = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT id FROM tap_buses WHERE tap_uuid = :tap_uuid AND name = :name")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("name", bus.name())
-                            .mapTo(Long.class)
-                            .one()
-            );
-
-            // Register bus channels.
             for (ChannelReport channel : bus.channels()) {
-                long channelCount = nzyme.getDatabase().withHandle(handle ->
-                        handle.createQuery("SELECT COUNT(*) AS count FROM bus_channels " +
-                                        "WHERE bus_id = :bus_id AND name = :channel_name")
-                                .bind("bus_id", busId)
-                                .bind("channel_name", channel.name())
-                                .mapTo(Long.class)
-                                .one()
-                );
-
-                if (channelCount == 0) {
-                    nzyme.getDatabase().withHandle(handle ->
-                            handle.createUpdate("INSERT INTO bus_channels(name, bus_id, capacity, watermark, errors_total, " +
-                                            "errors_average, throughput_bytes_total, throughput_bytes_average, " +
-                                            "throughput_messages_total, throughput_messages_average, created_at, updated_at) " +
-                                            "VALUES(:name, :bus_id, :capacity, :watermark, :errors_total, :errors_average, " +
-                                            ":throughput_bytes_total, :throughput_bytes_average, :throughput_messages_total, " +
-                                            ":throughput_messages_average, NOW(), NOW())")
-                                    .bind("name", channel.name())
-                                    .bind("bus_id", busId)
-                                    .bind("capacity", channel.capacity())
-                                    .bind("watermark", channel.watermark())
-                                    .bind("errors_total", channel.errors().total())
-                                    .bind("errors_average", channel.errors().average())
-                                    .bind("throughput_bytes_total", channel.throughputBytes().total())
-                                    .bind("throughput_bytes_average", channel.throughputBytes().average())
-                                    .bind("throughput_messages_total", channel.throughputMessages().total())
-                                    .bind("throughput_messages_average", channel.throughputMessages().average())
-                                    .execute()
-                    );
-                } else {
-                    nzyme.getDatabase().withHandle(handle ->
-                            handle.createUpdate("UPDATE bus_channels SET capacity = :capacity, watermark = :watermark, " +
-                                            "errors_total = :errors_total, errors_average = :errors_average, " +
-                                            "throughput_bytes_total = :throughput_bytes_total, " +
-                                            "throughput_bytes_average = :throughput_bytes_average, " +
-                                            "throughput_messages_total = :throughput_messages_total, " +
-                                            "throughput_messages_average = :throughput_messages_average, " +
-                                            "updated_at = NOW() WHERE bus_id = :bus_id AND name = :name")
-                                    .bind("name", channel.name())
-                                    .bind("bus_id", busId)
-                                    .bind("capacity", channel.capacity())
-                                    .bind("watermark", channel.watermark())
-                                    .bind("errors_total", channel.errors().total())
-                                    .bind("errors_average", channel.errors().average())
-                                    .bind("throughput_bytes_total", channel.throughputBytes().total())
-                                    .bind("throughput_bytes_average", channel.throughputBytes().average())
-                                    .bind("throughput_messages_total", channel.throughputMessages().total())
-                                    .bind("throughput_messages_average", channel.throughputMessages().average())
-                                    .execute()
-                    );
-                }
-
                 // Capture metrics.
-                writeGauge(
-                        tapUUID,
+                metrics.gauge(
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".usage",
-                        channel.watermark(),
-                        report.timestamp()
+                        channel.watermark()
                 );
 
-                writeGauge(
-                        tapUUID,
+                metrics.gauge(
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".usage_percent",
-                        channel.watermark() > 0 ? channel.watermark()*100/channel.capacity() : 0,
-                        report.timestamp()
+                        channel.watermark() > 0 ? channel.watermark()*100/channel.capacity() : 0
                 );
 
-                writeGauge(
-                        tapUUID,
+                metrics.gauge(
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".throughput_messages",
-                        channel.throughputMessages().average()/10,
-                        report.timestamp()
+                        channel.throughputMessages().average()/10
                 );
 
-                writeGauge(
-                        tapUUID,
+                metrics.gauge(
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".throughput_bytes",
-                        channel.throughputBytes().average()/10,
-                        report.timestamp()
+                        channel.throughputBytes().average()/10
                 );
 
-                writeGauge(
-                        tapUUID,
+                metrics.gauge(
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".errors",
-                        channel.errors().average()/10,
-                        report.timestamp()
+                        channel.errors().average()/10
                 );
             }
         }
 
         // Gauges.
         for (Map.Entry<String, Long> metric : report.gaugesLong().entrySet()) {
-            writeGauge(tapUUID, metric.getKey(), metric.getValue(), report.timestamp());
+            metrics.gauge(metric.getKey(), metric.getValue());
         }
         for (Map.Entry<String, Double> metric : report.gaugesFloat().entrySet()) {
-            writeGauge(tapUUID, metric.getKey(), metric.getValue(), report.timestamp());
+            metrics.gauge(metric.getKey(), metric.getValue());
         }
 
         // Timers.
         for (Map.Entry<String, TimersReport> timer : report.timers().entrySet()) {
-            writeTimer(tapUUID, timer.getKey(), timer.getValue().mean(), timer.getValue().p99(), report.timestamp());
+            metrics.timer(timer.getKey(), TimerValues.meanAndP99(timer.getValue().mean(), timer.getValue().p99()));
         }
 
         // Additional metrics.
-        writeGauge(tapUUID, "system.captures.throughput_bit_sec", report.processedBytes().average()*8/10, report.timestamp());
-        writeGauge(tapUUID, "os.memory.bytes_used", report.systemMetrics().memoryTotal()-report.systemMetrics().memoryFree(), report.timestamp());
-        writeGauge(tapUUID, "os.cpu.load.percent", report.systemMetrics().cpuLoad(), report.timestamp());
+        metrics.gauge("system.captures.throughput_bit_sec", report.processedBytes().average()*8/10);
+        metrics.gauge("os.memory.bytes_used", report.systemMetrics().memoryTotal()-report.systemMetrics().memoryFree());
+        metrics.gauge("os.cpu.load.percent", report.systemMetrics().cpuLoad());
 
         // CPU core loads.
         for (Map.Entry<Integer, Double> core : report.systemMetrics().cpuCoresLoad().entrySet()) {
-            writeGauge(tapUUID, "os.cpu.cores." + core.getKey() + ".load.percent", core.getValue(), report.timestamp());
+            metrics.gauge("os.cpu.cores." + core.getKey() + ".load.percent", core.getValue());
         }
 
         if (report.systemMetrics().rpiTemperature() != null) {
-            writeGauge(tapUUID, "rpi.temperature", report.systemMetrics().rpiTemperature(), report.timestamp());
+            metrics.gauge("rpi.temperature", report.systemMetrics().rpiTemperature());
         }
 
         // Log counts.
@@ -400,12 +284,14 @@ public class TapManager {
                     || lc.getKey().equals("debug")
                     || lc.getKey().equals("trace")) {
 
-                writeGauge(tapUUID, "logs.counts." + lc.getKey(), lc.getValue(), report.timestamp());
+                metrics.gauge("logs.counts." + lc.getKey(), lc.getValue());
             } else {
                 LOG.error("Unexpected log level in tap [{}] log counts report: {}", tapUUID, lc.getKey());
             }
         }
 
+        nzyme.getMetricsStore().writeTapMetrics(tapUUID, metrics);
+
         // Engagement capture logs.
         nzyme.getDatabase().useHandle(handle -> {
             for (EngagementLogReport log : report.engagementLogs()) {
@@ -427,190 +313,50 @@ public class TapManager {
             return;
         }
 
-        for (TapMacContextReport mac : report.macs()) {
-            Optional<MacAddressContextEntry> existingContext = nzyme.getContextService()
-                    .findMacAddressContextNoCache(mac.mac(), tap.get().organizationId(), tap.get().tenantId());
+        if (tap.get().organizationId() == null || tap.get().tenantId() == null) {
+            LOG.debug("Tap [{}] is not assigned to a tenant. Not writing context.", tapUuid);
+            return;
+        }
 
+        List<TransparentContextValue> values = Lists.newArrayList();
+        for (TapMacContextReport mac : report.macs()) {
             if (mac.hostnames().isEmpty() && mac.ipAddresses().isEmpty()) {
                 // Do not process empty context.
                 LOG.debug("Skipping empty context for [{}] from tap [{}].", mac.mac(), tapUuid);
                 continue;
             }
 
-            long contextId;
-            List<MacAddressTransparentContextEntry> transparentContext;
-            if (existingContext.isPresent()) {
-                // Update existing context.
-                contextId = existingContext.get().id();
-
-                nzyme.getContextService().updateMacAddressContext(
-                        existingContext.get().uuid(),
-                        tap.get().organizationId(),
-                        tap.get().tenantId(),
-                        existingContext.get().name(),
-                        existingContext.get().description(),
-                        existingContext.get().notes()
-                );
+            String macAddress = mac.mac().toUpperCase();
 
-                transparentContext = nzyme.getContextService()
-                        .findTransparentMacAddressContext(existingContext.get().id());
-            } else {
-                // Write new context.
-                contextId = nzyme.getContextService().createMacAddressContext(
-                        mac.mac(),
-                        null,
-                        "Created via transparent context.",
-                        null,
-                        tap.get().organizationId(),
-                        tap.get().tenantId()
-                );
+            for (TapContextDataReport ip : mac.ipAddresses()) {
+                try {
+                    InetAddress ipAddr = InetAddress.getByName(ip.value());
 
-                transparentContext = Lists.newArrayList();
-            }
-
-            nzyme.getDatabase().useHandle(handle -> {
-                for (TapContextDataReport ip : mac.ipAddresses()) {
-                    try {
-                        InetAddress ipAddr = InetAddress.getByName(ip.value());
-
-                        if (!ipAddr.isSiteLocalAddress()) {
-                            // We only handle local addresses.
-                            continue;
-                        }
-
-                        boolean exists = false;
-                        for (MacAddressTransparentContextEntry tcx : transparentContext) {
-                            if (ContextService.TransparentDataType.valueOf(tcx.type()).equals(ContextService.TransparentDataType.IP_ADDRESS)
-                                    && tcx.source().equals(ip.source())
-                                    && tcx.ipAddress() != null
-                                    && tcx.ipAddress().equals(ipAddr)) {
-                                exists = true;
-                            }
-                        }
-
-                        if (!exists) {
-                            nzyme.getContextService().registerTransparentMacAddressIpAddress(
-                                    handle,
-                                    contextId,
-                                    tapUuid,
-                                    ip.source(),
-                                    ipAddr,
-                                    ip.lastSeen()
-                            );
-                        } else {
-                            nzyme.getContextService().touchTransparentMacAddressIpAddress(
-                                    handle,
-                                    contextId,
-                                    tapUuid,
-                                    ip.source(),
-                                    ipAddr,
-                                    ip.lastSeen()
-                            );
-                        }
-
-                        // Attach IP to asset.
-                        nzyme.getAssetsManager().attachTransparentContextIpAddress(
-                                mac.mac(),
-                                tap.get().organizationId(),
-                                tap.get().tenantId(),
-                                ipAddr,
-                                ip.source(),
-                                ip.lastSeen()
-                        );
-                    } catch (UnknownHostException e) {
-                        LOG.error("Could not parse IP address [{}] for context <{}>.",
-                                ip.value(), contextId, e);
-                    }
-                }
-
-                for (TapContextDataReport hostname : mac.hostnames()) {
-                    boolean exists = false;
-                    for (MacAddressTransparentContextEntry tcx : transparentContext) {
-                        if (ContextService.TransparentDataType.valueOf(tcx.type()).equals(ContextService.TransparentDataType.HOSTNAME)
-                                && tcx.tapUuid().equals(tapUuid)
-                                && tcx.source().equals(hostname.source())
-                                && tcx.hostname() != null
-                                && tcx.hostname().equals(hostname.value())) {
-                            exists = true;
-                        }
+                    if (!ipAddr.isSiteLocalAddress()) {
+                        // We only handle local addresses.
+                        continue;
                     }
 
-                    if (!exists) {
-                        nzyme.getContextService().registerTransparentMacAddressHostname(
-                                handle,
-                                contextId,
-                                tapUuid,
-                                hostname.source(),
-                                hostname.value(),
-                                hostname.lastSeen()
-                        );
-                    } else {
-                        nzyme.getContextService().touchTransparentMacAddressHostname(
-                                handle,
-                                contextId,
-                                tapUuid,
-                                hostname.source(),
-                                hostname.value(),
-                                hostname.lastSeen()
-                        );
-                    }
-
-                    // Attach hostname to asset.
-                    nzyme.getAssetsManager().attachTransparentContextHostname(
-                            mac.mac(),
-                            tap.get().organizationId(),
-                            tap.get().tenantId(),
-                            hostname.value(),
-                            hostname.source(),
-                            hostname.lastSeen()
-                    );
+                    values.add(TransparentContextValue.ipAddress(macAddress, ipAddr, ip.source(), ip.lastSeen()));
+                } catch (UnknownHostException e) {
+                    LOG.error("Could not parse IP address [{}] for context of [{}].", ip.value(), macAddress, e);
                 }
-            });
-        }
-    }
-
-    private void writeGauge(UUID tapUUID, String metricName, Long metricValue, DateTime timestamp) {
-        writeGauge(tapUUID, metricName, metricValue.doubleValue(), timestamp);
-    }
+            }
 
-    private void writeGauge(UUID tapUUID, String metricName, Double metricValue, DateTime timestamp) {
-        nzyme.getDatabase().withHandle(handle ->
-                handle.createUpdate("INSERT INTO tap_metrics_gauges(tap_uuid, metric_name, metric_value, created_at) " +
-                                "VALUES(:tap_uuid, :metric_name, :metric_value, :timestamp)")
-                        .bind("tap_uuid", tapUUID)
-                        .bind("metric_name", metricName)
-                        .bind("metric_value", metricValue)
-                        .bind("timestamp", timestamp)
-                        .execute()
-        );
-    }
+            for (TapContextDataReport hostname : mac.hostnames()) {
+                values.add(TransparentContextValue.hostname(
+                        macAddress, hostname.value(), hostname.source(), hostname.lastSeen()
+                ));
+            }
+        }
 
-    private void writeTimer(UUID tapUUID, String metricName, double mean, double p99, DateTime timestamp) {
-        nzyme.getDatabase().withHandle(handle ->
-                handle.createUpdate("INSERT INTO tap_metrics_timers(tap_uuid, metric_name, mean, p99, created_at) " +
-                                "VALUES(:tap_uuid, :metric_name, :mean, :p99, NOW())")
-                        .bind("tap_uuid", tapUUID)
-                        .bind("metric_name", metricName)
-                        .bind("mean", mean)
-                        .bind("p99", p99)
-                        .bind("timestamp", timestamp)
-                        .execute()
+        nzyme.getContextService().writeTransparentContext(
+                tapUuid, tap.get().organizationId(), tap.get().tenantId(), values
         );
     }
 
-    private void retentionCleanMetrics() {
-        nzyme.getDatabase().useHandle(handle -> {
-            handle.createUpdate("DELETE FROM tap_metrics_gauges WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24))
-                    .execute();
-        });
-
-        nzyme.getDatabase().useHandle(handle -> {
-            handle.createUpdate("DELETE FROM tap_metrics_timers WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24))
-                    .execute();
-        });
-
+    private void retentionCleanEngagementLogs() {
+        // Metrics retention is handled by the metrics store.
         nzyme.getDatabase().useHandle(handle -> {
             handle.createUpdate("DELETE FROM tap_engagement_logs WHERE timestamp < :timestamp")
                     .bind("timestamp", DateTime.now().minusDays(30))
@@ -706,14 +452,66 @@ public class TapManager {
     }
 
     public List<UUID> allTapUUIDsAccessibleByUser(AuthenticatedUser user) {
-        List<UUID> allTaps = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT uuid FROM taps WHERE deleted = false")
-                        .mapTo(UUID.class)
-                        .list()
+        return tapsAccessibleByUser(user).asList();
+    }
+
+    public boolean isTapAccessibleByUser(AuthenticatedUser user, UUID tapId) {
+        return tapsAccessibleByUser(user).contains(tapId);
+    }
+
+    public List<UUID> allTapUUIDsAccessibleByScope(@Nullable UUID organizationId, @Nullable UUID tenantId) {
+        TapScopes scopes = getTapScopes();
+
+        if (organizationId == null && tenantId == null) {
+            // Super Admin.
+            return scopes.all.asList();
+        } else if (organizationId != null && tenantId == null) {
+            // Organization Admin.
+            return scopes.ofOrganization(organizationId).asList();
+        } else {
+            // Tenant User.
+            return scopes.ofTenant(organizationId, tenantId).asList();
+        }
+    }
+
+    public void forgetTapStatus(UUID tapUuid) {
+        statusWriter.forget(tapUuid);
+    }
+
+    /**
+     * Forgets all resolved tap accessibility. Called on all nodes after taps or tap permissions changed.
+     */
+    public void invalidateTapAccessibility() {
+        accessibilityGeneration.incrementAndGet();
+        tapScopes = null;
+        userAccessibleTaps.invalidateAll();
+    }
+
+    private ImmutableSet<UUID> tapsAccessibleByUser(AuthenticatedUser user) {
+        UserAccessKey key = UserAccessKey.create(
+                accessibilityGeneration.get(),
+                user.getUserId(),
+                user.isSuperAdministrator(),
+                user.isOrganizationAdministrator(),
+                user.getOrganizationId(),
+                user.getTenantId(),
+                user.isAccessAllTenantTaps()
         );
 
+        ImmutableSet<UUID> cached = userAccessibleTaps.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ImmutableSet<UUID> taps = resolveTapsAccessibleByUser(user, getTapScopes());
+        userAccessibleTaps.put(key, taps);
+
+        return taps;
+    }
+
+    private ImmutableSet<UUID> resolveTapsAccessibleByUser(AuthenticatedUser user, TapScopes scopes) {
         if (user.isSuperAdministrator()) {
-            return allTaps;
+            return scopes.all;
         }
 
         if (user.isOrganizationAdministrator()) {
@@ -721,13 +519,7 @@ public class TapManager {
                 throw new RuntimeException("NULL organization ID.");
             }
 
-            return nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT uuid FROM taps WHERE deleted = false " +
-                                    "AND organization_id = :organization_id")
-                            .bind("organization_id", user.getOrganizationId())
-                            .mapTo(UUID.class)
-                            .list()
-            );
+            return scopes.ofOrganization(user.getOrganizationId());
         }
 
         // User is tenant user, check that it has required fields.
@@ -741,51 +533,73 @@ public class TapManager {
         if (tapPermissions.isEmpty()) {
             // User has no specific tap permissions. Check if all taps are allowed.
             if (user.accessAllTenantTaps) {
-                return nzyme.getDatabase().withHandle(handle ->
-                        handle.createQuery("SELECT uuid FROM taps " +
-                                        "WHERE deleted = false AND organization_id = :organization_id " +
-                                        "AND tenant_id = :tenant_id")
-                                .bind("organization_id", user.getOrganizationId())
-                                .bind("tenant_id", user.getTenantId())
-                                .mapTo(UUID.class)
-                                .list()
-                );
+                return scopes.ofTenant(user.getOrganizationId(), user.getTenantId());
             } else {
                 // User is not allowed to use all taps and has no specific tap permissions.
-                return Collections.emptyList();
+                return ImmutableSet.of();
             }
         } else {
             // Return only specifically allowed taps.
-            List<UUID> validatedTaps = Lists.newArrayList();
+            ImmutableSet.Builder<UUID> validatedTaps = ImmutableSet.builder();
             for (UUID permission : tapPermissions) {
-                if (allTaps.contains(permission)) {
+                if (scopes.all.contains(permission)) {
                     validatedTaps.add(permission);
                 }
             }
 
-            return validatedTaps;
+            return validatedTaps.build();
         }
     }
 
-    public List<UUID> allTapUUIDsAccessibleByScope(@Nullable UUID organizationId, @Nullable UUID tenantId) {
-        List<Tap> taps = Lists.newArrayList();
-        if (organizationId == null && tenantId == null) {
-            // Super Admin.
-            taps = findAllTapsOfAllUsers();
-        } else if (organizationId != null && tenantId == null) {
-            // Organization Admin.
-            taps = findAllTapsOfOrganization(organizationId);
-        } else {
-            // Tenant User.
-            taps = findAllTapsOfTenant(organizationId, tenantId);
+    private TapScopes getTapScopes() {
+        long generation = accessibilityGeneration.get();
+
+        TapScopes scopes = tapScopes;
+        if (scopes != null && scopes.generation == generation) {
+            return scopes;
         }
 
-        List<UUID> tapUUIDs = Lists.newArrayList();
-        for (Tap tap : taps) {
-            tapUUIDs.add(tap.uuid());
+        ImmutableSet.Builder<UUID> all = ImmutableSet.builder();
+        Map<UUID, ImmutableSet.Builder<UUID>> organizations = Maps.newHashMap();
+        Map<UUID, Map<UUID, ImmutableSet.Builder<UUID>>> tenants = Maps.newHashMap();
+
+        // Tap UUID, organization UUID, tenant UUID.
+        List<UUID[]> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT uuid, organization_id, tenant_id FROM taps WHERE deleted = false")
+                        .map((rs, ctx) -> new UUID[]{
+                                UUID.fromString(rs.getString("uuid")),
+                                UUID.fromString(rs.getString("organization_id")),
+                                UUID.fromString(rs.getString("tenant_id"))
+                        })
+                        .list()
+        );
+
+        for (UUID[] row : rows) {
+            all.add(row[0]);
+            organizations.computeIfAbsent(row[1], k -> ImmutableSet.builder()).add(row[0]);
+            tenants.computeIfAbsent(row[1], k -> Maps.newHashMap())
+                    .computeIfAbsent(row[2], k -> ImmutableSet.builder())
+                    .add(row[0]);
+        }
+
+        Map<UUID, ImmutableSet<UUID>> organizationTaps = Maps.newHashMap();
+        organizations.forEach((organizationId, taps) -> organizationTaps.put(organizationId, taps.build()));
+
+        Map<UUID, Map<UUID, ImmutableSet<UUID>>> tenantTaps = Maps.newHashMap();
+        tenants.forEach((organizationId, tenantsOfOrganization) -> {
+            Map<UUID, ImmutableSet<UUID>> t = Maps.newHashMap();
+            tenantsOfOrganization.forEach((tenantId, taps) -> t.put(tenantId, taps.build()));
+            tenantTaps.put(organizationId, t);
+        });
+
+        scopes = new TapScopes(generation, all.build(), organizationTaps, tenantTaps);
+
+        // Only publish if nothing changed while we were loading. Otherwise, the next call loads again.
+        if (accessibilityGeneration.get() == generation) {
+            tapScopes = scopes;
         }
 
-        return tapUUIDs;
+        return scopes;
     }
 
     public Optional<Tap> findTap(UUID uuid) {
@@ -798,7 +612,21 @@ public class TapManager {
     }
 
     public List<TapMetricsGauge> findGaugesOfTap(UUID tapUUID) {
-         return nzyme.getDatabase().withHandle(handle ->
+        Map<String, MetricPoint> recent = nzyme.getMetricsStore().findRecentPointsOfOwner(
+                MetricsSeries.TAP_GAUGES, tapUUID, DateTime.now().minusMinutes(1)
+        );
+
+        if (!recent.isEmpty()) {
+            List<TapMetricsGauge> gauges = Lists.newArrayList();
+            for (Map.Entry<String, MetricPoint> point : recent.entrySet()) {
+                gauges.add(TapMetricsGauge.create(point.getKey(), point.getValue().value(), point.getValue().timestamp()));
+            }
+
+            return gauges;
+        }
+
+        // The tap reports to another node. Its points are only in the database.
+        return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT DISTINCT ON (metric_name) metric_name, tap_uuid, metric_value, created_at " +
                         "FROM tap_metrics_gauges WHERE tap_uuid = :tap_uuid AND created_at > :created_at " +
                         "ORDER BY metric_name, created_at DESC")
@@ -810,6 +638,23 @@ public class TapManager {
     }
 
     public List<TapMetricsTimer> findTimersOfTap(UUID tapUUID) {
+        Map<String, MetricPoint> recent = nzyme.getMetricsStore().findRecentPointsOfOwner(
+                MetricsSeries.TAP_TIMERS, tapUUID, DateTime.now().minusMinutes(1)
+        );
+
+        if (!recent.isEmpty()) {
+            List<TapMetricsTimer> timers = Lists.newArrayList();
+            for (Map.Entry<String, MetricPoint> point : recent.entrySet()) {
+                TimerValues values = TimerValues.fromPoint(point.getValue());
+                timers.add(TapMetricsTimer.create(
+                        point.getKey(), values.mean(), values.p99(), point.getValue().timestamp()
+                ));
+            }
+
+            return timers;
+        }
+
+        // The tap reports to another node. Its points are only in the database.
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT DISTINCT ON (metric_name) metric_name, tap_uuid, mean, p99, created_at " +
                                 "FROM tap_metrics_timers WHERE tap_uuid = :tap_uuid AND created_at > :created_at " +
@@ -825,42 +670,20 @@ public class TapManager {
                                                                                                   String metricName,
                                                                                                   int hours,
                                                                                                   BucketSize bucketSize) {
-        Map<DateTime, TapMetricsTimerHistogramAggregation> result = Maps.newHashMap();
-
-        List<TapMetricsTimerHistogramAggregation> agg = nzyme.getDatabase().withHandle(handle -> {
-            String query = "SELECT AVG(metric_value) AS average, MAX(metric_value) AS maximum, " +
-                    "MIN(metric_value) AS minimum, date_trunc(:bucket_size, created_at) AS bucket " +
-                    "FROM tap_metrics_gauges WHERE";
-
-            if (tapUUID != null) {
-                query += " tap_uuid = :tap_uuid AND ";
-            }
-
-            query += " metric_name = :metric_name AND created_at > :created_at GROUP BY bucket ORDER BY bucket DESC ";
-
-            return handle.createQuery(query)
-                    .bind("bucket_size", bucketSize.toString().toLowerCase())
-                    .bind("tap_uuid", tapUUID)
-                    .bind("metric_name", metricName)
-                    .bind("created_at", DateTime.now().minusHours(hours))
-                    .mapTo(TapMetricsTimerHistogramAggregation.class)
-                    .list();
-        });
-
-        if (agg == null || agg.isEmpty()) {
-            return Optional.empty();
-        }
-
-        for (TapMetricsTimerHistogramAggregation x : agg) {
-            result.put(x.bucket(), x);
-        }
-
-        return Optional.of(result);
+        return buildMetricsHistogram(MetricsSeries.TAP_GAUGES, tapUUID, metricName, hours, bucketSize);
     }
 
     public Optional<Double> findLatestActiveMetricsGaugeValue(UUID tapUuid,
                                                               String metricName,
                                                               Handle handle) {
+        Optional<MetricPoint> recent = nzyme.getMetricsStore().findRecentPoint(
+                MetricsSeries.TAP_GAUGES, tapUuid, metricName, DateTime.now().minusMinutes(2)
+        );
+
+        if (recent.isPresent()) {
+            return Optional.of(recent.get().value());
+        }
+
         return handle.createQuery("SELECT metric_value FROM tap_metrics_gauges " +
                         "WHERE tap_uuid = :tap_uuid AND metric_name = :metric_name " +
                         "AND created_at > :created_at " +
@@ -877,32 +700,40 @@ public class TapManager {
                                                                                                   String metricName,
                                                                                                   int hours,
                                                                                                   BucketSize bucketSize) {
-        Map<DateTime, TapMetricsTimerHistogramAggregation> result = Maps.newHashMap();
+        return buildMetricsHistogram(MetricsSeries.TAP_TIMERS, tapUUID, metricName, hours, bucketSize);
+    }
 
-        List<TapMetricsTimerHistogramAggregation> agg = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT AVG(mean) AS average, MAX(mean) AS maximum, " +
-                                "MIN(mean) AS minimum, date_trunc(:bucket_size, created_at) AS bucket " +
-                                "FROM tap_metrics_timers WHERE tap_uuid = :tap_uuid AND metric_name = :metric_name " +
-                                "AND created_at > :created_at GROUP BY bucket ORDER BY bucket DESC")
-                        .bind("bucket_size", bucketSize.toString().toLowerCase())
-                        .bind("tap_uuid", tapUUID)
-                        .bind("metric_name", metricName)
-                        .bind("created_at", DateTime.now().minusHours(hours))
-                        .mapTo(TapMetricsTimerHistogramAggregation.class)
-                        .list()
-        );
+    private Optional<Map<DateTime, TapMetricsTimerHistogramAggregation>> buildMetricsHistogram(MetricsSeries series,
+                                                                                               @Nullable UUID tapUUID,
+                                                                                               String metricName,
+                                                                                               int hours,
+                                                                                               BucketSize bucketSize) {
+        List<GaugeHistogramBucket> agg = nzyme.getMetricsStore()
+                .findHistogram(series, tapUUID, metricName, hours, bucketSize);
 
         if (agg == null || agg.isEmpty()) {
             return Optional.empty();
         }
 
-        for (TapMetricsTimerHistogramAggregation x : agg) {
-            result.put(x.bucket(), x);
+        Map<DateTime, TapMetricsTimerHistogramAggregation> result = Maps.newHashMap();
+        for (GaugeHistogramBucket x : agg) {
+            result.put(x.bucket(), TapMetricsTimerHistogramAggregation.create(
+                    x.bucket(), x.average(), x.maximum(), x.minimum()
+            ));
         }
 
         return Optional.of(result);
     }
 
+    private static <T> Map<UUID, List<T>> groupByTap(List<Map.Entry<UUID, T>> rows) {
+        Map<UUID, List<T>> result = Maps.newHashMap();
+        for (Map.Entry<UUID, T> row : rows) {
+            result.computeIfAbsent(row.getKey(), k -> Lists.newArrayList()).add(row.getValue());
+        }
+
+        return result;
+    }
+
     public List<TapMetricsTimerAggregation> findAverageTimerValuesOfTap(UUID tapUuid, DateTime since) {
         return nzyme.getDatabase().withHandle(handle ->
             handle.createQuery("SELECT metric_name, AVG(mean) AS mean, AVG(p99) AS p99, " +
@@ -928,6 +759,101 @@ public class TapManager {
         );
     }
 
+    /**
+     * Average timer values of all taps, in one query instead of one per tap. Tap UUID -> Averages.
+     */
+    public Map<UUID, List<TapMetricsTimerAggregation>> findAverageTimerValuesOfAllTaps(DateTime since) {
+        List<Map.Entry<UUID, TapMetricsTimerAggregation>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT tap_uuid, metric_name, AVG(mean) AS mean, AVG(p99) AS p99 " +
+                                "FROM tap_metrics_timers WHERE created_at >= :since AND created_at <= NOW() " +
+                                "GROUP BY tap_uuid, metric_name")
+                        .bind("since", since)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("tap_uuid")),
+                                TapMetricsTimerAggregation.create(
+                                        rs.getString("metric_name"), rs.getDouble("mean"), rs.getDouble("p99")
+                                )
+                        ))
+                        .list()
+        );
+
+        return groupByTap(rows);
+    }
+
+    /**
+     * Average gauge values of all taps, in one query instead of one per tap. Tap UUID -> Averages.
+     */
+    public Map<UUID, List<TapMetricsGaugeAggregation>> findAverageGaugeValuesOfAllTaps(DateTime since) {
+        List<Map.Entry<UUID, TapMetricsGaugeAggregation>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT tap_uuid, metric_name, AVG(metric_value) AS value " +
+                                "FROM tap_metrics_gauges WHERE created_at >= :since AND created_at <= NOW() " +
+                                "GROUP BY tap_uuid, metric_name")
+                        .bind("since", since)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("tap_uuid")),
+                                TapMetricsGaugeAggregation.create(rs.getString("metric_name"), rs.getDouble("value"))
+                        ))
+                        .list()
+        );
+
+        return groupByTap(rows);
+    }
+
+    /**
+     * Latest values of the given gauges of all taps. Values of taps that report to this node are taken from the
+     * metrics store and only the remaining taps are queried, in one query.
+     *
+     * @return Tap UUID -> (Metric name -> Latest value). Gauges without a recent value are missing.
+     */
+    public Map<UUID, Map<String, Double>> findLatestActiveMetricsGaugeValuesOfTaps(Collection<UUID> tapUuids,
+                                                                                   Collection<String> metricNames) {
+        DateTime cutoff = DateTime.now().minusMinutes(2);
+
+        Map<UUID, Map<String, Double>> result = Maps.newHashMap();
+        List<UUID> missing = Lists.newArrayList();
+        for (UUID tapUuid : tapUuids) {
+            Map<String, MetricPoint> recent = nzyme.getMetricsStore()
+                    .findRecentPointsOfOwner(MetricsSeries.TAP_GAUGES, tapUuid, cutoff);
+
+            if (!recent.keySet().containsAll(metricNames)) {
+                missing.add(tapUuid);
+                continue;
+            }
+
+            Map<String, Double> values = Maps.newHashMap();
+            for (String metricName : metricNames) {
+                values.put(metricName, recent.get(metricName).value());
+            }
+            result.put(tapUuid, values);
+        }
+
+        if (missing.isEmpty() || metricNames.isEmpty()) {
+            return result;
+        }
+
+        List<Map.Entry<UUID, Map.Entry<String, Double>>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT DISTINCT ON (tap_uuid, metric_name) tap_uuid, metric_name, metric_value " +
+                                "FROM tap_metrics_gauges WHERE tap_uuid IN (<tap_uuids>) " +
+                                "AND metric_name IN (<metric_names>) AND created_at > :created_at " +
+                                "ORDER BY tap_uuid, metric_name, created_at DESC")
+                        .bindList("tap_uuids", missing)
+                        .bindList("metric_names", List.copyOf(metricNames))
+                        .bind("created_at", cutoff)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("tap_uuid")),
+                                Maps.immutableEntry(rs.getString("metric_name"), rs.getDouble("metric_value"))
+                        ))
+                        .list()
+        );
+
+        for (Map.Entry<UUID, Map.Entry<String, Double>> row : rows) {
+            result.computeIfAbsent(row.getKey(), k -> Maps.newHashMap())
+                    .put(row.getValue().getKey(), row.getValue().getValue());
+        }
+
+        return result;
+    }
+
     public Optional<List<Bus>> findBusesOfTap(UUID tapUUID) {
         List<Bus> buses = nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM tap_buses WHERE tap_uuid = :tap_uuid AND updated_at > :last_seen")
@@ -966,6 +892,23 @@ public class TapManager {
         );
     }
 
+    /**
+     * Captures of all taps, in one query instead of one per tap. Tap UUID -> Captures.
+     */
+    public Map<UUID, List<Capture>> findCapturesOfAllTaps(DateTime since) {
+        List<Map.Entry<UUID, Capture>> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT * FROM tap_captures WHERE updated_at > :last_seen")
+                        .bind("last_seen", since)
+                        .map((rs, ctx) -> Maps.immutableEntry(
+                                UUID.fromString(rs.getString("tap_uuid")),
+                                new CaptureMapper().map(rs, ctx)
+                        ))
+                        .list()
+        );
+
+        return groupByTap(rows);
+    }
+
     public List<Dot11FrequencyAndChannelWidthEntry> findDot11FrequenciesOfTap(UUID tapUuid) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT f.id, f.interface_uuid, f.frequency, f.channel_widths FROM tap_captures_frequencies f " +
@@ -1064,6 +1007,92 @@ public class TapManager {
         );
     }
 
+    private static final class TapScopes {
+
+        private final long generation;
+        private final ImmutableSet<UUID> all;
+        private final Map<UUID, ImmutableSet<UUID>> organizations;
+        private final Map<UUID, Map<UUID, ImmutableSet<UUID>>> tenants;
+
+        TapScopes(long generation,
+                  ImmutableSet<UUID> all,
+                  Map<UUID, ImmutableSet<UUID>> organizations,
+                  Map<UUID, Map<UUID, ImmutableSet<UUID>>> tenants) {
+            this.generation = generation;
+            this.all = all;
+            this.organizations = organizations;
+            this.tenants = tenants;
+        }
+
+        ImmutableSet<UUID> ofOrganization(UUID organizationId) {
+            return organizations.getOrDefault(organizationId, ImmutableSet.of());
+        }
+
+        ImmutableSet<UUID> ofTenant(UUID organizationId, UUID tenantId) {
+            Map<UUID, ImmutableSet<UUID>> tenantsOfOrganization = tenants.get(organizationId);
+            if (tenantsOfOrganization == null) {
+                return ImmutableSet.of();
+            }
+
+            return tenantsOfOrganization.getOrDefault(tenantId, ImmutableSet.of());
+        }
+
+    }
+
+    @AutoValue
+    public static abstract class UserAccessKey {
+        public abstract long generation();
+        public abstract UUID userId();
+        public abstract boolean superAdministrator();
+        public abstract boolean organizationAdministrator();
+        @Nullable
+        public abstract UUID organizationId();
+        @Nullable
+        public abstract UUID tenantId();
+        public abstract boolean accessAllTenantTaps();
+
+        public static UserAccessKey create(long generation,
+                                           UUID userId,
+                                           boolean superAdministrator,
+                                           boolean organizationAdministrator,
+                                           @Nullable UUID organizationId,
+                                           @Nullable UUID tenantId,
+                                           boolean accessAllTenantTaps) {
+            return builder()
+                    .generation(generation)
+                    .userId(userId)
+                    .superAdministrator(superAdministrator)
+                    .organizationAdministrator(organizationAdministrator)
+                    .organizationId(organizationId)
+                    .tenantId(tenantId)
+                    .accessAllTenantTaps(accessAllTenantTaps)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_TapManager_UserAccessKey.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder generation(long generation);
+
+            public abstract Builder userId(UUID userId);
+
+            public abstract Builder superAdministrator(boolean superAdministrator);
+
+            public abstract Builder organizationAdministrator(boolean organizationAdministrator);
+
+            public abstract Builder organizationId(UUID organizationId);
+
+            public abstract Builder tenantId(UUID tenantId);
+
+            public abstract Builder accessAllTenantTaps(boolean accessAllTenantTaps);
+
+            public abstract UserAccessKey build();
+        }
+    }
+
     @AutoValue
     public static abstract class TapPositionKey {
         public abstract UUID locationId();
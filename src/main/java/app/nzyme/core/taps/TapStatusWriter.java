@@ -0,0 +1,394 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.rest.resources.taps.reports.BusReport;
+import app.nzyme.core.rest.resources.taps.reports.CapturesReport;
+import app.nzyme.core.rest.resources.taps.reports.ChannelReport;
+import app.nzyme.core.rest.resources.taps.reports.StatusReport;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the captures, buses and channels of tap status reports. The last-seen structure of every tap is kept in
+ * memory and only new or changed captures (type or running state), buses and channels are upserted when a report
+ * arrives. All other rows are coalesced and written in full in one periodic batch, using the most recent report of
+ * each tap.
+ */
+public class TapStatusWriter {
+
+    private static final Logger LOG = LogManager.getLogger(TapStatusWriter.class);
+
+    /*
+     * Captures and buses are considered offline if not updated for one minute. The periodic flush must run
+     * considerably more often than that.
+     */
+    private static final int FLUSH_INTERVAL_SECONDS = 15;
+
+    // Re-upsert everything of a tap every now and then, in case rows were changed or removed externally.
+    private static final int FULL_SYNC_INTERVAL_MINUTES = 10;
+
+    private final NzymeNode nzyme;
+
+    private final ConcurrentMap<UUID, KnownTapStatus> known;
+    private final ConcurrentMap<UUID, StatusReport> pending;
+
+    public TapStatusWriter(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+        this.known = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentHashMap<>();
+
+        Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("tap-status-flusher-%d")
+                        .setDaemon(true)
+                        .build()
+        ).scheduleAtFixedRate(this::flushSafely, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void write(UUID tapUuid, StatusReport report) {
+        KnownTapStatus previous = known.get(tapUuid);
+        boolean fullSync = previous == null
+                || previous.syncedAt().isBefore(DateTime.now().minusMinutes(FULL_SYNC_INTERVAL_MINUTES));
+
+        List<CapturesReport> changedCaptures = Lists.newArrayList();
+        Map<String, CaptureState> captures = Maps.newHashMap();
+        for (CapturesReport capture : report.captures()) {
+            CaptureState state = CaptureState.create(capture.captureType(), capture.isRunning());
+            captures.put(capture.interfaceName(), state);
+
+            if (fullSync || !state.equals(previous.captures().get(capture.interfaceName()))) {
+                changedCaptures.add(capture);
+            }
+        }
+
+        List<BusReport> changedBuses = Lists.newArrayList();
+        Map<String, Long> channels = Maps.newHashMap();
+        for (BusReport bus : report.buses()) {
+            boolean busChanged = fullSync || !previous.busIds().containsKey(bus.name());
+
+            for (ChannelReport channel : bus.channels()) {
+                String channelKey = channelKey(bus.name(), channel.name());
+                channels.put(channelKey, channel.capacity());
+
+                if (!busChanged && !channel.capacity().equals(previous.channels().get(channelKey))) {
+                    busChanged = true;
+                }
+            }
+
+            if (busChanged) {
+                changedBuses.add(bus);
+            }
+        }
+
+        Map<String, Long> busIds;
+        if (previous != null && changedCaptures.isEmpty() && changedBuses.isEmpty()) {
+            busIds = previous.busIds();
+        } else {
+            busIds = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+                upsertCaptures(tx, tapUuid, changedCaptures);
+                return upsertBusesAndChannels(tx, tapUuid, changedBuses, previous == null ? null : previous.busIds());
+            }));
+        }
+
+        known.put(tapUuid, KnownTapStatus.create(
+                fullSync || previous == null ? DateTime.now() : previous.syncedAt(),
+                ImmutableMap.copyOf(captures),
+                ImmutableMap.copyOf(busIds),
+                ImmutableMap.copyOf(channels)
+        ));
+
+        // Counters of all rows are written with the next flush. Only the most recent report of a tap is kept.
+        pending.put(tapUuid, report);
+    }
+
+    private void upsertCaptures(Handle handle, UUID tapUuid, List<CapturesReport> captures) {
+        if (captures.isEmpty()) {
+            return;
+        }
+
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO tap_captures(tap_uuid, uuid, interface, " +
+                "capture_type, is_running, received, dropped_buffer, dropped_interface, updated_at, created_at) " +
+                "VALUES(:tap_uuid, :uuid, :interface, :capture_type, :is_running, :received, :dropped_buffer, " +
+                ":dropped_interface, NOW(), NOW()) " +
+                "ON CONFLICT (tap_uuid, interface) DO UPDATE SET capture_type = EXCLUDED.capture_type, " +
+                "is_running = EXCLUDED.is_running, received = EXCLUDED.received, " +
+                "dropped_buffer = EXCLUDED.dropped_buffer, dropped_interface = EXCLUDED.dropped_interface, " +
+                "updated_at = NOW()");
+
+        for (CapturesReport capture : captures) {
+            batch.bind("tap_uuid", tapUuid)
+                    .bind("uuid", UUID.randomUUID())
+                    .bind("interface", capture.interfaceName())
+                    .bind("capture_type", capture.captureType())
+                    .bind("is_running", capture.isRunning())
+                    .bind("received", capture.received())
+                    .bind("dropped_buffer", capture.droppedBuffer())
+                    .bind("dropped_interface", capture.droppedInterface())
+                    .add();
+        }
+
+        batch.execute();
+    }
+
+    private Map<String, Long> upsertBusesAndChannels(Handle handle,
+                                                     UUID tapUuid,
+                                                     List<BusReport> buses,
+                                                     Map<String, Long> knownBusIds) {
+        if (buses.isEmpty()) {
+            return knownBusIds == null ? Maps.newHashMap() : knownBusIds;
+        }
+
+        PreparedBatch busBatch = handle.prepareBatch("INSERT INTO tap_buses(tap_uuid, name, created_at, updated_at) " +
+                "VALUES(:tap_uuid, :name, NOW(), NOW()) " +
+                "ON CONFLICT (tap_uuid, name) DO UPDATE SET updated_at = NOW()");
+        for (BusReport bus : buses) {
+            busBatch.bind("tap_uuid", tapUuid)
+                    .bind("name", bus.name())
+                    .add();
+        }
+        busBatch.execute();
+
+        Map<String, Long> busIds = Maps.newHashMap();
+        handle.createQuery("SELECT id, name FROM tap_buses WHERE tap_uuid = :tap_uuid")
+                .bind("tap_uuid", tapUuid)
+                .map((rs, ctx) -> Maps.immutableEntry(rs.getString("name"), rs.getLong("id")))
+                .forEach(e -> busIds.put(e.getKey(), e.getValue()));
+
+        PreparedBatch channelBatch = handle.prepareBatch("INSERT INTO bus_channels(name, bus_id, capacity, " +
+                "watermark, errors_total, errors_average, throughput_bytes_total, throughput_bytes_average, " +
+                "throughput_messages_total, throughput_messages_average, created_at, updated_at) " +
+                "VALUES(:name, :bus_id, :capacity, :watermark, :errors_total, :errors_average, " +
+                ":throughput_bytes_total, :throughput_bytes_average, :throughput_messages_total, " +
+                ":throughput_messages_average, NOW(), NOW()) " +
+                "ON CONFLICT (bus_id, name) DO UPDATE SET capacity = EXCLUDED.capacity, " +
+                "watermark = EXCLUDED.watermark, errors_total = EXCLUDED.errors_total, " +
+                "errors_average = EXCLUDED.errors_average, " +
+                "throughput_bytes_total = EXCLUDED.throughput_bytes_total, " +
+                "throughput_bytes_average = EXCLUDED.throughput_bytes_average, " +
+                "throughput_messages_total = EXCLUDED.throughput_messages_total, " +
+                "throughput_messages_average = EXCLUDED.throughput_messages_average, updated_at = NOW()");
+
+        for (BusReport bus : buses) {
+            Long busId = busIds.get(bus.name());
+            if (busId == null) {
+                LOG.warn("Bus [{}] of tap [{}] not found after upsert. Skipping channels.", bus.name(), tapUuid);
+                continue;
+            }
+
+            for (ChannelReport channel : bus.channels()) {
+                bindChannel(channelBatch, busId, channel).add();
+            }
+        }
+
+        if (channelBatch.size() > 0) {
+            channelBatch.execute();
+        }
+
+        return busIds;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOG.error("Could not flush tap status counters.", e);
+        }
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, StatusReport> reports = Maps.newHashMap();
+        for (UUID tapUuid : pending.keySet()) {
+            StatusReport report = pending.remove(tapUuid);
+            if (report != null) {
+                reports.put(tapUuid, report);
+            }
+        }
+
+        List<UUID> captureRows = Lists.newArrayList();
+        List<UUID> busRows = Lists.newArrayList();
+        List<UUID> channelRows = Lists.newArrayList();
+
+        List<int[]> results = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+            /*
+             * The capture state and channel capacities are written with the counters, too. A tap can report through
+             * any node, and the in-memory diff of this node does not see changes written by other nodes. Writing the
+             * complete row makes the most recent report win within one flush interval.
+             */
+            PreparedBatch captures = tx.prepareBatch("UPDATE tap_captures SET capture_type = :capture_type, " +
+                    "is_running = :is_running, received = :received, dropped_buffer = :dropped_buffer, " +
+                    "dropped_interface = :dropped_interface, updated_at = NOW() " +
+                    "WHERE tap_uuid = :tap_uuid AND interface = :interface");
+            PreparedBatch buses = tx.prepareBatch("UPDATE tap_buses SET updated_at = NOW() WHERE id = :id");
+            PreparedBatch channels = tx.prepareBatch("UPDATE bus_channels SET watermark = :watermark, " +
+                    "errors_total = :errors_total, errors_average = :errors_average, " +
+                    "throughput_bytes_total = :throughput_bytes_total, " +
+                    "throughput_bytes_average = :throughput_bytes_average, " +
+                    "throughput_messages_total = :throughput_messages_total, " +
+                    "throughput_messages_average = :throughput_messages_average, capacity = :capacity, " +
+                    "updated_at = NOW() WHERE bus_id = :bus_id AND name = :name");
+
+            for (Map.Entry<UUID, StatusReport> r : reports.entrySet()) {
+                UUID tapUuid = r.getKey();
+                KnownTapStatus status = known.get(tapUuid);
+                if (status == null) {
+                    continue;
+                }
+
+                for (CapturesReport capture : r.getValue().captures()) {
+                    captures.bind("capture_type", capture.captureType())
+                            .bind("is_running", capture.isRunning())
+                            .bind("received", capture.received())
+                            .bind("dropped_buffer", capture.droppedBuffer())
+                            .bind("dropped_interface", capture.droppedInterface())
+                            .bind("tap_uuid", tapUuid)
+                            .bind("interface", capture.interfaceName())
+                            .add();
+                    captureRows.add(tapUuid);
+                }
+
+                for (BusReport bus : r.getValue().buses()) {
+                    Long busId = status.busIds().get(bus.name());
+                    if (busId == null) {
+                        continue;
+                    }
+
+                    buses.bind("id", busId).add();
+                    busRows.add(tapUuid);
+
+                    for (ChannelReport channel : bus.channels()) {
+                        bindChannel(channels, busId, channel).add();
+                        channelRows.add(tapUuid);
+                    }
+                }
+            }
+
+            List<int[]> counts = Lists.newArrayList();
+            counts.add(captures.size() > 0 ? captures.execute() : new int[0]);
+            counts.add(buses.size() > 0 ? buses.execute() : new int[0]);
+            counts.add(channels.size() > 0 ? channels.execute() : new int[0]);
+            return counts;
+        }));
+
+        // Rows that no longer exist are re-created with a full sync on the next report of their tap.
+        invalidateMissing(captureRows, results.get(0));
+        invalidateMissing(busRows, results.get(1));
+        invalidateMissing(channelRows, results.get(2));
+    }
+
+    private void invalidateMissing(List<UUID> rowTaps, int[] updateCounts) {
+        for (int i = 0; i < updateCounts.length && i < rowTaps.size(); i++) {
+            if (updateCounts[i] == 0) {
+                known.remove(rowTaps.get(i));
+            }
+        }
+    }
+
+    /**
+     * Drops everything known about a tap, for example after it was deleted.
+     */
+    public void forget(UUID tapUuid) {
+        known.remove(tapUuid);
+        pending.remove(tapUuid);
+    }
+
+    private static PreparedBatch bindChannel(PreparedBatch batch, long busId, ChannelReport channel) {
+        return batch.bind("name", channel.name())
+                .bind("bus_id", busId)
+                .bind("capacity", channel.capacity())
+                .bind("watermark", channel.watermark())
+                .bind("errors_total", channel.errors().total())
+                .bind("errors_average", channel.errors().average())
+                .bind("throughput_bytes_total", channel.throughputBytes().total())
+                .bind("throughput_bytes_average", channel.throughputBytes().average())
+                .bind("throughput_messages_total", channel.throughputMessages().total())
+                .bind("throughput_messages_average", channel.throughputMessages().average());
+    }
+
+    private static String channelKey(String busName, String channelName) {
+        return busName + "/" + channelName;
+    }
+
+    @AutoValue
+    public static abstract class CaptureState {
+        public abstract String captureType();
+        public abstract Boolean isRunning();
+
+        public static CaptureState create(String captureType, Boolean isRunning) {
+            return builder()
+                    .captureType(captureType)
+                    .isRunning(isRunning)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_TapStatusWriter_CaptureState.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder captureType(String captureType);
+
+            public abstract Builder isRunning(Boolean isRunning);
+
+            public abstract CaptureState build();
+        }
+    }
+
+    @AutoValue
+    public static abstract class KnownTapStatus {
+        public abstract DateTime syncedAt();
+        public abstract Map<String, CaptureState> captures();
+        public abstract Map<String, Long> busIds();
+        public abstract Map<String, Long> channels();
+
+        public static KnownTapStatus create(DateTime syncedAt,
+                                            Map<String, CaptureState> captures,
+                                            Map<String, Long> busIds,
+                                            Map<String, Long> channels) {
+            return builder()
+                    .syncedAt(syncedAt)
+                    .captures(captures)
+                    .busIds(busIds)
+                    .channels(channels)
+                    .build();
+        }
+
+        public static Builder builder() {
+            return new AutoValue_TapStatusWriter_KnownTapStatus.Builder();
+        }
+
+        @AutoValue.Builder
+        public abstract static class Builder {
+            public abstract Builder syncedAt(DateTime syncedAt);
+
+            public abstract Builder captures(Map<String, CaptureState> captures);
+
+            public abstract Builder busIds(Map<String, Long> busIds);
+
+            public abstract Builder channels(Map<String, Long> channels);
+
+            public abstract KnownTapStatus build();
+        }
+    }
+
+}
@@ -22,10 +22,16 @@ import app.nzyme.core.bluetooth.sig.BluetoothSigService;
 import app.nzyme.core.context.ContextService;
 import app.nzyme.core.crypto.Crypto;
 import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.gnss.monitoring.GNSSMonitoringRuleEngine;
 import app.nzyme.core.integrations.geoip.GeoIpService;
+import app.nzyme.core.monitoring.health.HealthMonitor;
 import app.nzyme.core.ouis.OuiService;
+import app.nzyme.core.periodicals.connect.ConnectStatusReporter;
+import app.nzyme.core.registry.RegistryChangeMonitorImpl;
+import app.nzyme.core.rest.authentication.RESTAuthenticationFilter;
 import app.nzyme.core.rest.interceptors.TapTableSizeInterceptor;
 import app.nzyme.core.security.authentication.PasswordHasher;
+import app.nzyme.core.tables.TablesService;
 import app.nzyme.core.tables.bluetooth.BluetoothTable;
 import app.nzyme.core.tables.ethernet.*;
 import app.nzyme.core.tables.dot11.Dot11Table;
@@ -45,8 +51,12 @@ public class MetricNames {
     public static final String GEOIP_LOOKUP_TIMING_UNCACHED = name(GeoIpService.class, "lookup-timing-uncached");
     public static final String PGP_ENCRYPTION_TIMING = name(Crypto.class, "encryption-timing");
     public static final String PGP_DECRYPTION_TIMING = name(Crypto.class, "decryption-timing");
+    public static final String ENVELOPE_ENCRYPTION_TIMING = name(Crypto.class, "envelope-encryption-timing");
+    public static final String ENVELOPE_DECRYPTION_TIMING = name(Crypto.class, "envelope-decryption-timing");
     public static final String PASSWORD_HASHING_TIMER = name(PasswordHasher.class, "hashing-timer");
+    public static final String REST_AUTHENTICATION_FILTER_TIMER = name(RESTAuthenticationFilter.class, "filter-timing");
     public static final String TAP_TABLE_REQUEST_SIZES = name(TapTableSizeInterceptor.class, "request_size");
+    public static final String TAP_TABLE_DUPLICATE_REPORTS = name(TablesService.class, "duplicate-reports");
     public static final String CONTEXT_MAC_CACHE_SIZE = name(ContextService.class, "mac-cache-size");
     public static final String CONTEXT_MAC_LOOKUP_TIMING = name(ContextService.class, "mac-lookup-timing");
 
@@ -55,6 +65,10 @@ public class MetricNames {
     public static final String DOT11_CLIENTS_REPORT_PROCESSING_TIMER = name(Dot11Table.class, "clients-report-processing-timing");
     public static final String DOT11_DISCO_REPORT_PROCESSING_TIMER = name(Dot11Table.class, "disco-report-processing-timing");
     public static final String DOT11_ALERT_PROCESSING_TIMER = name(Dot11Table.class, "alert-processing-timing");
+    public static final String DOT11_BSSID_PRELOAD_TIMER = name(Dot11Table.class, "bssid-preload-timing");
+    public static final String DOT11_BSSID_WRITE_TIMER = name(Dot11Table.class, "bssid-write-timing");
+    public static final String DOT11_SSID_WRITE_TIMER = name(Dot11Table.class, "ssid-write-timing");
+    public static final String DOT11_SSID_ANALYSIS_TIMER = name(Dot11Table.class, "ssid-analysis-timing");
 
     public static final String BLUETOOTH_TOTAL_REPORT_PROCESSING_TIMER = name(BluetoothTable.class, "total-report-processing-timing");
 
@@ -87,5 +101,14 @@ public class MetricNames {
     public static final String UAV_CONNECT_TYPE_LOOKUP_TIMING = name(Uav.class, "connect-type-lookup-timing");
 
     public static final String GNSS_TOTAL_REPORT_PROCESSING_TIMER = name(GNSSTable.class, "total-report-processing-timing");
+    public static final String GNSS_MONITORING_RULES_EVALUATION_TIMER = name(GNSSMonitoringRuleEngine.class, "evaluation-timing");
+
+    public static final String CONNECT_REPORT_COLLECTION_TIMER = name(ConnectStatusReporter.class, "report-collection-timing");
+    public static final String CONNECT_STATUS_REPORT_SIZES = name(ConnectStatusReporter.class, "status-report-size");
+    public static final String CONNECT_METRICS_REPORT_SIZES = name(ConnectStatusReporter.class, "metrics-report-size");
+
+    public static final String HEALTH_INDICATOR_TIMEOUTS = name(HealthMonitor.class, "indicator-timeouts");
+
+    public static final String REGISTRY_CHANGE_PROPAGATION_LATENCY = name(RegistryChangeMonitorImpl.class, "change-propagation-latency");
 
 }
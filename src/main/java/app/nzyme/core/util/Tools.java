@@ -19,6 +19,7 @@ package app.nzyme.core.util;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.floorplans.db.TenantLocationFloorEntry;
+import app.nzyme.core.shared.MacAddress;
 import app.nzyme.core.taps.Tap;
 import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
@@ -136,19 +137,14 @@ public class Tools {
             return false;
         }
 
-        if (mac.length() != 17 || !mac.contains(":")) {
+        long packed = MacAddress.pack(mac);
+        if (packed == MacAddress.INVALID) {
             LOG.warn("Passed invalid MAC address [{}]", mac);
             return false;
         }
 
-        // Extract the first octet of the MAC address
-        String firstOctet = mac.split(":")[0];
-
-        // Convert the first octet to an integer
-        int firstOctetInt = Integer.parseInt(firstOctet, 16);
-
-        // Check if the second least significant bit is 1 (i.e., if the address is locally administered)
-        return (firstOctetInt & 0b00000010) != 0;
+        // Locally administered addresses are randomized.
+        return MacAddress.isLocallyAdministered(packed);
     }
 
     public static List<UUID> getTapUuids(NzymeNode nzyme, @Nullable UUID organizationId, @Nullable UUID tenantId) {
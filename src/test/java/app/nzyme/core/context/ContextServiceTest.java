@@ -0,0 +1,67 @@
+package app.nzyme.core.context;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.context.db.MacAddressContextEntry;
+import app.nzyme.core.context.db.MacAddressTransparentContextEntry;
+import com.google.common.net.InetAddresses;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class ContextServiceTest {
+
+    @Test
+    public void testWriteTransparentContext() {
+        NzymeNode nzyme = new MockNzyme();
+        ContextService contexts = new ContextService(nzyme);
+
+        UUID organizationId = UUID.randomUUID();
+        UUID tenantId = UUID.randomUUID();
+        UUID tapUuid = UUID.randomUUID();
+        String existingMac = "00:C0:CA:00:00:01";
+        String newMac = "00:C0:CA:00:00:02";
+
+        long existingId = contexts.createMacAddressContext(existingMac, "existing", null, null,
+                organizationId, tenantId);
+
+        DateTime firstSeen = DateTime.now().minusMinutes(5);
+        contexts.writeTransparentContext(tapUuid, organizationId, tenantId, List.of(
+                TransparentContextValue.hostname(existingMac, "existing.example.org", "DNS", firstSeen),
+                TransparentContextValue.ipAddress(newMac, InetAddresses.forString("10.0.0.2"), "ARP", firstSeen)
+        ));
+
+        // The existing context is used and a context is created for the new MAC address.
+        Optional<MacAddressContextEntry> created = contexts.findMacAddressContextNoCache(newMac,
+                organizationId, tenantId);
+        assertTrue(created.isPresent());
+        assertEquals(contexts.countMacAddressContext(organizationId, tenantId, "%").longValue(), 2L);
+
+        List<MacAddressTransparentContextEntry> existing = contexts.findTransparentMacAddressContext(existingId);
+        assertEquals(existing.size(), 1);
+        assertEquals(existing.get(0).hostname(), "existing.example.org");
+        assertEquals(existing.get(0).lastSeen().getMillis(), firstSeen.getMillis());
+
+        List<MacAddressTransparentContextEntry> fresh = contexts.findTransparentMacAddressContext(created.get().id());
+        assertEquals(fresh.size(), 1);
+        assertEquals(fresh.get(0).ipAddress(), InetAddresses.forString("10.0.0.2"));
+
+        // Reporting a known value again only touches it.
+        DateTime lastSeen = DateTime.now();
+        contexts.writeTransparentContext(tapUuid, organizationId, tenantId, List.of(
+                TransparentContextValue.hostname(existingMac, "existing.example.org", "DNS", lastSeen)
+        ));
+
+        existing = contexts.findTransparentMacAddressContext(existingId);
+        assertEquals(existing.size(), 1);
+        assertEquals(existing.get(0).lastSeen().getMillis(), lastSeen.getMillis());
+        assertEquals(existing.get(0).createdAt().getMillis(), firstSeen.getMillis());
+        assertEquals(contexts.countMacAddressContext(organizationId, tenantId, "%").longValue(), 2L);
+    }
+
+}
@@ -3,7 +3,9 @@ package app.nzyme.core.crypto;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.crypto.tls.TLSKeyAndCertificate;
 import com.google.common.base.Strings;
+import com.google.common.io.BaseEncoding;
 import app.nzyme.core.MockNzyme;
+import org.bouncycastle.openpgp.PGPException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -182,12 +184,48 @@ public class CryptoPGPTest {
         byte[] value = "IT IS A SECRET.".getBytes();
         byte[] encrypted = crypto.encryptWithClusterKey(value);
 
-        crypto.initialize();
+        // Keys are cached in memory. Re-initializing without a private key re-generates the key pair.
         privatePath.toFile().delete();
+        crypto.initialize();
 
         crypto.decryptWithClusterKey(encrypted);
     }
 
+    @Test
+    public void testEnvelopeEncryption() throws Crypto.CryptoInitializationException, Crypto.CryptoOperationException {
+        Crypto crypto = new Crypto(new MockNzyme());
+        crypto.initialize(false);
+
+        byte[] value = "IT IS A SECRET.".getBytes();
+        byte[] encrypted = crypto.encryptWithClusterKey(value);
+
+        assertTrue(crypto.isEnvelopeEncrypted(encrypted));
+        assertTrue(crypto.isEnvelopeEncrypted(BaseEncoding.base64().encode(encrypted).getBytes()));
+        assertEquals(crypto.decryptWithClusterKey(encrypted), value);
+        assertEquals(crypto.decryptWithClusterKey(BaseEncoding.base64().encode(encrypted).getBytes()), value);
+
+        // A second node with the same cluster key reads the same data key from the database.
+        Crypto crypto2 = new Crypto(new MockNzyme());
+        crypto2.initialize(false);
+        assertEquals(crypto2.decryptWithClusterKey(encrypted), value);
+    }
+
+    @Test
+    public void testDecryptsLegacyPGPValues() throws Crypto.CryptoInitializationException, Crypto.CryptoOperationException, IOException, PGPException {
+        Path publicPath = Paths.get(CryptoTestUtils.CRYPTO_TEST_FOLDER.toString(), Crypto.PGP_PUBLIC_KEY_FILE_NAME);
+
+        Crypto crypto = new Crypto(new MockNzyme());
+        crypto.initialize(false);
+
+        byte[] value = "IT IS A SECRET.".getBytes();
+        byte[] encrypted = crypto.encrypt(value, Crypto.readPublicKey(publicPath.toFile()));
+
+        assertFalse(crypto.isEnvelopeEncrypted(encrypted));
+        assertFalse(crypto.isEnvelopeEncrypted(BaseEncoding.base64().encode(encrypted).getBytes()));
+        assertEquals(crypto.decryptWithClusterKey(encrypted), value);
+        assertEquals(crypto.decryptWithClusterKey(BaseEncoding.base64().encode(encrypted).getBytes()), value);
+    }
+
     @Test
     public void testGenerateSelfSignedTLSCertificate() throws Crypto.CryptoOperationException, IOException, InterruptedException {
         Crypto crypto = new Crypto(new MockNzyme());
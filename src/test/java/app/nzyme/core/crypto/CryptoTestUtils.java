@@ -30,6 +30,11 @@ public class CryptoTestUtils {
                 handle.createUpdate("TRUNCATE nodes;")
                         .execute()
         );
+
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("TRUNCATE crypto_data_keys;")
+                        .execute()
+        );
     }
 
     public static void cleanFiles(Path folder) throws IOException {
@@ -0,0 +1,47 @@
+package app.nzyme.core.database;
+
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class CopyWriterTest {
+
+    @Test
+    public void testBuildStatement() {
+        CopyWriter writer = new CopyWriter("dns_pairs", "tap_uuid", "client_address", "count");
+
+        assertEquals(
+                writer.buildStatement(),
+                "COPY dns_pairs(tap_uuid, client_address, count) FROM STDIN WITH (FORMAT csv)"
+        );
+    }
+
+    @Test
+    public void testValues() {
+        UUID uuid = UUID.fromString("5d9b3a6e-6f7b-4a44-9b6e-2d9a2b9c6f11");
+
+        CopyWriter writer = new CopyWriter("x", "a", "b", "c", "d", "e");
+        writer.value(uuid).value(null).value("").value(true).value(42L).endRow();
+        writer.value("say \"hi\", world").value(false).value(null).value(null).value(1.5).endRow();
+
+        assertEquals(writer.size(), 2);
+        assertEquals(
+                writer.getCsv(),
+                "\"5d9b3a6e-6f7b-4a44-9b6e-2d9a2b9c6f11\",,\"\",\"t\",\"42\"\n" +
+                "\"say \"\"hi\"\", world\",\"f\",,,\"1.5\"\n"
+        );
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTooFewValues() {
+        new CopyWriter("x", "a", "b").value(1).endRow();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTooManyValues() {
+        new CopyWriter("x", "a").value(1).value(2);
+    }
+
+}
@@ -0,0 +1,78 @@
+package app.nzyme.core.database;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class KeysetTest {
+
+    private static final KeysetColumn LAST_SEEN = KeysetColumn.plain("last_seen", "timestamptz");
+    private static final KeysetColumn ID = KeysetColumn.plain("id", "bigint");
+
+    @Test
+    public void testFirstPageSql() {
+        assertEquals(Keyset.condition(LAST_SEEN, ID, OrderDirection.DESC, null), "");
+        assertEquals(
+                Keyset.pageSql("SELECT * FROM assets", LAST_SEEN, ID, OrderDirection.DESC),
+                "SELECT page.*, page.last_seen::text AS keyset_value, page.id::text AS keyset_key " +
+                        "FROM (SELECT * FROM assets ORDER BY last_seen DESC, id DESC LIMIT :keyset_limit) AS page " +
+                        "ORDER BY page.last_seen DESC, page.id DESC"
+        );
+    }
+
+    @Test
+    public void testNextPageCondition() {
+        KeysetCursor cursor = KeysetCursor.create("00:11:22:33:44:55", "17");
+
+        assertEquals(
+                Keyset.condition(KeysetColumn.plain("mac", "text"), ID, OrderDirection.ASC, cursor),
+                " AND (mac, id) > (CAST(:keyset_value AS text), CAST(:keyset_key AS bigint)) "
+        );
+    }
+
+    @Test
+    public void testAggregatedConditionUsesExpression() {
+        KeysetColumn lastSeen = KeysetColumn.create("last_seen", "MAX(b.created_at)", "timestamptz", true);
+        KeysetCursor cursor = KeysetCursor.create("2024-05-01 13:37:00.123+00", "00:11:22:33:44:55");
+
+        assertEquals(
+                Keyset.condition(lastSeen, KeysetColumn.create("bssid", "b.bssid", "text", false),
+                        OrderDirection.DESC, cursor),
+                " AND (MAX(b.created_at), b.bssid) < " +
+                        "(CAST(:keyset_value AS timestamptz), CAST(:keyset_key AS text)) "
+        );
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+        KeysetCursor cursor = KeysetCursor.create("2024-05-01 13:37:00.123+00", "tcp/a/b");
+
+        assertEquals(KeysetCursor.decode(cursor.encode()), cursor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        KeysetCursor.decode("not a cursor!");
+    }
+
+    @Test
+    public void testValidCursorValues() {
+        Keyset.validateCursor(KeysetCursor.create("2024-05-01 13:37:00.123+00", "17"), "timestamptz", "bigint");
+        Keyset.validateCursor(KeysetCursor.create("2024-05-01 13:37:00+05:30", "a"), "timestamptz", "text");
+        Keyset.validateCursor(KeysetCursor.create("-71.5", "17"), "double precision", "bigint");
+        Keyset.validateCursor(KeysetCursor.create("10.0.0.1/32", "tcp/a/b"), "inet", "text");
+        Keyset.validateCursor(KeysetCursor.create("1234.5", "tcp/a/b"), "numeric", "text");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTamperedCursorValue() {
+        Keyset.condition(LAST_SEEN, ID, OrderDirection.DESC,
+                KeysetCursor.create("2024-05-01'; DROP TABLE assets; --", "17"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTamperedCursorKey() {
+        Keyset.validateCursor(KeysetCursor.create("00:11:22:33:44:55", "seventeen"), "text", "bigint");
+    }
+
+}
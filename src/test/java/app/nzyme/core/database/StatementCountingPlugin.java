@@ -0,0 +1,33 @@
+package app.nzyme.core.database;
+
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.spi.JdbiPlugin;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts statements executed through JDBI. A batch counts as one statement. Install with
+ * DatabaseImpl(NodeConfiguration, List) in benchmarks.
+ */
+public class StatementCountingPlugin implements JdbiPlugin {
+
+    private final LongAdder executedStatements = new LongAdder();
+
+    @Override
+    public void customizeJdbi(Jdbi jdbi) {
+        jdbi.addCustomizer(new StatementCustomizer() {
+            @Override
+            public void afterExecution(PreparedStatement statement, StatementContext context) {
+                executedStatements.increment();
+            }
+        });
+    }
+
+    public long getExecutedStatementCount() {
+        return executedStatements.sum();
+    }
+
+}
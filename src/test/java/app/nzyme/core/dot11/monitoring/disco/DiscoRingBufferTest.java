@@ -0,0 +1,91 @@
+package app.nzyme.core.dot11.monitoring.disco;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class DiscoRingBufferTest {
+
+    @Test
+    public void testAddAndGet() {
+        DiscoRingBuffer buffer = new DiscoRingBuffer(10);
+
+        buffer.add(100, 5);
+        buffer.add(100, 3);
+        buffer.add(102, 1);
+
+        assertEquals(buffer.get(100), 8);
+        assertEquals(buffer.get(101), 0);
+        assertEquals(buffer.get(102), 1);
+        assertEquals(buffer.getNewestMinute(), 102);
+    }
+
+    @Test
+    public void testClearsSkippedMinutes() {
+        DiscoRingBuffer buffer = new DiscoRingBuffer(10);
+
+        for (long minute = 0; minute < 10; minute++) {
+            buffer.add(minute, 1);
+        }
+
+        // Wraps around and must not keep the counts of minutes 0 to 4 in the reused slots.
+        buffer.add(15, 7);
+
+        for (long minute = 6; minute < 10; minute++) {
+            assertEquals(buffer.get(minute), 1);
+        }
+        for (long minute = 10; minute < 15; minute++) {
+            assertEquals(buffer.get(minute), 0);
+        }
+        assertEquals(buffer.get(15), 7);
+        assertEquals(buffer.get(5), 0);
+
+        // Jumping further than the whole window clears everything.
+        buffer.add(1000, 2);
+        assertEquals(buffer.get(15), 0);
+        assertEquals(buffer.get(1000), 2);
+    }
+
+    @Test
+    public void testIgnoresMinutesOutsideOfWindow() {
+        DiscoRingBuffer buffer = new DiscoRingBuffer(10);
+
+        buffer.add(100, 1);
+        buffer.add(90, 50);
+        buffer.add(91, 2);
+
+        assertEquals(buffer.get(90), 0);
+        assertEquals(buffer.get(91), 2);
+        assertEquals(buffer.get(100), 1);
+    }
+
+    @Test
+    public void testAddTo() {
+        DiscoRingBuffer a = new DiscoRingBuffer(10);
+        DiscoRingBuffer b = new DiscoRingBuffer(10);
+
+        a.add(50, 1);
+        a.add(52, 2);
+        b.add(52, 3);
+
+        long[] target = new long[4];
+        a.addTo(target, 50);
+        b.addTo(target, 50);
+
+        assertEquals(target, new long[]{1, 0, 5, 0});
+    }
+
+    @Test
+    public void testSetOverwritesMinute() {
+        DiscoRingBuffer buffer = new DiscoRingBuffer(10);
+
+        buffer.add(100, 5);
+        buffer.set(100, 3);
+        buffer.set(103, 2);
+
+        assertEquals(buffer.get(100), 3);
+        assertEquals(buffer.get(103), 2);
+        assertEquals(buffer.getNewestMinute(), 103);
+    }
+
+}
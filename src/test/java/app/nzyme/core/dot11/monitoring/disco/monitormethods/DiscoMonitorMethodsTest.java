@@ -0,0 +1,88 @@
+package app.nzyme.core.dot11.monitoring.disco.monitormethods;
+
+import app.nzyme.core.dot11.monitoring.disco.DiscoMonitorAnomaly;
+import app.nzyme.core.dot11.monitoring.disco.DiscoSeries;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class DiscoMonitorMethodsTest {
+
+    private static final int DAY = 24 * 60;
+
+    @Test
+    public void testStaticThreshold() {
+        Dot11DiscoMonitorMethod method = DiscoMonitorFactory.build(
+                DiscoMonitorMethodType.STATIC_THRESHOLD, null, Map.of("threshold", 10)
+        );
+
+        DiscoSeries series = new DiscoSeries(0, new long[]{50, 5, 11, 10, 20});
+        List<DiscoMonitorAnomaly> anomalies = method.calculate(series, 1);
+
+        assertEquals(anomalies.size(), 2);
+        assertEquals(anomalies.get(0).frameCount(), 11);
+        assertEquals(anomalies.get(0).timestamp(), series.timestamp(2));
+        assertEquals(anomalies.get(1).frameCount(), 20);
+    }
+
+    @Test
+    public void testEwmaZScore() {
+        Dot11DiscoMonitorMethod method = DiscoMonitorFactory.build(
+                DiscoMonitorMethodType.EWMA_ZSCORE,
+                null,
+                Map.of("alpha", 0.05, "z_threshold", 4.0, "min_frames", 10)
+        );
+
+        // Noisy background between 5 and 15 frames with a single burst.
+        long[] counts = new long[method.historyMinutes() + 120];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 5 + (i * 7) % 11;
+        }
+        counts[counts.length - 30] = 200;
+
+        List<DiscoMonitorAnomaly> anomalies = method.calculate(
+                new DiscoSeries(0, counts), method.historyMinutes()
+        );
+
+        assertEquals(anomalies.size(), 1);
+        assertEquals(anomalies.get(0).frameCount(), 200);
+    }
+
+    @Test
+    public void testSeasonalBaselineToleratesDailyPattern() {
+        Dot11DiscoMonitorMethod method = DiscoMonitorFactory.build(
+                DiscoMonitorMethodType.SEASONAL_BASELINE,
+                null,
+                Map.of("seasons", 3, "z_threshold", 3.0, "min_frames", 10)
+        );
+
+        assertEquals(method.historyMinutes(), 3 * DAY);
+
+        // The same burst at the same minute every day, and a new one on the last day.
+        long[] counts = new long[4 * DAY];
+        for (int day = 0; day < 4; day++) {
+            counts[day * DAY + 600] = 300;
+        }
+        counts[3 * DAY + 900] = 300;
+
+        List<DiscoMonitorAnomaly> anomalies = method.calculate(
+                new DiscoSeries(0, counts), method.historyMinutes()
+        );
+
+        assertEquals(anomalies.size(), 1);
+        assertEquals(anomalies.get(0).timestamp(), new DiscoSeries(0, counts).timestamp(3 * DAY + 900));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsInvalidConfiguration() {
+        DiscoMonitorFactory.build(
+                DiscoMonitorMethodType.EWMA_ZSCORE,
+                null,
+                Map.of("alpha", 2.0, "z_threshold", 4.0, "min_frames", 10)
+        );
+    }
+
+}
@@ -0,0 +1,119 @@
+package app.nzyme.core.dot11.tracks;
+
+import app.nzyme.core.dot11.db.SignalTrackHistogramEntry;
+import com.google.common.collect.Lists;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class StreamingTrackDetectorTest {
+
+    private static final long WINDOW = 8 * 60 * 60 * 1000L;
+
+    @Test
+    public void testMatchesTrackDetector() {
+        DateTime now = new DateTime(2026, 10, 1, 12, 0);
+
+        StreamingTrackDetector streaming = new StreamingTrackDetector(WINDOW, TrackDetector.DEFAULT_CONFIG);
+        List<SignalTrackHistogramEntry> entries = Lists.newArrayList();
+
+        for (int minute = 0; minute < 60; minute++) {
+            DateTime bucket = now.minusMinutes(60 - minute);
+
+            // One track around -50 dBm, a second one around -80 dBm in the second half.
+            for (int signal = -53; signal <= -47; signal++) {
+                entries.add(SignalTrackHistogramEntry.create(bucket, signal, 50));
+            }
+
+            if (minute >= 30) {
+                for (int signal = -83; signal <= -77; signal++) {
+                    entries.add(SignalTrackHistogramEntry.create(bucket, signal, 50));
+                }
+            }
+        }
+
+        for (SignalTrackHistogramEntry entry : entries) {
+            streaming.record(entry.bucket(), entry.signalStrength(), entry.frameCount());
+        }
+
+        TrackDetector.TrackDetectorHeatmapData heatmap = TrackDetector.toChartAxisMaps(entries);
+        List<Track> tracks = new TrackDetector().detect(heatmap.z(), heatmap.y(), TrackDetector.DEFAULT_CONFIG);
+
+        assertEquals(tracks.size(), 2);
+        assertEquals(streaming.evaluate(now), tracks.size());
+    }
+
+    @Test
+    public void testIncrementalUpdatesAndEviction() {
+        DateTime now = new DateTime(2026, 10, 1, 12, 0);
+        StreamingTrackDetector streaming = new StreamingTrackDetector(WINDOW, TrackDetector.DEFAULT_CONFIG);
+
+        for (int signal = -53; signal <= -47; signal++) {
+            streaming.record(now.minusHours(9), signal, 50);
+            streaming.record(now, signal, 50);
+        }
+        assertEquals(streaming.evaluate(now), 1);
+
+        // Second track in a new bucket.
+        for (int signal = -83; signal <= -77; signal++) {
+            streaming.record(now.plusMinutes(1), signal, 50);
+        }
+        assertEquals(streaming.evaluate(now.plusMinutes(1)), 2);
+
+        // Everything leaves the window.
+        assertEquals(streaming.evaluate(now.plusHours(9)), 0);
+        assertTrue(streaming.isEmpty());
+    }
+
+    @Test
+    public void testIgnoresFramesBelowThreshold() {
+        DateTime now = new DateTime(2026, 10, 1, 12, 0);
+        StreamingTrackDetector streaming = new StreamingTrackDetector(WINDOW, TrackDetector.DEFAULT_CONFIG);
+
+        for (int signal = -53; signal <= -47; signal++) {
+            streaming.record(now, signal, 5);
+        }
+        assertEquals(streaming.evaluate(now), 0);
+
+        // Same bucket, now above threshold.
+        for (int signal = -53; signal <= -47; signal++) {
+            streaming.record(now, signal, 20);
+        }
+        assertEquals(streaming.evaluate(now), 1);
+    }
+
+    @Test
+    public void testClearFromAndRecordAgain() {
+        DateTime now = new DateTime(2026, 10, 1, 12, 0);
+        StreamingTrackDetector streaming = new StreamingTrackDetector(WINDOW, TrackDetector.DEFAULT_CONFIG);
+
+        for (int minute = 0; minute < 10; minute++) {
+            for (int signal = -53; signal <= -47; signal++) {
+                streaming.record(now.minusMinutes(10 - minute), signal, 50);
+            }
+        }
+
+        // A second track in the most recent minutes.
+        for (int minute = 5; minute < 10; minute++) {
+            for (int signal = -83; signal <= -77; signal++) {
+                streaming.record(now.minusMinutes(10 - minute), signal, 50);
+            }
+        }
+
+        assertEquals(streaming.evaluate(now), 2);
+
+        // Reload the most recent minutes without the second track.
+        streaming.clearFrom(now.minusMinutes(5));
+        for (int minute = 5; minute < 10; minute++) {
+            for (int signal = -53; signal <= -47; signal++) {
+                streaming.record(now.minusMinutes(10 - minute), signal, 50);
+            }
+        }
+
+        assertEquals(streaming.evaluate(now), 1);
+    }
+
+}
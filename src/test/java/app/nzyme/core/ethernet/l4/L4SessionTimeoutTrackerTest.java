@@ -0,0 +1,70 @@
+package app.nzyme.core.ethernet.l4;
+
+import app.nzyme.core.ethernet.L4Type;
+import app.nzyme.core.ethernet.l4.tcp.TcpSessionState;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class L4SessionTimeoutTrackerTest {
+
+    @Test
+    public void testExpire() {
+        L4SessionTimeoutTracker tracker = new L4SessionTimeoutTracker(600, 120);
+        DateTime now = new DateTime(2024, 6, 1, 12, 0, 0);
+
+        tracker.track(1, L4Type.TCP, now.minusMinutes(20));
+        tracker.track(2, L4Type.TCP, now.minusMinutes(2));
+        tracker.track(3, L4Type.UDP, now.minusMinutes(5));
+        tracker.track(4, L4Type.UDP, now);
+
+        Map<L4Type, List<Long>> expired = tracker.expire(now);
+
+        assertEquals(expired.get(L4Type.TCP), List.of(1L));
+        assertEquals(expired.get(L4Type.UDP), List.of(3L));
+        assertEquals(tracker.size(), 2);
+
+        // Expired sessions are removed.
+        assertTrue(tracker.expire(now).isEmpty());
+    }
+
+    @Test
+    public void testTrackMovesSession() {
+        L4SessionTimeoutTracker tracker = new L4SessionTimeoutTracker(600, 120);
+        DateTime now = new DateTime(2024, 6, 1, 12, 0, 0);
+
+        tracker.track(1, L4Type.TCP, now.minusMinutes(20));
+        tracker.track(1, L4Type.TCP, now.minusMinutes(1));
+
+        assertTrue(tracker.expire(now).isEmpty());
+        assertEquals(tracker.size(), 1);
+
+        assertEquals(tracker.expire(now.plusMinutes(11)).get(L4Type.TCP), List.of(1L));
+    }
+
+    @Test
+    public void testClosedSessionsAreUntracked() {
+        L4SessionTimeoutTracker tracker = new L4SessionTimeoutTracker(600, 120);
+        DateTime now = new DateTime(2024, 6, 1, 12, 0, 0);
+
+        tracker.observe(1, L4Type.TCP,
+                L4SessionTimeoutTracker.Observation.tcp(TcpSessionState.ESTABLISHED, now.minusMinutes(20)));
+        tracker.observe(1, L4Type.TCP,
+                L4SessionTimeoutTracker.Observation.tcp(TcpSessionState.CLOSEDFIN, now.minusMinutes(20)));
+
+        assertEquals(tracker.size(), 0);
+        assertTrue(tracker.expire(now).isEmpty());
+    }
+
+    @Test
+    public void testOpenStatesSqlMatchesPartialIndex() {
+        // Must stay identical to the predicate of l4_sessions_open or the recovery query stops using it.
+        assertEquals(L4SessionTimeoutTracker.OPEN_STATES_SQL,
+                "'SYNSENT', 'SYNRECEIVED', 'ESTABLISHED', 'FINWAIT1', 'FINWAIT2', 'ACTIVE'");
+    }
+
+}
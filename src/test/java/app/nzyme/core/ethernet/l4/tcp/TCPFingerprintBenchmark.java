@@ -0,0 +1,41 @@
+package app.nzyme.core.ethernet.l4.tcp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fingerprint generation of a typical Linux SYN. Runs for every TCP session in every report. Run with main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TCPFingerprintBenchmark {
+
+    private TCPFingerprint fingerprint;
+
+    @Setup
+    public void setup() {
+        fingerprint = new TCPFingerprint(64, 0, true, 64240, 1460, 7, List.of(2, 4, 8, 10, 1, 3));
+    }
+
+    @Benchmark
+    public String generate() {
+        return fingerprint.generate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TCPFingerprintBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+}
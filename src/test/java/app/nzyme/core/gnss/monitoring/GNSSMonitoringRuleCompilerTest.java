@@ -0,0 +1,165 @@
+package app.nzyme.core.gnss.monitoring;
+
+import app.nzyme.core.gnss.db.monitoring.GNSSMonitoringRuleEntry;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSConstellationReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.gnss.GNSSLatLonReport;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class GNSSMonitoringRuleCompilerTest {
+
+    private static final UUID TAP = UUID.randomUUID();
+
+    private static final GNSSFixQualityHistory NO_HISTORY = (tapUuid, constellation, sufficientFixes, from, to) ->
+            Optional.empty();
+
+    @Test
+    public void testConditionTypesAreAndConnected() {
+        CompiledGNSSMonitoringRule rule = GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "PDOP", List.of(Map.of("pdop", 3)),
+                "CLOCK_DRIFT", List.of(Map.of("drift", 100))
+        ), Optional.empty()));
+
+        assertFalse(rule.matches(subject(report(List.of("Fix3D"), 5.0, 50.0, List.of(), DateTime.now()))));
+        assertFalse(rule.matches(subject(report(List.of("Fix3D"), 2.0, 150.0, List.of(), DateTime.now()))));
+        assertTrue(rule.matches(subject(report(List.of("Fix3D"), 5.0, -150.0, List.of(), DateTime.now()))));
+    }
+
+    @Test
+    public void testConditionsOfSameTypeAreOrConnected() {
+        CompiledGNSSMonitoringRule rule = GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "PDOP", List.of(Map.of("pdop", 10), Map.of("pdop", 3))
+        ), Optional.empty()));
+
+        assertTrue(rule.matches(subject(report(List.of("Fix3D"), 5.0, null, List.of(), DateTime.now()))));
+        assertFalse(rule.matches(subject(report(List.of("Fix3D"), null, null, List.of(), DateTime.now()))));
+    }
+
+    @Test
+    public void testConstellationsAndTapsRestrictRule() {
+        UUID otherTap = UUID.randomUUID();
+        CompiledGNSSMonitoringRule rule = GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "CONSTELLATION", List.of(Map.of("constellation", "GPS")),
+                "PDOP", List.of(Map.of("pdop", 3))
+        ), Optional.of(List.of(TAP))));
+
+        assertTrue(rule.appliesTo(TAP, "GPS"));
+        assertFalse(rule.appliesTo(TAP, "Galileo"));
+        assertFalse(rule.appliesTo(otherTap, "GPS"));
+    }
+
+    @Test
+    public void testFixDistance() {
+        CompiledGNSSMonitoringRule rule = GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "FIX_DISTANCE", List.of(Map.of("distanceMeters", 1000))
+        ), Optional.empty()));
+
+        GNSSConstellationReport near = report(
+                List.of("Fix3D"), null, null, List.of(GNSSLatLonReport.create(52.5201, 13.4051)), DateTime.now()
+        );
+        GNSSConstellationReport far = report(
+                List.of("Fix3D"), null, null, List.of(GNSSLatLonReport.create(52.6, 13.4)), DateTime.now()
+        );
+
+        assertFalse(rule.matches(subject(near)));
+        assertTrue(rule.matches(subject(far)));
+
+        // No tap location.
+        assertFalse(rule.matches(GNSSRuleSubject.create(TAP, null, null, "GPS", far, NO_HISTORY)));
+    }
+
+    @Test
+    public void testFixQualityMustStayBelowMinimumForTimeframe() {
+        CompiledGNSSMonitoringRule rule = GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "FIX_QUALITY", List.of(Map.of("minimumContinuousFixQuality", "FIX_3D", "timeframeMinutes", 5))
+        ), Optional.empty()));
+
+        DateTime start = new DateTime(2025, 1, 1, 12, 0);
+        RecordedFixQualityHistory history = new RecordedFixQualityHistory();
+
+        assertFalse(rule.matches(history.subject(report(List.of("Fix2D"), null, null, List.of(), start))));
+        assertFalse(rule.matches(history.subject(report(List.of("Fix2D"), null, null, List.of(), start.plusMinutes(4)))));
+        assertTrue(rule.matches(history.subject(report(List.of(), null, null, List.of(), start.plusMinutes(5)))));
+
+        // A good fix resets the timeframe.
+        assertFalse(rule.matches(history.subject(report(List.of("Fix3D"), null, null, List.of(), start.plusMinutes(6)))));
+        assertFalse(rule.matches(history.subject(report(List.of("Fix2D"), null, null, List.of(), start.plusMinutes(7)))));
+
+        // Reports before the lookback are not considered.
+        assertFalse(rule.matches(history.subject(report(List.of("Fix2D"), null, null, List.of(), start.plusMinutes(20)))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidConditionFailsCompilation() {
+        GNSSMonitoringRuleCompiler.compile(rule(Map.of(
+                "PDOP", List.of(Map.of("distanceMeters", 3))
+        ), Optional.empty()));
+    }
+
+    private static GNSSMonitoringRuleEntry rule(Map<String, List<Object>> conditions, Optional<List<UUID>> taps) {
+        return GNSSMonitoringRuleEntry.create(
+                1, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), "Test Rule", null,
+                conditions, taps, DateTime.now(), DateTime.now()
+        );
+    }
+
+    private static GNSSRuleSubject subject(GNSSConstellationReport report) {
+        return GNSSRuleSubject.create(TAP, 52.52, 13.405, "GPS", report, NO_HISTORY);
+    }
+
+    private static GNSSConstellationReport report(List<String> fixes,
+                                                  Double pdop,
+                                                  Double timeDeviationMs,
+                                                  List<GNSSLatLonReport> positions,
+                                                  DateTime timestamp) {
+        return GNSSConstellationReport.create(
+                fixes, timeDeviationMs, positions, null, null, List.of(), null, null, pdop, pdop,
+                List.of(), null, null, null, null, null, timestamp
+        );
+    }
+
+    /**
+     * Reports of one tap and constellation, as they would have been written to the database.
+     */
+    private static final class RecordedFixQualityHistory implements GNSSFixQualityHistory {
+
+        private final List<GNSSConstellationReport> reports = new ArrayList<>();
+
+        GNSSRuleSubject subject(GNSSConstellationReport report) {
+            reports.add(report);
+            return GNSSRuleSubject.create(TAP, 52.52, 13.405, "GPS", report, this);
+        }
+
+        @Override
+        public Optional<DateTime> findFixQualityBelowSince(UUID tapUuid,
+                                                           String constellation,
+                                                           List<String> sufficientFixes,
+                                                           DateTime from,
+                                                           DateTime to) {
+            DateTime since = null;
+            for (GNSSConstellationReport report : reports) {
+                if (report.timestamp().isBefore(from) || report.timestamp().isAfter(to)) {
+                    continue;
+                }
+
+                if (report.fixes().stream().anyMatch(sufficientFixes::contains)) {
+                    since = null;
+                } else if (since == null) {
+                    since = report.timestamp();
+                }
+            }
+
+            return Optional.ofNullable(since);
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+package app.nzyme.core.integrations.tenant.cot;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.integrations.tenant.cot.db.CotOutputEntry;
+import app.nzyme.core.integrations.tenant.cot.protocol.CotContact;
+import app.nzyme.core.integrations.tenant.cot.protocol.CotEvent;
+import app.nzyme.core.integrations.tenant.cot.protocol.CotEventDetail;
+import app.nzyme.core.integrations.tenant.cot.protocol.CotPoint;
+import app.nzyme.core.integrations.tenant.cot.transports.CotProcessingResult;
+import app.nzyme.core.integrations.tenant.cot.transports.CotTransport;
+import app.nzyme.core.integrations.tenant.cot.transports.CotTransportException;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class CotOutputSessionTest {
+
+    private static CotOutputEntry output() {
+        return CotOutputEntry.create(
+                0, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), "UDP_PLAINTEXT", "test", "test",
+                "a-f-G-E-S", "127.0.0.1", 8087, null, null, "RUNNING", 0, 0, DateTime.now(), DateTime.now()
+        );
+    }
+
+    private static CotEvent event(int i) {
+        return CotEvent.create("2.0", String.valueOf(i), "m-g", "a-f-G-E-S", "now", "now", "later",
+                CotPoint.create(0, 0, 0, 0, 0),
+                CotEventDetail.create("test", null, null, CotContact.create("test"), null));
+    }
+
+    private static long droppedEvents(NzymeNode nzyme, CotOutputEntry output) {
+        return nzyme.getMetrics().counter(
+                MetricRegistry.name(CotOutput.class, output.uuid().toString(), "dropped-events")
+        ).getCount();
+    }
+
+    /**
+     * Starts a session with one event that the transport holds on to until released, so the queue fills up.
+     */
+    private static CotOutputSession startBlocked(NzymeNode nzyme, CotOutputEntry output, FakeTransport transport)
+            throws InterruptedException {
+        CotOutputSession session = new CotOutputSession(nzyme, output, transport);
+        session.enqueue(event(0));
+        assertTrue(transport.blocked.await(10, TimeUnit.SECONDS));
+
+        return session;
+    }
+
+    @Test
+    public void testQueueOverflowDropsEvents() throws InterruptedException {
+        NzymeNode nzyme = new MockNzyme();
+        CotOutputEntry output = output();
+        FakeTransport transport = new FakeTransport();
+        CotOutputSession session = startBlocked(nzyme, output, transport);
+
+        for (int i = 1; i <= CotOutputSession.QUEUE_CAPACITY + 5; i++) {
+            session.enqueue(event(i));
+        }
+
+        assertEquals(droppedEvents(nzyme, output), 5);
+
+        transport.release.countDown();
+        transport.awaitReceived(CotOutputSession.QUEUE_CAPACITY + 1);
+        session.close();
+    }
+
+    @Test
+    public void testQueuedEventsAreSentInBatches() throws InterruptedException {
+        NzymeNode nzyme = new MockNzyme();
+        FakeTransport transport = new FakeTransport();
+        CotOutputSession session = startBlocked(nzyme, output(), transport);
+
+        for (int i = 1; i <= 1200; i++) {
+            session.enqueue(event(i));
+        }
+
+        transport.release.countDown();
+        transport.awaitReceived(1201);
+        session.close();
+
+        assertEquals(transport.batchSizes(), List.of(1, CotOutputSession.MAXIMUM_BATCH_SIZE,
+                CotOutputSession.MAXIMUM_BATCH_SIZE, 1200 - 2 * CotOutputSession.MAXIMUM_BATCH_SIZE));
+    }
+
+    @Test
+    public void testPartiallySentBatchIsResumed() throws InterruptedException {
+        NzymeNode nzyme = new MockNzyme();
+        CotOutputEntry output = output();
+        FakeTransport transport = new FakeTransport();
+        CotOutputSession session = startBlocked(nzyme, output, transport);
+
+        for (int i = 1; i <= 10; i++) {
+            session.enqueue(event(i));
+        }
+
+        transport.failAfter = 3;
+        transport.release.countDown();
+        transport.awaitReceived(11);
+        session.close();
+
+        List<String> expected = Lists.newArrayList();
+        for (int i = 0; i <= 10; i++) {
+            expected.add(String.valueOf(i));
+        }
+
+        // Every event exactly once and in order, even though the second batch failed after three datagrams.
+        assertEquals(transport.received(), expected);
+        assertEquals(transport.batchSizes(), List.of(1, 3, 7));
+        assertEquals(droppedEvents(nzyme, output), 0);
+    }
+
+    private static final class FakeTransport implements CotTransport {
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // Fails the next batch after sending this many of its events.
+        volatile int failAfter = -1;
+
+        private final List<List<String>> batches = Lists.newArrayList();
+        private boolean connected = false;
+
+        @Override
+        public void connect() {
+            connected = true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public CotProcessingResult sendEvents(List<CotEvent> events) throws CotTransportException {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CotTransportException("Interrupted.");
+            }
+
+            int limit = failAfter >= 0 ? failAfter : events.size();
+            failAfter = -1;
+
+            List<String> batch = Lists.newArrayList();
+            for (CotEvent event : events.subList(0, limit)) {
+                batch.add(event.uid());
+            }
+
+            synchronized (batches) {
+                batches.add(batch);
+            }
+
+            if (limit < events.size()) {
+                connected = false;
+                throw new CotTransportException("Failed.", new RuntimeException(),
+                        CotProcessingResult.create(limit, limit));
+            }
+
+            return CotProcessingResult.create(events.size(), events.size());
+        }
+
+        @Override
+        public void close() {
+            connected = false;
+        }
+
+        List<String> received() {
+            List<String> received = Lists.newArrayList();
+            synchronized (batches) {
+                for (List<String> batch : batches) {
+                    received.addAll(batch);
+                }
+            }
+
+            return received;
+        }
+
+        List<Integer> batchSizes() {
+            List<Integer> sizes = Lists.newArrayList();
+            synchronized (batches) {
+                for (List<String> batch : batches) {
+                    sizes.add(batch.size());
+                }
+            }
+
+            return sizes;
+        }
+
+        void awaitReceived(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received().size() < count) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Received only <" + received().size() + "> of <" + count + "> events.");
+                }
+
+                Thread.sleep(10);
+            }
+        }
+
+    }
+
+}
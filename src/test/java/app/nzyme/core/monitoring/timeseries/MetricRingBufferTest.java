@@ -0,0 +1,47 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class MetricRingBufferTest {
+
+    @Test
+    public void testEmpty() {
+        MetricRingBuffer buffer = new MetricRingBuffer(4, 1);
+
+        assertTrue(buffer.latest().isEmpty());
+        assertEquals(buffer.size(), 0);
+    }
+
+    @Test
+    public void testLatestAndWrapAround() {
+        MetricRingBuffer buffer = new MetricRingBuffer(3, 1);
+
+        DateTime base = new DateTime(1_700_000_000_000L);
+        for (int i = 0; i < 5; i++) {
+            buffer.record(base.plusSeconds(i), i);
+        }
+
+        assertEquals(buffer.size(), 3);
+        assertEquals(buffer.latest().get().value(), 4.0);
+        assertEquals(buffer.latest().get().timestamp(), base.plusSeconds(4));
+    }
+
+    @Test
+    public void testMultipleValues() {
+        MetricRingBuffer buffer = new MetricRingBuffer(2, TimerValues.WIDTH);
+        buffer.record(DateTime.now(), TimerValues.meanAndP99(12.5, 99.0).toArray());
+
+        TimerValues t = TimerValues.fromPoint(buffer.latest().get());
+        assertEquals(t.mean(), 12.5);
+        assertEquals(t.p99(), 99.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsWrongWidth() {
+        new MetricRingBuffer(2, 1).record(DateTime.now(), 1, 2);
+    }
+
+}
@@ -0,0 +1,17 @@
+package app.nzyme.core.monitoring.timeseries;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class MetricsRollupTierTest {
+
+    @Test
+    public void testRollupTierSelection() {
+        assertTrue(MetricsRollupTier.forRange(1).isEmpty());
+        assertTrue(MetricsRollupTier.forRange(24).isEmpty());
+        assertEquals(MetricsRollupTier.forRange(48).get(), MetricsRollupTier.FIVE_MINUTES);
+        assertEquals(MetricsRollupTier.forRange(30*24).get(), MetricsRollupTier.HOURLY);
+    }
+
+}
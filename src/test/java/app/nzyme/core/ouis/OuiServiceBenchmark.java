@@ -0,0 +1,125 @@
+package app.nzyme.core.ouis;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.connect.ConnectService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OUI lookups of random MAC addresses against a table the size of the full IEEE registry. The OUI data is served
+ * by a local stand-in for Connect and loaded through OuiService#initialize(). Requires the test database. Run
+ * with main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OuiServiceBenchmark {
+
+    private static final int OUI_COUNT = 35_000;
+
+    private HttpServer connect;
+    private OuiService ouiService;
+    private String[] macs;
+    private int position = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+
+        Map<String, String> ouis = Maps.newHashMapWithExpectedSize(OUI_COUNT);
+        for (int i = 0; i < OUI_COUNT; i++) {
+            ouis.put(String.format("%06X", random.nextInt(0xFFFFFF)), "Vendor " + i);
+        }
+
+        byte[] response = new ObjectMapper().writeValueAsBytes(Map.of("ouis", ouis));
+        connect = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        connect.createContext("/data/oui/all", exchange -> {
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        });
+        connect.start();
+
+        URI connectUri = URI.create("http://127.0.0.1:" + connect.getAddress().getPort() + "/");
+        MockNzyme nzyme = new MockNzyme() {
+            @Override
+            public ConnectService getConnect() {
+                return new LocalConnectService(this, connectUri);
+            }
+        };
+
+        ouiService = new OuiService(nzyme);
+        ouiService.initialize();
+
+        macs = new String[1024];
+        for (int i = 0; i < macs.length; i++) {
+            byte[] mac = new byte[6];
+            random.nextBytes(mac);
+            macs[i] = String.format("%02x:%02x:%02x:%02x:%02x:%02x",
+                    mac[0], mac[1], mac[2], mac[3], mac[4], mac[5]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connect.stop(0);
+    }
+
+    @Benchmark
+    public Optional<String> lookup() {
+        return ouiService.lookup(macs[position++ & (macs.length - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OuiServiceBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    private static final class LocalConnectService extends ConnectService {
+
+        private final URI apiUri;
+
+        LocalConnectService(NzymeNode nzyme, URI apiUri) {
+            super(nzyme);
+            this.apiUri = apiUri;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public URI getApiUri() {
+            return apiUri;
+        }
+
+        @Override
+        public String getApiKey() {
+            return "benchmark";
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package app.nzyme.core.periodicals;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class ClusterShardTest {
+
+    @Test
+    public void testEveryKeyHasExactlyOneOwner() {
+        List<UUID> nodes = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        int[] owned = new int[nodes.size()];
+        for (int i = 0; i < 1000; i++) {
+            UUID key = UUID.randomUUID();
+
+            int owners = 0;
+            for (int n = 0; n < nodes.size(); n++) {
+                if (new ClusterShard(nodes.get(n), nodes).owns(key)) {
+                    owners++;
+                    owned[n]++;
+                }
+            }
+
+            assertEquals(owners, 1);
+        }
+
+        for (int count : owned) {
+            assertTrue(count > 100);
+        }
+    }
+
+    @Test
+    public void testSingleNodeOwnsEverything() {
+        UUID node = UUID.randomUUID();
+        ClusterShard shard = new ClusterShard(node, List.of());
+
+        assertEquals(shard.size(), 1);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(shard.owns(UUID.randomUUID()));
+        }
+    }
+
+    @Test
+    public void testOnlyKeysOfRemovedNodeMove() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+
+        ClusterShard before = new ClusterShard(a, List.of(a, b, c));
+        ClusterShard after = new ClusterShard(a, List.of(a, b));
+
+        for (int i = 0; i < 1000; i++) {
+            UUID key = UUID.randomUUID();
+            if (before.owns(key)) {
+                assertTrue(after.owns(key));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package app.nzyme.core.registry;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class RevisionWatermarkTest {
+
+    @Test
+    public void testAdvancesOverContiguousRevisions() {
+        RevisionWatermark watermark = new RevisionWatermark(10, 1000);
+
+        assertTrue(watermark.markProcessed(11));
+        assertTrue(watermark.markProcessed(12));
+        watermark.advance(0);
+
+        assertEquals(watermark.get(), 12);
+        assertFalse(watermark.markProcessed(12));
+    }
+
+    @Test
+    public void testWaitsForGap() {
+        RevisionWatermark watermark = new RevisionWatermark(10, 1000);
+
+        assertTrue(watermark.markProcessed(12));
+        watermark.advance(0);
+        assertEquals(watermark.get(), 10);
+
+        // Already processed revisions above the watermark are not processed again.
+        assertFalse(watermark.markProcessed(12));
+
+        // Late commit closes the gap.
+        assertTrue(watermark.markProcessed(11));
+        watermark.advance(500);
+        assertEquals(watermark.get(), 12);
+    }
+
+    @Test
+    public void testSkipsGapAfterTimeout() {
+        RevisionWatermark watermark = new RevisionWatermark(10, 1000);
+
+        watermark.markProcessed(12);
+        watermark.advance(0);
+        watermark.advance(999);
+        assertEquals(watermark.get(), 10);
+
+        watermark.advance(1000);
+        assertEquals(watermark.get(), 12);
+    }
+
+}
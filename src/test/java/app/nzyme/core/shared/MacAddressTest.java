@@ -0,0 +1,50 @@
+package app.nzyme.core.shared;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class MacAddressTest {
+
+    @Test
+    public void testPack() {
+        assertEquals(MacAddress.pack("18:7C:0B:D7:14:38"), 0x187C0BD71438L);
+        assertEquals(MacAddress.pack("18:7c:0b:d7:14:38"), 0x187C0BD71438L);
+        assertEquals(MacAddress.pack("00:00:00:00:00:00"), 0L);
+        assertEquals(MacAddress.pack("FF:FF:FF:FF:FF:FF"), 0xFFFFFFFFFFFFL);
+    }
+
+    @Test
+    public void testPackInvalid() {
+        assertEquals(MacAddress.pack(null), MacAddress.INVALID);
+        assertEquals(MacAddress.pack(""), MacAddress.INVALID);
+        assertEquals(MacAddress.pack("1x:7c:0b:d7:14:38"), MacAddress.INVALID);
+        assertEquals(MacAddress.pack("18-7C-0B-D7-14-38"), MacAddress.INVALID);
+        assertEquals(MacAddress.pack("18:7C:0B:D7:14:38:14"), MacAddress.INVALID);
+        assertEquals(MacAddress.pack("187C0BD71438"), MacAddress.INVALID);
+    }
+
+    @Test
+    public void testToStringRoundTrip() {
+        assertEquals(MacAddress.parse("18:7c:0b:d7:14:38").toString(), "18:7C:0B:D7:14:38");
+        assertEquals(MacAddress.of(0x00000000000AL).toString(), "00:00:00:00:00:0A");
+        assertEquals(MacAddress.parse("AA:BB:CC:DD:EE:FF"), MacAddress.parse("aa:bb:cc:dd:ee:ff"));
+    }
+
+    @Test
+    public void testOuiAndFlags() {
+        MacAddress mac = MacAddress.parse("18:7C:0B:D7:14:38");
+        assertEquals(mac.oui(), 0x187C0B);
+        assertFalse(mac.isLocallyAdministered());
+        assertFalse(mac.isMulticast());
+
+        assertTrue(MacAddress.parse("DA:A1:19:00:00:01").isLocallyAdministered());
+        assertTrue(MacAddress.parse("01:00:5E:00:00:FB").isMulticast());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalid() {
+        MacAddress.parse("not a mac");
+    }
+
+}
@@ -0,0 +1,220 @@
+package app.nzyme.core.tables;
+
+import app.nzyme.core.NzymeNodeImpl;
+import app.nzyme.core.configuration.base.BaseConfiguration;
+import app.nzyme.core.configuration.node.NodeConfiguration;
+import app.nzyme.core.configuration.node.NodeConfigurationLoader;
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.database.StatementCountingPlugin;
+import app.nzyme.core.rest.authentication.AuthenticatedTap;
+import app.nzyme.core.rest.resources.taps.TablesResource;
+import app.nzyme.core.security.authentication.db.OrganizationEntry;
+import app.nzyme.core.security.authentication.db.TapPermissionEntry;
+import app.nzyme.core.security.authentication.db.TenantEntry;
+import com.google.common.collect.Lists;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end ingest benchmark. Sends synthetic tap reports through TablesResource into the test database and
+ * prints written rows per second, report handling latency and executed database statements per report.
+ *
+ * Usage: IngestHarness [dot11|tcp|dns] [reports] [scale factor]
+ *
+ * Statements are counted by the StatementCountingPlugin. Batches count as one statement. Requires the test database.
+ */
+public class IngestHarness {
+
+    private static final int WARMUP_REPORTS = 5;
+
+    private static final List<String> DOT11_TABLES = List.of(
+            "dot11_bssids", "dot11_ssids", "dot11_ssid_settings", "dot11_fingerprints", "dot11_rates",
+            "dot11_channels", "dot11_channel_histograms", "dot11_infrastructure_types", "dot11_bssid_clients",
+            "dot11_clients", "dot11_client_probereq_ssids", "dot11_disco_activity", "dot11_disco_activity_receivers",
+            "dot11_mac_roles"
+    );
+
+    private static final List<String> TCP_TABLES = List.of("l4_sessions", "l4_statistics", "assets");
+
+    private static final List<String> DNS_TABLES = List.of(
+            "dns_statistics", "dns_pairs", "dns_log", "dns_log_buckets", "dns_entropy_log"
+    );
+
+    public static void main(String[] args) throws Exception {
+        String scenario = args.length > 0 ? args[0] : "dot11";
+        int reports = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int factor = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        NodeConfiguration configuration = new NodeConfigurationLoader(
+                loadFromResourceFile("nzyme-test-complete-valid.conf.test"), false
+        ).get();
+
+        StatementCountingPlugin statementCounter = new StatementCountingPlugin();
+        DatabaseImpl database = new DatabaseImpl(configuration, List.of(statementCounter));
+        database.migrate();
+        database.initialize();
+
+        NzymeNodeImpl nzyme = new NzymeNodeImpl(
+                BaseConfiguration.create("ingest-harness", "test_data_dir"),
+                configuration,
+                database
+        );
+        nzyme.getCrypto().initialize(false);
+        nzyme.getGeoIpService().initialize();
+
+        OrganizationEntry organization = nzyme.getAuthenticationService()
+                .createOrganization("Ingest Harness", "Ingest Harness");
+        TenantEntry tenant = nzyme.getAuthenticationService()
+                .createTenant(organization.uuid(), "Ingest Harness", "Ingest Harness", 60, 60, 5);
+        TapPermissionEntry tap = nzyme.getAuthenticationService().createTap(
+                organization.uuid(),
+                tenant.uuid(),
+                UUID.randomUUID().toString(),
+                "ingest-harness",
+                "Ingest Harness",
+                null,
+                null
+        );
+
+        SecurityContext sc = new TapSecurityContext(
+                new AuthenticatedTap(tap.uuid(), tap.name(), tap.organizationId(), tap.tenantId())
+        );
+
+        TablesResource resource = new TablesResource();
+        Field field = TablesResource.class.getDeclaredField("nzyme");
+        field.setAccessible(true);
+        field.set(resource, nzyme);
+
+        SyntheticReports generator = new SyntheticReports(42, SyntheticReports.Scale.office(factor));
+        ThreadPoolExecutor processorPool = (ThreadPoolExecutor) nzyme.getTablesService().getProcessorPool();
+
+        Supplier<Response> post;
+        List<String> tables;
+        switch (scenario) {
+            case "dot11":
+                post = () -> resource.dot11Summary(sc, UUID.randomUUID().toString(), generator.dot11());
+                tables = DOT11_TABLES;
+                break;
+            case "tcp":
+                post = () -> resource.tcpSessions(sc, UUID.randomUUID().toString(), generator.tcp());
+                tables = TCP_TABLES;
+                break;
+            case "dns":
+                post = () -> resource.dnsSummary(sc, UUID.randomUUID().toString(), generator.dns());
+                tables = DNS_TABLES;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario [" + scenario + "]. Use dot11, tcp or dns.");
+        }
+
+        for (int i = 0; i < WARMUP_REPORTS; i++) {
+            handle(post, processorPool);
+        }
+
+        long rowsBefore = countRows(database, tables);
+        long statementsBefore = statementCounter.getExecutedStatementCount();
+
+        List<Long> latencies = Lists.newArrayList();
+        long started = System.nanoTime();
+        for (int i = 0; i < reports; i++) {
+            latencies.add(handle(post, processorPool));
+        }
+        long took = System.nanoTime() - started;
+
+        long statements = statementCounter.getExecutedStatementCount() - statementsBefore;
+        long rows = countRows(database, tables) - rowsBefore;
+
+        Collections.sort(latencies);
+
+        System.out.printf("Scenario:             %s (scale factor %d)%n", scenario, factor);
+        System.out.printf("Reports:              %d%n", reports);
+        System.out.printf("New rows:             %d (%.1f rows/s)%n", rows, rows / (took / 1_000_000_000.0));
+        System.out.printf("Handling latency p50: %.2fms%n", percentile(latencies, 0.50) / 1_000_000.0);
+        System.out.printf("Handling latency p99: %.2fms%n", percentile(latencies, 0.99) / 1_000_000.0);
+        System.out.printf("Statements/report:    %.1f%n", statements / (double) reports);
+
+        System.exit(0);
+    }
+
+    /**
+     * Posts a report and waits until asynchronous processing in the report processor pool finished.
+     */
+    private static long handle(Supplier<Response> post, ThreadPoolExecutor processorPool) throws InterruptedException {
+        long start = System.nanoTime();
+
+        Response response = post.get();
+        if (response.getStatus() != Response.Status.CREATED.getStatusCode()) {
+            throw new IllegalStateException("Report was rejected with HTTP <" + response.getStatus() + ">.");
+        }
+
+        while (processorPool.getCompletedTaskCount() < processorPool.getTaskCount()) {
+            Thread.sleep(1);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static long countRows(DatabaseImpl database, List<String> tables) {
+        return database.withHandle(handle -> {
+            long total = 0;
+            for (String table : tables) {
+                total += handle.createQuery("SELECT COUNT(*) FROM " + table).mapTo(Long.class).one();
+            }
+            return total;
+        });
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    private static File loadFromResourceFile(String name) {
+        URL resource = IngestHarness.class.getClassLoader().getResource(name);
+        if (resource == null) {
+            throw new RuntimeException("Test config file [" + name + "] does not exist in resources.");
+        }
+
+        return new File(resource.getFile());
+    }
+
+    private static final class TapSecurityContext implements SecurityContext {
+
+        private final AuthenticatedTap tap;
+
+        TapSecurityContext(AuthenticatedTap tap) {
+            this.tap = tap;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return tap;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return false;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return true;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return "Bearer";
+        }
+
+    }
+
+}
@@ -0,0 +1,298 @@
+package app.nzyme.core.tables;
+
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsEntropyLogReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsIpStatisticsReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsLogReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DnsTablesReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.rest.resources.taps.reports.tables.tcp.TcpSessionReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.tcp.TcpSessionsReport;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates tap table reports that look like what a busy tap sends. The same seed and scale always generate the
+ * same MAC addresses, SSIDs and addresses, so consecutive reports update existing rows like in production.
+ */
+public class SyntheticReports {
+
+    private static final String[] SSID_WORDS = {
+            "Guest", "Corp", "Office", "Home", "WiFi", "Net", "IoT", "Lab", "Cafe", "Printer", "5G", "Secure"
+    };
+
+    private static final String[] DOMAINS = {
+            "example.com", "example.org", "nzyme.org", "cdn.example.net", "api.example.com", "mail.example.org"
+    };
+
+    private static final String[] DNS_TYPES = {"A", "AAAA", "CNAME", "TXT", "MX"};
+
+    private final Random random;
+    private final Scale scale;
+
+    private final List<String> bssids;
+    private final List<List<String>> bssidSSIDs;
+    private final List<String> clients;
+    private final List<String> hosts;
+
+    public SyntheticReports(long seed, Scale scale) {
+        this.random = new Random(seed);
+        this.scale = scale;
+
+        this.bssids = Lists.newArrayList();
+        this.bssidSSIDs = Lists.newArrayList();
+        for (int i = 0; i < scale.bssids(); i++) {
+            bssids.add(mac());
+
+            List<String> ssids = Lists.newArrayList();
+            for (int j = 0; j < scale.ssidsPerBSSID(); j++) {
+                ssids.add(SSID_WORDS[random.nextInt(SSID_WORDS.length)] + " "
+                        + SSID_WORDS[random.nextInt(SSID_WORDS.length)] + " " + i + "-" + j);
+            }
+            bssidSSIDs.add(ssids);
+        }
+
+        this.clients = Lists.newArrayList();
+        for (int i = 0; i < scale.clients(); i++) {
+            clients.add(mac());
+        }
+
+        this.hosts = Lists.newArrayList();
+        for (int i = 0; i < Math.max(2, scale.tcpSessions() / 4); i++) {
+            hosts.add("10." + random.nextInt(256) + "." + random.nextInt(256) + "." + (1 + random.nextInt(254)));
+        }
+    }
+
+    public Dot11TablesReport dot11() {
+        Map<String, Dot11BSSIDReport> bssidReports = Maps.newHashMap();
+        for (int i = 0; i < bssids.size(); i++) {
+            Map<String, Dot11AdvertisedNetworkReport> advertisedNetworks = Maps.newHashMap();
+            for (String ssid : bssidSSIDs.get(i)) {
+                advertisedNetworks.put(ssid, advertisedNetwork());
+            }
+
+            Map<String, Dot11ClientStatisticsReport> bssidClients = Maps.newHashMap();
+            for (int j = 0; j < Math.min(clients.size(), 4); j++) {
+                bssidClients.put(clients.get(random.nextInt(clients.size())), Dot11ClientStatisticsReport.create(
+                        random.nextInt(500), random.nextInt(500_000),
+                        random.nextInt(500), random.nextInt(500_000),
+                        signalStrength()
+                ));
+            }
+
+            bssidReports.put(bssids.get(i), Dot11BSSIDReport.create(
+                    advertisedNetworks,
+                    bssidClients,
+                    0,
+                    signalStrength(),
+                    List.of(fingerprint())
+            ));
+        }
+
+        Map<String, Dot11ClientReport> clientReports = Maps.newHashMap();
+        for (String client : clients) {
+            Map<String, Long> probeRequests = Maps.newHashMap();
+            if (random.nextBoolean()) {
+                List<String> ssids = bssidSSIDs.get(random.nextInt(bssidSSIDs.size()));
+                probeRequests.put(ssids.get(random.nextInt(ssids.size())), (long) (1 + random.nextInt(20)));
+            }
+
+            clientReports.put(client, Dot11ClientReport.create(probeRequests, random.nextInt(10), signalStrength()));
+        }
+
+        Map<String, Dot11DiscoTransmitterReport> deauthentication = Maps.newHashMap();
+        for (int i = 0; i < Math.max(1, bssids.size() / 10); i++) {
+            String bssid = bssids.get(random.nextInt(bssids.size()));
+            deauthentication.put(bssid, Dot11DiscoTransmitterReport.create(
+                    bssid,
+                    1 + random.nextInt(50),
+                    Map.of(clients.get(random.nextInt(clients.size())), (long) (1 + random.nextInt(50)))
+            ));
+        }
+
+        return Dot11TablesReport.create(
+                bssidReports,
+                clientReports,
+                Dot11DiscoReport.create(deauthentication, Maps.newHashMap()),
+                List.of()
+        );
+    }
+
+    public TcpSessionsReport tcp() {
+        DateTime now = DateTime.now();
+
+        List<TcpSessionReport> sessions = Lists.newArrayList();
+        for (int i = 0; i < scale.tcpSessions(); i++) {
+            long rx = random.nextInt(100_000);
+            long tx = random.nextInt(100_000);
+            boolean closed = random.nextInt(4) == 0;
+
+            sessions.add(TcpSessionReport.create(
+                    closed ? "CLOSEDFIN" : "ESTABLISHED",
+                    clients.get(random.nextInt(clients.size())),
+                    bssids.get(random.nextInt(bssids.size())),
+                    hosts.get(random.nextInt(hosts.size())),
+                    32768 + random.nextInt(28000),
+                    hosts.get(random.nextInt(hosts.size())),
+                    random.nextBoolean() ? 443 : 80,
+                    now.minusSeconds(random.nextInt(300)),
+                    closed ? now : null,
+                    now,
+                    random.nextInt(200),
+                    random.nextInt(20),
+                    rx,
+                    tx,
+                    rx / 10,
+                    tx / 10,
+                    64,
+                    0,
+                    true,
+                    false,
+                    false,
+                    64240,
+                    1460,
+                    7,
+                    List.of(2, 4, 8, 1, 3),
+                    List.of()
+            ));
+        }
+
+        return TcpSessionsReport.create(sessions);
+    }
+
+    public DnsTablesReport dns() {
+        DateTime now = DateTime.now();
+
+        Map<String, DnsIpStatisticsReport> ips = Maps.newHashMap();
+        for (int i = 0; i < Math.min(hosts.size(), 16); i++) {
+            ips.put(hosts.get(i), DnsIpStatisticsReport.create(
+                    (long) random.nextInt(100), (long) random.nextInt(10_000),
+                    (long) random.nextInt(100), (long) random.nextInt(10_000),
+                    (long) random.nextInt(5)
+            ));
+        }
+
+        List<DnsLogReport> queries = Lists.newArrayList();
+        List<DnsLogReport> responses = Lists.newArrayList();
+        List<DnsEntropyLogReport> entropyLog = Lists.newArrayList();
+        for (int i = 0; i < scale.dnsQueries(); i++) {
+            int transactionId = random.nextInt(65536);
+            String client = hosts.get(random.nextInt(hosts.size()));
+            String server = hosts.get(random.nextInt(hosts.size()));
+            String clientMac = clients.get(random.nextInt(clients.size()));
+            String serverMac = bssids.get(random.nextInt(bssids.size()));
+            String etld = DOMAINS[random.nextInt(DOMAINS.length)];
+            String type = DNS_TYPES[random.nextInt(DNS_TYPES.length)];
+            int clientPort = 32768 + random.nextInt(28000);
+
+            queries.add(DnsLogReport.create(transactionId, client, server, clientMac, serverMac,
+                    clientPort, 53, "host" + random.nextInt(50) + "." + etld, etld, type, now));
+            responses.add(DnsLogReport.create(transactionId, server, client, serverMac, clientMac,
+                    53, clientPort, hosts.get(random.nextInt(hosts.size())), null, type, now));
+
+            if (random.nextInt(50) == 0) {
+                entropyLog.add(DnsEntropyLogReport.create(transactionId, 4.2F, 3.1F, 2.9F, now));
+            }
+        }
+
+        return DnsTablesReport.create(ips, entropyLog, queries, responses);
+    }
+
+    private Dot11AdvertisedNetworkReport advertisedNetwork() {
+        Map<Long, Map<Long, Long>> signalHistogram = Maps.newHashMap();
+        Map<Long, Long> frequencyHistogram = Maps.newHashMap();
+        for (int i = 0; i < 5; i++) {
+            frequencyHistogram.put((long) (-40 - random.nextInt(40)), (long) (1 + random.nextInt(100)));
+        }
+        long frequency = random.nextBoolean() ? 2412 : 5180;
+        signalHistogram.put(frequency, frequencyHistogram);
+
+        return Dot11AdvertisedNetworkReport.create(
+                List.of(Dot11SecurityInformationReport.create(
+                        List.of("WPA2"),
+                        Dot11CipherSuitesReport.create("CCMP", List.of("CCMP"), List.of("PSK")),
+                        "Optional"
+                )),
+                List.of(fingerprint()),
+                List.of(6.0F, 12.0F, 24.0F, 54.0F),
+                List.of(false),
+                signalStrength(),
+                signalHistogram,
+                List.of("AccessPoint"),
+                Map.of(frequency, Map.of(
+                        "beacon", Dot11ChannelStatisticsReport.create(random.nextInt(100_000), random.nextInt(600)),
+                        "proberesp", Dot11ChannelStatisticsReport.create(random.nextInt(10_000), random.nextInt(60))
+                )),
+                random.nextInt(600),
+                random.nextInt(60)
+        );
+    }
+
+    private Dot11SignalStrengthReport signalStrength() {
+        int min = -90 + random.nextInt(30);
+        int max = min + random.nextInt(20);
+        return Dot11SignalStrengthReport.create(min, max, (min + max) / 2.0F);
+    }
+
+    private String fingerprint() {
+        // Few distinct fingerprints, like a fleet of identical access points.
+        return String.format("%064x", random.nextInt(8));
+    }
+
+    private String mac() {
+        byte[] mac = new byte[6];
+        random.nextBytes(mac);
+
+        return String.format("%02X:%02X:%02X:%02X:%02X:%02X", mac[0], mac[1], mac[2], mac[3], mac[4], mac[5]);
+    }
+
+    public static final class Scale {
+
+        private final int bssids;
+        private final int ssidsPerBSSID;
+        private final int clients;
+        private final int tcpSessions;
+        private final int dnsQueries;
+
+        public Scale(int bssids, int ssidsPerBSSID, int clients, int tcpSessions, int dnsQueries) {
+            this.bssids = bssids;
+            this.ssidsPerBSSID = ssidsPerBSSID;
+            this.clients = clients;
+            this.tcpSessions = tcpSessions;
+            this.dnsQueries = dnsQueries;
+        }
+
+        /**
+         * A tap in a busy office building, multiplied by a factor.
+         */
+        public static Scale office(int factor) {
+            return new Scale(100 * factor, 2, 250 * factor, 200 * factor, 500 * factor);
+        }
+
+        public int bssids() {
+            return bssids;
+        }
+
+        public int ssidsPerBSSID() {
+            return ssidsPerBSSID;
+        }
+
+        public int clients() {
+            return clients;
+        }
+
+        public int tcpSessions() {
+            return tcpSessions;
+        }
+
+        public int dnsQueries() {
+            return dnsQueries;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package app.nzyme.core.tables;
+
+import app.nzyme.core.MockNzyme;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class TablesServiceTest {
+
+    @Test
+    public void testResubmittedReportIsSkipped() {
+        TablesService tables = new TablesService(new MockNzyme());
+        UUID tapUuid = UUID.randomUUID();
+        String reportId = UUID.randomUUID().toString();
+
+        AtomicInteger writes = new AtomicInteger(0);
+        AtomicInteger alerts = new AtomicInteger(0);
+        TablesService.ReportWriter writer = (handle, afterCommit) -> {
+            writes.incrementAndGet();
+            afterCommit.add(alerts::incrementAndGet);
+        };
+
+        assertTrue(tables.writeReport(tapUuid, "dot11", reportId, writer));
+        assertEquals(writes.get(), 1);
+        assertEquals(alerts.get(), 1);
+
+        assertFalse(tables.writeReport(tapUuid, "dot11", reportId, writer));
+        assertEquals(writes.get(), 1);
+        assertEquals(alerts.get(), 1);
+
+        // Same ID in another table is a different report.
+        assertTrue(tables.writeReport(tapUuid, "tcp", reportId, writer));
+        assertEquals(writes.get(), 2);
+        assertEquals(alerts.get(), 2);
+    }
+
+    @Test
+    public void testRolledBackReportRunsNoAfterCommitActions() {
+        TablesService tables = new TablesService(new MockNzyme());
+        UUID tapUuid = UUID.randomUUID();
+        String reportId = UUID.randomUUID().toString();
+
+        AtomicInteger alerts = new AtomicInteger(0);
+        try {
+            tables.writeReport(tapUuid, "dot11", reportId, (handle, afterCommit) -> {
+                afterCommit.add(alerts::incrementAndGet);
+                throw new RuntimeException("Write failed.");
+            });
+            fail("Expected the failed write to be rethrown.");
+        } catch (RuntimeException ignored) {
+        }
+
+        assertEquals(alerts.get(), 0);
+
+        // The report ID was rolled back with the report, so the tap can resubmit it.
+        assertTrue(tables.writeReport(tapUuid, "dot11", reportId, (handle, afterCommit) ->
+                afterCommit.add(alerts::incrementAndGet)));
+        assertEquals(alerts.get(), 1);
+    }
+
+}
@@ -0,0 +1,69 @@
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.util.Tools;
+import info.debatty.java.stringsimilarity.JaroWinkler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-SSID helpers of 802.11 ingest: sanitizing advertised SSIDs and comparing them to all monitored SSIDs of
+ * a tenant for the similar looking SSID detection. Run with main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSIDProcessingBenchmark {
+
+    private static final String PRINTABLE_SSID = "Guest WiFi 5GHz - Floor 3";
+    private static final String NON_PRINTABLE_SSID = "Guest\u0000WiFi\u0007 5GHz\u001F - Floor\u0000 3";
+
+    @Param({"5", "50"})
+    public int monitoredSSIDCount;
+
+    private String[] monitoredSSIDs;
+    private JaroWinkler jaroWinkler;
+
+    @Setup
+    public void setup() {
+        monitoredSSIDs = new String[monitoredSSIDCount];
+        for (int i = 0; i < monitoredSSIDCount; i++) {
+            monitoredSSIDs[i] = ("Corporate Network " + i).toLowerCase();
+        }
+
+        jaroWinkler = new JaroWinkler();
+    }
+
+    @Benchmark
+    public String sanitizePrintableSSID() {
+        return Tools.sanitizeSSID(PRINTABLE_SSID);
+    }
+
+    @Benchmark
+    public String sanitizeNonPrintableSSID() {
+        return Tools.sanitizeSSID(NON_PRINTABLE_SSID);
+    }
+
+    @Benchmark
+    public void similarityToMonitoredSSIDs(Blackhole bh) {
+        String ssid = PRINTABLE_SSID.toLowerCase();
+        for (String monitoredSSID : monitoredSSIDs) {
+            bh.consume(jaroWinkler.similarity(monitoredSSID, ssid) * 100.0 > 90);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SSIDProcessingBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+}
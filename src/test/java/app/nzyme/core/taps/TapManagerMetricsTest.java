@@ -0,0 +1,44 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.monitoring.timeseries.MetricsBatch;
+import app.nzyme.core.monitoring.timeseries.TimerValues;
+import app.nzyme.core.taps.db.metrics.TapMetricsGauge;
+import app.nzyme.core.taps.db.metrics.TapMetricsTimer;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class TapManagerMetricsTest {
+
+    @Test
+    public void testMetricsOfTapReportingToOtherNode() {
+        NzymeNode nodeA = new MockNzyme();
+        NzymeNode nodeB = new MockNzyme();
+        UUID tapUuid = UUID.randomUUID();
+
+        nodeA.getMetricsStore().writeTapMetrics(tapUuid, new MetricsBatch(DateTime.now())
+                .gauge("cpu_load", 42.0)
+                .timer("report_processing", TimerValues.meanAndP99(1.5, 9.0)));
+
+        // Node B never received a report of this tap and has to read the metrics from the database.
+        TapManager tapManager = new TapManager(nodeB);
+
+        List<TapMetricsGauge> gauges = tapManager.findGaugesOfTap(tapUuid);
+        assertEquals(gauges.size(), 1);
+        assertEquals(gauges.get(0).metricName(), "cpu_load");
+        assertEquals((double) gauges.get(0).metricValue(), 42.0);
+
+        List<TapMetricsTimer> timers = tapManager.findTimersOfTap(tapUuid);
+        assertEquals(timers.size(), 1);
+        assertEquals(timers.get(0).metricName(), "report_processing");
+        assertEquals((double) timers.get(0).mean(), 1.5);
+        assertEquals((double) timers.get(0).p99(), 9.0);
+    }
+
+}
@@ -0,0 +1,131 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.rest.resources.taps.reports.CapturesReport;
+import app.nzyme.core.rest.resources.taps.reports.StatusReport;
+import app.nzyme.core.rest.resources.taps.reports.SystemMetrics;
+import app.nzyme.core.rest.resources.taps.reports.TotalWithAverage;
+import app.nzyme.core.security.authentication.db.OrganizationEntry;
+import app.nzyme.core.security.authentication.db.TenantEntry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class TapStatusWriterTest {
+
+    @BeforeMethod
+    public void clean() {
+        NzymeNode nzyme = new MockNzyme();
+
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM tap_captures").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM taps").execute());
+    }
+
+    private static UUID buildTap(NzymeNode nzyme) {
+        OrganizationEntry org = nzyme.getAuthenticationService()
+                .createOrganization("test org", "test org");
+
+        TenantEntry tenant = nzyme.getAuthenticationService()
+                .createTenant(org.uuid(), "test tenant", "test tenant", 720, 15, 5);
+
+        return nzyme.getAuthenticationService()
+                .createTap(org.uuid(), tenant.uuid(), RandomStringUtils.random(64, true, true),
+                        "test tap", "test tap", null, null)
+                .uuid();
+    }
+
+    private static StatusReport emptyReport() {
+        return report(Collections.emptyList());
+    }
+
+    private static StatusReport report(List<CapturesReport> captures) {
+        return StatusReport.create(
+                "0.0.0",
+                DateTime.now(),
+                TotalWithAverage.create(0L, 0L),
+                captures,
+                SystemMetrics.create(0.0, Collections.emptyMap(), 0L, 0L, null),
+                Collections.emptyList(),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyList(),
+                Collections.emptyMap(),
+                null
+        );
+    }
+
+    @Test
+    public void testFirstReportWithoutCapturesOrBuses() {
+        NzymeNode nzyme = new MockNzyme();
+        TapStatusWriter writer = new TapStatusWriter(nzyme);
+        UUID tapUuid = UUID.randomUUID();
+
+        writer.write(tapUuid, emptyReport());
+        writer.write(tapUuid, emptyReport());
+        writer.flush();
+
+        long captures = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM tap_captures WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUuid)
+                        .mapTo(Long.class)
+                        .one());
+        assertEquals(captures, 0L);
+    }
+
+    @Test
+    public void testFlushWritesCaptureStateAndCounters() {
+        NzymeNode nzyme = new MockNzyme();
+        UUID tapUuid = buildTap(nzyme);
+
+        // Two writers with their own in-memory state, like two nodes that the tap reports through.
+        TapStatusWriter nodeA = new TapStatusWriter(nzyme);
+        TapStatusWriter nodeB = new TapStatusWriter(nzyme);
+
+        nodeA.write(tapUuid, report(List.of(CapturesReport.create("wifi", "wlan0", true, 10L, 1L, 2L))));
+        assertCapture(nzyme, tapUuid, "wifi", true, 10L);
+
+        nodeB.write(tapUuid, report(List.of(CapturesReport.create("wifi", "wlan0", false, 20L, 1L, 2L))));
+        assertCapture(nzyme, tapUuid, "wifi", false, 20L);
+
+        // Unchanged for node A, but the capture was stopped through node B in the meantime.
+        nodeA.write(tapUuid, report(List.of(CapturesReport.create("wifi", "wlan0", true, 30L, 3L, 4L))));
+        assertCapture(nzyme, tapUuid, "wifi", false, 20L);
+
+        nodeA.flush();
+        assertCapture(nzyme, tapUuid, "wifi", true, 30L);
+
+        long droppedBuffer = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT dropped_buffer FROM tap_captures WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUuid)
+                        .mapTo(Long.class)
+                        .one());
+        assertEquals(droppedBuffer, 3L);
+    }
+
+    private static void assertCapture(NzymeNode nzyme, UUID tapUuid, String captureType, boolean isRunning, long received) {
+        List<Object[]> rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT capture_type, is_running, received FROM tap_captures " +
+                                "WHERE tap_uuid = :tap_uuid AND interface = 'wlan0'")
+                        .bind("tap_uuid", tapUuid)
+                        .map((rs, ctx) -> new Object[]{
+                                rs.getString("capture_type"), rs.getBoolean("is_running"), rs.getLong("received")
+                        })
+                        .list());
+
+        assertEquals(rows.size(), 1);
+        assertEquals(rows.get(0)[0], captureType);
+        assertEquals(rows.get(0)[1], isRunning);
+        assertEquals(rows.get(0)[2], received);
+    }
+
+}
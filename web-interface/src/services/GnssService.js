@@ -10,6 +10,15 @@ export default class GnssService {
     )
   }
 
+  getConstellationCoordinatesDensity(constellation, timeRange, zoom, taps, setDensity) {
+    const tapsList = Array.isArray(taps) ? taps.join(",") : (taps === "*" ? "*" : null)
+
+    RESTClient.get(`/gnss/constellations/${constellation}/coordinates/density`,
+      { time_range: timeRange, zoom: zoom, taps: tapsList },
+      (response) => setDensity(response.data)
+    )
+  }
+
   getPdopHistogram(timeRange, taps, setHistogram) {
     const tapsList = Array.isArray(taps) ? taps.join(",") : (taps === "*" ? "*" : null)
 